@@ -3,7 +3,6 @@ package com.nesemu;
 import java.nio.file.*;
 import java.util.EnumSet;
 import java.util.Locale;
-import com.nesemu.bus.Bus;
 import com.nesemu.emulator.NesEmulator;
 import com.nesemu.util.Log;
 import static com.nesemu.util.Log.Cat.*;
@@ -16,8 +15,10 @@ import com.nesemu.input.GamepadPoller;
 import com.nesemu.config.AppOptions;
 import com.nesemu.config.CLIOptionsParser;
 import com.nesemu.config.ConfigUtils;
+import com.nesemu.config.EmulatorConfigurator;
 import com.nesemu.config.UserConfig;
 import com.nesemu.rom.RomLoader;
+import com.nesemu.rom.RomIndex;
 import com.nesemu.io.NesController;
 import com.nesemu.ppu.PPU;
 import com.nesemu.audio.AudioPlayer;
@@ -60,10 +61,17 @@ public class Main {
                 }
             } else {
                 Path rp = Path.of(applicationOptions.romPath);
+                if (applicationOptions.romSelect != null && (applicationOptions.gui || !Files.isDirectory(rp)))
+                    Log.warn(ROM, "--rom-select=%s ignorado: só vale em headless com rom= apontando para diretório (%s)",
+                            applicationOptions.romSelect, rp);
                 if (Files.isDirectory(rp)) {
                     if (applicationOptions.gui) {
                         Log.info(ROM, "INI rom aponta para diretório: %s (GUI usará como pasta inicial)", rp);
                         romFilePath = null;
+                    } else if (applicationOptions.romSelect != null) {
+                        romFilePath = selectFromIndex(rp, applicationOptions);
+                        if (romFilePath == null)
+                            return;
                     } else {
                         try {
                             var opt = Files.list(rp)
@@ -108,8 +116,8 @@ public class Main {
             }
             if (romFilePath != null) {
                 Log.info(ROM, "Carregando ROM: %s", romFilePath.toAbsolutePath());
-                context.rom = RomLoader.load(romFilePath);
-                context.romPath = romFilePath;
+                context.setRom(RomLoader.load(romFilePath));
+                context.setRomPath(romFilePath);
                 Path saveDir = null;
                 if (applicationOptions.savePathOverride != null) {
                     try {
@@ -118,29 +126,26 @@ public class Main {
                     }
                 }
                 if (saveDir != null) {
-                    context.emulator = new NesEmulator(context.rom, romFilePath, saveDir);
-                    // Start audio
-                    try {
-                        context.audio = new AudioPlayer((com.nesemu.apu.APU) context.emulator.getApu(), 44100);
-                        context.audio.start();
-                    } catch (Exception e) {
-                        Log.warn(GENERAL, "Audio init falhou: %s", e.getMessage());
-                    }
+                    context.setEmulator(new NesEmulator(context.getRom(), romFilePath, saveDir));
                     Log.info(GENERAL, "save-path override: %s", saveDir.toAbsolutePath());
                 } else {
-                    context.emulator = new NesEmulator(context.rom, romFilePath);
+                    context.setEmulator(new NesEmulator(context.getRom(), romFilePath));
+                }
+                // Start audio (GUI only: headless never loads javax.sound)
+                if (applicationOptions.gui) {
                     try {
-                        context.audio = new AudioPlayer((com.nesemu.apu.APU) context.emulator.getApu(), 44100);
-                        context.audio.start();
+                        context.setAudio(new AudioPlayer((com.nesemu.apu.APU) context.getEmulator().getApu(), 44100));
+                        context.getAudio().start();
                     } catch (Exception e) {
                         Log.warn(GENERAL, "Audio init falhou: %s", e.getMessage());
                     }
                 }
             } else if (applicationOptions.gui) {
-                context.emulator = NesEmulator.createBlackScreenInstance();
+                context.setEmulator(NesEmulator.createBlackScreenInstance());
             }
         }
 
+        final NesEmulator emu = context.getEmulator();
         if (!patternStandalone) {
             // Agora que 'emu' existe, anexar controllers (se config carregada)
             try {
@@ -184,6 +189,9 @@ public class Main {
                         if (v >= 0.0f && v <= 1.0f) crtAlpha = v;
                     } catch (NumberFormatException ignore) {}
                 }
+                // Video scaler: java2d (drawImage scaling) | software (FramePipeline)
+                String scalerOpt = cfgForPads.getOption("video-scaler");
+                boolean softwareScaler = scalerOpt != null && scalerOpt.trim().equalsIgnoreCase("software");
                 final boolean slEnabledFinal = scanlinesEnabled;
                 final float slAlphaFinal = (float) scanlinesAlpha;
                 final boolean crtModeFinal = crtMode;
@@ -194,20 +202,21 @@ public class Main {
                 System.setProperty("r2nes.scanlines.alpha", String.valueOf(slAlphaFinal));
                 System.setProperty("r2nes.crt.mode", String.valueOf(crtModeFinal));
                 System.setProperty("r2nes.crt.alpha", String.valueOf(crtAlphaFinal));
-                if (context.emulator != null)
-                    context.emulator.getBus().attachControllers(pad1, pad2);
+                System.setProperty("r2nes.video.software", String.valueOf(softwareScaler));
+                if (emu != null)
+                    emu.getBus().attachControllers(pad1, pad2);
                 controllerPad1 = pad1;
                 controllerPad2 = pad2;
 
                 // Optional: start LWJGL gamepad poller when enabled in emulator.ini
-                // (gamepad=true)
+                // (gamepad=true). Headless runs skip it so GLFW/LWJGL never loads.
                 boolean gamepadEnabled = false;
                 String gamepadOpt = cfgForPads.getOption("gamepad");
                 if (gamepadOpt != null && gamepadOpt.equalsIgnoreCase("true"))
                     gamepadEnabled = true;
-                if (gamepadEnabled) {
+                if (gamepadEnabled && applicationOptions.gui) {
                     try {
-                        gamepadPoller = new GamepadPoller(controllerPad1);
+                        gamepadPoller = new GamepadPoller(controllerPad1, controllerPad2);
                         gamepadPoller.start();
                         Log.info(CONTROLLER, "Gamepad (GLFW/LWJGL) iniciado");
                     } catch (Throwable t) {
@@ -219,13 +228,8 @@ public class Main {
             }
         }
         // Aplicar política de verbosidade
-        if (applicationOptions.quiet) {
-            com.nesemu.ppu.PPU.setVerboseLogging(false);
-            Bus.setGlobalVerbose(false);
-        } else if (applicationOptions.verboseFlag != null && applicationOptions.verboseFlag) {
-            com.nesemu.ppu.PPU.setVerboseLogging(true);
-            Bus.setGlobalVerbose(true);
-        }
+        EmulatorConfigurator.applyVerbosity(emu, applicationOptions.quiet,
+                applicationOptions.verboseFlag);
         // Configurar nível de log se fornecido
         if (applicationOptions.logLevelOpt != null) {
             try {
@@ -266,7 +270,7 @@ public class Main {
         }
         if (!patternStandalone) {
             if (applicationOptions.tileMatrixMode != null) {
-                context.emulator.getPpu().setTileMatrixMode(applicationOptions.tileMatrixMode);
+                emu.getPpu().setTileMatrixMode(applicationOptions.tileMatrixMode);
                 Log.info(PPU, "Tile matrix mode: %s", applicationOptions.tileMatrixMode);
             }
         }
@@ -274,101 +278,101 @@ public class Main {
         // 'center'
         if (!patternStandalone) {
             if (applicationOptions.pipeLogLimit > 0 && applicationOptions.tileMatrixMode == null) {
-                context.emulator.getPpu().setTileMatrixMode("center");
+                emu.getPpu().setTileMatrixMode("center");
                 Log.debug(PPU, "PIPE-LOG ajustando tileMatrixMode=center");
             }
             if (applicationOptions.pipeLogLimit > 0) {
-                context.emulator.getPpu().enablePipelineLog(applicationOptions.pipeLogLimit);
+                emu.getPpu().enablePipelineLog(applicationOptions.pipeLogLimit);
                 Log.info(PPU, "PIPE-LOG habilitado limite=%d", applicationOptions.pipeLogLimit);
             }
         }
         if (!patternStandalone) {
             if (applicationOptions.dbgBgSample > 0) {
                 if (applicationOptions.dbgBgAll)
-                    context.emulator.getPpu().enableBackgroundSampleDebugAll(applicationOptions.dbgBgSample);
+                    emu.getPpu().enableBackgroundSampleDebugAll(applicationOptions.dbgBgSample);
                 else
-                    context.emulator.getPpu().enableBackgroundSampleDebug(applicationOptions.dbgBgSample);
+                    emu.getPpu().enableBackgroundSampleDebug(applicationOptions.dbgBgSample);
             }
         }
         if (!patternStandalone) {
             if (applicationOptions.timingSimple) {
-                context.emulator.getPpu().setSimpleTiming(true);
+                emu.getPpu().setSimpleTiming(true);
             }
             if (applicationOptions.timingModeOpt != null) {
                 if (applicationOptions.timingModeOpt.equals("interleaved")) {
-                    context.emulator.setTimingMode(NesEmulator.TimingMode.INTERLEAVED);
+                    emu.setTimingMode(NesEmulator.TimingMode.INTERLEAVED);
                 } else {
-                    context.emulator.setTimingMode(NesEmulator.TimingMode.SIMPLE);
+                    emu.setTimingMode(NesEmulator.TimingMode.SIMPLE);
                 }
                 Log.info(GENERAL, "Timing mode: %s", applicationOptions.timingModeOpt);
             }
             if (applicationOptions.spinWatchThreshold > 0) {
-                context.emulator.enableSpinWatch(applicationOptions.spinWatchThreshold);
+                emu.enableSpinWatch(applicationOptions.spinWatchThreshold);
                 Log.info(GENERAL, "Spin watch ativo: threshold=%d", applicationOptions.spinWatchThreshold);
                 if (applicationOptions.spinDumpBytes > 0) {
-                    context.emulator.setSpinDumpBytes(applicationOptions.spinDumpBytes);
+                    emu.setSpinDumpBytes(applicationOptions.spinDumpBytes);
                     Log.info(GENERAL, "Spin dump bytes=%d", applicationOptions.spinDumpBytes);
                 }
             }
             if (applicationOptions.mmc1LogLimit > 0
-                    && context.emulator.getMapper() instanceof com.nesemu.mapper.Mapper1 m1) {
+                    && emu.getMapper() instanceof com.nesemu.mapper.Mapper1 m1) {
                 m1.enableBankLogging(applicationOptions.mmc1LogLimit);
                 Log.info(GENERAL, "MMC1 logging ativo (limite=%d)", applicationOptions.mmc1LogLimit);
             }
         }
         if (!patternStandalone) {
             if (applicationOptions.forceBg) {
-                context.emulator.getPpu().setForceBackgroundEnable(true);
+                emu.getPpu().setForceBackgroundEnable(true);
                 Log.info(PPU, "FORCE-BG bit3 PPUMASK");
             }
         }
         // Test pattern: se standalone, aplicaremos em PPU isolada depois
         if (!patternStandalone) {
             if (applicationOptions.testPattern != null) {
-                context.emulator.getPpu().setTestPatternMode(applicationOptions.testPattern);
+                emu.getPpu().setTestPatternMode(applicationOptions.testPattern);
                 Log.info(PPU, "TEST-PATTERN modo=%s", applicationOptions.testPattern);
             }
         }
         if (!patternStandalone) {
             if (applicationOptions.unlimitedSprites != null) {
-                context.emulator.getPpu().setUnlimitedSprites(applicationOptions.unlimitedSprites);
+                emu.getPpu().setUnlimitedSprites(applicationOptions.unlimitedSprites);
                 Log.info(PPU, "Unlimited sprites: %s", applicationOptions.unlimitedSprites ? "ON" : "OFF");
             }
             if (applicationOptions.spriteYMode != null) {
                 boolean hw = applicationOptions.spriteYMode.equals("hardware");
-                context.emulator.getPpu().setSpriteYHardware(hw);
+                emu.getPpu().setSpriteYHardware(hw);
                 Log.info(PPU, "Sprite Y mode: %s", hw ? "HARDWARE(+1)" : "TEST(EXACT)");
             }
             if (applicationOptions.forceSprite0Hit) {
-                context.emulator.getPpu().setForceSprite0Hit(true);
+                emu.getPpu().setForceSprite0Hit(true);
                 Log.warn(PPU, "[DEBUG] Force sprite0 hit habilitado");
             }
         }
         if (!patternStandalone) {
             if (applicationOptions.logAttrLimit > 0) {
-                context.emulator.getPpu().enableAttributeRuntimeLog(applicationOptions.logAttrLimit);
+                emu.getPpu().enableAttributeRuntimeLog(applicationOptions.logAttrLimit);
             }
             if (applicationOptions.logNtLimit > 0) {
-                context.emulator.getPpu().enableNametableRuntimeLog(applicationOptions.logNtLimit,
+                emu.getPpu().enableNametableRuntimeLog(applicationOptions.logNtLimit,
                         applicationOptions.ntBaseline == null ? -1 : applicationOptions.ntBaseline);
             }
             if (applicationOptions.paletteLogLimit > 0) {
-                context.emulator.getPpu().enablePaletteWriteLog(applicationOptions.paletteLogLimit);
+                emu.getPpu().enablePaletteWriteLog(applicationOptions.paletteLogLimit);
             }
         }
         if (!patternStandalone) {
             if (applicationOptions.initScroll) {
-                context.emulator.getBus().write(0x2000, 0x10);
-                context.emulator.getBus().write(0x2005, 0x00);
-                context.emulator.getBus().write(0x2005, 0x00);
-                context.emulator.getBus().write(0x2006, 0x20);
-                context.emulator.getBus().write(0x2006, 0x00);
+                emu.getBus().write(0x2000, 0x10);
+                emu.getBus().write(0x2005, 0x00);
+                emu.getBus().write(0x2005, 0x00);
+                emu.getBus().write(0x2006, 0x20);
+                emu.getBus().write(0x2006, 0x00);
                 Log.debug(PPU, "INIT-SCROLL VRAM inicializada nametable0 pattern $1000");
             }
         }
         if (!patternStandalone) {
             if (applicationOptions.showHeader) {
-                var h = context.rom.getHeader();
+                var h = context.getRom().getHeader();
                 Log.info(ROM, "Header: PRG=%d x16KB (%d bytes) CHR=%d x8KB (%d bytes) Mapper=%d Mirroring=%s",
                         h.getPrgRomPages(), h.getPrgRomPages() * 16384, h.getChrRomPages(), h.getChrRomPages() * 8192,
                         h.getMapper(),
@@ -377,17 +381,17 @@ public class Main {
         }
         if (!patternStandalone) {
             if (applicationOptions.chrLog) {
-                context.emulator.getBus().getMapper0().enableChrLogging(256);
+                emu.getBus().getMapper0().enableChrLogging(256);
             }
         }
         if (!patternStandalone) {
             if (applicationOptions.logPpuReg) {
-                context.emulator.getBus().enablePpuRegLogging(800);
+                emu.getBus().enablePpuRegLogging(800);
             }
         }
         if (!patternStandalone) {
             if (applicationOptions.breakReadAddr >= 0) {
-                context.emulator.getBus().setWatchReadAddress(applicationOptions.breakReadAddr,
+                emu.getBus().setWatchReadAddress(applicationOptions.breakReadAddr,
                         applicationOptions.breakReadCount);
                 Log.info(BUS, "Watch leitura %04X count=%d", applicationOptions.breakReadAddr,
                         applicationOptions.breakReadCount);
@@ -395,10 +399,10 @@ public class Main {
         }
         if (!patternStandalone) {
             if (applicationOptions.traceNmi) {
-                context.emulator.getPpu().setNmiCallback(() -> {
-                    int pc = context.emulator.getCpu().getPC();
-                    Log.debug(PPU, "NMI frame=%d PC=%04X cycles=%d", context.emulator.getFrame(), pc,
-                            context.emulator.getCpu().getTotalCycles());
+                emu.getPpu().setNmiCallback(() -> {
+                    int pc = emu.getCpu().getPC();
+                    Log.debug(PPU, "NMI frame=%d PC=%04X cycles=%d", emu.getFrame(), pc,
+                            emu.getCpu().getTotalCycles());
                 });
             }
         }
@@ -443,8 +447,8 @@ public class Main {
         // Escreve PPUMASK inicial para acelerar primeiros frames (BG + coluna esquerda
         // por padrão)
         int initMask = (applicationOptions.initialMaskOverride != null) ? applicationOptions.initialMaskOverride : 0x08;
-        if (context.emulator != null)
-            context.emulator.getBus().write(0x2001, initMask);
+        if (emu != null)
+            emu.getBus().write(0x2001, initMask);
         Log.info(PPU, "PPUMASK inicial=%02X%s", initMask,
                 (applicationOptions.initialMaskOverride != null ? " (override)" : ""));
         if (applicationOptions.leftColumnModeOpt != null) {
@@ -461,10 +465,12 @@ public class Main {
                     mode = com.nesemu.ppu.PPU.LeftColumnMode.HARDWARE;
                     break;
             }
-            if (context.emulator != null)
-                ((PPU) context.emulator.getPpu()).setLeftColumnMode(mode);
+            if (emu != null)
+                ((PPU) emu.getPpu()).setLeftColumnMode(mode);
             Log.info(PPU, "Left-column-mode=%s", mode.name().toLowerCase(Locale.ROOT));
         }
+        EmulatorConfigurator.applyAudioFilter(emu, applicationOptions.audioFilterOpt);
+        EmulatorConfigurator.applyFrameBufferMode(emu, applicationOptions.frameBufferModeOpt);
         if (applicationOptions.gui) {
             final UserConfig userConfig = UserConfig.load();
             new GuiLauncher(context, applicationOptions, userConfig, controllerPad1, controllerPad2, gamepadPoller)
@@ -473,4 +479,36 @@ public class Main {
             new HeadlessLauncher(context, applicationOptions).launch();
         }
     }
+
+    /**
+     * Headless: pick the ROM of a directory via the ROM index (--rom-select).
+     *
+     * @param dir
+     * @param options
+     * @return null when nothing matches (error already logged)
+     */
+    private static Path selectFromIndex(Path dir, AppOptions options) {
+        try {
+            RomIndex index = RomIndex.open(options.romIndexPath != null ? Path.of(options.romIndexPath)
+                    : RomIndex.defaultIndexFile());
+            index.scan(dir, 0);
+            index.save();
+            Log.info(ROM, "Índice de ROMs: %d (%d hash, %d cache)", index.size(), index.getLastHashed(),
+                    index.getLastReused());
+            Path root = dir.toAbsolutePath().normalize();
+            var matches = index.select(options.romSelect).stream()
+                    .filter(e -> e.getPath().startsWith(root)).toList();
+            if (matches.isEmpty()) {
+                Log.error(ROM, "Nenhuma ROM em %s para --rom-select=%s", dir, options.romSelect);
+                return null;
+            }
+            if (matches.size() > 1)
+                Log.info(ROM, "%d ROMs para --rom-select=%s; usando a primeira", matches.size(), options.romSelect);
+            Log.info(ROM, "Headless: ROM selecionada pelo índice: %s", matches.get(0));
+            return matches.get(0).getPath();
+        } catch (Exception ex) {
+            Log.error(ROM, "Falha no índice de ROMs: %s", ex.getMessage());
+            return null;
+        }
+    }
 }
\ No newline at end of file
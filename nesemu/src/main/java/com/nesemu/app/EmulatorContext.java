@@ -6,22 +6,57 @@ import com.nesemu.rom.INesRom;
 import java.nio.file.Path;
 
 /**
- * Holds the mutable state of the current emulation session.
- * Replaces the local 'ref' arrays used previously in Main.
+ * Holds the state of the current emulation session.
+ * Replaces the local 'ref' arrays used previously in Main. Fields are swapped
+ * from the UI thread (ROM load/close) and read by the render loop, so they are
+ * only reachable through volatile accessors.
  */
 public class EmulatorContext {
-    public NesEmulator emulator;
-    public INesRom rom;
-    public Path romPath;
-    public AudioPlayer audio;
+    private volatile NesEmulator emulator;
+    private volatile INesRom rom;
+    private volatile Path romPath;
+    private volatile AudioPlayer audio;
+
+    public NesEmulator getEmulator() {
+        return emulator;
+    }
+
+    public void setEmulator(NesEmulator emulator) {
+        this.emulator = emulator;
+    }
+
+    public INesRom getRom() {
+        return rom;
+    }
+
+    public void setRom(INesRom rom) {
+        this.rom = rom;
+    }
+
+    public Path getRomPath() {
+        return romPath;
+    }
+
+    public void setRomPath(Path romPath) {
+        this.romPath = romPath;
+    }
+
+    public AudioPlayer getAudio() {
+        return audio;
+    }
+
+    public void setAudio(AudioPlayer audio) {
+        this.audio = audio;
+    }
 
     /**
      * Safely stops and clears the current audio player.
      */
     public void stopAudio() {
-        if (audio != null) {
+        AudioPlayer a = audio;
+        if (a != null) {
             try {
-                audio.stop();
+                a.stop();
             } catch (Exception ignored) {
             }
             audio = null;
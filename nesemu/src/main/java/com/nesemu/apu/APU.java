@@ -1,5 +1,7 @@
 package com.nesemu.apu;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import com.nesemu.apu.interfaces.NesAPU;
 
 /**
@@ -64,13 +66,27 @@ public class APU implements NesAPU {
     private int sampleWriteIdx = 0;
     private int sampleReadIdx = 0;
 
-    // Output filters to simulate NES analog response
-    private double hpfPrevIn = 0.0;
-    private double hpfPrevOut = 0.0;
-    private double lpfPrevOut = 0.0;
-    // HPF cutoff ~20 Hz, LPF cutoff ~14 kHz at 44.1kHz sample rate
-    private static final double HPF_ALPHA = 0.998; // low cutoff
-    private static final double LPF_ALPHA = 0.95; // Increased to let more treble through (less muffled)
+    /**
+     * Output synthesis mode. FULL runs the mixer, output filters and sample ring
+     * buffer. STATE_ONLY advances only the architecturally visible state (length
+     * counters, envelopes, sweep, frame IRQ, DMC fetches and $4015 status) and
+     * skips mixing, filtering and buffering entirely (headless / fast-forward).
+     */
+    public enum OutputMode {
+        FULL,
+        STATE_ONLY
+    }
+
+    // Read per CPU cycle; only the emulation thread writes it. Other threads
+    // (GUI fast-forward) hand a change off through requestedOutputMode
+    private OutputMode outputMode = OutputMode.FULL;
+    private final AtomicReference<OutputMode> requestedOutputMode = new AtomicReference<>();
+
+    // Output filters to simulate NES analog response, run per block of raw mixer
+    // samples before they reach the ring buffer
+    private final AudioFilterChain filterChain = new AudioFilterChain(AudioFilterChain.Mode.NES, sampleRate);
+    private final float[] mixBlock = new float[64];
+    private int mixBlockLen = 0;
 
     // ---- Envelope generators ----
     private final Envelope envP1 = new Envelope();
@@ -140,23 +156,23 @@ public class APU implements NesAPU {
             202, 254, 380, 508, 762, 1016, 2034, 4068
     };
 
-    // Precomputed pulse mixer lookup table for sums 0..30 (p1+p2)
-    private static final double[] PULSE_MIX_TABLE;
+    // Precomputed pulse mixer table indexed by fixed-point pulse sum (p1+p2 in
+    // 1/16 steps, 0..30). The band-limited pulses produce fractional levels, so
+    // the finer grid replaces the per-sample linear interpolation.
+    private static final int PULSE_MIX_FRAC_BITS = 4;
+    private static final float[] PULSE_MIX_TABLE;
     static {
-        PULSE_MIX_TABLE = new double[31];
-        for (int i = 0; i < PULSE_MIX_TABLE.length; i++) {
-            if (i == 0) {
-                PULSE_MIX_TABLE[i] = 0.0;
-            } else {
-                PULSE_MIX_TABLE[i] = 95.88 / (8128.0 / (double) i + 100.0);
-            }
+        PULSE_MIX_TABLE = new float[(30 << PULSE_MIX_FRAC_BITS) + 1];
+        for (int i = 1; i < PULSE_MIX_TABLE.length; i++) {
+            double sum = i / (double) (1 << PULSE_MIX_FRAC_BITS);
+            PULSE_MIX_TABLE[i] = (float) (95.88 / (8128.0 / sum + 100.0));
         }
     }
 
     // Precomputed TND mixer table: tri(0..15), noise(0..15), dmc(0..127)
-    private static final double[] TND_MIX_TABLE;
+    private static final float[] TND_MIX_TABLE;
     static {
-        TND_MIX_TABLE = new double[16 * 16 * 128];
+        TND_MIX_TABLE = new float[16 * 16 * 128];
         for (int tri = 0; tri < 16; tri++) {
             for (int noise = 0; noise < 16; noise++) {
                 for (int dmc = 0; dmc < 128; dmc++) {
@@ -166,9 +182,9 @@ public class APU implements NesAPU {
                     double dmc_contrib = dmc / 22638.0;
                     double sum = tri_contrib + noise_contrib + dmc_contrib;
                     if (sum <= 0.0) {
-                        TND_MIX_TABLE[idx] = 0.0;
+                        TND_MIX_TABLE[idx] = 0f;
                     } else {
-                        TND_MIX_TABLE[idx] = 159.79 / (1.0 / sum + 100.0);
+                        TND_MIX_TABLE[idx] = (float) (159.79 / (1.0 / sum + 100.0));
                     }
                 }
             }
@@ -244,9 +260,8 @@ public class APU implements NesAPU {
         sampleAccum2xUnits = 0;
         sampleWriteIdx = sampleReadIdx = 0;
         // Reset output filters
-        hpfPrevIn = 0.0;
-        hpfPrevOut = 0.0;
-        lpfPrevOut = 0.0;
+        filterChain.reset();
+        mixBlockLen = 0;
     }
 
     @Override
@@ -258,13 +273,15 @@ public class APU implements NesAPU {
         if (apuTickPhase) {
             clockChannelTimers();
         }
+        if (outputMode == OutputMode.STATE_ONLY)
+            return; // nobody consumes audio: skip mixer/filters/ring buffer
         // Sampling: generate samples at fixed rate based on 2x units
         sampleAccum2xUnits += 2; // each CPU cycle adds two 2x units
         if (sampleAccum2xUnits >= sampleInterval2xUnits) {
             sampleAccum2xUnits -= sampleInterval2xUnits;
-            float currentSample = mixOutputSample();
-            // Removed averaging (prev+curr)/2 which was muffling the sound
-            writeSample(currentSample);
+            mixBlock[mixBlockLen++] = mixOutputSample();
+            if (mixBlockLen == mixBlock.length)
+                flushMixBlock();
         }
     }
 
@@ -603,45 +620,43 @@ public class APU implements NesAPU {
     }
 
     /**
-     * Mix the current output sample from all channels, applying the NES APU mixer
+     * Mix the current output sample from all channels using the NES APU mixer
+     * curves (lookup tables only; filtering happens per block).
      * 
-     * @return
+     * @return raw mixer output (approx 0..1)
      */
     private float mixOutputSample() {
         // instantaneous DAC-like levels
-        double p1 = getBandlimitedPulseOutput(1); // 0..15
-        double p2 = getBandlimitedPulseOutput(2); // 0..15
+        double pulseSum = getBandlimitedPulseOutput(1) + getBandlimitedPulseOutput(2); // 0..30
+        int pIdx = (int) (pulseSum * (1 << PULSE_MIX_FRAC_BITS) + 0.5);
+        if (pIdx < 0)
+            pIdx = 0;
+        else if (pIdx >= PULSE_MIX_TABLE.length)
+            pIdx = PULSE_MIX_TABLE.length - 1;
         int tri = getTriangleOutputLevel(); // 0..15
         int noi = getNoiseOutputLevel(); // 0..15
-        double pulseSum = p1 + p2;
-        // linear interpolation in pulse LUT
-        double idx = pulseSum;
-        int idxLow = (int) Math.max(0, Math.min(PULSE_MIX_TABLE.length - 1, Math.floor(idx)));
-        int idxHigh = (int) Math.max(0, Math.min(PULSE_MIX_TABLE.length - 1, Math.ceil(idx)));
-        double frac = idx - Math.floor(idx);
-        double pulseOut = PULSE_MIX_TABLE[idxLow] * (1.0 - frac) + PULSE_MIX_TABLE[idxHigh] * frac;
-        double dmc = (enaDmc ? (double) dmcOutputLevel : 0.0);
-        double tndDen = (tri / 8227.0) + (noi / 12241.0) + (dmc / 22638.0);
-        double tndOut = (tndDen > 0)
-                ? 159.79 / (1.0 / tndDen + 100.0)
-                : 0.0;
-        double out = pulseOut + tndOut; // approx 0..1
-        // Apply output filters to simulate NES analog response
-        // LPF first (~8kHz cutoff)
-        double lpfOut = LPF_ALPHA * out + (1.0 - LPF_ALPHA) * lpfPrevOut;
-        lpfPrevOut = lpfOut;
-        // HPF enabled to remove DC offset, but we add 0.5 bias to center the signal
-        // within the 0.0..1.0 range, preventing negative clipping ("choppy" sound).
-        double hpfOut = HPF_ALPHA * (hpfPrevOut + lpfOut - hpfPrevIn);
-        hpfPrevIn = lpfOut;
-        hpfPrevOut = hpfOut;
-        out = hpfOut + 0.5;
-        
-        // Hard clamp to [0,1] to ensure compatibility
-        if (out < 0.0) out = 0.0;
-        if (out > 1.0) out = 1.0;
-        
-        return (float) out;
+        int dmc = enaDmc ? (dmcOutputLevel & 0x7F) : 0;
+        return PULSE_MIX_TABLE[pIdx] + TND_MIX_TABLE[(tri * 16 + noi) * 128 + dmc];
+    }
+
+    /**
+     * Run the filter chain over the staged mixer block and push the result into
+     * the ring buffer.
+     */
+    private void flushMixBlock() {
+        int n = mixBlockLen;
+        mixBlockLen = 0;
+        filterChain.process(mixBlock, 0, n);
+        float bias = filterChain.outputBias();
+        for (int i = 0; i < n; i++) {
+            float out = mixBlock[i] + bias;
+            // Hard clamp to [0,1] to ensure compatibility
+            if (out < 0f)
+                out = 0f;
+            else if (out > 1f)
+                out = 1f;
+            writeSample(out);
+        }
     }
 
     /**
@@ -791,6 +806,25 @@ public class APU implements NesAPU {
             return;
         this.sampleRate = hz;
         recomputeSampleInterval();
+        filterChain.configure(filterChain.getMode(), hz);
+    }
+
+    /**
+     * Select output filter chain (NES analog response or off).
+     * 
+     * @param mode
+     */
+    public void setFilterMode(AudioFilterChain.Mode mode) {
+        filterChain.configure(mode, sampleRate);
+    }
+
+    /**
+     * Current output filter chain mode.
+     * 
+     * @return
+     */
+    public AudioFilterChain.Mode getFilterMode() {
+        return filterChain.getMode();
     }
 
     /**
@@ -805,6 +839,253 @@ public class APU implements NesAPU {
         recomputeSampleInterval();
     }
 
+    /**
+     * Select output synthesis mode immediately (emulation thread, or before
+     * emulation starts; other threads use {@link #requestOutputMode}).
+     * Leaving STATE_ONLY restarts the sampler and filters from a clean state so
+     * stale history does not produce a click.
+     * 
+     * @param mode
+     */
+    public void setOutputMode(OutputMode mode) {
+        if (mode == null)
+            mode = OutputMode.FULL;
+        OutputMode prev = this.outputMode;
+        this.outputMode = mode;
+        if (prev == OutputMode.STATE_ONLY && mode == OutputMode.FULL) {
+            sampleAccum2xUnits = 0;
+            mixBlockLen = 0;
+            filterChain.reset();
+        }
+    }
+
+    /**
+     * Request an output mode change from any thread; it takes effect at the next
+     * {@link #applyRequestedOutputMode()} on the emulation thread (frame boundary).
+     *
+     * @param mode
+     */
+    public void requestOutputMode(OutputMode mode) {
+        requestedOutputMode.set((mode == null) ? OutputMode.FULL : mode);
+    }
+
+    /**
+     * Apply a pending {@link #requestOutputMode} change (emulation thread).
+     */
+    public void applyRequestedOutputMode() {
+        // Take and clear in one step: a request landing in between is not lost
+        OutputMode req = requestedOutputMode.getAndSet(null);
+        if (req != null)
+            setOutputMode(req);
+    }
+
+    /**
+     * Current output synthesis mode.
+     * 
+     * @return
+     */
+    public OutputMode getOutputMode() {
+        return outputMode;
+    }
+
+    // writeState bytes before the staged mixer block: registers, DMC, frame
+    // sequencer, tick phase, envelopes, length counters, flags, triangle linear
+    // counter, sweeps, pulse timers/duty/counters/phases, triangle, noise, tick
+    // counts, sampler position
+    private static final int STATE_HEAD_BYTES = 0x18 + 27 + FrameSequencer.STATE_BYTES + 1 + 3 * 4 + 4 + 1 + 2
+            + 2 * 4 + 4 + 4 + 4 + 2 * 8 + 5 + 6 + 8 + 4;
+
+    /**
+     * Upper bound of {@link #writeState(java.nio.ByteBuffer)} (full staged mixer
+     * block); the exact size varies with the samples staged for filtering.
+     *
+     * @return
+     */
+    public int stateSize() {
+        return stateSize(mixBlock.length);
+    }
+
+    private int stateSize(int staged) {
+        return STATE_HEAD_BYTES + 1 + staged * 4 + filterChain.stateSize();
+    }
+
+    /**
+     * Check a serialized state's length against the staged-sample count it
+     * declares (buffer position unchanged).
+     *
+     * @param buf positioned at the start of the state
+     * @param len stored length
+     * @return true when {@link #readState(java.nio.ByteBuffer)} consumes exactly len bytes
+     */
+    public boolean isStateLength(java.nio.ByteBuffer buf, int len) {
+        if (len <= STATE_HEAD_BYTES || buf.remaining() < len)
+            return false;
+        int staged = buf.get(buf.position() + STATE_HEAD_BYTES) & 0xFF;
+        return staged <= mixBlock.length && len == stateSize(staged);
+    }
+
+    /**
+     * Serialize full channel, DMC, frame sequencer and sampler state so a snapshot
+     * resumes with identical $4015/IRQ timing and without audio discontinuity.
+     * Configuration (sample rate, output/filter mode) and the output ring buffer
+     * are not part of the state.
+     *
+     * @param buf
+     */
+    public void writeState(java.nio.ByteBuffer buf) {
+        for (int r : regs)
+            buf.put((byte) r);
+        // DMC
+        buf.put((byte) ((dmcIrq ? 1 : 0) | (enaDmc ? 2 : 0) | (dmcLoop ? 4 : 0) | (dmcIrqEnable ? 8 : 0)
+                | (dmcSampleBufferAvailable ? 16 : 0) | (dmcRequest ? 32 : 0)));
+        buf.put((byte) dmcRateIndex).put((byte) dmcDirectLoad);
+        buf.putInt(dmcSampleAddr).putInt(dmcSampleLen).putInt(dmcCurrentAddress).putInt(dmcBytesRemaining);
+        buf.put((byte) dmcSampleBuffer).put((byte) dmcShiftReg).put((byte) dmcBitsRemaining);
+        buf.put((byte) dmcOutputLevel);
+        buf.putInt(dmcTimerCounter);
+        frameSequencer.writeState(buf);
+        buf.put((byte) (apuTickPhase ? 1 : 0));
+        // Envelopes, length counters, triangle linear counter
+        writeEnvelope(buf, envP1);
+        writeEnvelope(buf, envP2);
+        writeEnvelope(buf, envNoise);
+        buf.put((byte) lenP1).put((byte) lenP2).put((byte) lenTri).put((byte) lenNoise);
+        buf.put((byte) ((enaP1 ? 1 : 0) | (enaP2 ? 2 : 0) | (enaTri ? 4 : 0) | (enaNoise ? 8 : 0)
+                | (triLinearControl ? 16 : 0) | (triLinearReloadFlag ? 32 : 0) | (p1Muted ? 64 : 0)
+                | (p2Muted ? 128 : 0)));
+        buf.put((byte) triLinearValue).put((byte) triLinearCounter);
+        // Pulse
+        writeSweep(buf, sw1);
+        writeSweep(buf, sw2);
+        buf.putShort((short) p1Timer).putShort((short) p2Timer);
+        buf.put((byte) p1Duty).put((byte) p2Duty).put((byte) p1DutyStep).put((byte) p2DutyStep);
+        buf.putShort((short) p1TimerCounter).putShort((short) p2TimerCounter);
+        buf.putDouble(p1Phase).putDouble(p2Phase);
+        // Triangle / noise
+        buf.putShort((short) triTimer).putShort((short) triTimerCounter).put((byte) triStep);
+        buf.put((byte) noisePeriodIdx).put((byte) (noiseModeShort ? 1 : 0));
+        buf.putShort((short) noiseTimerCounter).putShort((short) noiseLfsr);
+        buf.putInt(quarterTickCount).putInt(halfTickCount);
+        // Sampler position, staged mixer block and filter history
+        buf.putInt(sampleAccum2xUnits);
+        buf.put((byte) mixBlockLen);
+        for (int i = 0; i < mixBlockLen; i++)
+            buf.putFloat(mixBlock[i]);
+        filterChain.writeState(buf);
+    }
+
+    /**
+     * Counterpart to {@link #writeState(java.nio.ByteBuffer)}.
+     *
+     * @param buf
+     */
+    public void readState(java.nio.ByteBuffer buf) {
+        for (int i = 0; i < regs.length; i++)
+            regs[i] = buf.get() & 0xFF;
+        int f = buf.get();
+        dmcIrq = (f & 1) != 0;
+        enaDmc = (f & 2) != 0;
+        dmcLoop = (f & 4) != 0;
+        dmcIrqEnable = (f & 8) != 0;
+        dmcSampleBufferAvailable = (f & 16) != 0;
+        dmcRequest = (f & 32) != 0;
+        dmcRateIndex = buf.get() & 0x0F;
+        dmcDirectLoad = buf.get() & 0x7F;
+        dmcSampleAddr = buf.getInt();
+        dmcSampleLen = buf.getInt();
+        dmcCurrentAddress = buf.getInt();
+        dmcBytesRemaining = buf.getInt();
+        dmcSampleBuffer = buf.get() & 0xFF;
+        dmcShiftReg = buf.get() & 0xFF;
+        dmcBitsRemaining = buf.get() & 0xFF;
+        dmcOutputLevel = buf.get() & 0x7F;
+        dmcTimerCounter = buf.getInt();
+        frameSequencer.readState(buf);
+        apuTickPhase = buf.get() != 0;
+        readEnvelope(buf, envP1);
+        readEnvelope(buf, envP2);
+        readEnvelope(buf, envNoise);
+        lenP1 = buf.get() & 0xFF;
+        lenP2 = buf.get() & 0xFF;
+        lenTri = buf.get() & 0xFF;
+        lenNoise = buf.get() & 0xFF;
+        f = buf.get();
+        enaP1 = (f & 1) != 0;
+        enaP2 = (f & 2) != 0;
+        enaTri = (f & 4) != 0;
+        enaNoise = (f & 8) != 0;
+        triLinearControl = (f & 16) != 0;
+        triLinearReloadFlag = (f & 32) != 0;
+        p1Muted = (f & 64) != 0;
+        p2Muted = (f & 128) != 0;
+        triLinearValue = buf.get() & 0x7F;
+        triLinearCounter = buf.get() & 0x7F;
+        if (sw1 == null)
+            sw1 = new Sweep(1);
+        if (sw2 == null)
+            sw2 = new Sweep(2);
+        readSweep(buf, sw1);
+        readSweep(buf, sw2);
+        p1Timer = buf.getShort() & 0xFFFF;
+        p2Timer = buf.getShort() & 0xFFFF;
+        p1Duty = buf.get() & 0x03;
+        p2Duty = buf.get() & 0x03;
+        p1DutyStep = buf.get() & 0x07;
+        p2DutyStep = buf.get() & 0x07;
+        p1TimerCounter = buf.getShort() & 0xFFFF;
+        p2TimerCounter = buf.getShort() & 0xFFFF;
+        p1Phase = buf.getDouble();
+        p2Phase = buf.getDouble();
+        triTimer = buf.getShort() & 0xFFFF;
+        triTimerCounter = buf.getShort() & 0xFFFF;
+        triStep = buf.get() & 31;
+        noisePeriodIdx = buf.get() & 0x0F;
+        noiseModeShort = buf.get() != 0;
+        noiseTimerCounter = buf.getShort() & 0xFFFF;
+        noiseLfsr = buf.getShort() & 0x7FFF;
+        quarterTickCount = buf.getInt();
+        halfTickCount = buf.getInt();
+        sampleAccum2xUnits = buf.getInt();
+        mixBlockLen = Math.min(buf.get() & 0xFF, mixBlock.length);
+        for (int i = 0; i < mixBlockLen; i++)
+            mixBlock[i] = buf.getFloat();
+        filterChain.readState(buf);
+    }
+
+    private static void writeEnvelope(java.nio.ByteBuffer buf, Envelope e) {
+        buf.put((byte) e.period).put((byte) e.divider).put((byte) e.decay);
+        buf.put((byte) ((e.constantVolume ? 1 : 0) | (e.loop ? 2 : 0) | (e.start ? 4 : 0)));
+    }
+
+    private static void readEnvelope(java.nio.ByteBuffer buf, Envelope e) {
+        e.period = buf.get() & 0x0F;
+        e.divider = buf.get() & 0x0F;
+        e.decay = buf.get() & 0x0F;
+        int f = buf.get();
+        e.constantVolume = (f & 1) != 0;
+        e.loop = (f & 2) != 0;
+        e.start = (f & 4) != 0;
+    }
+
+    private static void writeSweep(java.nio.ByteBuffer buf, Sweep sw) {
+        if (sw == null) {
+            buf.put((byte) 0).put((byte) 0).put((byte) 0).put((byte) 0);
+            return;
+        }
+        buf.put((byte) sw.period).put((byte) sw.shift).put((byte) sw.divider);
+        buf.put((byte) ((sw.enabled ? 1 : 0) | (sw.negate ? 2 : 0) | (sw.reload ? 4 : 0)));
+    }
+
+    private static void readSweep(java.nio.ByteBuffer buf, Sweep sw) {
+        sw.period = buf.get() & 0x07;
+        sw.shift = buf.get() & 0x07;
+        sw.divider = buf.get() & 0x07;
+        int f = buf.get();
+        sw.enabled = (f & 1) != 0;
+        sw.negate = (f & 2) != 0;
+        sw.reload = (f & 4) != 0;
+    }
+
     /**
      * Get number of pending samples in ring buffer.
      * 
@@ -0,0 +1,175 @@
+package com.nesemu.apu;
+
+import java.util.Locale;
+
+/**
+ * Output filter chain applied to blocks of mixed APU samples.
+ * NES mode models the console's analog output stage: two first-order
+ * high-pass filters (~90 Hz and ~440 Hz) followed by a first-order low-pass
+ * (~14 kHz). OFF passes the raw mixer output through unchanged.
+ */
+public final class AudioFilterChain {
+
+    /** Selectable filter configurations (INI: audio-filter=nes|off). */
+    public enum Mode {
+        NES,
+        OFF
+    }
+
+    private static final double HPF1_HZ = 90.0;
+    private static final double HPF2_HZ = 440.0;
+    private static final double LPF_HZ = 14000.0;
+
+    private Mode mode = Mode.NES;
+
+    // Coefficients (recomputed on sample-rate / mode change)
+    private float hp1Coef, hp2Coef, lpCoef;
+
+    // Filter state
+    private float hp1PrevIn, hp1PrevOut;
+    private float hp2PrevIn, hp2PrevOut;
+    private float lpPrevOut;
+
+    /**
+     * Creates a filter chain for the given mode and sample rate.
+     *
+     * @param mode
+     * @param sampleRate
+     */
+    public AudioFilterChain(Mode mode, int sampleRate) {
+        configure(mode, sampleRate);
+    }
+
+    /**
+     * Reconfigure mode and coefficients; clears filter history.
+     *
+     * @param mode
+     * @param sampleRate
+     */
+    public void configure(Mode mode, int sampleRate) {
+        this.mode = (mode == null) ? Mode.NES : mode;
+        double dt = 1.0 / Math.max(1, sampleRate);
+        hp1Coef = (float) highPassCoef(HPF1_HZ, dt);
+        hp2Coef = (float) highPassCoef(HPF2_HZ, dt);
+        lpCoef = (float) lowPassCoef(LPF_HZ, dt);
+        reset();
+    }
+
+    /** Clear filter history (e.g. after reset or leaving STATE_ONLY). */
+    public void reset() {
+        hp1PrevIn = hp1PrevOut = 0f;
+        hp2PrevIn = hp2PrevOut = 0f;
+        lpPrevOut = 0f;
+    }
+
+    /**
+     * Exact number of bytes {@link #writeState(java.nio.ByteBuffer)} produces.
+     *
+     * @return
+     */
+    public int stateSize() {
+        return 5 * 4;
+    }
+
+    /**
+     * Serialize filter history (coefficients are derived from mode/sample rate and
+     * are not stored).
+     *
+     * @param buf
+     */
+    public void writeState(java.nio.ByteBuffer buf) {
+        buf.putFloat(hp1PrevIn).putFloat(hp1PrevOut);
+        buf.putFloat(hp2PrevIn).putFloat(hp2PrevOut);
+        buf.putFloat(lpPrevOut);
+    }
+
+    /**
+     * Counterpart to {@link #writeState(java.nio.ByteBuffer)}.
+     *
+     * @param buf
+     */
+    public void readState(java.nio.ByteBuffer buf) {
+        hp1PrevIn = buf.getFloat();
+        hp1PrevOut = buf.getFloat();
+        hp2PrevIn = buf.getFloat();
+        hp2PrevOut = buf.getFloat();
+        lpPrevOut = buf.getFloat();
+    }
+
+    /**
+     * Filter a block of samples in place.
+     *
+     * @param buf
+     * @param off
+     * @param len
+     */
+    public void process(float[] buf, int off, int len) {
+        if (mode == Mode.OFF)
+            return;
+        float a1 = hp1Coef, a2 = hp2Coef, al = lpCoef;
+        float h1i = hp1PrevIn, h1o = hp1PrevOut;
+        float h2i = hp2PrevIn, h2o = hp2PrevOut;
+        float lo = lpPrevOut;
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            float x = buf[i];
+            h1o = a1 * (h1o + x - h1i);
+            h1i = x;
+            h2o = a2 * (h2o + h1o - h2i);
+            h2i = h1o;
+            lo += al * (h2o - lo);
+            buf[i] = lo;
+        }
+        hp1PrevIn = h1i;
+        hp1PrevOut = h1o;
+        hp2PrevIn = h2i;
+        hp2PrevOut = h2o;
+        lpPrevOut = lo;
+    }
+
+    /**
+     * DC bias to add after {@link #process} so the signal sits in [0,1]. The
+     * high-pass stages center the output around zero; OFF keeps the raw 0..1
+     * mixer range.
+     *
+     * @return
+     */
+    public float outputBias() {
+        return mode == Mode.OFF ? 0f : 0.5f;
+    }
+
+    /**
+     * Current mode.
+     *
+     * @return
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Parse INI/CLI value (nes|off), returning null when unrecognized.
+     *
+     * @param value
+     * @return
+     */
+    public static Mode parseMode(String value) {
+        if (value == null)
+            return null;
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "nes", "on", "true" -> Mode.NES;
+            case "off", "none", "false" -> Mode.OFF;
+            default -> null;
+        };
+    }
+
+    private static double highPassCoef(double cutoffHz, double dt) {
+        double rc = 1.0 / (2.0 * Math.PI * cutoffHz);
+        return rc / (rc + dt);
+    }
+
+    private static double lowPassCoef(double cutoffHz, double dt) {
+        double rc = 1.0 / (2.0 * Math.PI * cutoffHz);
+        return dt / (rc + dt);
+    }
+}
@@ -79,6 +79,28 @@ final class FrameSequencer {
         }
     }
 
+    // Bytes written by writeState: flags, cycles2x, eventIndex
+    static final int STATE_BYTES = 1 + 4 + 4;
+
+    /** Serialize sequencer position, mode and IRQ latch. */
+    void writeState(java.nio.ByteBuffer buf) {
+        buf.put((byte) ((fiveStepMode ? 1 : 0) | (irqInhibit ? 2 : 0) | (frameIrq ? 4 : 0)));
+        buf.putInt(cycles2x);
+        buf.putInt(eventIndex);
+    }
+
+    /** Counterpart to {@link #writeState(java.nio.ByteBuffer)}. */
+    void readState(java.nio.ByteBuffer buf) {
+        int flags = buf.get();
+        fiveStepMode = (flags & 1) != 0;
+        irqInhibit = (flags & 2) != 0;
+        frameIrq = (flags & 4) != 0;
+        cycles2x = buf.getInt();
+        int[] table = fiveStepMode ? FIVE_STEP_EVENTS_2X : FOUR_STEP_EVENTS_2X;
+        eventIndex = Math.floorMod(buf.getInt(), table.length);
+        scheduleNext();
+    }
+
     boolean isFrameIrq() {
         return frameIrq;
     }
@@ -144,6 +144,11 @@ public class Bus implements NesBus {
         this.pad2 = p2;
     }
 
+    @Override
+    public Controller getController(int port) {
+        return (port == 0) ? pad1 : (port == 1) ? pad2 : null;
+    }
+
     @Override
     public void attachMapper(Mapper mapper, INesRom rom) {
         this.mapper = mapper;
@@ -177,7 +182,7 @@ public class Bus implements NesBus {
             int reg = 0x2000 + (address & 0x7);
             if (ppu != null) {
                 value = readPpuRegister(reg) & 0xFF;
-                if (logPpuRegs && ppuRegLogCount < ppuRegLogLimit && globalVerbose) {
+                if (logPpuRegs && ppuRegLogCount < ppuRegLogLimit && verbose) {
                     vprintf("[PPU REG RD] %04X = %02X frame=%d scan=%d cyc=%d\n", reg, value & 0xFF, getPpuFrame(),
                             getPpuScanline(), getPpuCycle());
                     ppuRegLogCount++;
@@ -229,7 +234,7 @@ public class Bus implements NesBus {
         if (address == watchReadAddress) {
             watchTriggerCount++;
             watchTriggered = true;
-            if (watchTriggerCount <= watchReadLimit && globalVerbose) {
+            if (watchTriggerCount <= watchReadLimit && verbose) {
                 vprintf("[WATCH READ HIT] addr=%04X count=%d frame=%d scan=%d cyc=%d val=%02X\n", address,
                         watchTriggerCount, getPpuFrame(), getPpuScanline(), getPpuCycle(), value & 0xFF);
             }
@@ -294,7 +299,7 @@ public class Bus implements NesBus {
         } else if (address < 0x4000) {
             if (ppu != null) {
                 int regFull = 0x2000 + (address & 0x7);
-                if (logPpuRegs && ppuRegLogCount < ppuRegLogLimit && globalVerbose) {
+                if (logPpuRegs && ppuRegLogCount < ppuRegLogLimit && verbose) {
                     vprintf("[PPU REG WR] %04X = %02X frame=%d scan=%d cyc=%d\n", regFull, value & 0xFF,
                             getPpuFrame(), getPpuScanline(), getPpuCycle());
                     ppuRegLogCount++;
@@ -318,7 +323,7 @@ public class Bus implements NesBus {
         } else if (address == 0x4014) {
             // OAM DMA trigger: value is high page of source address (value * 0x100)
             pendingDmaPage = value;
-            if (globalVerbose) {
+            if (verbose) {
                 vprintf("[CPU WR 4014] page=%02X frame=%d scan=%d cyc=%d\n", value & 0xFF, getPpuFrame(),
                         getPpuScanline(), getPpuCycle());
             }
@@ -427,19 +432,19 @@ public class Bus implements NesBus {
             return; // nothing queued
         }
         if (ppu == null) {
-            if (globalVerbose)
+            if (verbose)
                 vprintf("[DMA OAM SKIP] page=%02X motivo=PPU-null\n", pendingDmaPage & 0xFF);
             pendingDmaPage = -1;
             return;
         }
         boolean haveCpu = (cpuRef != null);
-        if (!haveCpu && globalVerbose) {
+        if (!haveCpu && verbose) {
             vprintf("[DMA OAM WARN] page=%02X CPU-ref ausente (sem stall)\n", pendingDmaPage & 0xFF);
         }
         int base = (pendingDmaPage & 0xFF) << 8;
         
         // Optimization: Only allocate debug structures if verbose is enabled
-        int[] firstBytes = globalVerbose ? new int[32] : null;
+        int[] firstBytes = verbose ? new int[32] : null;
 
         // Copy 256 bytes from CPU memory space (using cpuRead for mapper/RAM
         // visibility)
@@ -455,7 +460,7 @@ public class Bus implements NesBus {
             }
         }
         // Raw dump (8 sprites * 4 bytes) independent of reflection helper success
-        if (globalVerbose && firstBytes != null) {
+        if (verbose && firstBytes != null) {
             StringBuilder sb = new StringBuilder();
             sb.append(String.format("[DMA OAM RAW] page=%02X bytes0-31:", pendingDmaPage & 0xFF));
             for (int i = 0; i < firstBytes.length; i++) {
@@ -469,7 +474,7 @@ public class Bus implements NesBus {
         try {
             byte[] oamDump = (ppuGetOamCopyMethod != null) ? (byte[]) ppuGetOamCopyMethod.invoke(ppu) : null;
             int spritesToShow = 8;
-            if (globalVerbose) {
+            if (verbose) {
                 vprintf("[DMA OAM] page=%02X primeiros %d sprites:\n", pendingDmaPage & 0xFF, spritesToShow);
                 for (int i = 0; i < spritesToShow; i++) {
                     int off = i * 4;
@@ -581,26 +586,26 @@ public class Bus implements NesBus {
             ppuGetOamCopyMethod = clz.getMethod("getOamCopy");
         } catch (NoSuchMethodException e) {
             // Methods might not exist in all implementations; handle gracefully
-            if (globalVerbose) Log.debug(BUS, "Alguns métodos de reflexão do PPU não foram encontrados.");
+            if (verbose) Log.debug(BUS, "Alguns métodos de reflexão do PPU não foram encontrados.");
         }
     }
 
     /// --------------------------------------------------------------------------------
 
-    // Global verbose logging toggle (shared concept with PPU) to silence bus
-    // diagnostics
-    private static volatile boolean globalVerbose = true;
+    // Verbose logging toggle (per instance, shared concept with PPU) to silence
+    // bus diagnostics
+    private volatile boolean verbose = true;
 
-    public static void setGlobalVerbose(boolean enable) {
-        globalVerbose = enable;
+    public void setVerbose(boolean enable) {
+        verbose = enable;
     }
 
-    public static boolean isGlobalVerbose() {
-        return globalVerbose;
+    public boolean isVerbose() {
+        return verbose;
     }
 
-    private static void vprintf(String fmt, Object... args) {
-        if (globalVerbose)
+    private void vprintf(String fmt, Object... args) {
+        if (verbose)
             Log.debug(BUS, fmt, args);
     }
 }
@@ -77,6 +77,13 @@ public interface NesBus {
      */
     default void attachControllers(Controller p1, Controller p2) {}
 
+    /**
+     * Controller attached to a port (0 = $4016, 1 = $4017), or null.
+     */
+    default Controller getController(int port) {
+        return null;
+    }
+
     /**
      * Attach Audio Processing Unit instance so reads/writes to APU registers are
      * routed correctly.
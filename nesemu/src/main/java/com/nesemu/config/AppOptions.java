@@ -87,6 +87,29 @@ public class AppOptions {
     /** Step until first vblank then run frames. CLI: --until-vblank. */
     public boolean untilVblank = false;
 
+    /** Per-frame input movie for headless runs. CLI: --movie=FILE. */
+    public String moviePath = null;
+
+    /**
+     * Headless checkpoint store directory (null = off). CLI: --checkpoint-dir=DIR.
+     */
+    public String checkpointDir = null;
+
+    /** Frames between headless checkpoints. CLI: --checkpoint-interval=N. */
+    public int checkpointInterval = 1000;
+
+    /** Checkpoint store size bound in MB (LRU). CLI: --checkpoint-max-mb=N. */
+    public int checkpointMaxMb = 1024;
+
+    /**
+     * Pick the ROM of a directory through the ROM index (headless):
+     * sha1:HEX | crc:HEX | mapper:N. CLI: --rom-select=SEL.
+     */
+    public String romSelect = null;
+
+    /** ROM index file (default ~/.R2NES/romindex.bin). CLI: --rom-index=FILE. */
+    public String romIndexPath = null;
+
     /** Background sample debug count. CLI: --dbg-bg-sample=N. */
     public int dbgBgSample = 0;
 
@@ -214,12 +237,40 @@ public class AppOptions {
     /** Max FPS cap override from CLI. CLI: --fast-forward-max-fps=. */
     public Integer fastForwardMaxFpsCli = null;
 
+    /**
+     * Emulated frames per presented frame while fast-forwarding (0=default).
+     * INI-only: fast-foward-frames=.
+     */
+    public int fastForwardFrames = 0; // INI only
+
     /**
      * Left column rendering mode. CLI: --left-column-mode=hardware|always|crop.
      * INI: left-column-mode=.
      */
     public String leftColumnModeOpt = null;
 
+    /** APU output filter chain (nes|off). INI-only: audio-filter=. */
+    public String audioFilterOpt = null; // INI only
+
+    /**
+     * PPU frame buffer mode (full|compact): compact writes one byte per pixel and
+     * converts to ARGB only when the frame is read (lossy beyond 3 PPUMASK
+     * emphasis/grayscale values per frame). INI-only: frame-buffer=.
+     */
+    public String frameBufferModeOpt = null; // INI only
+
+    /**
+     * GUI: skip blit/present when the emulated frame is unchanged (PPU frame
+     * content hash). INI-only: skip-unchanged-frames=.
+     */
+    public boolean skipUnchangedFrames = true; // INI only
+
+    /**
+     * Run-ahead frames (0=off): each presented frame is emulated N frames ahead
+     * and rolled back. INI-only: run-ahead=.
+     */
+    public int runAheadFrames = 0; // INI only
+
     /**
      * Spin-watch threshold: detects CPU spin loops (cycles). CLI: --spin-watch=.
      */
@@ -332,6 +383,17 @@ public class AppOptions {
                 cli.forceBg = Boolean.parseBoolean(inputCfg.getOption("force-bg"));
             if (cli.leftColumnModeOpt == null && inputCfg.hasOption("left-column-mode"))
                 cli.leftColumnModeOpt = inputCfg.getOption("left-column-mode").trim().toLowerCase(Locale.ROOT);
+            if (cli.audioFilterOpt == null && inputCfg.hasOption("audio-filter"))
+                cli.audioFilterOpt = inputCfg.getOption("audio-filter").trim().toLowerCase(Locale.ROOT);
+            if (cli.frameBufferModeOpt == null && inputCfg.hasOption("frame-buffer"))
+                cli.frameBufferModeOpt = inputCfg.getOption("frame-buffer").trim().toLowerCase(Locale.ROOT);
+            if (inputCfg.hasOption("skip-unchanged-frames"))
+                cli.skipUnchangedFrames = Boolean.parseBoolean(inputCfg.getOption("skip-unchanged-frames").trim());
+            if (cli.runAheadFrames == 0 && inputCfg.hasOption("run-ahead"))
+                try {
+                    cli.runAheadFrames = Integer.parseInt(inputCfg.getOption("run-ahead").trim());
+                } catch (Exception ignore) {
+                }
             if (!cli.bgColStats && inputCfg.hasOption("bg-col-stats"))
                 cli.bgColStats = Boolean.parseBoolean(inputCfg.getOption("bg-col-stats"));
             if (cli.testPattern == null && inputCfg.hasOption("test-pattern"))
@@ -479,6 +541,12 @@ public class AppOptions {
                 } catch (Exception ignore) {
                 }
             }
+            if (inputCfg.hasOption("fast-foward-frames")) {
+                try {
+                    cli.fastForwardFrames = Integer.parseInt(inputCfg.getOption("fast-foward-frames").trim());
+                } catch (Exception ignore) {
+                }
+            }
         } catch (Exception ex) {
             Log.warn(CONTROLLER, "Falha ao carregar configuração de input: %s", ex.getMessage());
         }
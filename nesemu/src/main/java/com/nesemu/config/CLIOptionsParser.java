@@ -45,6 +45,26 @@ public final class CLIOptionsParser {
                 o.dumpNt = true;
             } else if (a.equalsIgnoreCase("--until-vblank")) {
                 o.untilVblank = true;
+            } else if (a.startsWith("--movie=")) {
+                o.moviePath = a.substring(8).trim();
+            } else if (a.startsWith("--checkpoint-dir=")) {
+                o.checkpointDir = a.substring(17).trim();
+            } else if (a.startsWith("--checkpoint-interval=")) {
+                try {
+                    o.checkpointInterval = Integer.parseInt(a.substring(22).trim());
+                } catch (NumberFormatException e) {
+                    Log.warn(GENERAL, "Valor inválido em --checkpoint-interval= (usar número de frames)");
+                }
+            } else if (a.startsWith("--checkpoint-max-mb=")) {
+                try {
+                    o.checkpointMaxMb = Integer.parseInt(a.substring(20).trim());
+                } catch (NumberFormatException e) {
+                    Log.warn(GENERAL, "Valor inválido em --checkpoint-max-mb= (usar número inteiro)");
+                }
+            } else if (a.startsWith("--rom-select=")) {
+                o.romSelect = a.substring(13).trim();
+            } else if (a.startsWith("--rom-index=")) {
+                o.romIndexPath = a.substring(12).trim();
             } else if (a.startsWith("--dump-pattern=")) {
                 try {
                     o.dumpPattern = Integer.parseInt(a.substring(15), 16);
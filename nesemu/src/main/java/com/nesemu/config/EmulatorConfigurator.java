@@ -1,5 +1,6 @@
 package com.nesemu.config;
 
+import com.nesemu.apu.AudioFilterChain;
 import com.nesemu.emulator.NesEmulator;
 import com.nesemu.mapper.Mapper1;
 import com.nesemu.util.Log;
@@ -107,5 +108,58 @@ public final class EmulatorConfigurator {
             ((com.nesemu.ppu.PPU) ppu).setLeftColumnMode(mode);
             Log.info(PPU, "Left-column-mode=%s", mode.name().toLowerCase(java.util.Locale.ROOT));
         }
+        applyAudioFilter(emu, s.audioFilterOpt);
+        applyFrameBufferMode(emu, s.frameBufferModeOpt);
+    }
+
+    /**
+     * Applies the PPU frame buffer mode option (full|compact) if present.
+     * @param emu
+     * @param opt
+     */
+    public static void applyFrameBufferMode(NesEmulator emu, String opt) {
+        if (emu == null || opt == null || !(emu.getPpu() instanceof com.nesemu.ppu.PPU ppu))
+            return;
+        switch (opt) {
+            case "compact" -> ppu.setCompactFrameMode(true);
+            case "full" -> ppu.setCompactFrameMode(false);
+            default -> {
+                Log.warn(PPU, "Valor inválido em frame-buffer=%s (usar full|compact)", opt);
+                return;
+            }
+        }
+        Log.info(PPU, "Frame buffer: %s", opt);
+    }
+
+    /**
+     * Applies the bus/PPU diagnostic verbosity policy (quiet wins over verbose).
+     * @param emu
+     * @param quiet
+     * @param verboseFlag null = keep instance default
+     */
+    public static void applyVerbosity(NesEmulator emu, boolean quiet, Boolean verboseFlag) {
+        if (emu == null)
+            return;
+        if (quiet)
+            emu.setVerbose(false);
+        else if (verboseFlag != null && verboseFlag)
+            emu.setVerbose(true);
+    }
+
+    /**
+     * Applies the APU output filter chain option (nes|off) if present.
+     * @param emu
+     * @param opt
+     */
+    public static void applyAudioFilter(NesEmulator emu, String opt) {
+        if (emu == null || opt == null || !(emu.getApu() instanceof com.nesemu.apu.APU apu))
+            return;
+        AudioFilterChain.Mode mode = AudioFilterChain.parseMode(opt);
+        if (mode == null) {
+            Log.warn(APU, "Valor inválido em audio-filter=%s (usar nes|off)", opt);
+            return;
+        }
+        apu.setFilterMode(mode);
+        Log.info(APU, "Audio filter: %s", mode.name().toLowerCase(java.util.Locale.ROOT));
     }
 }
@@ -26,6 +26,8 @@ public class RuntimeSettings {
     long spinWatchThreshold; // >0 enable spin watchdog
     int spinDumpBytes; // bytes to dump on spin
     Integer initialMaskOverride;// optional PPUMASK initial value
+    String audioFilterOpt; // null|nes|off
+    String frameBufferModeOpt; // null|full|compact
 
     /** All-args constructor for convenient initialization. */
     public RuntimeSettings(
@@ -47,7 +49,9 @@ public class RuntimeSettings {
             int mmc1LogLimit,
             long spinWatchThreshold,
             int spinDumpBytes,
-            Integer initialMaskOverride) {
+            Integer initialMaskOverride,
+            String audioFilterOpt,
+            String frameBufferModeOpt) {
         this.tileMatrixMode = tileMatrixMode;
         this.pipeLogLimit = pipeLogLimit;
         this.dbgBgSample = dbgBgSample;
@@ -67,5 +71,7 @@ public class RuntimeSettings {
         this.spinWatchThreshold = spinWatchThreshold;
         this.spinDumpBytes = spinDumpBytes;
         this.initialMaskOverride = initialMaskOverride;
+        this.audioFilterOpt = audioFilterOpt;
+        this.frameBufferModeOpt = frameBufferModeOpt;
     }
 }
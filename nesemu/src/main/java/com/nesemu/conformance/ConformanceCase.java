@@ -0,0 +1,144 @@
+package com.nesemu.conformance;
+
+import com.nesemu.rom.INesRom;
+import com.nesemu.rom.RomLoader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * One entry of the conformance catalogue: a test ROM plus how its result is
+ * judged. Immutable; build with the static factories.
+ */
+public final class ConformanceCase {
+
+    /**
+     * How a ROM reports its result.
+     */
+    public enum Kind {
+        /** blargg protocol: $6001-$6003 = DE B0 61, status at $6000, text at $6004. */
+        BLARGG,
+        /** nestest automation mode ($C000) compared against a reference log. */
+        NESTEST,
+        /** PPU frame content hash after a fixed number of frames. */
+        FRAME_HASH
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final Path romPath;
+    private final INesRom rom;
+    private final Path reference; // NESTEST: reference log
+    private final String expected; // FRAME_HASH: hex hash (null = record only)
+    private final int maxFrames;
+
+    private ConformanceCase(String name, Kind kind, Path romPath, INesRom rom, Path reference, String expected,
+            int maxFrames) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.kind = kind;
+        this.romPath = romPath;
+        this.rom = rom;
+        this.reference = reference;
+        this.expected = expected;
+        this.maxFrames = maxFrames;
+    }
+
+    /**
+     * blargg-style ROM judged by its $6000 status byte.
+     *
+     * @param romPath
+     * @param maxFrames give up (FAIL) after this many frames
+     * @return
+     */
+    public static ConformanceCase blargg(Path romPath, int maxFrames) {
+        return new ConformanceCase(nameOf(romPath), Kind.BLARGG, romPath, null, null, null, maxFrames);
+    }
+
+    /**
+     * blargg-style case from an in-memory ROM.
+     *
+     * @param name
+     * @param rom
+     * @param maxFrames
+     * @return
+     */
+    public static ConformanceCase blargg(String name, INesRom rom, int maxFrames) {
+        return new ConformanceCase(name, Kind.BLARGG, null, Objects.requireNonNull(rom, "rom"), null, null,
+                maxFrames);
+    }
+
+    /**
+     * nestest in automation mode, compared line by line with a reference log.
+     *
+     * @param romPath
+     * @param referenceLog
+     * @return
+     */
+    public static ConformanceCase nestest(Path romPath, Path referenceLog) {
+        return new ConformanceCase(nameOf(romPath), Kind.NESTEST, romPath, null,
+                Objects.requireNonNull(referenceLog, "referenceLog"), null, 0);
+    }
+
+    /**
+     * Frame content hash ({@code PPU.getFrameHash()}) after {@code frames}
+     * frames from power-on.
+     *
+     * @param romPath
+     * @param frames
+     * @param expectedHex null to only record the hash (reported as skipped)
+     * @return
+     */
+    public static ConformanceCase frameHash(Path romPath, int frames, String expectedHex) {
+        return new ConformanceCase(nameOf(romPath) + "@" + frames, Kind.FRAME_HASH, romPath, null, null,
+                expectedHex, frames);
+    }
+
+    public static ConformanceCase frameHash(String name, INesRom rom, int frames, String expectedHex) {
+        return new ConformanceCase(name, Kind.FRAME_HASH, null, Objects.requireNonNull(rom, "rom"), null,
+                expectedHex, frames);
+    }
+
+    private static String nameOf(Path p) {
+        Path f = Objects.requireNonNull(p, "romPath").getFileName();
+        return f != null ? f.toString() : p.toString();
+    }
+
+    /**
+     * ROM image (loaded from disk for path based cases).
+     *
+     * @return
+     * @throws IOException
+     */
+    INesRom loadRom() throws IOException {
+        return (rom != null) ? rom : RomLoader.load(romPath);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Path getRomPath() {
+        return romPath;
+    }
+
+    public Path getReference() {
+        return reference;
+    }
+
+    public String getExpected() {
+        return expected;
+    }
+
+    public int getMaxFrames() {
+        return maxFrames;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + name;
+    }
+}
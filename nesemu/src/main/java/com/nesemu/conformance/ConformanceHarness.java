@@ -0,0 +1,308 @@
+package com.nesemu.conformance;
+
+import com.nesemu.bus.interfaces.NesBus;
+import com.nesemu.debbuger.NestestRunner;
+import com.nesemu.emulator.EmulatorConfig;
+import com.nesemu.emulator.NesEmulator;
+import com.nesemu.ppu.PPU;
+import com.nesemu.util.Log;
+import static com.nesemu.util.Log.Cat.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Conformance harness: runs a catalogue of test ROMs in parallel, one
+ * {@link NesEmulator} per case built through {@link EmulatorConfig} (every
+ * supported mapper, no shared state), and writes a JUnit-compatible XML report.
+ * <p>
+ * Catalogue lines (paths relative to the catalogue file, '#' comments):
+ *
+ * <pre>
+ * blargg  roms/instr_test.nes        [maxFrames]
+ * nestest nestest/nestest.nes        nestest/nestest.log
+ * hash    nestest/nestest.nes 60     [expectedHex]
+ * </pre>
+ *
+ * Uso: ConformanceHarness &lt;catalogue.txt|rom.nes|dir&gt;... [--xml report.xml]
+ * [--threads N] [--frames N]
+ */
+public class ConformanceHarness {
+
+    /** Frame limit for blargg ROMs when none is given (60 emulated seconds). */
+    public static final int DEFAULT_MAX_FRAMES = 3600;
+    // blargg asks for a reset with $81 and wants it at least 100 ms later
+    private static final int RESET_DELAY_FRAMES = 6;
+    // Reference lines shown before a nestest divergence
+    private static final int CONTEXT_LINES = 4;
+
+    private final int threads;
+
+    /**
+     * @param threads worker threads (<= 0 = one per available processor)
+     */
+    public ConformanceHarness(int threads) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Run every case, in parallel; results are in catalogue order.
+     *
+     * @param cases
+     * @return
+     */
+    public List<ConformanceResult> run(List<ConformanceCase> cases) {
+        if (cases.isEmpty())
+            return Collections.emptyList();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, cases.size()), r -> {
+            Thread t = new Thread(r, "conformance");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<ConformanceResult>> futures = new ArrayList<>(cases.size());
+            for (ConformanceCase c : cases)
+                futures.add(pool.submit(() -> runCase(c)));
+            List<ConformanceResult> results = new ArrayList<>(cases.size());
+            for (int i = 0; i < cases.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (Exception e) {
+                    results.add(new ConformanceResult(cases.get(i), ConformanceResult.Status.ERROR,
+                            String.valueOf(e), stackTrace(e), 0, 0, null));
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Run a single case on the calling thread.
+     *
+     * @param c
+     * @return
+     */
+    public static ConformanceResult runCase(ConformanceCase c) {
+        long t0 = System.nanoTime();
+        List<String> output = Collections.synchronizedList(new ArrayList<>());
+        Outcome o;
+        try {
+            NesEmulator emu = NesEmulator.create(EmulatorConfig.builder(c.loadRom())
+                    .name(c.getName())
+                    .autoSave(false)
+                    .audioOutputMode(com.nesemu.apu.APU.OutputMode.STATE_ONLY)
+                    .verbose(false)
+                    .logLevel(Log.Level.WARN)
+                    .logSink(output::add)
+                    .build());
+            o = switch (c.getKind()) {
+                case BLARGG -> runBlargg(emu, c.getMaxFrames());
+                case NESTEST -> runNestest(emu, c.getReference());
+                case FRAME_HASH -> runFrameHash(emu, c.getMaxFrames(), c.getExpected());
+            };
+        } catch (Exception | StackOverflowError e) {
+            o = new Outcome(ConformanceResult.Status.ERROR, String.valueOf(e), stackTrace(e), 0);
+        }
+        return new ConformanceResult(c, o.status, o.message, o.detail, System.nanoTime() - t0, o.frames,
+                String.join("\n", output));
+    }
+
+    private static final class Outcome {
+        final ConformanceResult.Status status;
+        final String message;
+        final String detail;
+        final long frames;
+
+        Outcome(ConformanceResult.Status status, String message, String detail, long frames) {
+            this.status = status;
+            this.message = message;
+            this.detail = detail;
+            this.frames = frames;
+        }
+    }
+
+    // --- blargg $6000 protocol ---
+
+    private static Outcome runBlargg(NesEmulator emu, int maxFrames) {
+        emu.reset();
+        NesBus bus = emu.getBus();
+        int resetIn = -1;
+        for (int frame = 1; frame <= maxFrames; frame++) {
+            emu.runFrames(1);
+            if (!hasBlarggSignature(bus))
+                continue;
+            int status = bus.read(0x6000) & 0xFF;
+            if (status == 0x80)
+                continue; // running
+            if (status == 0x81) { // reset requested
+                if (resetIn < 0)
+                    resetIn = RESET_DELAY_FRAMES;
+                else if (--resetIn == 0) {
+                    emu.reset();
+                    resetIn = -1;
+                }
+                continue;
+            }
+            String msg = readBlarggText(bus);
+            if (status == 0)
+                return new Outcome(ConformanceResult.Status.PASS, msg, null, frame);
+            return new Outcome(ConformanceResult.Status.FAIL,
+                    String.format(Locale.ROOT, "code %02X: %s", status, msg), null, frame);
+        }
+        String msg = hasBlarggSignature(bus) ? readBlarggText(bus) : "no $6000 status signature";
+        return new Outcome(ConformanceResult.Status.FAIL, "timeout after " + maxFrames + " frames: " + msg, null,
+                maxFrames);
+    }
+
+    private static boolean hasBlarggSignature(NesBus bus) {
+        return (bus.read(0x6001) & 0xFF) == 0xDE && (bus.read(0x6002) & 0xFF) == 0xB0
+                && (bus.read(0x6003) & 0xFF) == 0x61;
+    }
+
+    private static String readBlarggText(NesBus bus) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 0x1000 - 4; i++) {
+            int b = bus.read(0x6004 + i) & 0xFF;
+            if (b == 0)
+                break;
+            sb.append(b == '\n' ? ' ' : (b >= 32 && b < 127) ? (char) b : '.');
+        }
+        return sb.toString().trim();
+    }
+
+    // --- nestest automation mode vs reference log ---
+
+    private static Outcome runNestest(NesEmulator emu, Path log) throws IOException {
+        emu.reset();
+        try (BufferedReader ref = Files.newBufferedReader(log)) {
+            NestestRunner.Result r = NestestRunner.compare(emu.getCpu(), emu.getBus(), ref, CONTEXT_LINES, null);
+            return new Outcome(r.isPassed() ? ConformanceResult.Status.PASS : ConformanceResult.Status.FAIL,
+                    r.getMessage(), r.getDetail(), r.getLines());
+        }
+    }
+
+    // --- frame content hash ---
+
+    private static Outcome runFrameHash(NesEmulator emu, int frames, String expected) {
+        emu.reset();
+        PPU ppu = emu.getPpu();
+        ppu.setFrameHashEnabled(true);
+        emu.runFrames(frames);
+        String actual = Long.toHexString(ppu.getFrameHash());
+        if (expected == null)
+            return new Outcome(ConformanceResult.Status.SKIPPED, "hash=" + actual + " (no expected value)", null,
+                    frames);
+        if (expected.equalsIgnoreCase(actual))
+            return new Outcome(ConformanceResult.Status.PASS, "hash=" + actual, null, frames);
+        return new Outcome(ConformanceResult.Status.FAIL, "hash=" + actual + " expected=" + expected, null, frames);
+    }
+
+    private static String stackTrace(Throwable t) {
+        StringWriter sw = new StringWriter();
+        t.printStackTrace(new PrintWriter(sw));
+        return sw.toString();
+    }
+
+    // --- catalogue ---
+
+    /**
+     * Parse a catalogue file (format in the class doc).
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static List<ConformanceCase> loadCatalogue(Path file) throws IOException {
+        Path base = file.toAbsolutePath().getParent();
+        List<ConformanceCase> cases = new ArrayList<>();
+        int n = 0;
+        for (String raw : Files.readAllLines(file)) {
+            n++;
+            int hash = raw.indexOf('#');
+            String line = (hash >= 0 ? raw.substring(0, hash) : raw).trim();
+            if (line.isEmpty())
+                continue;
+            String[] t = line.split("\\s+");
+            try {
+                switch (t[0].toLowerCase(Locale.ROOT)) {
+                    case "blargg" -> cases.add(ConformanceCase.blargg(base.resolve(t[1]),
+                            t.length > 2 ? Integer.parseInt(t[2]) : DEFAULT_MAX_FRAMES));
+                    case "nestest" -> cases.add(ConformanceCase.nestest(base.resolve(t[1]), base.resolve(t[2])));
+                    case "hash" -> cases.add(ConformanceCase.frameHash(base.resolve(t[1]), Integer.parseInt(t[2]),
+                            t.length > 3 ? t[3] : null));
+                    default -> throw new IllegalArgumentException("unknown kind '" + t[0] + "'");
+                }
+            } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IOException(file + ":" + n + ": invalid entry '" + line + "' (" + e.getMessage() + ")");
+            }
+        }
+        return cases;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<ConformanceCase> cases = new ArrayList<>();
+        Path xml = null;
+        int threads = 0;
+        int frames = DEFAULT_MAX_FRAMES;
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if (a.equals("--xml") && i + 1 < args.length)
+                xml = Path.of(args[++i]);
+            else if (a.equals("--threads") && i + 1 < args.length)
+                threads = Integer.parseInt(args[++i]);
+            else if (a.equals("--frames") && i + 1 < args.length)
+                frames = Integer.parseInt(args[++i]);
+            else {
+                Path p = Path.of(a);
+                if (Files.isDirectory(p)) {
+                    try (Stream<Path> s = Files.walk(p)) {
+                        final int f = frames;
+                        s.filter(x -> x.toString().toLowerCase(Locale.ROOT).endsWith(".nes")).sorted()
+                                .forEach(x -> cases.add(ConformanceCase.blargg(x, f)));
+                    }
+                } else if (a.toLowerCase(Locale.ROOT).endsWith(".nes")) {
+                    cases.add(ConformanceCase.blargg(p, frames));
+                } else {
+                    cases.addAll(loadCatalogue(p));
+                }
+            }
+        }
+        if (cases.isEmpty()) {
+            Log.error(TEST,
+                    "Usage: ConformanceHarness <catalogue.txt|rom.nes|dir>... [--xml report.xml] [--threads N] [--frames N]");
+            System.exit(2);
+        }
+        ConformanceHarness harness = new ConformanceHarness(threads);
+        long t0 = System.nanoTime();
+        List<ConformanceResult> results = harness.run(cases);
+        double secs = (System.nanoTime() - t0) / 1e9;
+        int failed = 0;
+        for (ConformanceResult r : results) {
+            Log.info(TEST, "%s", r);
+            if (r.getStatus() == ConformanceResult.Status.FAIL || r.getStatus() == ConformanceResult.Status.ERROR) {
+                failed++;
+                if (!r.getDetail().isEmpty())
+                    Log.info(TEST, "%s", r.getDetail());
+            }
+        }
+        Log.info(TEST, "%d cases, %d failed, %.2fs (%d threads)", results.size(), failed, secs, harness.threads);
+        if (xml != null) {
+            JUnitXmlReport.write(xml, "conformance", results, secs);
+            Log.info(TEST, "Report: %s", xml);
+        }
+        System.exit(failed > 0 ? 1 : 0);
+    }
+}
@@ -0,0 +1,71 @@
+package com.nesemu.conformance;
+
+/**
+ * Outcome of one {@link ConformanceCase}.
+ */
+public final class ConformanceResult {
+
+    public enum Status {
+        PASS, FAIL, ERROR, SKIPPED
+    }
+
+    private final ConformanceCase testCase;
+    private final Status status;
+    private final String message;
+    private final String detail;
+    private final long nanos;
+    private final long frames;
+    private final String output;
+
+    ConformanceResult(ConformanceCase testCase, Status status, String message, String detail, long nanos,
+            long frames, String output) {
+        this.testCase = testCase;
+        this.status = status;
+        this.message = message == null ? "" : message;
+        this.detail = detail == null ? "" : detail;
+        this.nanos = nanos;
+        this.frames = frames;
+        this.output = output == null ? "" : output;
+    }
+
+    public ConformanceCase getCase() {
+        return testCase;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isPass() {
+        return status == Status.PASS;
+    }
+
+    /** One-line summary (ROM text, divergence, hash...). */
+    public String getMessage() {
+        return message;
+    }
+
+    /** Multi-line detail (context window, stack trace); may be empty. */
+    public String getDetail() {
+        return detail;
+    }
+
+    public double getSeconds() {
+        return nanos / 1e9;
+    }
+
+    /** Emulated frames (or instructions for NESTEST). */
+    public long getFrames() {
+        return frames;
+    }
+
+    /** Log lines the emulator produced while running the case. */
+    public String getOutput() {
+        return output;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-7s %-40s %6.2fs %s", status, testCase.getName(), getSeconds(), message);
+    }
+}
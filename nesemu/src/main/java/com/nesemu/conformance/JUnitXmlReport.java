@@ -0,0 +1,104 @@
+package com.nesemu.conformance;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes conformance results in the JUnit XML format understood by CI servers
+ * (one testsuite, one testcase per ROM, classname = case kind).
+ */
+public final class JUnitXmlReport {
+
+    private JUnitXmlReport() {
+    }
+
+    /**
+     * @param file
+     * @param suiteName
+     * @param results
+     * @param seconds   wall time of the whole run
+     * @throws IOException
+     */
+    public static void write(Path file, String suiteName, List<ConformanceResult> results, double seconds)
+            throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        Files.writeString(file, toXml(suiteName, results, seconds), StandardCharsets.UTF_8);
+    }
+
+    public static String toXml(String suiteName, List<ConformanceResult> results, double seconds) {
+        int failures = 0, errors = 0, skipped = 0;
+        for (ConformanceResult r : results) {
+            switch (r.getStatus()) {
+                case FAIL -> failures++;
+                case ERROR -> errors++;
+                case SKIPPED -> skipped++;
+                default -> {
+                }
+            }
+        }
+        StringBuilder sb = new StringBuilder(256 + results.size() * 160);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<testsuite name=\"").append(escape(suiteName)).append('"')
+                .append(" tests=\"").append(results.size()).append('"')
+                .append(" failures=\"").append(failures).append('"')
+                .append(" errors=\"").append(errors).append('"')
+                .append(" skipped=\"").append(skipped).append('"')
+                .append(" time=\"").append(secs(seconds)).append("\">\n");
+        for (ConformanceResult r : results) {
+            ConformanceCase c = r.getCase();
+            sb.append("  <testcase classname=\"conformance.").append(c.getKind().name().toLowerCase(Locale.ROOT))
+                    .append("\" name=\"").append(escape(c.getName()))
+                    .append("\" time=\"").append(secs(r.getSeconds())).append('"');
+            String body = switch (r.getStatus()) {
+                case FAIL -> element("failure", r);
+                case ERROR -> element("error", r);
+                case SKIPPED -> "    <skipped message=\"" + escape(r.getMessage()) + "\"/>\n";
+                default -> "";
+            };
+            if (!r.getOutput().isEmpty())
+                body += "    <system-out>" + escape(r.getOutput()) + "</system-out>\n";
+            if (body.isEmpty()) {
+                sb.append("/>\n");
+            } else {
+                sb.append(">\n").append(body).append("  </testcase>\n");
+            }
+        }
+        sb.append("</testsuite>\n");
+        return sb.toString();
+    }
+
+    private static String element(String tag, ConformanceResult r) {
+        return "    <" + tag + " message=\"" + escape(r.getMessage()) + "\">" + escape(r.getDetail()) + "</" + tag
+                + ">\n";
+    }
+
+    private static String secs(double s) {
+        return String.format(Locale.ROOT, "%.3f", s);
+    }
+
+    // XML 1.0: escape markup, drop control characters that are not allowed
+    static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '&' -> sb.append("&amp;");
+                case '"' -> sb.append("&quot;");
+                case '\'' -> sb.append("&apos;");
+                default -> {
+                    if (ch >= 0x20 || ch == '\n' || ch == '\r' || ch == '\t')
+                        sb.append(ch);
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
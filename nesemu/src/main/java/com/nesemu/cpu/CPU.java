@@ -109,6 +109,8 @@ public class CPU implements NesCPU {
         RLA, RRA, SLO, SRE, DCP, ISC
     }
 
+    private static final RmwKind[] RMW_KINDS = RmwKind.values();
+
     /**
      * Constructor for the CPU class.
      * 
@@ -456,6 +458,56 @@ public class CPU implements NesCPU {
         negative = (p & 0x80) != 0;
     }
 
+    /**
+     * Serialize execution state not covered by {@link #forceState} (remaining
+     * instruction cycles, pending RMW write, pending interrupts, DMA stall) so a
+     * snapshot taken mid-instruction resumes on the exact same cycle.
+     *
+     * @param buf
+     */
+    public void writeExecState(java.nio.ByteBuffer buf) {
+        buf.putInt(cycles);
+        buf.putLong(totalCycles);
+        buf.putInt(dmaStallCycles);
+        buf.put((byte) (rmwActive ? 1 : 0));
+        buf.putShort((short) rmwAddress);
+        buf.put((byte) rmwOriginal);
+        buf.put((byte) rmwModified);
+        buf.put((byte) (rmwKind != null ? rmwKind.ordinal() : -1));
+        buf.put((byte) rmwCarryIn);
+        buf.put((byte) ((nmiPending ? 1 : 0) | (irqPending ? 2 : 0)));
+    }
+
+    /**
+     * Exact number of bytes {@link #writeExecState(java.nio.ByteBuffer)} produces.
+     *
+     * @return
+     */
+    public int execStateSize() {
+        return 4 + 8 + 4 + 7 + 1; // cycles, totalCycles, DMA stall, RMW write, IRQ bits
+    }
+
+    /**
+     * Counterpart to {@link #writeExecState(java.nio.ByteBuffer)}.
+     *
+     * @param buf
+     */
+    public void readExecState(java.nio.ByteBuffer buf) {
+        cycles = buf.getInt();
+        totalCycles = buf.getLong();
+        dmaStallCycles = buf.getInt();
+        rmwActive = buf.get() != 0;
+        rmwAddress = buf.getShort() & 0xFFFF;
+        rmwOriginal = buf.get() & 0xFF;
+        rmwModified = buf.get() & 0xFF;
+        int kind = buf.get();
+        rmwKind = (kind >= 0 && kind < RMW_KINDS.length) ? RMW_KINDS[kind] : null;
+        rmwCarryIn = buf.get() & 0xFF;
+        int irqBits = buf.get();
+        nmiPending = (irqBits & 1) != 0;
+        irqPending = (irqBits & 2) != 0;
+    }
+
     @Override
     public void stepInstruction() {
         while (cycles > 0)
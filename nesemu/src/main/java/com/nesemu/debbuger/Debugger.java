@@ -1,6 +1,8 @@
 package com.nesemu.debbuger;
 
 import com.nesemu.app.EmulatorContext;
+import com.nesemu.emulator.DebugSnapshot;
+import com.nesemu.emulator.NesEmulator;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
@@ -92,6 +94,7 @@ public class Debugger {
                 @Override
                 public void windowClosing(WindowEvent e) {
                     disassemblerWindow = null;
+                    updateSnapshotChannel();
                 }
             });
             disassemblerWindow.setVisible(true);
@@ -99,6 +102,7 @@ public class Debugger {
             disassemblerWindow.dispose();
             disassemblerWindow = null;
         }
+        updateSnapshotChannel();
     }
 
     public void setMemoryEnabled(boolean enabled) {
@@ -109,6 +113,7 @@ public class Debugger {
                 @Override
                 public void windowClosing(WindowEvent e) {
                     memoryWindow = null;
+                    updateSnapshotChannel();
                 }
             });
             memoryWindow.setVisible(true);
@@ -116,6 +121,7 @@ public class Debugger {
             memoryWindow.dispose();
             memoryWindow = null;
         }
+        updateSnapshotChannel();
     }
 
     public void setHexEditorEnabled(boolean enabled) {
@@ -131,6 +137,7 @@ public class Debugger {
                 @Override
                 public void windowClosing(WindowEvent e) {
                     ppuViewerWindow = null;
+                    updateSnapshotChannel();
                 }
             });
             ppuViewerWindow.setVisible(true);
@@ -138,6 +145,7 @@ public class Debugger {
             ppuViewerWindow.dispose();
             ppuViewerWindow = null;
         }
+        updateSnapshotChannel();
     }
 
     /**
@@ -178,5 +186,30 @@ public class Debugger {
         if (memoryWindow != null) memoryWindow.dispose();
         if (hexEditorWindow != null) hexEditorWindow.dispose();
         if (ppuViewerWindow != null) ppuViewerWindow.dispose();
+        disassemblerWindow = memoryWindow = ppuViewerWindow = null;
+        updateSnapshotChannel();
+    }
+
+    /**
+     * Snapshot do fim do frame para as ferramentas (liga a publicação no
+     * emulador atual, que muda ao recarregar a ROM). Feche após o uso.
+     *
+     * @param context
+     * @return null se não houver emulador ou snapshot ainda
+     */
+    static DebugSnapshot acquireSnapshot(EmulatorContext context) {
+        NesEmulator emu = context.getEmulator();
+        if (emu == null)
+            return null;
+        if (!emu.isDebugSnapshotsEnabled())
+            emu.setDebugSnapshotsEnabled(true);
+        return emu.acquireDebugSnapshot();
+    }
+
+    // Desliga a cópia por frame quando nenhuma ferramenta está aberta
+    private void updateSnapshotChannel() {
+        NesEmulator emu = context.getEmulator();
+        if (emu != null && disassemblerWindow == null && memoryWindow == null && ppuViewerWindow == null)
+            emu.setDebugSnapshotsEnabled(false);
     }
 }
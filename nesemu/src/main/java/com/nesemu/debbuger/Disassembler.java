@@ -1,8 +1,7 @@
 package com.nesemu.debbuger;
 
 import com.nesemu.app.EmulatorContext;
-import com.nesemu.bus.interfaces.NesBus;
-import com.nesemu.cpu.interfaces.NesCPU;
+import com.nesemu.emulator.DebugSnapshot;
 import javax.swing.*;
 import javax.swing.BorderFactory;
 import java.awt.*;
@@ -133,17 +132,23 @@ public class Disassembler extends JFrame {
     }
 
     private void refresh() {
-        if (context.emulator == null) return;
-
-        // Reflection/Cast to access CPU/Bus if interfaces are generic
-        // Assuming standard NesEmulator structure
-        NesBus bus = context.emulator.getBus();
-        NesCPU cpu = context.emulator.getCpu(); // Cast to concrete if needed for getPC
+        // Read only the frame-end snapshot: bus.read here could trigger $2002/$4016
+        // side effects and race with the emulation thread
+        try (DebugSnapshot snap = Debugger.acquireSnapshot(context)) {
+            if (snap != null)
+                refresh(snap);
+        }
+    }
 
-        if (bus == null || cpu == null) return;
+    // Unmapped/register ranges show as open bus
+    private static int byteAt(DebugSnapshot snap, int addr) {
+        int v = snap.cpuRead(addr);
+        return v < 0 ? 0xFF : v;
+    }
 
-        int pc = cpu.getPc() & 0xFFFF;
-        int sp = cpu.getSP() & 0xFF; // Ler do registro SP da CPU, não da memória!
+    private void refresh(DebugSnapshot snap) {
+        int pc = snap.getPc();
+        int sp = snap.getSp();
 
         // Update status bar
         statusLabel.setText(String.format("PC: $%04X   SP: $%02X", pc, sp));
@@ -161,7 +166,7 @@ public class Disassembler extends JFrame {
                     synced = true;
                     break;
                 }
-                int op = bus.read(curr) & 0xFF;
+                int op = byteAt(snap, curr);
                 curr += LENGTHS[op];
             }
             if (synced) {
@@ -180,7 +185,7 @@ public class Disassembler extends JFrame {
                 selectedIndex = i;
             }
 
-            int op = bus.read(addr) & 0xFF;
+            int op = byteAt(snap, addr);
             String mnem = MNEMONICS[op];
             int len = LENGTHS[op];
 
@@ -190,7 +195,7 @@ public class Disassembler extends JFrame {
             // Bytes
             for (int j = 0; j < 3; j++) {
                 if (j < len) {
-                    sb.append(String.format("%02X ", bus.read(addr + j) & 0xFF));
+                    sb.append(String.format("%02X ", byteAt(snap, addr + j)));
                 } else {
                     sb.append("   ");
                 }
@@ -199,11 +204,11 @@ public class Disassembler extends JFrame {
 
             // Operands (Simplified visualization)
             if (len == 2) {
-                int val = bus.read(addr + 1) & 0xFF;
+                int val = byteAt(snap, addr + 1);
                 sb.append(String.format(" $%02X", val));
             } else if (len == 3) {
-                int lo = bus.read(addr + 1) & 0xFF;
-                int hi = bus.read(addr + 2) & 0xFF;
+                int lo = byteAt(snap, addr + 1);
+                int hi = byteAt(snap, addr + 2);
                 int val = (hi << 8) | lo;
                 sb.append(String.format(" $%04X", val));
             }
@@ -2,6 +2,9 @@ package com.nesemu.debbuger;
 
 import com.nesemu.bus.Bus;
 import com.nesemu.bus.interfaces.NesBus;
+import com.nesemu.conformance.ConformanceCase;
+import com.nesemu.conformance.ConformanceHarness;
+import com.nesemu.conformance.ConformanceResult;
 import com.nesemu.cpu.CPU;
 import com.nesemu.cpu.interfaces.NesCPU;
 import com.nesemu.mapper.Mapper0;
@@ -22,6 +25,8 @@ import static com.nesemu.util.Log.Cat.*;
  * Mensagem ASCII iniciando em $6004 terminada por 0.
  * Uso: java -cp target/... com.nesemu.tools.GenericTestRunner rom.nes
  * [maxInstr] [maxCycles] [--debug]
+ * Sem --debug delega para {@link ConformanceHarness} (suítes inteiras: use o
+ * próprio harness com um catálogo).
  */
 public class GenericTestRunner {
     public static void main(String[] args) throws Exception {
@@ -37,6 +42,15 @@ public class GenericTestRunner {
             if ("--debug".equalsIgnoreCase(a))
                 debug = true;
 
+        if (!debug) {
+            // Normal runs go through the conformance harness (every mapper, real
+            // blargg protocol); the hand-wired path below stays for --debug tracing
+            int maxFrames = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxCycles / 29781));
+            ConformanceResult r = ConformanceHarness.runCase(ConformanceCase.blargg(romPath, maxFrames));
+            Log.info(TEST, "%s", r);
+            return;
+        }
+
         INesRom rom = RomLoader.load(romPath);
         int mapperNum = rom.getHeader().getMapper();
         // Build minimal system selecting mapper
@@ -1,9 +1,7 @@
 package com.nesemu.debbuger;
 
 import com.nesemu.app.EmulatorContext;
-import com.nesemu.bus.interfaces.NesBus;
-import com.nesemu.ppu.PPU;
-import com.nesemu.ppu.interfaces.NesPPU;
+import com.nesemu.emulator.DebugSnapshot;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
@@ -93,11 +91,7 @@ public class Memory extends JFrame {
 
     // Modelo virtual para evitar criar 4096 strings a cada frame
     private class MemoryListModel extends AbstractListModel<String> {
-        // Cache para evitar copiar a cada frame
-        private byte[] cachedNameTables = null;
-        private byte[] cachedExRam = null;
-        private long lastCacheUpdate = 0;
-        private static final long CACHE_TTL_MS = 50; // 50ms cache
+        private static final char[] HEX = "0123456789ABCDEF".toCharArray();
 
         @Override
         public int getSize() {
@@ -106,94 +100,54 @@ public class Memory extends JFrame {
 
         @Override
         public String getElementAt(int index) {
-            if (context.emulator == null) return "Emulation not running";
-            NesBus bus = context.emulator.getBus();
-            NesPPU ppu = context.emulator.getPpu();
-            if (bus == null) return "No Bus";
-
-            int startAddr = index * 16;
-            StringBuilder sb = new StringBuilder();
-            sb.append(String.format("%04X: ", startAddr));
-
-            StringBuilder ascii = new StringBuilder();
-
-            // Update cache periodically
-            long now = System.currentTimeMillis();
-            if (now - lastCacheUpdate > CACHE_TTL_MS) {
-                if (ppu instanceof PPU) {
-                    cachedNameTables = ((PPU) ppu).getNameTableCopy();
-                    cachedExRam = null; // será preenchido abaixo
-                }
-                lastCacheUpdate = now;
+            if (context.getEmulator() == null) return "Emulation not running";
+            // Lê apenas o snapshot do fim do frame (sem side-effects no bus/PPU)
+            try (DebugSnapshot snap = Debugger.acquireSnapshot(context)) {
+                if (snap == null) return "No snapshot";
+                return formatRow(snap, index * 16);
             }
+        }
+
+        private String formatRow(DebugSnapshot snap, int startAddr) {
+            StringBuilder sb = new StringBuilder(72);
+            appendHex(sb, startAddr >> 8);
+            appendHex(sb, startAddr);
+            sb.append(": ");
+            char[] ascii = new char[16];
 
             for (int i = 0; i < 16; i++) {
                 int addr = startAddr + i;
-                int val = 0;
-
-                // Nametables ($2000-$2FFF) - read from PPU cache
-                if (addr >= 0x2000 && addr <= 0x2FFF && cachedNameTables != null) {
-                    int ntIndex = addr - 0x2000;
-                    // Nametables are 2KB (0x800 bytes), add bounds checking
-                    if (ntIndex >= 0 && ntIndex < cachedNameTables.length && ntIndex < 0x800) {
-                        val = cachedNameTables[ntIndex] & 0xFF;
-                    } else {
-                        sb.append("-- ");
-                        ascii.append('.');
-                        continue;
-                    }
+                int val;
+                // Nametables ($2000-$2FFF) e paleta ($3F00-$3FFF) - espaço da PPU
+                if ((addr >= 0x2000 && addr <= 0x2FFF) || (addr >= 0x3F00 && addr <= 0x3FFF)) {
+                    val = snap.ppuRead(addr);
                 }
-                // ExRAM ($5C00-$5FFF) - read from cache
-                else if (addr >= 0x5C00 && addr <= 0x5FFF && cachedExRam != null) {
-                    int exramIndex = addr - 0x5C00;
-                    // ExRAM is 1KB (0x400 bytes), add bounds checking
-                    if (exramIndex >= 0 && exramIndex < cachedExRam.length && exramIndex < 0x400) {
-                        val = cachedExRam[exramIndex] & 0xFF;
-                    } else {
-                        sb.append("-- ");
-                        ascii.append('.');
-                        continue;
-                    }
-                }
-                // Paleta ($3F00-$3FFF) - read from PPU (with mirroring)
-                else if (addr >= 0x3F00 && addr <= 0x3FFF) {
-                    byte[] palette = null;
-                    if (ppu instanceof PPU) {
-                        palette = ((PPU) ppu).getPaletteCopy();
-                    }
-                    if (palette != null) {
-                        // Palette mirrors every 32 bytes within the 256-byte range
-                        val = palette[(addr - 0x3F00) & 0x1F] & 0xFF;
-                    } else {
-                        sb.append("IO ");
-                        ascii.append('.');
-                        continue;
-                    }
-                }
-                // APU/IO com side-effects ($2000-$20FF, $4000-$401F) - skip
-                else if ((addr >= 0x2000 && addr <= 0x20FF) || (addr >= 0x4000 && addr <= 0x401F)) {
-                    sb.append("IO ");
-                    ascii.append('.');
-                    continue;
+                // Registradores PPU/APU/IO e expansão - não capturados
+                else if (addr >= 0x2000 && addr < 0x6000) {
+                    val = -1;
                 }
-                // Tudo mais - ler do bus
+                // RAM interna, PRG RAM e bancos PRG atuais
                 else {
-                    val = bus.read(addr) & 0xFF;
+                    val = snap.cpuRead(addr);
                 }
 
-                sb.append(String.format("%02X ", val));
-
-                // ASCII representation
-                char c = (char) val;
-                if (val >= 32 && val <= 126) {
-                    ascii.append(c);
-                } else {
-                    ascii.append('.');
+                if (val < 0) {
+                    sb.append(addr < 0x4020 ? "IO " : "-- ");
+                    ascii[i] = '.';
+                    continue;
                 }
+                appendHex(sb, val);
+                sb.append(' ');
+                // ASCII representation
+                ascii[i] = (val >= 32 && val <= 126) ? (char) val : '.';
             }
 
-            sb.append(" ").append(ascii);
+            sb.append(' ').append(ascii);
             return sb.toString();
         }
+
+        private void appendHex(StringBuilder sb, int v) {
+            sb.append(HEX[(v >> 4) & 0x0F]).append(HEX[v & 0x0F]);
+        }
     }
 }
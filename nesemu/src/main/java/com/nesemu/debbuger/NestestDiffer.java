@@ -13,9 +13,9 @@ import com.nesemu.util.Log;
 import static com.nesemu.util.Log.Cat.*;
 
 /**
- * Differential runner: executes nestest and compares each produced trace line's
- * PC and cumulative cycles against a reference nestest.log, stopping at first
- * mismatch.
+ * Differential runner: executes nestest in lockstep with a reference
+ * nestest.log ({@link NestestRunner#compare}), stopping at the first mismatch
+ * and dumping the CPU state (last opcode timing, stack).
  * Focus is to identify earliest timing divergence (e.g., +2 cycles at CDF6
  * TXS).
  */
@@ -23,12 +23,11 @@ public class NestestDiffer {
 
     public static void main(String[] args) throws Exception {
         if (args.length < 2) {
-            Log.error(TEST, "Usage: NestestDiffer <romFile> <referenceLog> [limit]");
+            Log.error(TEST, "Usage: NestestDiffer <romFile> <referenceLog>");
             return;
         }
         File romFile = new File(args[0]);
         File refFile = new File(args[1]);
-        int limit = args.length >= 3 ? Integer.parseInt(args[2]) : 10000;
 
         // Load ROM and construct minimal system using Bus + Mapper0 + PPU
         com.nesemu.rom.INesRom rom = RomLoader.load(romFile.toPath());
@@ -43,47 +42,21 @@ public class NestestDiffer {
         bus.attachPPU(ppu);
         bus.attachMapper(mapper0, rom);
         NesBus mem = bus; // CPU view
-        CPU cpu = new CPU(mem);
-        // Force nestest canonical start state
-        cpu.forceState(0xC000, 0x00, 0x00, 0x00, 0x24, 0xFD);
-        cpu.setTotalCycles(7);
+        CPU cpu = new CPU(mem); // start state forced by NestestRunner.compare
 
         try (BufferedReader br = new BufferedReader(new FileReader(refFile))) {
-            String refLine;
-            int step = 0;
-            long refCycles = -1;
-            while (step < limit && (refLine = br.readLine()) != null) {
-                // Parse reference PC and CYC
-                String pcHex = refLine.substring(0, 4);
-                int refPC = Integer.parseInt(pcHex, 16);
-                int refCycIdx = refLine.indexOf("CYC:");
-                long refCyc = Long.parseLong(refLine.substring(refCycIdx + 4).trim());
-                refCycles = refCyc;
-
-                int actualPC = cpu.getPC();
-                if (actualPC != refPC) {
-                    dumpMismatch(step, "PC", refPC, actualPC, cpu, mem, refLine);
-                    return;
-                }
-
-                long actualCycles = cpu.getTotalCycles();
-                if (actualCycles != refCyc) {
-                    dumpMismatch(step, "CYC", refCyc, actualCycles, cpu, mem, refLine);
-                    return;
-                }
-
-                // Execute one full instruction (advances totalCycles by its full cost)
-                cpu.stepInstruction();
-                step++;
+            NestestRunner.Result r = NestestRunner.compare(cpu, mem, br, NestestRunner.DEFAULT_CONTEXT_LINES, null);
+            if (r.isPassed()) {
+                Log.info(TEST, "Finished without mismatch: %s", r.getMessage());
+            } else {
+                dumpMismatch(r, cpu, mem);
             }
-            Log.info(TEST, "Finished without mismatch up to steps=%d refCycles=%d", step, refCycles);
         }
     }
 
-    private static void dumpMismatch(int step, String kind, long expected, long actual, CPU cpu, NesBus mem,
-            String refLine) {
-        Log.error(TEST, "=== MISMATCH step=%d kind=%s expected=%d actual=%d ===", step, kind, expected, actual);
-        Log.error(TEST, "Reference: %s", refLine);
+    private static void dumpMismatch(NestestRunner.Result r, CPU cpu, NesBus mem) {
+        Log.error(TEST, "=== MISMATCH %s ===", r.getMessage());
+        Log.error(TEST, "Context:\n%s", r.getDetail());
         Log.error(TEST, String.format("CPU State: PC=%04X A=%02X X=%02X Y=%02X P=%02X SP=%02X TotalCyc=%d",
                 cpu.getPC(), cpu.getA(), cpu.getX(), cpu.getY(), cpu.getStatusByte(), cpu.getSP(),
                 cpu.getTotalCycles()));
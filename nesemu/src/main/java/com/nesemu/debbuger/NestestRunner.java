@@ -1,37 +1,131 @@
 package com.nesemu.debbuger;
 
-import com.nesemu.cpu.CPU;
 import com.nesemu.cpu.Opcode;
+import com.nesemu.cpu.interfaces.NesCPU;
 import com.nesemu.bus.Bus;
 import com.nesemu.bus.interfaces.NesBus;
 import com.nesemu.ppu.PPU;
 import com.nesemu.mapper.Mapper0;
 import com.nesemu.rom.INesRom;
 import com.nesemu.rom.RomLoader;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Locale;
+import java.util.ArrayDeque;
 import com.nesemu.util.Log;
 import static com.nesemu.util.Log.Cat.*;
 
 /**
- * Minimal runner to execute nestest.nes and produce a trace log similar to
- * nestest.log.
- * Usage (example): java -cp target/nesemu-1.0-SNAPSHOT.jar
- * com.nesemu.tools.NestestRunner path/to/nestest.nes out.log
+ * Runs nestest.nes in automation mode ($C000) and compares every instruction
+ * with the reference nestest.log while streaming it, stopping at the first
+ * divergence with a window of the preceding reference lines. Trace lines are
+ * built in a reused buffer in nestest.log layout; nothing is written to disk
+ * unless {@code --trace} is given.
+ * <p>
+ * Compared fields: PC, A/X/Y/P/SP and CYC (the disassembly and PPU columns of
+ * the reference carry details this trace does not reproduce). At the end the
+ * result codes left by nestest in $02/$03 must be zero.
+ * <p>
+ * Usage: java -cp target/classes com.nesemu.debbuger.NestestRunner
+ * nestest.nes [nestest.log] [--trace out.log]
  */
 public class NestestRunner {
 
+    /** Reference lines kept for the divergence report. */
+    public static final int DEFAULT_CONTEXT_LINES = 4;
+
+    // "A:00 X:00 Y:00 P:24 SP:FD"
+    private static final int REGS_LEN = 25;
+
+    /**
+     * Outcome of a comparison.
+     */
+    public static final class Result {
+        private final boolean passed;
+        private final long lines;
+        private final String message;
+        private final String detail;
+
+        Result(boolean passed, long lines, String message, String detail) {
+            this.passed = passed;
+            this.lines = lines;
+            this.message = message;
+            this.detail = detail == null ? "" : detail;
+        }
+
+        public boolean isPassed() {
+            return passed;
+        }
+
+        /** Reference lines matched (the diverging line included on failure). */
+        public long getLines() {
+            return lines;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /** Context window (reference lines, expected vs actual); empty on pass. */
+        public String getDetail() {
+            return detail;
+        }
+
+        @Override
+        public String toString() {
+            return passed ? message : message + "\n" + detail;
+        }
+    }
+
     public static void main(String[] args) throws Exception {
-        if (args.length < 2) {
-            Log.error(TEST, "Usage: NestestRunner <nestest.nes> <out.log> [maxInstructions]");
+        if (args.length < 1) {
+            Log.error(TEST, "Usage: NestestRunner <nestest.nes> [nestest.log] [--trace out.log]");
             System.exit(1);
         }
         Path romPath = Path.of(args[0]);
-        Path outPath = Path.of(args[1]);
-        long maxInstructions = (args.length >= 3) ? Long.parseLong(args[2]) : 200_000; // safety cap
+        Path refPath = null, tracePath = null;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--trace") && i + 1 < args.length)
+                tracePath = Path.of(args[++i]);
+            else
+                refPath = Path.of(args[i]);
+        }
+        if (refPath == null) {
+            Path dir = romPath.toAbsolutePath().getParent();
+            refPath = dir.resolve("nestest.log");
+        }
+        long t0 = System.nanoTime();
+        Result r;
+        if (tracePath != null) {
+            try (BufferedWriter w = Files.newBufferedWriter(tracePath)) {
+                r = run(romPath, refPath, w);
+            }
+        } else {
+            r = run(romPath, refPath, null);
+        }
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        if (r.isPassed()) {
+            Log.info(TEST, "nestest OK: %s (%d ms)", r.getMessage(), ms);
+        } else {
+            Log.error(TEST, "nestest FAIL: %s (%d ms)\n%s", r.getMessage(), ms, r.getDetail());
+            System.exit(1);
+        }
+    }
 
+    /**
+     * Build a minimal Mapper0 system for the ROM and compare it with the
+     * reference log.
+     *
+     * @param romPath
+     * @param referenceLog
+     * @param trace        optional sink for the produced trace (null = none)
+     * @return
+     * @throws IOException
+     */
+    public static Result run(Path romPath, Path referenceLog, Writer trace) throws IOException {
         INesRom rom = RomLoader.load(romPath);
         if (rom.getHeader().getMapper() != 0) {
             throw new IOException("Only mapper 0 supported in this simple runner");
@@ -43,431 +137,276 @@ public class NestestRunner {
         Bus bus = new Bus();
         bus.attachPPU(ppu);
         bus.attachMapper(mapper0, rom);
-        NesBus cpuBus = bus; // view for CPU
+        NesCPU cpu = new com.nesemu.cpu.CPU(bus);
+        try (BufferedReader ref = Files.newBufferedReader(referenceLog)) {
+            return compare(cpu, bus, ref, DEFAULT_CONTEXT_LINES, trace);
+        }
+    }
 
-        CPU cpu = new CPU(cpuBus); // AFTER CPU refactor to accept iBus
-        // Force nestest start state (bypassing reset vector) per official doc
+    /**
+     * Force the nestest start state on {@code cpu} and execute it in lockstep
+     * with {@code reference}, one instruction per (non blank) reference line.
+     *
+     * @param cpu
+     * @param bus          CPU address space (operand / memory value columns)
+     * @param reference    nestest.log reader
+     * @param contextLines reference lines shown before a divergence
+     * @param trace        optional sink for the produced trace (null = none)
+     * @return
+     * @throws IOException
+     */
+    public static Result compare(NesCPU cpu, NesBus bus, BufferedReader reference, int contextLines, Writer trace)
+            throws IOException {
+        // Force nestest start state (bypassing reset vector) per official doc; the
+        // first reference line is logged with CYC:7
         cpu.forceState(0xC000, 0x00, 0x00, 0x00, 0x24, 0xFD);
-        // Baseline cycles (nestest expects first logged line CYC:7); we set pre-exec
-        // cycles=7
         cpu.setTotalCycles(7);
 
-        long executed = 0;
-        String termination = null;
-        try (PrintWriter w = new PrintWriter(outPath.toFile())) {
-            while (true) {
-                int pcBefore = cpu.getPC();
-                int opcode = cpuBus.read(pcBefore);
+        Tracer tr = new Tracer();
+        ArrayDeque<String> context = new ArrayDeque<>(contextLines + 1);
+        long lineNo = 0;
+        String line;
+        while ((line = reference.readLine()) != null) {
+            if (line.isBlank())
+                continue;
+            lineNo++;
+            tr.build(cpu, bus);
+            if (trace != null) {
+                trace.append(tr.sb).append('\n');
+            }
+            String field = tr.diff(line);
+            if (field != null) {
+                StringBuilder detail = new StringBuilder(256 + contextLines * 96);
+                for (String c : context)
+                    detail.append("  ").append(c).append('\n');
+                detail.append("> ").append(line).append('\n');
+                detail.append("< ").append(tr.sb).append('\n');
+                return new Result(false, lineNo, "diverged at line " + lineNo + " (" + field + ")",
+                        detail.toString());
+            }
+            if (contextLines > 0) {
+                if (context.size() == contextLines)
+                    context.removeFirst();
+                context.addLast(line);
+            }
+            cpu.stepInstruction();
+        }
+        // nestest leaves error codes in $02/$03 (0 = all passed)
+        int e1 = bus.read(0x0002) & 0xFF, e2 = bus.read(0x0003) & 0xFF;
+        if (e1 != 0 || e2 != 0) {
+            StringBuilder msg = new StringBuilder("error codes $02=");
+            Tracer.hex(msg, e1, 2);
+            Tracer.hex(msg.append(" $03="), e2, 2);
+            return new Result(false, lineNo, msg.toString(), null);
+        }
+        return new Result(true, lineNo, lineNo + " instructions match", null);
+    }
 
-                // Build trace line with cycles BEFORE executing instruction (nestest style)
-                TraceLine tl = buildTraceLine(cpu, cpuBus, pcBefore, opcode);
-                tl.cyclesAfter = cpu.getTotalCycles(); // actually cycles before execution here
-                computePpu(tl);
-                w.println(tl.format());
+    /**
+     * Formats the nestest.log line for the instruction at PC (state before
+     * execution) into one reused buffer, remembering where the compared fields
+     * start.
+     */
+    static final class Tracer {
+        private static final char[] HEX = "0123456789ABCDEF".toCharArray();
 
-                cpu.stepInstruction(); // execute one instruction (advances cycles)
-                executed++;
+        final StringBuilder sb = new StringBuilder(96);
+        private int regsAt;
+        private int cycAt;
 
-                // Termination: reference trace ends after RTS (or historically BRK) at $C66E.
-                if (pcBefore == 0xC66E && (opcode == 0x60 || opcode == 0x00)) {
-                    termination = String.format(Locale.ROOT, "Reached expected %s at $C66E",
-                            opcode == 0x60 ? "RTS" : "BRK");
-                    break;
-                }
-                // Heuristic safety: only trigger if we *pass* the known final pre-exec cycle
-                // count (26554). Using >= caused us to stop immediately after the inner
-                // subroutine RTS at $C6A2 (which brings total cycles to 26554) and before we
-                // could fetch & log the outer final RTS at $C66E. So we require strictly >.
-                if (cpu.getTotalCycles() > 26554) {
-                    termination = "Heuristic stop (exceeded expected end cycles without hitting $C66E)";
-                    break;
-                }
-                if (executed >= maxInstructions) {
-                    termination = "Reached instruction cap (" + maxInstructions + ")";
-                    break;
-                }
+        /**
+         * @param cpu
+         * @param mem
+         */
+        void build(NesCPU cpu, NesBus mem) {
+            StringBuilder sb = this.sb;
+            sb.setLength(0);
+            int pc = cpu.getPC() & 0xFFFF;
+            int opcode = mem.read(pc);
+            int op1 = mem.read((pc + 1) & 0xFFFF);
+            int op2 = mem.read((pc + 2) & 0xFFFF);
+            int mode = MODES[opcode];
+            int len = LENGTHS[mode];
+
+            // PC(4) bytes(9) asm(31) A:.. X:.. Y:.. P:.. SP:.. PPU:sss,xxx CYC:cycles
+            hex(sb, pc, 4);
+            sb.append("  ");
+            hex(sb, opcode, 2);
+            if (len > 1)
+                hex(sb.append(' '), op1, 2);
+            if (len > 2)
+                hex(sb.append(' '), op2, 2);
+            pad(sb, 16);
+            appendAsm(sb, cpu, mem, pc, opcode, mode, op1, op2);
+            pad(sb, 48);
+
+            regsAt = sb.length();
+            hex(sb.append("A:"), cpu.getA(), 2);
+            hex(sb.append(" X:"), cpu.getX(), 2);
+            hex(sb.append(" Y:"), cpu.getY(), 2);
+            hex(sb.append(" P:"), cpu.getStatusByte(), 2);
+            hex(sb.append(" SP:"), cpu.getSP(), 2);
+
+            // Approximate: PPU cycles = CPU cycles * 3
+            long cycles = cpu.getTotalCycles();
+            long ppuTotal = cycles * 3L;
+            sb.append(" PPU:");
+            dec3(sb, (int) ((ppuTotal / 341) % 262));
+            sb.append(',');
+            dec3(sb, (int) (ppuTotal % 341));
+            sb.append(" CYC:");
+            cycAt = sb.length();
+            sb.append(cycles);
+        }
+
+        /**
+         * Compare the compared fields of the current trace line with a reference
+         * line.
+         *
+         * @param ref
+         * @return name of the first differing field, or null when equal
+         */
+        String diff(String ref) {
+            if (ref.length() < 4 || !same(ref, 0, 0, 4))
+                return "PC";
+            int ra = ref.indexOf(" A:");
+            if (ra < 0 || !same(ref, ra + 1, regsAt, REGS_LEN))
+                return "registers";
+            int rc = ref.indexOf(" CYC:", ra);
+            if (rc < 0)
+                return "CYC";
+            rc += 5;
+            int end = ref.length();
+            while (end > rc && ref.charAt(end - 1) <= ' ')
+                end--;
+            int n = sb.length() - cycAt;
+            if (end - rc != n || !same(ref, rc, cycAt, n))
+                return "CYC";
+            return null;
+        }
+
+        private boolean same(String ref, int refAt, int at, int n) {
+            if (refAt + n > ref.length() || at + n > sb.length())
+                return false;
+            for (int i = 0; i < n; i++) {
+                if (ref.charAt(refAt + i) != sb.charAt(at + i))
+                    return false;
             }
+            return true;
         }
-        if (termination == null)
-            termination = "Unknown";
-        Log.info(TEST, "Trace written to %s (%d instructions, cycles=%d). Termination: %s", outPath,
-                executed, cpu.getTotalCycles(), termination);
-    }
 
-    // -------- Compatibility trace building (items 1-7) --------
-    private static class TraceLine {
-        int pc;
-        int op1;
-        int op2;
-        int length;
-        String asm;
-        long cyclesAfter;
-        int ppuScanline;
-        int ppuX;
-        String bytesField; // padded bytes representation
+        static void hex(StringBuilder sb, int v, int digits) {
+            for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4)
+                sb.append(HEX[(v >> shift) & 0xF]);
+        }
 
-        String format() {
-            // Format similar to nestest.log:
-            // PC(4) bytes(9) asm(padded) A:.. X:.. Y:.. P:.. SP:.. PPU: sss,xxx CYC:cycles
-            return String.format(Locale.ROOT,
-                    "%04X  %-9s %-31s A:%02X X:%02X Y:%02X P:%02X SP:%02X PPU:%3d,%3d CYC:%d",
-                    pc, bytesField, asm, a, x, y, p, sp, ppuScanline, ppuX, cyclesAfter);
+        // %3d for 0..999
+        private static void dec3(StringBuilder sb, int v) {
+            if (v < 100)
+                sb.append(' ');
+            if (v < 10)
+                sb.append(' ');
+            sb.append(v);
         }
 
-        int a, x, y, p, sp; // register snapshot before execution (as per reference)
+        private static void pad(StringBuilder sb, int column) {
+            // at least one separator even when the field overflows
+            do {
+                sb.append(' ');
+            } while (sb.length() < column);
+        }
     }
 
-    private static TraceLine buildTraceLine(CPU cpu, NesBus mem, int pc, int opcode) {
-        TraceLine tl = new TraceLine();
-        tl.pc = pc;
-        tl.op1 = mem.read((pc + 1) & 0xFFFF);
-        tl.op2 = mem.read((pc + 2) & 0xFFFF);
-        tl.a = cpu.getA();
-        tl.x = cpu.getX();
-        tl.y = cpu.getY();
-        tl.p = cpu.getStatusByte();
-        tl.sp = cpu.getSP();
+    // -------- Disassembly column (nestest.log style) --------
 
-        Decoded dec = decodeForAsm(cpu, mem, pc, opcode, tl.op1, tl.op2);
-        tl.length = dec.length;
-        tl.asm = dec.asm;
-        tl.bytesField = formatBytes(opcode, tl.op1, tl.op2, tl.length);
-        return tl;
-    }
+    private static final int IMP = 0, ACC = 1, IMM = 2, REL = 3, ZP = 4, ZPX = 5, ZPY = 6, IZX = 7, IZY = 8,
+            ABS = 9, ABX = 10, ABY = 11;
+    private static final int[] LENGTHS = { 1, 1, 2, 2, 2, 2, 2, 2, 2, 3, 3, 3 };
+    private static final byte[] MODES = new byte[256];
 
-    private static String formatBytes(int op, int b1, int b2, int len) {
-        switch (len) {
-            case 1:
-                return String.format(Locale.ROOT, "%02X", op); // will be padded by %-9s field
-            case 2:
-                return String.format(Locale.ROOT, "%02X %02X", op, b1);
-            default:
-                return String.format(Locale.ROOT, "%02X %02X %02X", op, b1, b2);
-        }
+    static {
+        modes(ACC, 0x0A, 0x2A, 0x4A, 0x6A);
+        modes(IMM, 0xA9, 0xA2, 0xA0, 0x69, 0x29, 0x0B, 0x2B, 0xAB, 0xC9, 0xE0, 0xC0, 0x49, 0x09, 0xE9, 0x4B, 0x6B,
+                0xCB, 0x80, 0x82, 0x89, 0xC2, 0xE2, 0xEB);
+        modes(REL, 0x10, 0x30, 0x50, 0x70, 0x90, 0xB0, 0xD0, 0xF0);
+        modes(ZP, 0xA5, 0xA6, 0xA4, 0x65, 0x25, 0xC5, 0xE4, 0xC4, 0x45, 0x05, 0xE5, 0x06, 0x26, 0x46, 0x66, 0x47,
+                0x07, 0x67, 0x27, 0x85, 0x86, 0x84, 0x87, 0xA7, 0x24, 0xC6, 0xE6, 0xC7, 0xE7, 0x04, 0x44, 0x64);
+        modes(ZPX, 0xB5, 0xB4, 0x75, 0x35, 0xD5, 0x55, 0x15, 0xF5, 0x16, 0x36, 0x56, 0x76, 0x57, 0x17, 0x77, 0x37,
+                0x95, 0x94, 0xD6, 0xF6, 0xD7, 0xF7, 0x14, 0x34, 0x54, 0x74, 0xD4, 0xF4);
+        modes(ZPY, 0xB6, 0x96, 0x97, 0xB7);
+        modes(IZX, 0xA1, 0x61, 0x21, 0xC1, 0x41, 0x01, 0xE1, 0x81, 0x83, 0x43, 0x03, 0xC3, 0xE3, 0xA3, 0x63, 0x23);
+        modes(IZY, 0xB1, 0x71, 0x31, 0xD1, 0x51, 0x11, 0xF1, 0x91, 0x93, 0x53, 0x13, 0xD3, 0xF3, 0xB3, 0x73, 0x33);
+        modes(ABS, 0x20, 0x0C, 0x2C, 0x4C, 0x6C, 0xAD, 0xAE, 0xAC, 0x6D, 0x2D, 0xCD, 0xEC, 0xCC, 0x4D, 0x0D, 0xED,
+                0x0E, 0x2E, 0x4E, 0x6E, 0x8D, 0x8E, 0x8C, 0xCE, 0xEE, 0xAF, 0xCF, 0xEF, 0x6F, 0x2F, 0x4F, 0x0F);
+        modes(ABX, 0xBD, 0xBC, 0x7D, 0x3D, 0xDD, 0x5D, 0x1D, 0xFD, 0x1E, 0x3E, 0x5E, 0x7E, 0x1C, 0x3C, 0x5C, 0x7C,
+                0xDC, 0xFC, 0x9D, 0xDE, 0xFE, 0xDF, 0xFF, 0x1F, 0x3F, 0x5F, 0x7F);
+        modes(ABY, 0xB9, 0xBE, 0x79, 0x39, 0xD9, 0x59, 0x19, 0xF9, 0x99, 0x9B, 0x7B, 0x9F, 0x9E, 0x5B, 0x1B, 0xDB,
+                0xFB, 0xBF, 0xBB, 0x3B);
     }
 
-    private static class Decoded {
-        int length;
-        String asm;
+    private static void modes(int mode, int... opcodes) {
+        for (int op : opcodes)
+            MODES[op] = (byte) mode;
     }
 
-    private static Decoded decodeForAsm(CPU cpu, NesBus mem, int pc, int opcode, int op1, int op2) {
-        Decoded d = new Decoded();
+    private static void appendAsm(StringBuilder sb, NesCPU cpu, NesBus mem, int pc, int opcode, int mode, int op1,
+            int op2) {
         Opcode opEnum = Opcode.fromByte(opcode);
         String mnemonic = (opEnum != null) ? opEnum.name() : "???";
         if (mnemonic.equals("DOP") || mnemonic.equals("TOP"))
             mnemonic = "NOP"; // normalize
-        int len = 1;
-        String operand = "";
-        boolean showValue = false;
+        sb.append(mnemonic);
+        int abs = (op2 << 8) | op1;
         int effAddr = -1;
-
-        switch (opcode) {
-            // Accumulator (len 1)
-            case 0x0A:
-            case 0x2A:
-            case 0x4A:
-            case 0x6A:
-                operand = "A";
-                break;
-            // Immediate (len 2)
-            case 0xA9:
-            case 0xA2:
-            case 0xA0:
-            case 0x69:
-            case 0x29:
-            case 0x0B:
-            case 0x2B:
-            case 0xAB:
-            case 0xC9:
-            case 0xE0:
-            case 0xC0:
-            case 0x49:
-            case 0x09:
-            case 0xE9:
-            case 0x4B:
-            case 0x6B:
-            case 0xCB:
-            case 0x80:
-            case 0x82:
-            case 0x89:
-            case 0xC2:
-            case 0xE2:
-            case 0xEB:
-                len = 2;
-                operand = String.format(Locale.ROOT, "#$%02X", op1);
-                break; // no memory value
-            // Relative branches (len 2)
-            case 0x10:
-            case 0x30:
-            case 0x50:
-            case 0x70:
-            case 0x90:
-            case 0xB0:
-            case 0xD0:
-            case 0xF0:
-                len = 2;
-                int relTarget = (pc + 2 + (byte) op1) & 0xFFFF;
-                operand = String.format(Locale.ROOT, "$%04X", relTarget);
-                break;
-            // Zero page (len 2)
-            case 0xA5:
-            case 0xA6:
-            case 0xA4:
-            case 0x65:
-            case 0x25:
-            case 0xC5:
-            case 0xE4:
-            case 0xC4:
-            case 0x45:
-            case 0x05:
-            case 0xE5:
-            case 0x06:
-            case 0x26:
-            case 0x46:
-            case 0x66:
-            case 0x47:
-            case 0x07:
-            case 0x67:
-            case 0x27:
-            case 0x85:
-            case 0x86:
-            case 0x84:
-            case 0x87:
-            case 0xA7:
-            case 0x24:
-            case 0xC6:
-            case 0xE6:
-            case 0xC7:
-            case 0xE7:
-            case 0x04:
-            case 0x44:
-            case 0x64:
-                len = 2;
+        switch (mode) {
+            case ACC -> sb.append(" A");
+            case IMM -> Tracer.hex(sb.append(" #$"), op1, 2); // no memory value
+            case REL -> Tracer.hex(sb.append(" $"), (pc + 2 + (byte) op1) & 0xFFFF, 4);
+            case ZP -> {
                 effAddr = op1 & 0xFF;
-                operand = String.format(Locale.ROOT, "$%02X", effAddr);
-                showValue = true;
-                break;
-            // Zero page,X (len 2)
-            case 0xB5:
-            case 0xB4:
-            case 0x75:
-            case 0x35:
-            case 0xD5:
-            case 0x55:
-            case 0x15:
-            case 0xF5:
-            case 0x16:
-            case 0x36:
-            case 0x56:
-            case 0x76:
-            case 0x57:
-            case 0x17:
-            case 0x77:
-            case 0x37:
-            case 0x95:
-            case 0x94:
-            case 0xD6:
-            case 0xF6:
-            case 0xD7:
-            case 0xF7:
-            case 0x14:
-            case 0x34:
-            case 0x54:
-            case 0x74:
-            case 0xD4:
-            case 0xF4:
-                len = 2;
-                int eff = (op1 + cpu.getX()) & 0xFF;
-                effAddr = eff;
-                operand = String.format(Locale.ROOT, "$%02X,X", op1);
-                showValue = true;
-                break;
-            // Zero page,Y
-            case 0xB6:
-            case 0x96:
-            case 0x97:
-            case 0xB7:
-                len = 2;
-                eff = (op1 + cpu.getY()) & 0xFF;
-                effAddr = eff;
-                operand = String.format(Locale.ROOT, "$%02X,Y", op1);
-                showValue = true;
-                break;
-            // (Indirect,X)
-            case 0xA1:
-            case 0x61:
-            case 0x21:
-            case 0xC1:
-            case 0x41:
-            case 0x01:
-            case 0xE1:
-            case 0x81:
-            case 0x83:
-            case 0x43:
-            case 0x03:
-            case 0xC3:
-            case 0xE3:
-            case 0xA3:
-            case 0x63:
-            case 0x23:
-                len = 2;
+                Tracer.hex(sb.append(" $"), op1, 2);
+            }
+            case ZPX, ZPY -> {
+                effAddr = (op1 + (mode == ZPX ? cpu.getX() : cpu.getY())) & 0xFF;
+                Tracer.hex(sb.append(" $"), op1, 2);
+                sb.append(mode == ZPX ? ",X" : ",Y");
+            }
+            case IZX -> {
                 int zp = (op1 + cpu.getX()) & 0xFF;
-                int lo = mem.read(zp);
-                int hi = mem.read((zp + 1) & 0xFF);
-                effAddr = (hi << 8) | lo;
-                operand = String.format(Locale.ROOT, "($%02X,X)", op1);
-                showValue = true;
-                break;
-            // (Indirect),Y
-            case 0xB1:
-            case 0x71:
-            case 0x31:
-            case 0xD1:
-            case 0x51:
-            case 0x11:
-            case 0xF1:
-            case 0x91:
-            case 0x93:
-            case 0x53:
-            case 0x13:
-            case 0xD3:
-            case 0xF3:
-            case 0xB3:
-            case 0x73:
-            case 0x33:
-                len = 2;
-                zp = op1 & 0xFF;
-                lo = mem.read(zp);
-                hi = mem.read((zp + 1) & 0xFF);
-                int base = (hi << 8) | lo;
+                effAddr = (mem.read((zp + 1) & 0xFF) << 8) | mem.read(zp);
+                Tracer.hex(sb.append(" ($"), op1, 2);
+                sb.append(",X)");
+            }
+            case IZY -> {
+                int base = (mem.read((op1 + 1) & 0xFF) << 8) | mem.read(op1 & 0xFF);
                 effAddr = (base + cpu.getY()) & 0xFFFF;
-                operand = String.format(Locale.ROOT, "($%02X),Y", op1);
-                showValue = true;
-                break;
-            // Absolute (len 3) (no index)
-            case 0x20:
-            case 0x0C:
-            case 0x2C:
-            case 0x4C:
-            case 0x6C:
-            case 0xAD:
-            case 0xAE:
-            case 0xAC:
-            case 0x6D:
-            case 0x2D:
-            case 0xCD:
-            case 0xEC:
-            case 0xCC:
-            case 0x4D:
-            case 0x0D:
-            case 0xED:
-            case 0x0E:
-            case 0x2E:
-            case 0x4E:
-            case 0x6E:
-            case 0x8D:
-            case 0x8E:
-            case 0x8C:
-            case 0xCE:
-            case 0xEE:
-            case 0xAF:
-            case 0xCF:
-            case 0xEF:
-            case 0x6F:
-            case 0x2F:
-            case 0x4F:
-            case 0x0F:
-                len = 3;
-                int addr = (op2 << 8) | op1;
-                operand = (opcode == 0x6C) ? String.format(Locale.ROOT, "($%04X)", addr)
-                        : String.format(Locale.ROOT, "$%04X", addr);
-                effAddr = addr;
-                // For absolute addressing we also show the pre-execution memory value for store
-                // instructions (nestest style: value shown is value BEFORE the write).
-                showValue = (opcode != 0x20 && opcode != 0x4C && opcode != 0x6C);
-                break; // no value for JSR/JMP
-            // Absolute,X
-            case 0xBD:
-            case 0xBC:
-            case 0x7D:
-            case 0x3D:
-            case 0xDD:
-            case 0x5D:
-            case 0x1D:
-            case 0xFD:
-            case 0x1E:
-            case 0x3E:
-            case 0x5E:
-            case 0x7E:
-            case 0x1C:
-            case 0x3C:
-            case 0x5C:
-            case 0x7C:
-            case 0xDC:
-            case 0xFC:
-            case 0x9D:
-            case 0xDE:
-            case 0xFE:
-            case 0xDF:
-            case 0xFF:
-            case 0x1F:
-            case 0x3F:
-            case 0x5F:
-            case 0x7F:
-                len = 3;
-                addr = (op2 << 8) | op1;
-                effAddr = (addr + cpu.getX()) & 0xFFFF;
-                operand = String.format(Locale.ROOT, "$%04X,X", addr);
-                showValue = true;
-                break;
-            // Absolute,Y
-            case 0xB9:
-            case 0xBE:
-            case 0x79:
-            case 0x39:
-            case 0xD9:
-            case 0x59:
-            case 0x19:
-            case 0xF9:
-            case 0x99:
-            case 0x9B:
-            case 0x7B:
-            case 0x9F:
-            case 0x9E:
-            case 0x5B:
-            case 0x1B:
-            case 0xDB:
-            case 0xFB:
-            case 0xBF:
-            case 0xBB:
-            case 0x3B:
-                len = 3;
-                addr = (op2 << 8) | op1;
-                effAddr = (addr + cpu.getY()) & 0xFFFF;
-                operand = String.format(Locale.ROOT, "$%04X,Y", addr);
-                showValue = true;
-                break;
-            default:
+                Tracer.hex(sb.append(" ($"), op1, 2);
+                sb.append("),Y");
+            }
+            case ABS -> {
+                if (opcode == 0x6C) {
+                    Tracer.hex(sb.append(" ($"), abs, 4);
+                    sb.append(')');
+                } else {
+                    Tracer.hex(sb.append(" $"), abs, 4);
+                }
+                // Stores also show the pre-execution memory value (nestest style); no value
+                // for JSR/JMP
+                if (opcode != 0x20 && opcode != 0x4C && opcode != 0x6C)
+                    effAddr = abs;
+            }
+            case ABX, ABY -> {
+                effAddr = (abs + (mode == ABX ? cpu.getX() : cpu.getY())) & 0xFFFF;
+                Tracer.hex(sb.append(" $"), abs, 4);
+                sb.append(mode == ABX ? ",X" : ",Y");
+            }
+            default -> {
                 // implied / single byte
-                break;
+            }
         }
-
-        // Build asm string with optional memory value
-        if (showValue && effAddr >= 0) {
-            int memVal = mem.read(effAddr); // pre-execution value (stores: old value)
-            operand = operand + String.format(Locale.ROOT, " = %02X", memVal);
+        if (effAddr >= 0) {
+            // pre-execution value (stores: old value)
+            Tracer.hex(sb.append(" = "), mem.read(effAddr), 2);
         }
-        d.length = len;
-        d.asm = operand.isEmpty() ? mnemonic : (mnemonic + " " + operand);
-        return d;
     }
-
-    private static void computePpu(TraceLine tl) {
-        // Approximate: PPU cycles = CPU cycles * 3
-        long ppuTotal = (long) tl.cyclesAfter * 3L;
-        tl.ppuScanline = (int) ((ppuTotal / 341) % 262);
-        tl.ppuX = (int) (ppuTotal % 341);
-    }
-
 }
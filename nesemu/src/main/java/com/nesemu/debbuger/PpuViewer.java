@@ -1,7 +1,7 @@
 package com.nesemu.debbuger;
 
 import com.nesemu.app.EmulatorContext;
-import com.nesemu.ppu.PPU;
+import com.nesemu.emulator.DebugSnapshot;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
@@ -20,6 +20,8 @@ public class PpuViewer extends JFrame {
     
     // Paleta simples (escala de cinza) para visualização
     private static final int[] PALETTE = { 0x000000, 0x555555, 0xAAAAAA, 0xFFFFFF };
+    private final int[] tileRow = new int[8];
+    private long lastFrame = -1;
 
     public PpuViewer(EmulatorContext context) {
         super("PPU Viewer - Pattern Tables");
@@ -57,19 +59,20 @@ public class PpuViewer extends JFrame {
     }
 
     private void updateTables() {
-        if (context.emulator == null) return;
-        // Cast para PPU concreta para acessar debugRead (NesPPU interface não expõe leitura direta)
-        if (context.emulator.getPpu() instanceof PPU ppu) {
+        // Lê o CHR do snapshot do fim do frame (bancos atuais do Mapper), sem tocar na PPU
+        try (DebugSnapshot snap = Debugger.acquireSnapshot(context)) {
+            if (snap == null) return;
+            if (snap.getFrame() == lastFrame) return; // nada novo desde o último refresh
+            lastFrame = snap.getFrame();
             // Renderiza Tabela 0 ($0000-$0FFF)
-            renderPatternTable(ppu, 0x0000, patternTable0);
+            renderPatternTable(snap, 0x0000, patternTable0);
             // Renderiza Tabela 1 ($1000-$1FFF)
-            renderPatternTable(ppu, 0x1000, patternTable1);
-            
-            canvas.repaint();
+            renderPatternTable(snap, 0x1000, patternTable1);
         }
+        canvas.repaint();
     }
 
-    private void renderPatternTable(PPU ppu, int baseAddr, BufferedImage img) {
+    private void renderPatternTable(DebugSnapshot snap, int baseAddr, BufferedImage img) {
         // Itera sobre 256 tiles (16x16 grid)
         for (int tileY = 0; tileY < 16; tileY++) {
             for (int tileX = 0; tileX < 16; tileX++) {
@@ -79,18 +82,15 @@ public class PpuViewer extends JFrame {
                 // Desenha o tile 8x8
                 for (int row = 0; row < 8; row++) {
                     // Lê os dois planos de bits do tile
-                    // Nota: Usamos ppu.debugRead() para acessar a memória de vídeo (CHR)
-                    // Isso mostrará o que a PPU vê *agora* (bancos atuais do Mapper).
-                    int lo = ppu.debugRead(tileAddr + row);
-                    int hi = ppu.debugRead(tileAddr + row + 8);
+                    int lo = snap.ppuRead(tileAddr + row);
+                    int hi = snap.ppuRead(tileAddr + row + 8);
                     
                     for (int col = 0; col < 8; col++) {
                         int bit = 7 - col;
                         int pixel = ((hi >> bit) & 1) << 1 | ((lo >> bit) & 1);
-                        int color = PALETTE[pixel];
-                        
-                        img.setRGB(tileX * 8 + col, tileY * 8 + row, color);
+                        tileRow[col] = PALETTE[pixel];
                     }
+                    img.setRGB(tileX * 8, tileY * 8 + row, 8, 1, tileRow, 0, 8);
                 }
             }
         }
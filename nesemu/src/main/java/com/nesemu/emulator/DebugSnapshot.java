@@ -0,0 +1,150 @@
+package com.nesemu.emulator;
+
+import com.nesemu.cpu.interfaces.NesCPU;
+import com.nesemu.mapper.Mapper;
+import com.nesemu.memory.interfaces.NesMemory;
+import com.nesemu.ppu.PPU;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copy of the machine state debugger tools look at, taken by the emulator
+ * thread at the end of a frame (see
+ * {@link NesEmulator#setDebugSnapshotsEnabled(boolean)}). Reading it has no
+ * side effects on the emulated hardware (no $2002/$4016 reads, no DMC or
+ * mapper logic). Instances are recycled: obtain one with
+ * {@link NesEmulator#acquireDebugSnapshot()} and close it when done; contents
+ * do not change while it is held.
+ */
+public final class DebugSnapshot implements AutoCloseable {
+
+    public static final int RAM_SIZE = 0x0800; // $0000-$07FF
+    public static final int PRG_RAM_SIZE = 0x2000; // $6000-$7FFF
+    public static final int PRG_SIZE = 0x8000; // $8000-$FFFF
+    public static final int NAMETABLE_SIZE = 0x1000; // $2000-$2FFF (PPU)
+    public static final int CHR_SIZE = 0x2000; // $0000-$1FFF (PPU)
+
+    private final byte[] ram = new byte[RAM_SIZE];
+    private final byte[] prgRam = new byte[PRG_RAM_SIZE];
+    private final byte[] prg = new byte[PRG_SIZE];
+    private final byte[] nametables = new byte[NAMETABLE_SIZE];
+    private final byte[] oam = new byte[256];
+    private final byte[] palette = new byte[32];
+    private final byte[] chr = new byte[CHR_SIZE];
+    private boolean hasPrgRam;
+    private long frame;
+    private int pc, sp, a, x, y, p;
+
+    // Readers holding this buffer; the emulator never refills it while > 0
+    private final AtomicInteger readers = new AtomicInteger();
+
+    DebugSnapshot() {
+    }
+
+    /**
+     * Fill from the live machine (emulator thread only).
+     */
+    void capture(long frame, NesCPU cpu, NesMemory memory, PPU ppu, Mapper mapper) {
+        this.frame = frame;
+        pc = cpu.getPC() & 0xFFFF;
+        sp = cpu.getSP() & 0xFF;
+        a = cpu.getA() & 0xFF;
+        x = cpu.getX() & 0xFF;
+        y = cpu.getY() & 0xFF;
+        p = cpu.getStatusByte() & 0xFF;
+        for (int i = 0; i < RAM_SIZE; i++)
+            ram[i] = (byte) memory.readInternalRam(i);
+        byte[] wram = mapper.getPrgRam();
+        hasPrgRam = wram != null;
+        if (hasPrgRam)
+            System.arraycopy(wram, 0, prgRam, 0, Math.min(PRG_RAM_SIZE, wram.length));
+        mapper.copyPrgWindow(prg, 0);
+        mapper.copyChrWindow(chr, 0);
+        mapper.copyNametables(nametables, 0);
+        ppu.copyDebugMemory(oam, palette);
+    }
+
+    void retain() {
+        readers.incrementAndGet();
+    }
+
+    boolean isHeld() {
+        return readers.get() > 0;
+    }
+
+    /** Release this snapshot back to the emulator. */
+    @Override
+    public void close() {
+        readers.decrementAndGet();
+    }
+
+    /** Frame counter at capture time. */
+    public long getFrame() {
+        return frame;
+    }
+
+    public int getPc() {
+        return pc;
+    }
+
+    public int getSp() {
+        return sp;
+    }
+
+    public int getA() {
+        return a;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getP() {
+        return p;
+    }
+
+    /**
+     * CPU address space view: internal RAM (mirrored), PRG RAM and the PRG
+     * banks mapped at capture time. Registers and unmapped ranges read as -1.
+     *
+     * @param addr
+     * @return byte 0..255, or -1 when not captured
+     */
+    public int cpuRead(int addr) {
+        addr &= 0xFFFF;
+        if (addr < 0x2000)
+            return ram[addr & 0x07FF] & 0xFF;
+        if (addr >= 0x8000)
+            return prg[addr - 0x8000] & 0xFF;
+        if (addr >= 0x6000 && hasPrgRam)
+            return prgRam[addr - 0x6000] & 0xFF;
+        return -1;
+    }
+
+    /**
+     * PPU address space view: CHR banks, nametables (mirroring applied) and
+     * palette.
+     *
+     * @param addr
+     * @return
+     */
+    public int ppuRead(int addr) {
+        addr &= 0x3FFF;
+        if (addr < 0x2000)
+            return chr[addr] & 0xFF;
+        if (addr < 0x3F00)
+            return nametables[addr & 0x0FFF] & 0xFF;
+        return palette[addr & 0x1F] & 0xFF;
+    }
+
+    public int oamRead(int index) {
+        return oam[index & 0xFF] & 0xFF;
+    }
+
+    public boolean hasPrgRam() {
+        return hasPrgRam;
+    }
+}
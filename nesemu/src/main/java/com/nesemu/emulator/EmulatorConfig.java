@@ -0,0 +1,369 @@
+package com.nesemu.emulator;
+
+import com.nesemu.apu.APU;
+import com.nesemu.apu.AudioFilterChain;
+import com.nesemu.input.ControllerButton;
+import com.nesemu.input.ControllerConfig;
+import com.nesemu.ppu.PPU;
+import com.nesemu.rom.INesRom;
+import com.nesemu.util.Log;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Immutable configuration of one emulator instance (embedding API).
+ * Build with {@link #builder(INesRom)} and create instances with
+ * {@link NesEmulator#create(EmulatorConfig)}. Every instance owns its CPU, bus,
+ * PPU, APU, mapper, controllers and logger, so many instances can run in one
+ * JVM; each instance may be driven from any thread, one thread at a time.
+ * Defaults match {@code new NesEmulator(rom)}.
+ */
+public final class EmulatorConfig {
+
+    private final INesRom rom;
+    private final Path romPath;
+    private final Path saveDirectory;
+    private final boolean autoSave;
+    private final NesEmulator.TimingMode timingMode;
+    private final APU.OutputMode audioOutputMode;
+    private final AudioFilterChain.Mode audioFilter;
+    private final boolean compactFrameBuffer;
+    private final PPU.LeftColumnMode leftColumnMode;
+    private final boolean unlimitedSprites;
+    private final boolean verbose;
+    private final ControllerConfig pad1Config;
+    private final ControllerConfig pad2Config;
+    private final boolean turboFast;
+    private final String name;
+    private final Log.Level logLevel;
+    private final Set<Log.Cat> logCategories;
+    private final Consumer<String> logSink;
+
+    private EmulatorConfig(Builder b) {
+        this.rom = b.rom;
+        this.romPath = b.romPath;
+        this.saveDirectory = b.saveDirectory;
+        this.autoSave = b.autoSave;
+        this.timingMode = b.timingMode;
+        this.audioOutputMode = b.audioOutputMode;
+        this.audioFilter = b.audioFilter;
+        this.compactFrameBuffer = b.compactFrameBuffer;
+        this.leftColumnMode = b.leftColumnMode;
+        this.unlimitedSprites = b.unlimitedSprites;
+        this.verbose = b.verbose;
+        this.pad1Config = copyOf(b.pad1Config);
+        this.pad2Config = copyOf(b.pad2Config);
+        this.turboFast = b.turboFast;
+        this.name = b.name;
+        this.logLevel = b.logLevel;
+        this.logCategories = Collections.unmodifiableSet(b.logCategories.isEmpty()
+                ? EnumSet.noneOf(Log.Cat.class)
+                : EnumSet.copyOf(b.logCategories));
+        this.logSink = b.logSink;
+    }
+
+    /**
+     * New builder for a ROM.
+     *
+     * @param rom
+     * @return
+     */
+    public static Builder builder(INesRom rom) {
+        return new Builder(rom);
+    }
+
+    /**
+     * Builder pre-filled with this configuration (to derive variants).
+     *
+     * @return
+     */
+    public Builder toBuilder() {
+        Builder b = new Builder(rom);
+        b.romPath = romPath;
+        b.saveDirectory = saveDirectory;
+        b.autoSave = autoSave;
+        b.timingMode = timingMode;
+        b.audioOutputMode = audioOutputMode;
+        b.audioFilter = audioFilter;
+        b.compactFrameBuffer = compactFrameBuffer;
+        b.leftColumnMode = leftColumnMode;
+        b.unlimitedSprites = unlimitedSprites;
+        b.verbose = verbose;
+        b.pad1Config = pad1Config;
+        b.pad2Config = pad2Config;
+        b.turboFast = turboFast;
+        b.name = name;
+        b.logLevel = logLevel;
+        b.logCategories = EnumSet.noneOf(Log.Cat.class);
+        b.logCategories.addAll(logCategories);
+        b.logSink = logSink;
+        return b;
+    }
+
+    /**
+     * New logger for an instance built from this configuration.
+     *
+     * @return
+     */
+    Log.Logger newLogger() {
+        Log.Logger logger = (logSink != null) ? new Log.Logger(name, logSink) : new Log.Logger(name);
+        logger.setLevel(logLevel);
+        logger.setCategories(logCategories);
+        return logger;
+    }
+
+    /**
+     * New controller config for a port (copy, never shared between instances).
+     *
+     * @param port 0 or 1
+     * @return
+     */
+    ControllerConfig controllerConfig(int port) {
+        return copyOf(port == 0 ? pad1Config : pad2Config);
+    }
+
+    private static ControllerConfig copyOf(ControllerConfig src) {
+        ControllerConfig copy = new ControllerConfig();
+        if (src == null)
+            return copy;
+        for (ControllerButton btn : ControllerButton.values()) {
+            for (String token : src.getTokens(btn))
+                copy.add(btn, token);
+            for (String token : src.getTurboTokens(btn))
+                copy.addTurbo(btn, token);
+        }
+        return copy;
+    }
+
+    public INesRom getRom() {
+        return rom;
+    }
+
+    public Path getRomPath() {
+        return romPath;
+    }
+
+    public Path getSaveDirectory() {
+        return saveDirectory;
+    }
+
+    public boolean isAutoSave() {
+        return autoSave;
+    }
+
+    public NesEmulator.TimingMode getTimingMode() {
+        return timingMode;
+    }
+
+    public APU.OutputMode getAudioOutputMode() {
+        return audioOutputMode;
+    }
+
+    public AudioFilterChain.Mode getAudioFilter() {
+        return audioFilter;
+    }
+
+    public boolean isCompactFrameBuffer() {
+        return compactFrameBuffer;
+    }
+
+    public PPU.LeftColumnMode getLeftColumnMode() {
+        return leftColumnMode;
+    }
+
+    public boolean isUnlimitedSprites() {
+        return unlimitedSprites;
+    }
+
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    public boolean isTurboFast() {
+        return turboFast;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Log.Level getLogLevel() {
+        return logLevel;
+    }
+
+    public Set<Log.Cat> getLogCategories() {
+        return logCategories;
+    }
+
+    /**
+     * Builder for {@link EmulatorConfig}. Not thread-safe; build() snapshots it.
+     */
+    public static final class Builder {
+        private final INesRom rom;
+        private Path romPath;
+        private Path saveDirectory;
+        private boolean autoSave = true;
+        private NesEmulator.TimingMode timingMode = NesEmulator.TimingMode.SIMPLE;
+        private APU.OutputMode audioOutputMode = APU.OutputMode.FULL;
+        private AudioFilterChain.Mode audioFilter = AudioFilterChain.Mode.NES;
+        private boolean compactFrameBuffer = false;
+        private PPU.LeftColumnMode leftColumnMode = PPU.LeftColumnMode.HARDWARE;
+        private boolean unlimitedSprites = false;
+        private boolean verbose = true;
+        private ControllerConfig pad1Config;
+        private ControllerConfig pad2Config;
+        private boolean turboFast = false;
+        private String name;
+        private Log.Level logLevel = Log.Level.INFO;
+        private EnumSet<Log.Cat> logCategories = EnumSet.allOf(Log.Cat.class);
+        private Consumer<String> logSink;
+
+        private Builder(INesRom rom) {
+            this.rom = Objects.requireNonNull(rom, "rom");
+        }
+
+        /**
+         * Original ROM file: enables .sav naming next to it (with autoSave).
+         *
+         * @param path
+         * @return
+         */
+        public Builder romPath(Path path) {
+            this.romPath = path;
+            return this;
+        }
+
+        /**
+         * Directory for battery saves (created when needed).
+         *
+         * @param dir
+         * @return
+         */
+        public Builder saveDirectory(Path dir) {
+            this.saveDirectory = dir;
+            return this;
+        }
+
+        /**
+         * Periodic PRG RAM autosave + load on start (needs romPath or
+         * saveDirectory to have any effect).
+         *
+         * @param enable
+         * @return
+         */
+        public Builder autoSave(boolean enable) {
+            this.autoSave = enable;
+            return this;
+        }
+
+        public Builder timingMode(NesEmulator.TimingMode mode) {
+            this.timingMode = Objects.requireNonNull(mode, "timingMode");
+            return this;
+        }
+
+        /**
+         * FULL = mixer + sample buffer; STATE_ONLY = only CPU visible APU state
+         * (no audio produced, cheaper for headless farms).
+         *
+         * @param mode
+         * @return
+         */
+        public Builder audioOutputMode(APU.OutputMode mode) {
+            this.audioOutputMode = Objects.requireNonNull(mode, "audioOutputMode");
+            return this;
+        }
+
+        public Builder audioFilter(AudioFilterChain.Mode mode) {
+            this.audioFilter = Objects.requireNonNull(mode, "audioFilter");
+            return this;
+        }
+
+        public Builder compactFrameBuffer(boolean enable) {
+            this.compactFrameBuffer = enable;
+            return this;
+        }
+
+        public Builder leftColumnMode(PPU.LeftColumnMode mode) {
+            this.leftColumnMode = Objects.requireNonNull(mode, "leftColumnMode");
+            return this;
+        }
+
+        public Builder unlimitedSprites(boolean enable) {
+            this.unlimitedSprites = enable;
+            return this;
+        }
+
+        /**
+         * Bus/PPU diagnostic prints (debug level).
+         *
+         * @param enable
+         * @return
+         */
+        public Builder verbose(boolean enable) {
+            this.verbose = enable;
+            return this;
+        }
+
+        /**
+         * Key token mappings for the two controllers (copied; null = no keys,
+         * programmatic input only).
+         *
+         * @param pad1
+         * @param pad2
+         * @return
+         */
+        public Builder controllers(ControllerConfig pad1, ControllerConfig pad2) {
+            this.pad1Config = pad1;
+            this.pad2Config = pad2;
+            return this;
+        }
+
+        public Builder turboFast(boolean enable) {
+            this.turboFast = enable;
+            return this;
+        }
+
+        /**
+         * Instance name, used as log line prefix.
+         *
+         * @param name
+         * @return
+         */
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder logLevel(Log.Level level) {
+            this.logLevel = Objects.requireNonNull(level, "logLevel");
+            return this;
+        }
+
+        public Builder logCategories(Collection<Log.Cat> cats) {
+            this.logCategories = EnumSet.noneOf(Log.Cat.class);
+            if (cats != null)
+                this.logCategories.addAll(cats);
+            return this;
+        }
+
+        /**
+         * Destination of this instance's log lines (default System.out).
+         *
+         * @param sink
+         * @return
+         */
+        public Builder logSink(Consumer<String> sink) {
+            this.logSink = sink;
+            return this;
+        }
+
+        public EmulatorConfig build() {
+            return new EmulatorConfig(this);
+        }
+    }
+}
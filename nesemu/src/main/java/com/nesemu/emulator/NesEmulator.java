@@ -17,11 +17,17 @@ import com.nesemu.apu.APU;
 import com.nesemu.apu.interfaces.NesAPU;
 import com.nesemu.cpu.Opcode;
 import com.nesemu.cpu.AddressingMode;
+import com.nesemu.io.Controller;
+import com.nesemu.io.NesController;
 import com.nesemu.rom.INesRom;
+import com.nesemu.util.Log;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * NES emulator façade. Now builds a proper Bus + Mapper0 + PPU stack.
@@ -41,10 +47,32 @@ public class NesEmulator {
     private boolean autoSaveEnabled = true;
     private long autoSaveIntervalFrames = 600; // ~10s @60fps
     private long lastAutoSaveFrame = 0;
+    private boolean speculative = false; // true while run-ahead frames execute
+    // Debug snapshot double buffer (published at frame end for debugger tools)
+    private volatile boolean debugSnapshotsEnabled = false;
+    private final DebugSnapshot[] debugSnapshots = { new DebugSnapshot(), new DebugSnapshot() };
+    private final AtomicReference<DebugSnapshot> debugFront = new AtomicReference<>();
+    private long debugSnapshotsSkipped = 0;
+    // Instance logger (EmulatorConfig path), bound to the calling thread while
+    // the emulator runs; null = whatever the thread already logs to
+    private Log.Logger logger;
 
     // Save state constants
     private static final int STATE_MAGIC = 0x4E455353; // 'NESS'
-    private static final int STATE_VERSION = 2;
+    private static final int STATE_VERSION = 4;
+    // v4 chunk tags (FourCC); each chunk = tag + length + payload, END closes
+    static final int CHUNK_CPU = 0x43505520; // 'CPU ' registers + exec state
+    static final int CHUNK_RAM = 0x52414D20; // 'RAM ' internal 2KB
+    static final int CHUNK_PPU = 0x50505552; // 'PPUR' core registers / latches
+    static final int CHUNK_OAM = 0x4F414D20; // 'OAM '
+    static final int CHUNK_VRAM = 0x5652414D; // 'VRAM' nametables
+    static final int CHUNK_PALETTE = 0x50414C20; // 'PAL '
+    static final int CHUNK_MAPPER = 0x4D415052; // 'MAPR' banking + CHR RAM
+    static final int CHUNK_PRG_RAM = 0x5052414D; // 'PRAM'
+    static final int CHUNK_PPU_PIPELINE = 0x50505550; // 'PPUP' rendering pipeline
+    static final int CHUNK_APU = 0x41505520; // 'APU ' (optional)
+    static final int CHUNK_CONTROLLERS = 0x4354524C; // 'CTRL' port shift registers
+    static final int CHUNK_END = 0x454E4420; // 'END '
 
     /**
      * CPU <-> PPU timing mode. SIMPLE mantém padrão antigo (CPU depois 3×PPU).
@@ -102,34 +130,91 @@ public class NesEmulator {
      * @param rom
      */
     public NesEmulator(INesRom rom) {
-        int mapperNum = rom.getHeader().getMapper();
+        this(rom, (Log.Logger) null);
+    }
+
+    private NesEmulator(INesRom rom, Log.Logger logger) {
+        this.logger = logger;
+        Log.Logger prevLog = bindLog();
+        try {
+            int mapperNum = rom.getHeader().getMapper();
+            this.mapper = createMapper(rom, mapperNum);
+            this.ppu = new PPU();
+            this.ppu.reset();
+            this.ppu.attachMapper(this.mapper);
+            this.bus = new Bus();
+            bus.attachPPU(ppu);
+            bus.attachMapper(mapper, rom);
+            this.apu = new APU();
+            this.apu.reset();
+            bus.attachAPU(this.apu);
+            this.cpu = new CPU(bus);
+            this.ppu.attachCPU(this.cpu);
+            if (this.mapper != null) {
+                this.mapper.setIrqCallback(this.cpu::irq);
+            }
+        } finally {
+            unbindLog(prevLog);
+        }
+    }
+
+    /**
+     * Create a fully isolated instance (own CPU, bus, PPU, APU, mapper,
+     * controllers and logger) from an immutable configuration.
+     *
+     * @param config
+     * @return
+     */
+    public static NesEmulator create(EmulatorConfig config) {
+        NesEmulator emu = new NesEmulator(config.getRom(), config.newLogger());
+        Log.Logger prevLog = emu.bindLog();
+        try {
+            emu.setVerbose(config.isVerbose());
+            emu.setTimingMode(config.getTimingMode());
+            if (emu.apu instanceof APU a) {
+                a.setOutputMode(config.getAudioOutputMode());
+                a.setFilterMode(config.getAudioFilter());
+            }
+            emu.ppu.setCompactFrameMode(config.isCompactFrameBuffer());
+            emu.ppu.setLeftColumnMode(config.getLeftColumnMode());
+            emu.ppu.setUnlimitedSprites(config.isUnlimitedSprites());
+            NesController pad1 = new NesController(config.controllerConfig(0));
+            NesController pad2 = new NesController(config.controllerConfig(1));
+            pad1.setTurboFast(config.isTurboFast());
+            pad2.setTurboFast(config.isTurboFast());
+            emu.bus.attachControllers(pad1, pad2);
+            emu.autoSaveEnabled = config.isAutoSave();
+            emu.romPath = config.getRomPath();
+            if (config.isAutoSave()) {
+                if (config.getSaveDirectory() != null) {
+                    emu.setSaveDirectory(config.getSaveDirectory());
+                } else if (emu.romPath != null) {
+                    emu.deriveAutoSavePath();
+                    emu.tryAutoLoad();
+                }
+            }
+        } finally {
+            emu.unbindLog(prevLog);
+        }
+        return emu;
+    }
+
+    private static Mapper createMapper(INesRom rom, int mapperNum) {
+        Mapper mapper;
         switch (mapperNum) {
-            case 0 -> this.mapper = new Mapper0(rom);
-            case 2 -> this.mapper = new Mapper2(rom);
-            case 1 -> this.mapper = new Mapper1(rom); // MMC1
-            case 3 -> this.mapper = new Mapper3(rom);
-            case 4 -> this.mapper = new Mapper4(rom); // MMC3 (partial, no IRQ yet)
-            case 5 -> this.mapper = new Mapper5(rom); // MMC5 (partial)
-            case 7 -> this.mapper = new Mapper7(rom); // AxROM
-            case 9 -> this.mapper = new Mapper9(rom); // MMC2 (Punch-Out!!)
+            case 0 -> mapper = new Mapper0(rom);
+            case 2 -> mapper = new Mapper2(rom);
+            case 1 -> mapper = new Mapper1(rom); // MMC1
+            case 3 -> mapper = new Mapper3(rom);
+            case 4 -> mapper = new Mapper4(rom); // MMC3 (partial, no IRQ yet)
+            case 5 -> mapper = new Mapper5(rom); // MMC5 (partial)
+            case 7 -> mapper = new Mapper7(rom); // AxROM
+            case 9 -> mapper = new Mapper9(rom); // MMC2 (Punch-Out!!)
             default ->
                 throw new IllegalArgumentException(
                         "Unsupported mapper " + mapperNum + " (only 0,1,2,3,4,5,7,9 implemented)");
         }
-        this.ppu = new PPU();
-        this.ppu.reset();
-        this.ppu.attachMapper(this.mapper);
-        this.bus = new Bus();
-        bus.attachPPU(ppu);
-        bus.attachMapper(mapper, rom);
-        this.apu = new APU();
-        this.apu.reset();
-        bus.attachAPU(this.apu);
-        this.cpu = new CPU(bus);
-        this.ppu.attachCPU(this.cpu);
-        if (this.mapper != null) {
-            this.mapper.setIrqCallback(this.cpu::irq);
-        }
+        return mapper;
     }
 
     /** Alternative constructor with ROM path (enables automatic .sav naming). */
@@ -162,59 +247,64 @@ public class NesEmulator {
      * @param reason
      */
     public void dumpWarnSnapshot(String reason) {
-        if (!instrumentationEnabled)
-            return; // no-op when instrumentation off
-        StringBuilder sb = new StringBuilder();
-        int pc = cpu.getPC() & 0xFFFF;
-        sb.append(String.format("[SNAP] PC=%04X A=%02X X=%02X Y=%02X SP=%02X P=%02X CYC=%d NMIH=%d lastVec=%04X",
-                pc, cpu.getA() & 0xFF, cpu.getX() & 0xFF, cpu.getY() & 0xFF,
-                cpu.getSP() & 0xFF, cpu.getStatusByte() & 0xFF, cpu.getTotalCycles(),
-                cpu.getNmiHandlerCount(), cpu.getLastNmiHandlerVector()));
-        if (ppu != null) {
-            sb.append(String.format(" Frame=%d SL=%d CYC=%d STAT=%02X CTRL=%02X MASK=%02X NMI=%d lastNmiFrame=%d",
-                    ppu.getFrame(), ppu.getScanline(), ppu.getCycle(),
-                    ppu.getStatusRegister() & 0xFF, ppu.getCtrl() & 0xFF, ppu.getMaskRegister() & 0xFF,
-                    ppu.getNmiCount(), ppu.getLastNmiFrame()));
-            sb.append(String.format(" SRS=%d", ppu.getStatusReadCountFrame()));
-            int[] recent = ppu.getStatusReadRecent();
-            sb.append(" RS8=");
-            for (int i = 0; i < 8; i++) {
-                sb.append(String.format("%02X", recent[i] & 0xFF));
-                if (i < 7)
-                    sb.append('-');
-            }
-            long s0f = ppu.getSprite0HitSetFrame();
-            if (s0f >= 0) {
-                sb.append(String.format(" S0@F%d/%d/%d", s0f, ppu.getSprite0HitSetScanline(),
-                        ppu.getSprite0HitSetCycle()));
-            }
-        }
-        if (mapper instanceof com.nesemu.mapper.Mapper1 m1) {
-            sb.append(String.format(" MMC1:CTRL=%02X PRG=%02X CHR0=%02X CHR1=%02X",
-                    m1.getControl(), m1.getPrgBank(), m1.getChrBank0(), m1.getChrBank1()));
-        }
-        if (spinWatchEnabled) {
-            // Include partial histograms (top entries only)
-            sb.append(" HREADS[");
-            for (int i = 0; i < SPIN_HIST_SIZE; i++) {
-                if (spinHistCount[i] == 0)
-                    break;
-                sb.append(String.format("%04X:%d", spinHistAddr[i], spinHistCount[i]));
-                if (i + 1 < SPIN_HIST_SIZE && spinHistCount[i + 1] > 0)
-                    sb.append(',');
+        Log.Logger prevLog = bindLog();
+        try {
+            if (!instrumentationEnabled)
+                return; // no-op when instrumentation off
+            StringBuilder sb = new StringBuilder();
+            int pc = cpu.getPC() & 0xFFFF;
+            sb.append(String.format("[SNAP] PC=%04X A=%02X X=%02X Y=%02X SP=%02X P=%02X CYC=%d NMIH=%d lastVec=%04X",
+                    pc, cpu.getA() & 0xFF, cpu.getX() & 0xFF, cpu.getY() & 0xFF,
+                    cpu.getSP() & 0xFF, cpu.getStatusByte() & 0xFF, cpu.getTotalCycles(),
+                    cpu.getNmiHandlerCount(), cpu.getLastNmiHandlerVector()));
+            if (ppu != null) {
+                sb.append(String.format(" Frame=%d SL=%d CYC=%d STAT=%02X CTRL=%02X MASK=%02X NMI=%d lastNmiFrame=%d",
+                        ppu.getFrame(), ppu.getScanline(), ppu.getCycle(),
+                        ppu.getStatusRegister() & 0xFF, ppu.getCtrl() & 0xFF, ppu.getMaskRegister() & 0xFF,
+                        ppu.getNmiCount(), ppu.getLastNmiFrame()));
+                sb.append(String.format(" SRS=%d", ppu.getStatusReadCountFrame()));
+                int[] recent = ppu.getStatusReadRecent();
+                sb.append(" RS8=");
+                for (int i = 0; i < 8; i++) {
+                    sb.append(String.format("%02X", recent[i] & 0xFF));
+                    if (i < 7)
+                        sb.append('-');
+                }
+                long s0f = ppu.getSprite0HitSetFrame();
+                if (s0f >= 0) {
+                    sb.append(String.format(" S0@F%d/%d/%d", s0f, ppu.getSprite0HitSetScanline(),
+                            ppu.getSprite0HitSetCycle()));
+                }
             }
-            sb.append(']');
-        }
-        // Append short disassembly (up to 8 instructions) for context
-        if (instrumentationEnabled) {
-            sb.append(" DISS[");
-            sb.append(disassembleAround(pc, 8));
-            sb.append(']');
-        }
-        if (reason != null && !reason.isEmpty()) {
-            sb.append(" REASON=").append(reason);
+            if (mapper instanceof com.nesemu.mapper.Mapper1 m1) {
+                sb.append(String.format(" MMC1:CTRL=%02X PRG=%02X CHR0=%02X CHR1=%02X",
+                        m1.getControl(), m1.getPrgBank(), m1.getChrBank0(), m1.getChrBank1()));
+            }
+            if (spinWatchEnabled) {
+                // Include partial histograms (top entries only)
+                sb.append(" HREADS[");
+                for (int i = 0; i < SPIN_HIST_SIZE; i++) {
+                    if (spinHistCount[i] == 0)
+                        break;
+                    sb.append(String.format("%04X:%d", spinHistAddr[i], spinHistCount[i]));
+                    if (i + 1 < SPIN_HIST_SIZE && spinHistCount[i + 1] > 0)
+                        sb.append(',');
+                }
+                sb.append(']');
+            }
+            // Append short disassembly (up to 8 instructions) for context
+            if (instrumentationEnabled) {
+                sb.append(" DISS[");
+                sb.append(disassembleAround(pc, 8));
+                sb.append(']');
+            }
+            if (reason != null && !reason.isEmpty()) {
+                sb.append(" REASON=").append(reason);
+            }
+            com.nesemu.util.Log.warn(com.nesemu.util.Log.Cat.CPU, sb.toString());
+        } finally {
+            unbindLog(prevLog);
         }
-        com.nesemu.util.Log.warn(com.nesemu.util.Log.Cat.CPU, sb.toString());
     }
 
     /**
@@ -564,16 +654,28 @@ public class NesEmulator {
      * Reset CPU and PPU to power-on state (PC from reset vector).
      */
     public synchronized void reset() {
-        cpu.reset();
-        if (ppu != null)
-            ppu.reset();
+        Log.Logger prevLog = bindLog();
+        try {
+            cpu.reset();
+            if (ppu != null)
+                ppu.reset();
+        } finally {
+            unbindLog(prevLog);
+        }
     }
 
     /**
      * Run N CPU cycles (each CPU cycle advances PPU 3 cycles).
      */
     public synchronized void runCycles(long cpuCycles) {
-        runCyclesInternal(cpuCycles);
+        Log.Logger prevLog = bindLog();
+        try {
+            if (apu instanceof APU a)
+                a.applyRequestedOutputMode();
+            runCyclesInternal(cpuCycles);
+        } finally {
+            unbindLog(prevLog);
+        }
     }
 
     /**
@@ -617,12 +719,33 @@ public class NesEmulator {
 
     /** Run a number of full instructions (blocking). */
     public synchronized void runInstructions(long count) {
-        for (long i = 0; i < count; i++)
-            cpu.stepInstruction();
+        Log.Logger prevLog = bindLog();
+        try {
+            for (long i = 0; i < count; i++)
+                cpu.stepInstruction();
+        } finally {
+            unbindLog(prevLog);
+        }
     }
 
     /** Advance until end of current frame (when PPU scanline wraps to -1). */
     public synchronized void stepFrame() {
+        Log.Logger prevLog = bindLog();
+        try {
+            stepFrameInternal(true);
+        } finally {
+            unbindLog(prevLog);
+        }
+    }
+
+    /**
+     * Frame loop body. Speculative (run-ahead) frames skip the controller
+     * frame-end notification so turbo cadence follows the real timeline.
+     * @param notifyFrameEnd
+     */
+    private void stepFrameInternal(boolean notifyFrameEnd) {
+        if (!speculative && apu instanceof APU a)
+            a.applyRequestedOutputMode(); // mode changes from other threads
         long targetFrame = ppu.getFrame();
         while (ppu.getFrame() == targetFrame) {
             runCyclesInternal(1); // 1 CPU cycle -> 3 PPU cycles
@@ -631,18 +754,133 @@ public class NesEmulator {
         // Done here so it affects both GUI and headless executions uniformly.
         ppu.applyPostFrameCroppingIfNeeded();
         // Notify controllers (turbo cadence)
-        if (bus != null) {
+        if (notifyFrameEnd && bus != null) {
             ((Bus) bus).onFrameEnd();
         }
+        if (debugSnapshotsEnabled && !speculative)
+            publishDebugSnapshot();
+    }
+
+    /**
+     * Publish/stop publishing a {@link DebugSnapshot} at the end of every real
+     * (non run-ahead) frame. Off by default; debugger windows turn it on while
+     * open.
+     *
+     * @param enabled
+     */
+    public void setDebugSnapshotsEnabled(boolean enabled) {
+        this.debugSnapshotsEnabled = enabled && mapper != null;
+        if (!enabled)
+            debugFront.set(null);
+    }
+
+    public boolean isDebugSnapshotsEnabled() {
+        return debugSnapshotsEnabled;
+    }
+
+    /**
+     * Latest published snapshot, retained until closed (use try-with-resources).
+     * Safe from any thread; never touches the live machine.
+     *
+     * @return snapshot, or null when none was published yet
+     */
+    public DebugSnapshot acquireDebugSnapshot() {
+        while (true) {
+            DebugSnapshot s = debugFront.get();
+            if (s == null)
+                return null;
+            s.retain();
+            // Re-check: once still front after retain, the writer will not refill it
+            if (debugFront.get() == s)
+                return s;
+            s.close();
+        }
+    }
+
+    /**
+     * Frames whose snapshot was dropped because a reader still held the back
+     * buffer.
+     *
+     * @return
+     */
+    public long getDebugSnapshotsSkipped() {
+        return debugSnapshotsSkipped;
+    }
+
+    private void publishDebugSnapshot() {
+        DebugSnapshot front = debugFront.get();
+        DebugSnapshot back = (front == debugSnapshots[0]) ? debugSnapshots[1] : debugSnapshots[0];
+        if (back.isHeld()) {
+            debugSnapshotsSkipped++; // slow reader: keep the current front, retry next frame
+            return;
+        }
+        back.capture(ppu.getFrame(), cpu, bus.getMemory(), ppu, mapper);
+        debugFront.set(back);
     }
 
     /** Convenience: run a number of whole frames. */
     public synchronized void runFrames(int frames) {
-        for (int i = 0; i < frames; i++) {
-            stepFrame();
+        Log.Logger prevLog = bindLog();
+        try {
+            for (int i = 0; i < frames; i++) {
+                stepFrameInternal(true);
+            }
+        } finally {
+            unbindLog(prevLog);
         }
     }
 
+    /**
+     * Route log output of the current thread to this instance's logger.
+     *
+     * @return previous binding (for unbindLog)
+     */
+    private Log.Logger bindLog() {
+        return (logger != null) ? Log.bind(logger) : null;
+    }
+
+    private void unbindLog(Log.Logger prev) {
+        if (logger != null)
+            Log.restore(prev);
+    }
+
+    /**
+     * Instance logger (null when the emulator logs to the thread/default
+     * logger).
+     *
+     * @return
+     */
+    public Log.Logger getLogger() {
+        return logger;
+    }
+
+    /**
+     * Enable/disable bus and PPU diagnostic prints for this instance.
+     *
+     * @param verbose
+     */
+    public void setVerbose(boolean verbose) {
+        Log.Logger prevLog = bindLog();
+        try {
+            if (bus instanceof Bus b)
+                b.setVerbose(verbose);
+            if (ppu != null)
+                ppu.setVerboseLogging(verbose);
+        } finally {
+            unbindLog(prevLog);
+        }
+    }
+
+    /**
+     * Controller attached to a port (0 or 1), or null.
+     *
+     * @param port
+     * @return
+     */
+    public Controller getController(int port) {
+        return bus != null ? bus.getController(port) : null;
+    }
+
     /** Expose current rendered frame index (proxy to PPU). */
     public long getFrame() {
         return ppu.getFrame();
@@ -659,6 +897,17 @@ public class NesEmulator {
         return this.timingMode;
     }
 
+    /**
+     * Define modo de saída do APU (FULL = mixer + buffer de áudio, STATE_ONLY =
+     * apenas estado visível à CPU). Seguro a partir de qualquer thread: a troca
+     * é aplicada pela thread de emulação no próximo limite de frame. No-op
+     * quando não há APU concreto.
+     */
+    public void setAudioOutputMode(APU.OutputMode mode) {
+        if (apu instanceof APU a)
+            a.requestOutputMode(mode);
+    }
+
     /** Expose current mapper (read-only) for diagnostics. */
     public Mapper getMapper() {
         return this.mapper;
@@ -734,7 +983,7 @@ public class NesEmulator {
      * Automatic periodic save tick (called from runCycles).
      */
     private void autoSaveTick() {
-        if (!autoSaveEnabled || autoSavePath == null)
+        if (!autoSaveEnabled || autoSavePath == null || speculative)
             return;
         if (mapper == null || mapper.getPrgRam() == null)
             return;
@@ -770,11 +1019,16 @@ public class NesEmulator {
      * Get current automatic periodic saving interval in frames.
      */
     public void forceAutoSave() {
-        if (autoSavePath != null) {
-            try {
-                saveSram(autoSavePath);
-            } catch (IOException ignored) {
+        Log.Logger prevLog = bindLog();
+        try {
+            if (autoSavePath != null) {
+                try {
+                    saveSram(autoSavePath);
+                } catch (IOException ignored) {
+                }
             }
+        } finally {
+            unbindLog(prevLog);
         }
     }
 
@@ -792,146 +1046,421 @@ public class NesEmulator {
      * @param dir
      */
     public void setSaveDirectory(Path dir) {
-        if (dir == null || romPath == null)
-            return;
+        Log.Logger prevLog = bindLog();
         try {
-            Files.createDirectories(dir);
-        } catch (IOException ignored) {
-        }
-        String fileName = romPath.getFileName().toString();
-        int dot = fileName.lastIndexOf('.');
-        String base = (dot > 0) ? fileName.substring(0, dot) : fileName;
-        this.autoSavePath = dir.resolve(base + ".sav");
-        // Attempt autoload from new location if file exists
-        try {
-            loadSram(autoSavePath);
-        } catch (IOException ignored) {
+            if (dir == null || romPath == null)
+                return;
+            try {
+                Files.createDirectories(dir);
+            } catch (IOException ignored) {
+            }
+            String fileName = romPath.getFileName().toString();
+            int dot = fileName.lastIndexOf('.');
+            String base = (dot > 0) ? fileName.substring(0, dot) : fileName;
+            this.autoSavePath = dir.resolve(base + ".sav");
+            // Attempt autoload from new location if file exists
+            try {
+                loadSram(autoSavePath);
+            } catch (IOException ignored) {
+            }
+        } finally {
+            unbindLog(prevLog);
         }
     }
 
     // -------- Save State (snapshot) --------
 
+    // Payload sizes of the chunks laid out here (components report their own)
+    private static final int CPU_REGS_BYTES = 4 + 5; // PC, A, X, Y, SP, P
+    private static final int RAM_BYTES = 0x800;
+    private static final int PPU_REGS_BYTES = 3 * 4 + 6 + 2 * 2 + 1; // frame, scanline, cycle, latches, v, t, fine X
+    private static final int OAM_BYTES = 256;
+    private static final int VRAM_BYTES = 0x800;
+    private static final int PALETTE_BYTES = 32;
+    private static final int STATE_CHUNKS = 12;
+
     /**
-     * Serialize full emulator state (CPU registers, internal RAM, PPU core
-     * registers, VRAM/OAM/palettes, mapper + CHR RAM, PRG RAM)
+     * Upper bound of a serialized snapshot for the loaded cartridge; use it to
+     * size a reusable buffer for {@link #saveState(ByteBuffer)}.
+     *
+     * @return
      */
-    public synchronized void saveState(Path path) throws IOException {
-        if (cpu == null || bus == null || ppu == null)
-            return;
-        java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream(1024 * 64);
-        java.io.DataOutputStream dos = new java.io.DataOutputStream(baos);
-        // Header
-        dos.writeInt(STATE_MAGIC);
-        dos.writeInt(STATE_VERSION);
-        // CPU core
-        dos.writeInt(cpu.getPC());
-        dos.writeByte(cpu.getA());
-        dos.writeByte(cpu.getX());
-        dos.writeByte(cpu.getY());
-        dos.writeByte(cpu.getSP());
-        dos.writeByte(cpu.getStatusByte());
-        // Internal RAM (2KB)
-        var mem = bus.getMemory();
-        for (int i = 0; i < 0x800; i++)
-            dos.writeByte(mem.readInternalRam(i));
-        // PPU core registers/state (direct accessors)
-        dos.writeInt((int) (ppu.getFrame() & 0x7FFFFFFF));
-        dos.writeInt(ppu.getScanline());
-        dos.writeInt(ppu.getCycle());
-        dos.writeByte(ppu.getMaskRegister()); // 0
-        dos.writeByte(ppu.getStatusRegister()); // 1
-        dos.writeByte(ppu.getCtrl()); // 2
-        if (STATE_VERSION >= 2) {
-            // Extra internal latch state (addrLatchHigh, oamAddr, readBuffer)
-            dos.writeBoolean(ppu.isAddrLatchHigh()); // 3
-            dos.writeByte(ppu.getOamAddr()); // 4
-            dos.writeByte(ppu.getReadBuffer()); // 5
-        }
-        dos.writeShort(ppu.getVramAddress() & 0x3FFF);
-        dos.writeShort(ppu.getTempAddress() & 0x3FFF);
-        dos.writeByte(ppu.getFineX() & 0x07);
-        // PPU memory copies
-        byte[] oam = ppu.getOamCopy();
-        dos.writeInt(oam.length);
-        dos.write(oam);
-        byte[] nt = ppu.getNameTableCopy();
-        dos.writeInt(nt.length);
-        dos.write(nt);
-        byte[] pal = ppu.getPaletteCopy();
-        dos.writeInt(pal.length);
-        dos.write(pal);
-        // Mapper specific
-        byte[] mapperData = mapper != null ? mapper.saveState() : null;
-        if (mapperData != null) {
-            dos.writeInt(mapperData.length);
-            dos.write(mapperData);
-        } else {
-            dos.writeInt(0);
+    public int getStateSize() {
+        int size = 8 + STATE_CHUNKS * 8; // header, chunk tag + length
+        size += CPU_REGS_BYTES + (cpu != null ? cpu.execStateSize() : 0) + RAM_BYTES + PPU_REGS_BYTES;
+        size += OAM_BYTES + VRAM_BYTES + PALETTE_BYTES + (ppu != null ? ppu.pipelineStateSize() : 0);
+        if (apu instanceof APU a)
+            size += a.stateSize();
+        for (int port = 0; port < 2; port++) {
+            Controller c = (bus != null) ? bus.getController(port) : null;
+            size += 4 + (c != null ? c.stateSize() : 0);
         }
-        // PRG RAM (battery) embed for completeness
-        byte[] prgRam = mapper != null ? mapper.getPrgRam() : null;
-        if (prgRam != null) {
-            dos.writeInt(prgRam.length);
-            dos.write(prgRam);
-        } else {
-            dos.writeInt(0);
+        if (mapper != null) {
+            size += mapper.stateSize();
+            byte[] prgRam = mapper.getPrgRam();
+            size += (prgRam != null ? prgRam.length : 0);
         }
-        dos.flush();
-        byte[] blob = baos.toByteArray();
-        Path tmp = path.resolveSibling(path.getFileName().toString() + ".tmp");
-        Files.write(tmp, blob);
-        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return size;
     }
 
     /**
-     * Load full emulator state from a previously saved snapshot file.
-     * @param path
-     * @return
-     * @throws IOException
+     * Serialize full emulator state (CPU registers + execution state, internal
+     * RAM, PPU core registers + rendering pipeline, VRAM/OAM/palettes, mapper +
+     * CHR RAM, PRG RAM, APU, controller shift registers) into a caller-owned
+     * buffer. Performs no allocation or I/O, so it is cheap enough to call every
+     * frame (run-ahead).
+     *
+     * @param buf destination (needs {@link #getStateSize()} bytes remaining)
+     * @return number of bytes written
      */
-    public synchronized boolean loadState(Path path) throws IOException {
-        if (!Files.exists(path))
-            return false;
-        if (cpu == null || bus == null || ppu == null)
-            return false;
-        byte[] data = Files.readAllBytes(path);
-        java.io.DataInputStream dis = new java.io.DataInputStream(new java.io.ByteArrayInputStream(data));
-        int magic = dis.readInt();
-        if (magic != STATE_MAGIC)
+    public synchronized int saveState(ByteBuffer buf) {
+        return saveState(buf, true);
+    }
+
+    /**
+     * Same as {@link #saveState(ByteBuffer)}; without the APU chunk the state is
+     * smaller and a load resets the APU instead (silent resume).
+     * <p>
+     * Format v4: magic, version, then tagged chunks ({@code CHUNK_*}: tag,
+     * length, payload) closed by {@code END}. Loaders skip unknown tags, so
+     * components can add chunks without breaking older snapshots.
+     *
+     * @param buf
+     * @param includeApu
+     * @return number of bytes written
+     */
+    public synchronized int saveState(ByteBuffer buf, boolean includeApu) {
+        Log.Logger prevLog = bindLog();
+        try {
+            if (cpu == null || bus == null || ppu == null)
+                return 0;
+            int start = buf.position();
+            buf.putInt(STATE_MAGIC);
+            buf.putInt(STATE_VERSION);
+            // CPU core + exact-resume execution state
+            int sec = beginChunk(buf, CHUNK_CPU);
+            buf.putInt(cpu.getPC());
+            buf.put((byte) cpu.getA());
+            buf.put((byte) cpu.getX());
+            buf.put((byte) cpu.getY());
+            buf.put((byte) cpu.getSP());
+            buf.put((byte) cpu.getStatusByte());
+            cpu.writeExecState(buf);
+            endSection(buf, sec);
+            // Internal RAM (2KB, one bulk copy of the byte array)
+            sec = beginChunk(buf, CHUNK_RAM);
+            bus.getMemory().saveInternalRam(buf);
+            endSection(buf, sec);
+            // PPU core registers, internal latches, 15-bit loopy registers
+            sec = beginChunk(buf, CHUNK_PPU);
+            buf.putInt((int) (ppu.getFrame() & 0x7FFFFFFF));
+            buf.putInt(ppu.getScanline());
+            buf.putInt(ppu.getCycle());
+            buf.put((byte) ppu.getMaskRegister());
+            buf.put((byte) ppu.getStatusRegister());
+            buf.put((byte) ppu.getCtrl());
+            buf.put((byte) (ppu.isAddrLatchHigh() ? 1 : 0));
+            buf.put((byte) ppu.getOamAddr());
+            buf.put((byte) ppu.getReadBuffer());
+            buf.putShort((short) (ppu.getVramAddress() & 0x7FFF));
+            buf.putShort((short) (ppu.getTempAddress() & 0x7FFF));
+            buf.put((byte) (ppu.getFineX() & 0x07));
+            endSection(buf, sec);
+            // PPU memory
+            sec = beginChunk(buf, CHUNK_OAM);
+            ppu.writeOam(buf);
+            endSection(buf, sec);
+            sec = beginChunk(buf, CHUNK_VRAM);
+            ppu.writeNameTables(buf);
+            endSection(buf, sec);
+            sec = beginChunk(buf, CHUNK_PALETTE);
+            ppu.writePalette(buf);
+            endSection(buf, sec);
+            // Mapper specific (before PRG RAM: banking decides where it lives)
+            if (mapper != null) {
+                sec = beginChunk(buf, CHUNK_MAPPER);
+                mapper.writeState(buf);
+                endSection(buf, sec);
+                byte[] prgRam = mapper.getPrgRam();
+                if (prgRam != null) {
+                    sec = beginChunk(buf, CHUNK_PRG_RAM);
+                    buf.put(prgRam);
+                    endSection(buf, sec);
+                }
+            }
+            sec = beginChunk(buf, CHUNK_PPU_PIPELINE);
+            ppu.writePipelineState(buf);
+            endSection(buf, sec);
+            if (includeApu && apu instanceof APU a) {
+                sec = beginChunk(buf, CHUNK_APU);
+                a.writeState(buf);
+                endSection(buf, sec);
+            }
+            // Controller ports (each length-prefixed; empty when unplugged)
+            sec = beginChunk(buf, CHUNK_CONTROLLERS);
+            for (int port = 0; port < 2; port++) {
+                int p = beginSection(buf);
+                Controller c = bus.getController(port);
+                if (c != null)
+                    c.writeState(buf);
+                endSection(buf, p);
+            }
+            endSection(buf, sec);
+            buf.putInt(CHUNK_END);
+            buf.putInt(0);
+            return buf.position() - start;
+        } finally {
+            unbindLog(prevLog);
+        }
+    }
+
+    /**
+     * Restore emulator state from a buffer produced by
+     * {@link #saveState(ByteBuffer)} (or a v1-v3 save file). Reads from the
+     * buffer's current position; performs no allocation.
+     * <p>
+     * v4 snapshots are checked (chunk framing, required chunks, END, and the
+     * exact payload length of every fixed-layout chunk: CPU, RAM, PPU registers,
+     * OAM, VRAM, palette, pipeline, APU) before anything is applied, so a
+     * truncated or malformed buffer leaves the emulator untouched. Mapper and
+     * controller sections check their own length and ignore short data.
+     *
+     * @param buf
+     * @return false if the data is not a recognized snapshot
+     */
+    public synchronized boolean loadState(ByteBuffer buf) {
+        Log.Logger prevLog = bindLog();
+        try {
+            if (cpu == null || bus == null || ppu == null)
+                return false;
+            if (buf.remaining() < 8 || buf.getInt() != STATE_MAGIC)
+                return false;
+            int ver = buf.getInt();
+            if (ver > STATE_VERSION)
+                return false; // unknown future version
+            if (ver < 4)
+                return loadLegacyState(buf, ver);
+            if (!validateChunks(buf))
+                return false;
+            int limit = buf.limit();
+            try {
+                return applyChunks(buf);
+            } catch (BufferUnderflowException e) {
+                Log.warn(Log.Cat.GENERAL, "Save state: chunk menor que o esperado (%s)", e);
+                return false;
+            } finally {
+                buf.limit(limit);
+            }
+        } finally {
+            unbindLog(prevLog);
+        }
+    }
+
+    // Structure and fixed chunk lengths of a v4 stream (buffer position unchanged)
+    private boolean validateChunks(ByteBuffer buf) {
+        int start = buf.position();
+        boolean cpuSeen = false, ramSeen = false, ppuSeen = false;
+        try {
+            while (true) {
+                if (buf.remaining() < 8)
+                    return false; // truncated (no END chunk)
+                int tag = buf.getInt();
+                int len = buf.getInt();
+                int end = sectionEnd(buf, len);
+                if (end < 0)
+                    return false;
+                if (tag == CHUNK_END)
+                    return cpuSeen && ramSeen && ppuSeen;
+                switch (tag) {
+                    case CHUNK_CPU -> {
+                        if (len != CPU_REGS_BYTES + cpu.execStateSize())
+                            return false;
+                        cpuSeen = true;
+                    }
+                    case CHUNK_RAM -> {
+                        if (len != RAM_BYTES)
+                            return false; // internal RAM is always 2KB
+                        ramSeen = true;
+                    }
+                    case CHUNK_PPU -> {
+                        if (len != PPU_REGS_BYTES)
+                            return false;
+                        ppuSeen = true;
+                    }
+                    case CHUNK_OAM -> {
+                        if (len != OAM_BYTES)
+                            return false;
+                    }
+                    case CHUNK_VRAM -> {
+                        if (len != VRAM_BYTES)
+                            return false;
+                    }
+                    case CHUNK_PALETTE -> {
+                        if (len != PALETTE_BYTES)
+                            return false;
+                    }
+                    case CHUNK_PPU_PIPELINE -> {
+                        if (len != ppu.pipelineStateSize())
+                            return false;
+                    }
+                    case CHUNK_APU -> {
+                        if (apu instanceof APU a && !a.isStateLength(buf, len))
+                            return false;
+                    }
+                    case CHUNK_CONTROLLERS -> {
+                        for (int port = 0; port < 2; port++) {
+                            if (end - buf.position() < 4)
+                                return false;
+                            int pend = sectionEnd(buf, buf.getInt());
+                            if (pend < 0 || pend > end)
+                                return false;
+                            buf.position(pend);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+                buf.position(end);
+            }
+        } finally {
+            buf.position(start);
+        }
+    }
+
+    // Chunks of a validated v4 stream; each read is bounded by its chunk
+    private boolean applyChunks(ByteBuffer buf) {
+        int limit = buf.limit();
+        boolean cpuRestored = false, ramRestored = false, ppuRestored = false;
+        boolean exactPipeline = false, apuRestored = false;
+        int scanline = -1, cyc = 0;
+        while (true) {
+            if (buf.remaining() < 8)
+                return false; // truncated (no END chunk)
+            int tag = buf.getInt();
+            int len = buf.getInt();
+            int end = sectionEnd(buf, len);
+            if (end < 0)
+                return false;
+            if (tag == CHUNK_END)
+                break;
+            buf.limit(end);
+            switch (tag) {
+                case CHUNK_CPU -> {
+                    int pc = buf.getInt();
+                    int a = buf.get() & 0xFF;
+                    int x = buf.get() & 0xFF;
+                    int y = buf.get() & 0xFF;
+                    int sp = buf.get() & 0xFF;
+                    int p = buf.get() & 0xFF;
+                    cpu.forceState(pc, a, x, y, p, sp);
+                    cpu.readExecState(buf);
+                    cpuRestored = true;
+                }
+                case CHUNK_RAM -> {
+                    bus.getMemory().loadInternalRam(buf);
+                    ramRestored = true;
+                }
+                case CHUNK_PPU -> {
+                    long frameVal = buf.getInt() & 0xFFFFFFFFL;
+                    scanline = buf.getInt();
+                    cyc = buf.getInt();
+                    int mask = buf.get() & 0xFF;
+                    int status = buf.get() & 0xFF;
+                    int ctrl = buf.get() & 0xFF;
+                    boolean latchHigh = buf.get() != 0;
+                    int oamAddrVal = buf.get() & 0xFF;
+                    int readBuf = buf.get() & 0xFF;
+                    int vram = buf.getShort() & 0xFFFF;
+                    int tAddr = buf.getShort() & 0xFFFF;
+                    int fineX = buf.get() & 0xFF;
+                    if (scanline < -1 || scanline > 260)
+                        scanline = -1;
+                    if (cyc < 0 || cyc > 340)
+                        cyc = 0;
+                    ppu.forceCoreState(mask, status, ctrl, scanline, cyc, vram, tAddr, fineX, (int) frameVal);
+                    ppu.loadMiscInternalState(latchHigh, oamAddrVal, readBuf);
+                    ppuRestored = true;
+                }
+                case CHUNK_OAM -> ppu.readOam(buf, len);
+                case CHUNK_VRAM -> ppu.readNameTables(buf, len);
+                case CHUNK_PALETTE -> ppu.readPalette(buf, len);
+                case CHUNK_MAPPER -> {
+                    if (mapper != null && len > 0)
+                        mapper.readState(buf, len);
+                }
+                case CHUNK_PRG_RAM -> {
+                    byte[] prgRam = mapper != null ? mapper.getPrgRam() : null;
+                    if (prgRam != null && prgRam.length == len) {
+                        buf.get(prgRam);
+                        mapper.onPrgRamLoaded();
+                    }
+                }
+                case CHUNK_PPU_PIPELINE -> {
+                    ppu.readPipelineState(buf);
+                    exactPipeline = true;
+                }
+                case CHUNK_APU -> {
+                    if (apu instanceof APU ap) {
+                        ap.readState(buf);
+                        apuRestored = true;
+                    }
+                }
+                case CHUNK_CONTROLLERS -> {
+                    for (int port = 0; port < 2; port++) {
+                        int plen = buf.getInt();
+                        int pend = sectionEnd(buf, plen);
+                        if (pend < 0 || pend > end)
+                            return false;
+                        Controller c = bus.getController(port);
+                        if (c != null && plen > 0)
+                            c.readState(buf, plen);
+                        buf.position(pend);
+                    }
+                }
+                default -> {
+                    // unknown chunk (newer component): skipped
+                }
+            }
+            buf.limit(limit);
+            buf.position(end);
+        }
+        if (!cpuRestored || !ramRestored || !ppuRestored)
             return false;
-        int ver = dis.readInt();
-        if (ver > STATE_VERSION)
-            return false; // unknown future version
-        int pc = dis.readInt();
-        int a = dis.readUnsignedByte();
-        int x = dis.readUnsignedByte();
-        int y = dis.readUnsignedByte();
-        int sp = dis.readUnsignedByte();
-        int p = dis.readUnsignedByte();
+        if (!exactPipeline && (cyc != 0 || (scanline >= 0 && scanline <= 239)))
+            ppu.normalizeTimingAfterLoad();
+        if (!apuRestored && apu != null)
+            apu.reset();
+        return true;
+    }
+
+    // v1-v3: fixed field order, length-prefixed sections without tags
+    private boolean loadLegacyState(ByteBuffer buf, int ver) {
+        int pc = buf.getInt();
+        int a = buf.get() & 0xFF;
+        int x = buf.get() & 0xFF;
+        int y = buf.get() & 0xFF;
+        int sp = buf.get() & 0xFF;
+        int p = buf.get() & 0xFF;
         // Restore RAM
-        var mem = bus.getMemory();
-        for (int i = 0; i < 0x800; i++) {
-            int val = dis.readUnsignedByte();
-            mem.writeInternalRam(i, val);
-        }
+        bus.getMemory().loadInternalRam(buf);
         // PPU subset
-        long frameVal = dis.readInt() & 0xFFFFFFFFL; // may ignore
-        int scanline = dis.readInt();
-        int cyc = dis.readInt();
-        int mask = dis.readUnsignedByte();
-        int status = dis.readUnsignedByte();
-        int ctrl = dis.readUnsignedByte();
+        long frameVal = buf.getInt() & 0xFFFFFFFFL;
+        int scanline = buf.getInt();
+        int cyc = buf.getInt();
+        int mask = buf.get() & 0xFF;
+        int status = buf.get() & 0xFF;
+        int ctrl = buf.get() & 0xFF;
         boolean latchHigh = true;
         int oamAddrVal = 0;
         int readBuf = 0;
         if (ver >= 2) {
-            latchHigh = dis.readBoolean();
-            oamAddrVal = dis.readUnsignedByte();
-            readBuf = dis.readUnsignedByte();
+            latchHigh = buf.get() != 0;
+            oamAddrVal = buf.get() & 0xFF;
+            readBuf = buf.get() & 0xFF;
         }
-        int vram = dis.readUnsignedShort();
-        int tAddr = dis.readUnsignedShort();
-        int fineX = dis.readUnsignedByte();
+        int vram = buf.getShort() & 0xFFFF;
+        int tAddr = buf.getShort() & 0xFFFF;
+        int fineX = buf.get() & 0xFF;
         // Reconstruct CPU core
         cpu.forceState(pc, a, x, y, p, sp);
         // Normalize potentially unsafe scanline/cycle values (defensive for older
@@ -945,58 +1474,241 @@ public class NesEmulator {
             ppu.loadMiscInternalState(latchHigh, oamAddrVal, readBuf);
         }
         // Variable sections
-        int oamLen = dis.readInt();
-        if (oamLen > 0 && oamLen <= 4096) {
-            byte[] oamR = new byte[oamLen];
-            dis.readFully(oamR);
-            ppu.loadOam(oamR);
-        } else if (oamLen > 0) {
-            dis.skipBytes(oamLen);
-        }
-        int ntLen = dis.readInt();
-        if (ntLen > 0 && ntLen <= 0x2000) {
-            byte[] ntR = new byte[ntLen];
-            dis.readFully(ntR);
-            ppu.loadNameTable(ntR);
-        } else if (ntLen > 0) {
-            dis.skipBytes(ntLen);
-        }
-        int palLen = dis.readInt();
-        if (palLen > 0 && palLen <= 256) {
-            byte[] palR = new byte[palLen];
-            dis.readFully(palR);
-            ppu.loadPalette(palR);
-        } else if (palLen > 0) {
-            dis.skipBytes(palLen);
-        }
-        int mapperLen = dis.readInt();
-        if (mapperLen > 0 && mapperLen < 1_000_000) {
-            byte[] mdat = new byte[mapperLen];
-            dis.readFully(mdat);
-            if (mapper != null)
-                mapper.loadState(mdat);
-        } else if (mapperLen > 0) {
-            dis.skipBytes(mapperLen);
-        }
-        int prgRamLen = dis.readInt();
-        if (prgRamLen > 0) {
-            byte[] prg = new byte[prgRamLen];
-            dis.readFully(prg);
-            if (mapper != null && mapper.getPrgRam() != null && mapper.getPrgRam().length == prgRamLen) {
-                System.arraycopy(prg, 0, mapper.getPrgRam(), 0, prgRamLen);
-                mapper.onPrgRamLoaded();
-            }
-        }
-        // If we restored mid-frame (cycle!=0 or scanline not at boundary), normalize
-        // timing
-        if (cyc != 0 || (scanline >= 0 && scanline <= 239)) {
+        int len = buf.getInt();
+        int end = sectionEnd(buf, len);
+        if (end < 0)
+            return false;
+        ppu.readOam(buf, len);
+        buf.position(end);
+        len = buf.getInt();
+        if ((end = sectionEnd(buf, len)) < 0)
+            return false;
+        ppu.readNameTables(buf, len);
+        buf.position(end);
+        len = buf.getInt();
+        if ((end = sectionEnd(buf, len)) < 0)
+            return false;
+        ppu.readPalette(buf, len);
+        buf.position(end);
+        len = buf.getInt();
+        if ((end = sectionEnd(buf, len)) < 0)
+            return false;
+        if (mapper != null && len > 0)
+            mapper.readState(buf, len);
+        buf.position(end);
+        len = buf.getInt();
+        if ((end = sectionEnd(buf, len)) < 0)
+            return false;
+        byte[] prgRam = mapper != null ? mapper.getPrgRam() : null;
+        if (len > 0 && prgRam != null && prgRam.length == len) {
+            buf.get(prgRam);
+            mapper.onPrgRamLoaded();
+        }
+        buf.position(end);
+        boolean exactPipeline = false;
+        boolean apuRestored = false;
+        if (ver >= 3) {
+            len = buf.getInt();
+            if ((end = sectionEnd(buf, len)) < 0)
+                return false;
+            if (len > 0)
+                cpu.readExecState(buf);
+            buf.position(end);
+            len = buf.getInt();
+            if ((end = sectionEnd(buf, len)) < 0)
+                return false;
+            if (len > 0) {
+                ppu.readPipelineState(buf);
+                exactPipeline = true;
+            }
+            buf.position(end);
+            len = buf.getInt();
+            if ((end = sectionEnd(buf, len)) < 0)
+                return false;
+            if (len > 0 && apu instanceof APU ap) {
+                ap.readState(buf);
+                apuRestored = true;
+            }
+            buf.position(end);
+        }
+        // If we restored mid-frame (cycle!=0 or scanline not at boundary) without
+        // the pipeline section, normalize timing
+        if (!exactPipeline && (cyc != 0 || (scanline >= 0 && scanline <= 239))) {
             // This avoids frozen frame due to missing transient pipeline contents
             ppu.normalizeTimingAfterLoad();
         }
-        // Reset APU to avoid stuck notes or invalid IRQ state from previous session
-        if (apu != null) {
+        // Older states: reset APU to avoid stuck notes or invalid IRQ state from
+        // previous session
+        if (!apuRestored && apu != null) {
             apu.reset();
         }
         return true;
     }
+
+    /**
+     * Serialize full emulator state to a snapshot file (see
+     * {@link #saveState(ByteBuffer)}).
+     * @param path
+     * @throws IOException
+     */
+    public synchronized void saveState(Path path) throws IOException {
+        Log.Logger prevLog = bindLog();
+        try {
+            if (cpu == null || bus == null || ppu == null)
+                return;
+            ByteBuffer buf = ByteBuffer.allocate(getStateSize());
+            saveState(buf);
+            Path tmp = path.resolveSibling(path.getFileName().toString() + ".tmp");
+            try (var ch = java.nio.channels.FileChannel.open(tmp, java.nio.file.StandardOpenOption.CREATE,
+                    java.nio.file.StandardOpenOption.WRITE, java.nio.file.StandardOpenOption.TRUNCATE_EXISTING)) {
+                buf.flip();
+                while (buf.hasRemaining())
+                    ch.write(buf);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            unbindLog(prevLog);
+        }
+    }
+
+    /**
+     * Load full emulator state from a previously saved snapshot file.
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public synchronized boolean loadState(Path path) throws IOException {
+        Log.Logger prevLog = bindLog();
+        try {
+            if (!Files.exists(path))
+                return false;
+            if (cpu == null || bus == null || ppu == null)
+                return false;
+            try {
+                return loadState(ByteBuffer.wrap(Files.readAllBytes(path)));
+            } catch (java.nio.BufferUnderflowException e) {
+                throw new IOException("Save state truncado: " + path, e);
+            }
+        } finally {
+            unbindLog(prevLog);
+        }
+    }
+
+    private static int beginChunk(ByteBuffer buf, int tag) {
+        buf.putInt(tag);
+        return beginSection(buf);
+    }
+
+    private static int beginSection(ByteBuffer buf) {
+        int pos = buf.position();
+        buf.putInt(0);
+        return pos;
+    }
+
+    private static void endSection(ByteBuffer buf, int lenPos) {
+        buf.putInt(lenPos, buf.position() - lenPos - 4);
+    }
+
+    private static int sectionEnd(ByteBuffer buf, int len) {
+        if (len < 0 || len > buf.remaining())
+            return -1;
+        return buf.position() + len;
+    }
+
+    // -------- Run-ahead --------
+
+    /** Upper bound for run-ahead depth (each frame costs a full extra frame). */
+    public static final int MAX_RUN_AHEAD_FRAMES = 4;
+
+    private ByteBuffer runAheadBuffer; // reused across frames (allocated on first use)
+    private long runAheadLastNanos; // overhead of the last run-ahead frame
+    private double runAheadAvgNanos; // exponential moving average of the overhead
+    private long runAheadLastSnapshotNanos; // save + load portion of the last overhead
+
+    /**
+     * Advance one presented frame with run-ahead: emulate the real frame
+     * (authoritative; produces audio, image discarded), snapshot the state in
+     * memory, emulate {@code frames} more frames with the current input to
+     * produce the displayed image, then roll back to the snapshot. Games that
+     * act on input one or two frames late therefore react on the next presented
+     * frame. {@code frames <= 0} is a plain {@link #stepFrame()}.
+     *
+     * @param frames run-ahead depth (clamped to {@link #MAX_RUN_AHEAD_FRAMES})
+     */
+    public synchronized void stepFrameRunAhead(int frames) {
+        if (frames <= 0 || bus == null) {
+            stepFrame();
+            return;
+        }
+        Log.Logger prevLog = bindLog();
+        try {
+            runAheadFrame(Math.min(frames, MAX_RUN_AHEAD_FRAMES));
+        } finally {
+            unbindLog(prevLog);
+        }
+    }
+
+    private void runAheadFrame(int frames) {
+        boolean prevSuppressed = ppu.isRenderSuppressed();
+        ppu.setRenderSuppressed(true);
+        try {
+            stepFrame();
+            long t0 = System.nanoTime();
+            int size = getStateSize();
+            if (runAheadBuffer == null || runAheadBuffer.capacity() < size)
+                runAheadBuffer = ByteBuffer.allocate(size);
+            ByteBuffer buf = runAheadBuffer;
+            buf.clear();
+            saveState(buf);
+            buf.flip();
+            long tSaved = System.nanoTime();
+            // Speculative frames: audio/autosave/frame-end hooks belong to the real
+            // timeline only
+            APU a = (apu instanceof APU x) ? x : null;
+            APU.OutputMode prevMode = (a != null) ? a.getOutputMode() : null;
+            if (a != null)
+                a.setOutputMode(APU.OutputMode.STATE_ONLY);
+            speculative = true;
+            try {
+                for (int i = 0; i < frames; i++) {
+                    ppu.setRenderSuppressed(i < frames - 1);
+                    stepFrameInternal(false);
+                }
+            } finally {
+                speculative = false;
+                ppu.setRenderSuppressed(true);
+                if (a != null)
+                    a.setOutputMode(prevMode);
+            }
+            // The framebuffer is not part of the state: the speculative image stays
+            long tLoad = System.nanoTime();
+            loadState(buf);
+            long t1 = System.nanoTime();
+            runAheadLastSnapshotNanos = (tSaved - t0) + (t1 - tLoad);
+            runAheadLastNanos = t1 - t0;
+            runAheadAvgNanos = runAheadAvgNanos == 0 ? runAheadLastNanos
+                    : runAheadAvgNanos * 0.95 + runAheadLastNanos * 0.05;
+        } finally {
+            ppu.setRenderSuppressed(prevSuppressed);
+        }
+    }
+
+    /**
+     * Average run-ahead overhead per presented frame (snapshot + speculative
+     * frames + restore), in milliseconds. 0 when run-ahead never ran.
+     *
+     * @return
+     */
+    public double getRunAheadOverheadMs() {
+        return runAheadAvgNanos / 1_000_000.0;
+    }
+
+    /**
+     * Save + load portion of the last run-ahead frame, in microseconds.
+     *
+     * @return
+     */
+    public double getRunAheadSnapshotMicros() {
+        return runAheadLastSnapshotNanos / 1_000.0;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,199 @@
+package com.nesemu.env;
+
+import com.nesemu.apu.APU;
+import com.nesemu.emulator.EmulatorConfig;
+import com.nesemu.emulator.NesEmulator;
+import com.nesemu.input.ControllerButton;
+import com.nesemu.io.Controller;
+import com.nesemu.memory.interfaces.NesMemory;
+import com.nesemu.ppu.PPU;
+import java.nio.ByteBuffer;
+
+/**
+ * Step API for training code: one isolated emulator driven by a controller
+ * bitmask with action repeat, writing observations (downsampled grayscale or
+ * NES colour indices) and the 2KB internal RAM into caller-provided buffers, so
+ * a step allocates nothing. Only the last frame of a repeated step is rendered.
+ * Audio output and battery autosave are disabled. Not thread-safe: one thread
+ * per environment at a time (see {@link NesVectorEnv}).
+ */
+public class NesEnv {
+
+    /** Bytes of internal RAM copied per step ($0000-$07FF). */
+    public static final int RAM_SIZE = 0x800;
+
+    /**
+     * Observation written by step/reset.
+     */
+    public enum ObservationMode {
+        /** No pixels (RAM only); every frame is render-suppressed. */
+        NONE,
+        /** Luma (0..255) averaged over each downsample block. */
+        GRAYSCALE,
+        /** NES colour index (0..63) of each block's top-left pixel. */
+        COLOR_INDEX
+    }
+
+    private final NesEmulator emu;
+    private final PPU ppu;
+    private final Controller pad;
+    private final NesMemory memory;
+    private final ObservationMode mode;
+    private final int downsample;
+    private final int blockShift; // log2(downsample^2) for block averages
+    private final int obsWidth;
+    private final int obsHeight;
+    private final ByteBuffer startState; // snapshot restored by reset()
+    private int lastButtons = -1;
+
+    /**
+     * @param config     emulator configuration (audio/autosave are overridden)
+     * @param mode       observation type
+     * @param downsample 1, 2, 4, 8 or 16 (block size in pixels)
+     */
+    public NesEnv(EmulatorConfig config, ObservationMode mode, int downsample) {
+        if (mode == null)
+            throw new IllegalArgumentException("observation mode required");
+        if (Integer.bitCount(downsample) != 1 || downsample > 16)
+            throw new IllegalArgumentException("downsample must be 1, 2, 4, 8 or 16: " + downsample);
+        this.mode = mode;
+        this.downsample = downsample;
+        this.blockShift = 2 * Integer.numberOfTrailingZeros(downsample);
+        this.obsWidth = 256 / downsample;
+        this.obsHeight = 240 / downsample;
+        this.emu = NesEmulator.create(config.toBuilder()
+                .autoSave(false)
+                .audioOutputMode(APU.OutputMode.STATE_ONLY)
+                .compactFrameBuffer(mode == ObservationMode.COLOR_INDEX || config.isCompactFrameBuffer())
+                .build());
+        this.ppu = emu.getPpu();
+        this.pad = emu.getController(0);
+        this.memory = emu.getBus().getMemory();
+        emu.reset();
+        this.startState = ByteBuffer.allocate(emu.getStateSize());
+        emu.saveState(startState);
+        startState.flip();
+    }
+
+    public NesEmulator getEmulator() {
+        return emu;
+    }
+
+    public ObservationMode getObservationMode() {
+        return mode;
+    }
+
+    public int getObservationWidth() {
+        return obsWidth;
+    }
+
+    public int getObservationHeight() {
+        return obsHeight;
+    }
+
+    /**
+     * Observation bytes per step (0 in NONE mode).
+     *
+     * @return
+     */
+    public int getObservationSize() {
+        return mode == ObservationMode.NONE ? 0 : obsWidth * obsHeight;
+    }
+
+    /**
+     * Restore the start state (power-on + reset, taken at construction) and run
+     * one frame with no buttons pressed so the observation is a rendered frame.
+     *
+     * @param obs    destination (may be null)
+     * @param obsOff
+     * @param ram    destination for {@link #RAM_SIZE} bytes (may be null)
+     * @param ramOff
+     * @return frame counter after the step
+     */
+    public long reset(byte[] obs, int obsOff, byte[] ram, int ramOff) {
+        emu.loadState(startState.duplicate());
+        lastButtons = -1;
+        return step(0, 1, obs, obsOff, ram, ramOff);
+    }
+
+    public long reset(byte[] obs, byte[] ram) {
+        return reset(obs, 0, ram, 0);
+    }
+
+    /**
+     * Hold a controller bitmask for {@code repeat} frames, then write the
+     * observation of the last frame and the RAM view.
+     *
+     * @param buttons bit i = {@link ControllerButton#bitIndex()} (A=0 .. Right=7)
+     * @param repeat  frames to emulate (>= 1)
+     * @param obs     destination (may be null)
+     * @param obsOff
+     * @param ram     destination for {@link #RAM_SIZE} bytes (may be null)
+     * @param ramOff
+     * @return frame counter after the step
+     */
+    public long step(int buttons, int repeat, byte[] obs, int obsOff, byte[] ram, int ramOff) {
+        if (repeat < 1)
+            throw new IllegalArgumentException("repeat must be >= 1: " + repeat);
+        setButtons(buttons);
+        boolean render = obs != null && mode != ObservationMode.NONE;
+        boolean prevSuppressed = ppu.isRenderSuppressed();
+        try {
+            for (int i = 0; i < repeat; i++) {
+                ppu.setRenderSuppressed(!render || i < repeat - 1);
+                emu.stepFrame();
+            }
+        } finally {
+            ppu.setRenderSuppressed(prevSuppressed);
+        }
+        if (render)
+            writeObservation(obs, obsOff);
+        if (ram != null)
+            for (int i = 0; i < RAM_SIZE; i++)
+                ram[ramOff + i] = (byte) memory.readInternalRam(i);
+        return emu.getFrame();
+    }
+
+    public long step(int buttons, int repeat, byte[] obs, byte[] ram) {
+        return step(buttons, repeat, obs, 0, ram, 0);
+    }
+
+    private void setButtons(int buttons) {
+        buttons &= 0xFF;
+        if (buttons == lastButtons)
+            return;
+        pad.setLogicalButtons(buttons);
+        lastButtons = buttons;
+    }
+
+    private void writeObservation(byte[] obs, int off) {
+        int d = downsample;
+        if (mode == ObservationMode.COLOR_INDEX) {
+            byte[] src = ppu.getCompactFrameBufferRef();
+            for (int oy = 0; oy < obsHeight; oy++) {
+                int row = oy * d * 256;
+                for (int ox = 0; ox < obsWidth; ox++) {
+                    int v = src[row + ox * d] & 0xFF;
+                    obs[off++] = (byte) (v == 0xC0 ? 0x0F : v & 0x3F); // blanked -> black
+                }
+            }
+            return;
+        }
+        int[] src = ppu.getFrameBuffer();
+        for (int oy = 0; oy < obsHeight; oy++) {
+            int blockRow = oy * d * 256;
+            for (int ox = 0; ox < obsWidth; ox++) {
+                int sum = 0;
+                int base = blockRow + ox * d;
+                for (int y = 0; y < d; y++) {
+                    int p = base + y * 256;
+                    for (int x = 0; x < d; x++) {
+                        int c = src[p + x];
+                        sum += (((c >> 16) & 0xFF) * 77 + ((c >> 8) & 0xFF) * 150 + (c & 0xFF) * 29) >> 8;
+                    }
+                }
+                obs[off++] = (byte) (sum >> blockShift);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.nesemu.env;
+
+import com.nesemu.emulator.EmulatorConfig;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * N independent {@link NesEnv} instances stepped together on a fork/join
+ * pool. Observations and RAM views are packed back to back in the caller's
+ * buffers (environment i at i * observationSize / i * RAM_SIZE). Calls must
+ * not overlap (one driving thread).
+ */
+public class NesVectorEnv implements AutoCloseable {
+
+    private final NesEnv[] envs;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final int obsSize;
+
+    /**
+     * Build {@code count} environments from one configuration on a private
+     * pool with one worker per available processor.
+     *
+     * @param config
+     * @param count
+     * @param mode
+     * @param downsample
+     */
+    public NesVectorEnv(EmulatorConfig config, int count, NesEnv.ObservationMode mode, int downsample) {
+        this(config, count, mode, downsample, null);
+    }
+
+    /**
+     * @param config
+     * @param count
+     * @param mode
+     * @param downsample
+     * @param pool       pool to run on (null = private pool, closed by close())
+     */
+    public NesVectorEnv(EmulatorConfig config, int count, NesEnv.ObservationMode mode, int downsample,
+            ForkJoinPool pool) {
+        if (count < 1)
+            throw new IllegalArgumentException("count must be >= 1: " + count);
+        this.envs = new NesEnv[count];
+        for (int i = 0; i < count; i++)
+            envs[i] = new NesEnv(config, mode, downsample);
+        this.obsSize = envs[0].getObservationSize();
+        this.ownsPool = (pool == null);
+        this.pool = ownsPool ? new ForkJoinPool(Math.min(count, Runtime.getRuntime().availableProcessors()))
+                : pool;
+    }
+
+    public int size() {
+        return envs.length;
+    }
+
+    public NesEnv get(int i) {
+        return envs[i];
+    }
+
+    public int getObservationSize() {
+        return obsSize;
+    }
+
+    /**
+     * Reset every environment (see {@link NesEnv#reset(byte[], byte[])}).
+     *
+     * @param obs size() * getObservationSize() bytes (may be null)
+     * @param ram size() * RAM_SIZE bytes (may be null)
+     */
+    public void reset(byte[] obs, byte[] ram) {
+        run(null, 0, obs, ram);
+    }
+
+    /**
+     * Step every environment in parallel with its own controller bitmask.
+     *
+     * @param buttons one bitmask per environment
+     * @param repeat  frames per step (>= 1)
+     * @param obs     size() * getObservationSize() bytes (may be null)
+     * @param ram     size() * RAM_SIZE bytes (may be null)
+     */
+    public void step(int[] buttons, int repeat, byte[] obs, byte[] ram) {
+        if (buttons == null || buttons.length < envs.length)
+            throw new IllegalArgumentException("one button mask per environment required");
+        if (repeat < 1)
+            throw new IllegalArgumentException("repeat must be >= 1: " + repeat);
+        run(buttons, repeat, obs, ram);
+    }
+
+    private void run(int[] buttons, int repeat, byte[] obs, byte[] ram) {
+        if (obs != null && obs.length < envs.length * obsSize)
+            throw new IllegalArgumentException("observation buffer too small");
+        if (ram != null && ram.length < envs.length * NesEnv.RAM_SIZE)
+            throw new IllegalArgumentException("RAM buffer too small");
+        pool.invoke(new StepTask(0, envs.length, buttons, repeat, obs, ram));
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool)
+            pool.shutdown();
+    }
+
+    // Splits the environment range down to single environments
+    private final class StepTask extends RecursiveAction {
+        private final int from, to;
+        private final int[] buttons; // null = reset
+        private final int repeat;
+        private final byte[] obs, ram;
+
+        StepTask(int from, int to, int[] buttons, int repeat, byte[] obs, byte[] ram) {
+            this.from = from;
+            this.to = to;
+            this.buttons = buttons;
+            this.repeat = repeat;
+            this.obs = obs;
+            this.ram = ram;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new StepTask(from, mid, buttons, repeat, obs, ram),
+                        new StepTask(mid, to, buttons, repeat, obs, ram));
+                return;
+            }
+            NesEnv env = envs[from];
+            int obsOff = from * obsSize, ramOff = from * NesEnv.RAM_SIZE;
+            if (buttons == null)
+                env.reset(obs, obsOff, ram, ramOff);
+            else
+                env.step(buttons[from], repeat, obs, obsOff, ram, ramOff);
+        }
+    }
+}
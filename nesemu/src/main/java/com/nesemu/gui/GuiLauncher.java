@@ -2,6 +2,7 @@ package com.nesemu.gui;
 
 import com.nesemu.app.EmulatorContext;
 import com.nesemu.debbuger.Debugger;
+import com.nesemu.apu.APU;
 import com.nesemu.audio.AudioPlayer;
 import com.nesemu.config.AppOptions;
 import com.nesemu.config.ConfigUtils;
@@ -12,13 +13,18 @@ import com.nesemu.input.GamepadPoller;
 import com.nesemu.input.InputConfig;
 import com.nesemu.io.NesController;
 import com.nesemu.rom.INesRom;
+import com.nesemu.rom.RomIndex;
 import com.nesemu.rom.RomLoader;
 import com.nesemu.util.Log;
+import com.nesemu.util.StartupClock;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 
 import static com.nesemu.util.Log.Cat.GENERAL;
@@ -35,7 +41,9 @@ public class GuiLauncher {
     private final NesController pad1;
     private final NesController pad2;
     private final GamepadPoller gamepadPoller;
-    private final Debugger debugger;
+    private Debugger debugger; // created on first use (menu or debug-* enabled)
+    private RomIndex romIndex; // opened with the first Load ROM dialog / ROM dir change
+    private ExecutorService romIndexer;
 
     // Transient UI state
     private boolean paused = false;
@@ -44,6 +52,7 @@ public class GuiLauncher {
     private long stateMsgExpireNs = 0L;
     private String stateMsg = null;
     private boolean hudState;
+    private int runAheadFrames = 0;
 
     public GuiLauncher(EmulatorContext context, AppOptions options, UserConfig userConfig,
                        NesController pad1, NesController pad2, GamepadPoller gamepadPoller) {
@@ -54,11 +63,10 @@ public class GuiLauncher {
         this.pad2 = pad2;
         this.gamepadPoller = gamepadPoller;
         this.hudState = options.hud;
-        this.debugger = new Debugger(context);
     }
 
     public void launch() {
-        String title = (context.romPath != null) ? ("R2-NES - " + context.romPath.getFileName()) : "R2-NES (no ROM)";
+        String title = (context.getRomPath() != null) ? ("R2-NES - " + context.getRomPath().getFileName()) : "R2-NES (no ROM)";
         NesWindow window = new NesWindow(title, 3);
 
         // Prevent automatic dispose so Alt+F4 / close button can confirm like ESC
@@ -79,12 +87,14 @@ public class GuiLauncher {
                 options.timingSimple, options.timingModeOpt, options.forceBg, options.unlimitedSprites,
                 options.spriteYMode, options.forceSprite0Hit, options.leftColumnModeOpt,
                 options.logAttrLimit, options.logNtLimit, options.ntBaseline, options.paletteLogLimit,
-                options.mmc1LogLimit, options.spinWatchThreshold, options.spinDumpBytes, options.initialMaskOverride);
+                options.mmc1LogLimit, options.spinWatchThreshold, options.spinDumpBytes, options.initialMaskOverride,
+                options.audioFilterOpt, options.frameBufferModeOpt);
 
         setupRomLoadingCallbacks(window, runtimeSettings);
 
         // Show and start loop
-        window.show(context.emulator.getPpu().getFrameBuffer());
+        window.setCompactFrameSource(context.getEmulator().getPpu());
+        window.show(context.getEmulator().getPpu().getFrameBuffer());
         Log.info(GENERAL, "Iniciando GUI (Ctrl+C para sair)");
 
         NesWindow.PacerMode pm = (options.pacerModeOpt == null || options.pacerModeOpt.equals("hr"))
@@ -99,9 +109,42 @@ public class GuiLauncher {
             Log.info(GENERAL, "BufferStrategy: DEFAULT(ON)");
         }
 
+        // Fast-forward intermediate frames are never shown: skip PPU pixel output
+        window.setHiddenFrameRunner(() -> {
+            if (paused)
+                return;
+            NesEmulator emu = context.getEmulator();
+            emu.getPpu().setRenderSuppressed(true);
+            try {
+                emu.stepFrame();
+            } finally {
+                emu.getPpu().setRenderSuppressed(false);
+            }
+        });
+        // Skip blit/present of frames identical to the last presented one
+        if (options.skipUnchangedFrames) {
+            window.setPresentKeySource(() -> {
+                var ppu = context.getEmulator().getPpu();
+                if (!ppu.isFrameHashEnabled())
+                    ppu.setFrameHashEnabled(true);
+                long now = System.nanoTime();
+                if (hudState || window.isFastForward() || now < resetMsgExpireNs
+                        || (stateMsg != null && now < stateMsgExpireNs))
+                    return -1; // overlay changes every frame
+                long v = ppu.getFrameContentVersion();
+                return paused ? (v ^ Long.MIN_VALUE) : v;
+            });
+            Log.info(GENERAL, "Skip unchanged frames: ON");
+        }
         window.startRenderLoop(() -> {
             if (!paused) {
-                context.emulator.stepFrame();
+                // Run-ahead only pays off at normal speed
+                NesEmulator emu = context.getEmulator();
+                if (runAheadFrames > 0 && !window.isFastForward())
+                    emu.stepFrameRunAhead(runAheadFrames);
+                else
+                    emu.stepFrame();
+                StartupClock.firstFrame("gui");
             } else {
                 try {
                     Thread.sleep(5);
@@ -118,6 +161,14 @@ public class GuiLauncher {
             window.setFastForwardMaxFps(options.fastForwardMaxFps);
             Log.info(GENERAL, "Fast-Forward max FPS: %d", options.fastForwardMaxFps);
         }
+        if (options.fastForwardFrames > 0) {
+            window.setFastForwardFrames(options.fastForwardFrames);
+            Log.info(GENERAL, "Fast-Forward frames por apresentação: %d", options.fastForwardFrames);
+        }
+        if (options.runAheadFrames > 0) {
+            runAheadFrames = Math.min(options.runAheadFrames, NesEmulator.MAX_RUN_AHEAD_FRAMES);
+            Log.info(GENERAL, "Run-ahead: %d frame(s)", runAheadFrames);
+        }
 
         // Initial directory for file chooser
         Path chooserStartDir = userConfig.resolvePreferredRomDirectory();
@@ -147,7 +198,7 @@ public class GuiLauncher {
         }
 
         // Initial ROM actions state
-        window.setRomActionsEnabled(context.romPath != null);
+        window.setRomActionsEnabled(context.getRomPath() != null);
     }
 
     private void configureDebugger() {
@@ -158,16 +209,54 @@ public class GuiLauncher {
             boolean hex = parseBool(cfg, "debug-hex");
             boolean ppu = parseBool(cfg, "debug-ppu");
 
-            debugger.setDisassemblerEnabled(disasm);
-            debugger.setMemoryEnabled(mem);
-            debugger.setHexEditorEnabled(hex);
-            debugger.setPpuViewerEnabled(ppu);
+            if (disasm || mem || hex || ppu) {
+                Debugger dbg = debugger();
+                dbg.setDisassemblerEnabled(disasm);
+                dbg.setMemoryEnabled(mem);
+                dbg.setHexEditorEnabled(hex);
+                dbg.setPpuViewerEnabled(ppu);
+            }
             Log.info(GENERAL, "Debugger config loaded: disasm=%s mem=%s hex=%s ppu=%s", disasm, mem, hex, ppu);
         } catch (Exception e) {
             Log.warn(GENERAL, "Failed to load debugger config: " + e.getMessage());
         }
     }
 
+    private Debugger debugger() {
+        if (debugger == null)
+            debugger = new Debugger(context);
+        return debugger;
+    }
+
+    private synchronized RomIndex romIndex() {
+        if (romIndex == null)
+            romIndex = RomIndex.open(RomIndex.defaultIndexFile());
+        return romIndex;
+    }
+
+    // Scans run one at a time on a daemon thread; queries see the last finished scan
+    private synchronized void indexInBackground(Path dir, int maxDepth) {
+        RomIndex index = romIndex();
+        if (romIndexer == null) {
+            romIndexer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "rom-index-scan");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        romIndexer.submit(() -> {
+            try {
+                index.scan(dir, 0, maxDepth);
+                index.save();
+                if (index.getLastHashed() > 0 || index.getLastRemoved() > 0)
+                    Log.info(GENERAL, "Índice de ROMs %s: %d novas, %d removidas", dir, index.getLastHashed(),
+                            index.getLastRemoved());
+            } catch (Exception ex) {
+                Log.warn(GENERAL, "Falha ao indexar %s: %s", dir, ex.getMessage());
+            }
+        });
+    }
+
     private boolean parseBool(InputConfig cfg, String key) {
         String val = cfg.getOption(key);
         return val != null && Boolean.parseBoolean(val.trim());
@@ -194,9 +283,12 @@ public class GuiLauncher {
                 return;
             }
 
+            if (!cleared && chosen != null)
+                indexInBackground(chosen, Integer.MAX_VALUE);
+
             Path nextDir = userConfig.resolvePreferredRomDirectory();
-            if (nextDir == null && context.romPath != null && context.romPath.getParent() != null) {
-                nextDir = context.romPath.getParent();
+            if (nextDir == null && context.getRomPath() != null && context.getRomPath().getParent() != null) {
+                nextDir = context.getRomPath().getParent();
             }
             window.setFileChooserStartDir(nextDir);
 
@@ -211,8 +303,20 @@ public class GuiLauncher {
             }
         });
         
+        // Load ROM: header/hash details and sha1:/crc:/mapper: filter from the index;
+        // the directory being browsed is (re)indexed in the background
+        window.setLoadRomChooserCustomizer(fc -> {
+            new RomIndexAccessory(romIndex()).install(fc);
+            if (fc.getCurrentDirectory() != null)
+                indexInBackground(fc.getCurrentDirectory().toPath(), 1);
+            fc.addPropertyChangeListener(JFileChooser.DIRECTORY_CHANGED_PROPERTY, e -> {
+                if (e.getNewValue() instanceof java.io.File d)
+                    indexInBackground(d.toPath(), 1);
+            });
+        });
+
         window.setOnDebuggerMenuSelected(() -> {
-            debugger.openOptionsWindow(window.getFrame());
+            debugger().openOptionsWindow(window.getFrame());
         });
 
         // Exit handler
@@ -232,7 +336,7 @@ public class GuiLauncher {
     }
 
     private void confirmAndExit(NesWindow window) {
-        boolean romLoaded = (context.romPath != null);
+        boolean romLoaded = (context.getRomPath() != null);
         if (romLoaded) {
             pausePrev = paused;
             paused = true;
@@ -249,8 +353,9 @@ public class GuiLauncher {
 
     private void performExit() {
         try {
-            if (context.emulator != null) {
-                context.emulator.forceAutoSave();
+            NesEmulator emu = context.getEmulator();
+            if (emu != null) {
+                emu.forceAutoSave();
                 Log.info(GENERAL, "AutoSave (.sav) antes de sair");
             }
         } catch (Exception ex) {
@@ -268,9 +373,9 @@ public class GuiLauncher {
         if (pad1 != null) {
             String resetTok = options.resetKeyToken == null ? null : options.resetKeyToken.toLowerCase(Locale.ROOT).trim();
             window.installControllerKeyListener(pad1, pad2, resetTok, () -> {
-                if (context.romPath != null) {
+                if (context.getRomPath() != null) {
                     Log.info(GENERAL, "RESET key pressed (%s)", resetTok);
-                    context.emulator.reset();
+                    context.getEmulator().reset();
                     resetMsgExpireNs = System.nanoTime() + 2_000_000_000L;
                 }
             });
@@ -306,6 +411,9 @@ public class GuiLauncher {
                 if (ffKey != null && tok.equals(ffKey)) {
                     if (window.isFastForward()) {
                         window.setFastForward(false);
+                        NesEmulator emu = context.getEmulator();
+                        if (emu != null)
+                            emu.setAudioOutputMode(APU.OutputMode.FULL);
                         Log.info(GENERAL, "Fast-Forward OFF");
                     }
                 }
@@ -342,16 +450,20 @@ public class GuiLauncher {
             handleLoadState();
         }
         if (ffKey != null && tok.equals(ffKey)) {
-            if (context.romPath != null && !window.isFastForward()) {
+            if (context.getRomPath() != null && !window.isFastForward()) {
                 window.setFastForward(true);
+                NesEmulator emu = context.getEmulator();
+                if (emu != null)
+                    emu.setAudioOutputMode(APU.OutputMode.STATE_ONLY);
                 Log.info(GENERAL, "Fast-Forward ON");
             }
         }
         if (warnKey != null && tok.equals(warnKey)) {
-            if (context.emulator != null) context.emulator.dumpWarnSnapshot("manual-hotkey");
+            NesEmulator emu = context.getEmulator();
+            if (emu != null) emu.dumpWarnSnapshot("manual-hotkey");
         }
         if (!pauseKeyTokens.isEmpty() && pauseKeyTokens.contains(tok)) {
-            if (context.romPath != null) {
+            if (context.getRomPath() != null) {
                 paused = !paused;
                 Log.info(GENERAL, "Pause -> %s", paused ? "ON" : "OFF");
             }
@@ -359,15 +471,15 @@ public class GuiLauncher {
     }
 
     private void handleSaveState() {
-        if (context.romPath == null) return;
+        if (context.getRomPath() == null) return;
         try {
             Path dir = (options.saveStatePath != null) ? Path.of(options.saveStatePath) : Path.of(".");
             Files.createDirectories(dir);
-            String base = context.romPath.getFileName().toString();
+            String base = context.getRomPath().getFileName().toString();
             int dot = base.lastIndexOf('.');
             if (dot > 0) base = base.substring(0, dot);
             Path target = dir.resolve(base + ".state");
-            context.emulator.saveState(target);
+            context.getEmulator().saveState(target);
             Log.info(GENERAL, "SaveState salvo: %s", target.toAbsolutePath());
             stateMsg = "SAVING";
             stateMsgExpireNs = System.nanoTime() + 1_500_000_000L;
@@ -379,14 +491,14 @@ public class GuiLauncher {
     }
 
     private void handleLoadState() {
-        if (context.romPath == null) return;
+        if (context.getRomPath() == null) return;
         try {
             Path dir = (options.saveStatePath != null) ? Path.of(options.saveStatePath) : Path.of(".");
-            String base = context.romPath.getFileName().toString();
+            String base = context.getRomPath().getFileName().toString();
             int dot = base.lastIndexOf('.');
             if (dot > 0) base = base.substring(0, dot);
             Path target = dir.resolve(base + ".state");
-            if (context.emulator.loadState(target)) {
+            if (context.getEmulator().loadState(target)) {
                 Log.info(GENERAL, "SaveState carregado: %s", target.toAbsolutePath());
                 stateMsg = "LOADING";
             } else {
@@ -405,7 +517,8 @@ public class GuiLauncher {
         final float slAlpha = Float.parseFloat(System.getProperty("r2nes.scanlines.alpha", "0.5"));
 
         window.setOverlay(g2 -> {
-            var ppu = context.emulator.getPpu();
+            NesEmulator emu = context.getEmulator();
+            var ppu = emu.getPpu();
             // Scanlines
             if (slEnabled) {
                 java.awt.Composite oldComp = g2.getComposite();
@@ -425,12 +538,16 @@ public class GuiLauncher {
                 final int hudOffY = 8;
                 int padLocal = 4;
                 String l1 = String.format("Frame:%d FPS:%.1f", ppu.getFrame(), window.getLastFps());
+                if (runAheadFrames > 0)
+                    l1 += String.format(" RA%d:%.2fms", runAheadFrames, emu.getRunAheadOverheadMs());
                 String l2 = String.format("Scan:%d Cyc:%d VRAM:%04X", ppu.getScanline(), ppu.getCycle(),
                         ppu.getVramAddress() & 0x3FFF);
                 String l3 = String.format("MASK:%02X STAT:%02X fineX:%d", ppu.getMaskRegister(),
                         ppu.getStatusRegister(), ppu.getFineX());
                 String btns = pad1 != null ? pad1.pressedButtonsString() : "-";
                 String l4 = "Pad1: " + btns;
+                if (pad1 != null && pad1.getLastInputLatencyNanos() >= 0)
+                    l4 += String.format(" In:%.1fms", pad1.getLastInputLatencyNanos() / 1_000_000.0);
                 g2.setColor(new java.awt.Color(0, 0, 0, 160));
                 g2.fillRect(hudOffX, hudOffY, 260, 56);
                 g2.setColor(java.awt.Color.WHITE);
@@ -442,11 +559,11 @@ public class GuiLauncher {
             // Messages
             drawCenteredMessage(g2, "RESET", resetMsgExpireNs, java.awt.Color.YELLOW);
             drawCenteredMessage(g2, stateMsg, stateMsgExpireNs, java.awt.Color.CYAN);
-            if (window.isFastForward() && context.romPath != null) {
-                double factor = Math.max(0.01, window.getLastFps() / 60.0);
+            if (window.isFastForward() && context.getRomPath() != null) {
+                double factor = Math.max(0.01, window.getLastEmulationFps() / 60.0);
                 drawCenteredMessage(g2, String.format("FFWD x%.1f", factor), Long.MAX_VALUE, java.awt.Color.ORANGE);
             }
-            if (paused && context.romPath != null) {
+            if (paused && context.getRomPath() != null) {
                 drawCenteredMessage(g2, "PAUSED", Long.MAX_VALUE, java.awt.Color.GREEN);
             }
         });
@@ -470,34 +587,35 @@ public class GuiLauncher {
 
     private void setupRomLoadingCallbacks(NesWindow window, RuntimeSettings runtimeSettings) {
         window.setOnReset(() -> {
-            if (context.romPath != null) {
+            if (context.getRomPath() != null) {
                 Log.info(GENERAL, "Menu Reset invoked");
-                context.emulator.reset();
+                context.getEmulator().reset();
                 resetMsgExpireNs = System.nanoTime() + 2_000_000_000L;
             }
         });
 
         window.setOnBeforeOpenLoadRomDialog(() -> {
-            if (context.romPath != null) {
+            if (context.getRomPath() != null) {
                 pausePrev = paused;
                 paused = true;
             }
         });
 
         window.setOnAfterLoadRomDialogCancelled(() -> {
-            if (context.romPath != null) paused = pausePrev;
+            if (context.getRomPath() != null) paused = pausePrev;
         });
 
         window.setOnCloseRom(() -> {
-            if (context.romPath == null) return;
+            if (context.getRomPath() == null) return;
             try {
-                context.emulator.forceAutoSave();
+                context.getEmulator().forceAutoSave();
                 context.stopAudio();
                 NesEmulator black = NesEmulator.createBlackScreenInstance();
-                context.emulator = black;
+                context.setEmulator(black);
+                window.setCompactFrameSource(black.getPpu());
                 window.setFrameBuffer(black.getPpu().getFrameBuffer());
-                context.rom = null;
-                context.romPath = null;
+                context.setRom(null);
+                context.setRomPath(null);
                 window.setRomActionsEnabled(false);
                 window.getFrame().setTitle("R2-NES (no ROM)");
                 resetMsgExpireNs = 0L;
@@ -512,10 +630,11 @@ public class GuiLauncher {
             Log.info(GENERAL, "Menu Load ROM: %s", path);
             paused = true;
             try {
-                if (context.emulator != null) context.emulator.forceAutoSave();
+                NesEmulator prevEmu = context.getEmulator();
+                if (prevEmu != null) prevEmu.forceAutoSave();
                 INesRom newRom = RomLoader.load(path);
-                context.rom = newRom;
-                context.romPath = path;
+                context.setRom(newRom);
+                context.setRomPath(path);
 
                 NesEmulator newEmu;
                 if (options.savePathOverride != null && !options.savePathOverride.isBlank()) {
@@ -525,12 +644,13 @@ public class GuiLauncher {
                     newEmu = new NesEmulator(newRom, path);
                 }
                 com.nesemu.config.EmulatorConfigurator.apply(newEmu, runtimeSettings);
-                context.emulator = newEmu;
+                com.nesemu.config.EmulatorConfigurator.applyVerbosity(newEmu, options.quiet, options.verboseFlag);
+                context.setEmulator(newEmu);
 
                 context.stopAudio();
                 try {
-                    context.audio = new AudioPlayer((com.nesemu.apu.APU) newEmu.getApu(), 44100);
-                    context.audio.start();
+                    context.setAudio(new AudioPlayer((com.nesemu.apu.APU) newEmu.getApu(), 44100));
+                    context.getAudio().start();
                 } catch (Exception e) {
                     Log.warn(GENERAL, "Audio init falhou (reload): %s", e.getMessage());
                 }
@@ -539,6 +659,7 @@ public class GuiLauncher {
                     newEmu.getBus().attachControllers(pad1, pad2);
                 }
 
+                window.setCompactFrameSource(newEmu.getPpu());
                 window.setFrameBuffer(newEmu.getPpu().getFrameBuffer());
                 window.getFrame().setTitle("R2-NES - " + path.getFileName());
                 window.setRomActionsEnabled(true);
@@ -9,6 +9,7 @@ import javax.swing.JOptionPane;
 import javax.swing.JFileChooser;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import com.nesemu.io.NesController;
+import com.nesemu.ppu.PPU;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
@@ -23,6 +24,7 @@ import java.awt.Canvas;
 import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.nio.file.Path;
 import java.io.File;
@@ -62,6 +64,22 @@ public class NesWindow {
     private volatile int fastForwardMaxFps = 0; // 0 = ilimitado
     private long ffFpsWindowStart = 0L;
     private int ffFpsFrames = 0;
+    // Fast-forward: emulated frames per presented frame (K). Intermediate frames
+    // run through hiddenFrameRunner and are never blitted/presented.
+    private volatile int fastForwardFrames = 4;
+    private volatile Runnable hiddenFrameRunner = null;
+    private volatile double lastEmuFps = 0.0;
+    private int emuFrames = 0;
+
+    // Present skipping: when the key source reports the same content key as the
+    // last presented frame (same window size/mode), blit + present are skipped.
+    // Key -1 = always present. A present is forced every MAX_SKIPPED_PRESENTS.
+    private static final int MAX_SKIPPED_PRESENTS = 30;
+    private volatile LongSupplier presentKeySource = null;
+    private volatile long lastPresentKey = Long.MIN_VALUE;
+    private int lastPresentW = -1, lastPresentH = -1, lastPresentMode = -1;
+    private int skippedPresents = 0;
+    private long totalSkippedPresents = 0;
 
     // Frame timing instrumentation
     private volatile long lastFrameNanos = 0L; // duração do frame anterior
@@ -79,6 +97,7 @@ public class NesWindow {
     private Consumer<Path> onLoadRomCallback; // invoked with selected ROM path
     private Runnable onBeforeOpenLoadRomDialog; // optional hook to pause gameplay before dialog
     private Runnable onAfterLoadRomDialogCancelled; // optional hook to restore state when user cancels
+    private Consumer<JFileChooser> loadRomChooserCustomizer; // optional (e.g. ROM index accessory)
     private Runnable onMiscMenuCallback; // optional hook for the Misc menu item
     private Runnable onDebuggerMenuCallback; // optional hook for the Debugger menu item
     private volatile File fileChooserStartDir; // preferred starting directory
@@ -117,7 +136,16 @@ public class NesWindow {
         
         // Check system property for CRT mode (set by Main)
         this.crtMode = Boolean.getBoolean("r2nes.crt.mode");
-        if (this.crtMode) {
+        if (Boolean.getBoolean("r2nes.video.software")) {
+            // CRT (if enabled) is baked in by the software pipeline: no texture pass
+            float crtAlpha = 1.0f;
+            try {
+                crtAlpha = Float.parseFloat(System.getProperty("r2nes.crt.alpha", "1.0"));
+            } catch (Exception ignore) {}
+            renderer.enableSoftwareScaling(crtMode, crtAlpha);
+            com.nesemu.util.Log.info(com.nesemu.util.Log.Cat.GENERAL, "Video scaler: software (%s)%s",
+                    renderer.isVectorized() ? "vector" : "scalar", crtMode ? " + CRT" : "");
+        } else if (this.crtMode) {
             initCrtTexture();
         }
     }
@@ -187,6 +215,68 @@ public class NesWindow {
      */
     public void setFrameBuffer(int[] framebuffer) {
         renderer.setFrameBuffer(framebuffer);
+        lastPresentKey = Long.MIN_VALUE;
+    }
+
+    /**
+     * PPU whose compact frames are resolved at blit time (see
+     * {@link VideoRenderer#setCompactSource}).
+     * 
+     * @param ppu
+     */
+    public void setCompactFrameSource(PPU ppu) {
+        renderer.setCompactSource(ppu);
+        lastPresentKey = Long.MIN_VALUE;
+    }
+
+    /**
+     * Content key used to skip presenting frames identical to the last one
+     * (e.g. PPU frame content version). Return -1 to force a present (HUD,
+     * transient messages); null disables skipping.
+     * 
+     * @param source
+     */
+    public void setPresentKeySource(LongSupplier source) {
+        this.presentKeySource = source;
+        lastPresentKey = Long.MIN_VALUE;
+    }
+
+    /**
+     * Presents skipped because the frame was unchanged (since start).
+     * 
+     * @return
+     */
+    public long getSkippedPresents() {
+        return totalSkippedPresents;
+    }
+
+    /**
+     * True when the frame about to be presented has the same content key,
+     * window size and proportion mode as the last one presented.
+     */
+    private boolean canSkipPresent() {
+        LongSupplier src = presentKeySource;
+        if (src == null)
+            return false;
+        long key;
+        try {
+            key = src.getAsLong();
+        } catch (RuntimeException e) {
+            key = -1;
+        }
+        int w = frame.getWidth(), h = frame.getHeight(), mode = proportionMode;
+        if (key != -1 && key == lastPresentKey && w == lastPresentW && h == lastPresentH
+                && mode == lastPresentMode && skippedPresents < MAX_SKIPPED_PRESENTS) {
+            skippedPresents++;
+            totalSkippedPresents++;
+            return true;
+        }
+        lastPresentKey = key;
+        lastPresentW = w;
+        lastPresentH = h;
+        lastPresentMode = mode;
+        skippedPresents = 0;
+        return false;
     }
 
     /** Set callback invoked when user activates File->Reset. */
@@ -214,6 +304,11 @@ public class NesWindow {
         this.onBeforeOpenLoadRomDialog = r;
     }
 
+    /** Set hook applied to each Load ROM chooser before it is shown. */
+    public void setLoadRomChooserCustomizer(Consumer<JFileChooser> c) {
+        this.loadRomChooserCustomizer = c;
+    }
+
     /** Set callback invoked after closing Load ROM dialog when user cancels. */
     public void setOnAfterLoadRomDialogCancelled(Runnable r) {
         this.onAfterLoadRomDialogCancelled = r;
@@ -254,6 +349,14 @@ public class NesWindow {
                 }
             } catch (Exception ignore) {
             }
+            if (loadRomChooserCustomizer != null) {
+                try {
+                    loadRomChooserCustomizer.accept(fc);
+                } catch (Exception ex) {
+                    com.nesemu.util.Log.warn(com.nesemu.util.Log.Cat.GENERAL, "Load ROM chooser hook falhou: %s",
+                            ex.getMessage());
+                }
+            }
             // Allow clients (Main) to pause before blocking dialog
             if (onBeforeOpenLoadRomDialog != null) {
                 try {
@@ -399,6 +502,7 @@ public class NesWindow {
                 }
                 // Dispose & reconfigure decorations
                 bufferStrategy = null; // invalidate
+                lastPresentKey = Long.MIN_VALUE;
                 frame.dispose();
                 frame.setUndecorated(enabled);
                 frame.setVisible(true);
@@ -454,6 +558,7 @@ public class NesWindow {
                         // Fallback to Swing path
                         useBufferStrategy = false;
                         bufferStrategy = null;
+                        lastPresentKey = Long.MIN_VALUE;
                         if (canvas.getParent() != null)
                             frame.getContentPane().remove(canvas);
                         if (renderer.getParent() == null)
@@ -582,7 +687,7 @@ public class NesWindow {
         fpsWindowStart = System.nanoTime();
         while (running.get()) {
             long start = System.nanoTime();
-            perFrame.run();
+            int batch = runEmulationFrames(perFrame);
             blitAndPresent();
             fpsFrames++;
             long end = System.nanoTime();
@@ -603,7 +708,7 @@ public class NesWindow {
                 long nowCheck = System.nanoTime();
                 if (ffFpsWindowStart == 0L)
                     ffFpsWindowStart = nowCheck;
-                ffFpsFrames++;
+                ffFpsFrames += batch;
                 long winElapsed = nowCheck - ffFpsWindowStart;
                 if (winElapsed >= 1_000_000_000L) {
                     // reset a cada segundo
@@ -624,7 +729,9 @@ public class NesWindow {
             long windowElapsed = now - fpsWindowStart;
             if (windowElapsed >= 1_000_000_000L) {
                 lastFps = fpsFrames / (windowElapsed / 1_000_000_000.0);
+                lastEmuFps = emuFrames / (windowElapsed / 1_000_000_000.0);
                 fpsFrames = 0;
+                emuFrames = 0;
                 fpsWindowStart = now;
             }
             if (!fastForward && frameDurationNanos > 0) {
@@ -653,7 +760,7 @@ public class NesWindow {
             fpsWindowStart = System.nanoTime();
             while (running.get()) {
                 long start = System.nanoTime();
-                perFrame.run();
+                runEmulationFrames(perFrame);
                 blitAndPresent();
                 long end = System.nanoTime();
                 long frameNs = end - start;
@@ -675,7 +782,7 @@ public class NesWindow {
         fpsWindowStart = System.nanoTime();
         while (running.get()) {
             long start = System.nanoTime();
-            perFrame.run();
+            int batch = runEmulationFrames(perFrame);
             blitAndPresent();
             long end = System.nanoTime();
             long frameNs = end - start;
@@ -695,7 +802,7 @@ public class NesWindow {
                 long nowCheck = System.nanoTime();
                 if (ffFpsWindowStart == 0L)
                     ffFpsWindowStart = nowCheck;
-                ffFpsFrames++;
+                ffFpsFrames += batch;
                 long winElapsed = nowCheck - ffFpsWindowStart;
                 if (winElapsed >= 1_000_000_000L) {
                     ffFpsFrames = 0;
@@ -715,7 +822,9 @@ public class NesWindow {
             long winElapsed = now - fpsWindowStart;
             if (winElapsed >= 1_000_000_000L) {
                 lastFps = fpsFrames / (winElapsed / 1_000_000_000.0);
+                lastEmuFps = emuFrames / (winElapsed / 1_000_000_000.0);
                 fpsFrames = 0;
+                emuFrames = 0;
                 fpsWindowStart = now;
             }
             if (fastForward) {
@@ -747,6 +856,28 @@ public class NesWindow {
         }
     }
 
+    /**
+     * Run the emulation for one presented frame. While fast-forwarding, K-1
+     * intermediate frames go through the hidden-frame runner first (no blit,
+     * no present) so throughput is bounded by the core instead of the
+     * presenter.
+     * 
+     * @param perFrame
+     * @return number of emulated frames
+     */
+    private int runEmulationFrames(Runnable perFrame) {
+        int k = fastForward ? fastForwardFrames : 1;
+        if (k > 1) {
+            Runnable hidden = hiddenFrameRunner != null ? hiddenFrameRunner : perFrame;
+            for (int i = 1; i < k; i++) {
+                hidden.run();
+            }
+        }
+        perFrame.run();
+        emuFrames += k;
+        return k;
+    }
+
     /**
      * Verify and perform blit + present according to current mode.
      */
@@ -770,6 +901,9 @@ public class NesWindow {
                 }
             }
             // From here bufferStrategy is non-null
+            if (canSkipPresent()) {
+                return; // unchanged frame: previous present still on screen
+            }
             renderer.blit();
             // Determine destination rectangle according to proportionMode
             int baseScaleW = 256 * renderer.getScale();
@@ -813,7 +947,8 @@ public class NesWindow {
                         Graphics2D g = (Graphics2D) bufferStrategy.getDrawGraphics();
                         try {
                             // CRT Mode uses Bilinear for "glow/blur", otherwise Nearest Neighbor for crisp pixels
-                            if (crtMode) {
+                            boolean softwareScaled = renderer.isSoftwareScaled();
+                            if (crtMode && !softwareScaled) {
                                 g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
                             } else {
                                 g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
@@ -824,10 +959,15 @@ public class NesWindow {
                             g.fillRect(0, 0, winW, winH);
                             int offsetX = (int) Math.round(cx + (-3 * scaleX));
                             int offsetY = (int) Math.round(cy + (-8 * scaleY));
-                            g.drawImage(renderer.getImage(), offsetX, offsetY, nesW, nesH, null);
+                            if (softwareScaled && nesW == baseScaleW && nesH == baseScaleH) {
+                                // Already at presentation size: plain unscaled blit
+                                g.drawImage(renderer.getImage(), offsetX, offsetY, null);
+                            } else {
+                                g.drawImage(renderer.getImage(), offsetX, offsetY, nesW, nesH, null);
+                            }
                             
                             // Apply CRT Mask overlay
-                            if (crtMode && crtTexture != null) {
+                            if (crtMode && crtTexture != null && !softwareScaled) {
                                 Graphics2D gCrt = (Graphics2D) g.create();
                                 gCrt.translate(offsetX, offsetY);
                                 gCrt.setPaint(crtTexture);
@@ -861,8 +1001,12 @@ public class NesWindow {
             } catch (NullPointerException | IllegalStateException race) {
                 // Race: strategy invalidated mid-draw. Reset and skip.
                 bufferStrategy = null;
+                lastPresentKey = Long.MIN_VALUE;
             }
         } else {
+            if (canSkipPresent()) {
+                return;
+            }
             renderer.blitAndRepaint();
         }
     }
@@ -930,6 +1074,7 @@ public class NesWindow {
                 } catch (Exception e) {
                     useBufferStrategy = false; // falhou, volta para Swing
                     bufferStrategy = null;
+                    lastPresentKey = Long.MIN_VALUE;
                     // Re-adiciona renderer
                     if (canvas.getParent() != null)
                         frame.getContentPane().remove(canvas);
@@ -941,6 +1086,7 @@ public class NesWindow {
             } else {
                 // Swap para painel Swing
                 bufferStrategy = null; // GC reclaim
+                lastPresentKey = Long.MIN_VALUE;
                 if (canvas.getParent() != null) {
                     frame.getContentPane().remove(canvas);
                 }
@@ -979,6 +1125,39 @@ public class NesWindow {
         return fastForwardMaxFps;
     }
 
+    /**
+     * Emulated frames per presented frame while fast-forwarding (>=1).
+     * 
+     * @param frames
+     */
+    public void setFastForwardFrames(int frames) {
+        this.fastForwardFrames = Math.max(1, frames);
+    }
+
+    public int getFastForwardFrames() {
+        return fastForwardFrames;
+    }
+
+    /**
+     * Runner used for intermediate (never presented) fast-forward frames. Null
+     * falls back to the regular per-frame runnable.
+     * 
+     * @param runner
+     */
+    public void setHiddenFrameRunner(Runnable runner) {
+        this.hiddenFrameRunner = runner;
+    }
+
+    /**
+     * Emulated frames per second (counts hidden fast-forward frames), updated
+     * about once per second.
+     * 
+     * @return
+     */
+    public double getLastEmulationFps() {
+        return lastEmuFps;
+    }
+
     /** Install key listener mapping key pressed/released events to controllers. */
     public void installControllerKeyListener(NesController p1, NesController p2) {
         installControllerKeyListener(p1, p2, null, null);
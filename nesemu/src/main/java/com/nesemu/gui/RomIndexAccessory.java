@@ -0,0 +1,163 @@
+package com.nesemu.gui;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.GridLayout;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.filechooser.FileFilter;
+
+import com.nesemu.rom.INesHeader;
+import com.nesemu.rom.RomIndex;
+
+/**
+ * Accessory for the Load ROM chooser backed by the {@link RomIndex}: shows
+ * the cached header fields and hashes of the selected file and filters the
+ * listing by {@code sha1:HEX}, {@code crc:HEX} or {@code mapper:N}.
+ */
+public final class RomIndexAccessory extends JPanel {
+
+    private final RomIndex index;
+    private final JLabel mapper = new JLabel("-");
+    private final JLabel mirroring = new JLabel("-");
+    private final JLabel sizes = new JLabel("-");
+    private final JLabel battery = new JLabel("-");
+    private final JLabel crc = new JLabel("-");
+    private final JLabel sha1 = new JLabel("-");
+    private final JTextField selector = new JTextField(12);
+    private final JLabel status = new JLabel(" ");
+    private JFileChooser chooser;
+    private FileFilter previousFilter;
+    private FileFilter indexFilter;
+
+    public RomIndexAccessory(RomIndex index) {
+        super(new BorderLayout(5, 5));
+        this.index = index;
+        setBorder(BorderFactory.createTitledBorder("ROM"));
+        JPanel info = new JPanel(new GridLayout(0, 2, 4, 2));
+        info.add(new JLabel("Mapper:"));
+        info.add(mapper);
+        info.add(new JLabel("Mirroring:"));
+        info.add(mirroring);
+        info.add(new JLabel("PRG/CHR:"));
+        info.add(sizes);
+        info.add(new JLabel("Bateria:"));
+        info.add(battery);
+        info.add(new JLabel("CRC32:"));
+        info.add(crc);
+        info.add(new JLabel("SHA-1:"));
+        info.add(sha1);
+        add(info, BorderLayout.NORTH);
+
+        JPanel filter = new JPanel(new BorderLayout(4, 4));
+        filter.add(new JLabel("Filtro (sha1: / crc: / mapper:)"), BorderLayout.NORTH);
+        filter.add(selector, BorderLayout.CENTER);
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 4, 0));
+        JButton apply = new JButton("Aplicar");
+        apply.addActionListener(e -> applyFilter());
+        selector.addActionListener(e -> applyFilter());
+        JButton clear = new JButton("Limpar");
+        clear.addActionListener(e -> clearFilter());
+        buttons.add(clear);
+        buttons.add(apply);
+        filter.add(buttons, BorderLayout.SOUTH);
+        add(filter, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+        setPreferredSize(new Dimension(260, 260));
+    }
+
+    /**
+     * Attach to a chooser (accessory + selection listener).
+     *
+     * @param fc
+     */
+    public void install(JFileChooser fc) {
+        this.chooser = fc;
+        fc.setAccessory(this);
+        fc.addPropertyChangeListener(JFileChooser.SELECTED_FILE_CHANGED_PROPERTY,
+                e -> showEntry(e.getNewValue() instanceof File f ? f.toPath() : null));
+    }
+
+    private void showEntry(Path file) {
+        RomIndex.Entry e = null;
+        if (file != null && !file.toFile().isDirectory()) {
+            e = index.get(file);
+            File f = file.toFile();
+            if (e == null || e.getSize() != f.length() || e.getModified() != f.lastModified()) {
+                try {
+                    e = RomIndex.read(file); // not indexed yet: one small file
+                } catch (IOException | RuntimeException ex) {
+                    e = null;
+                }
+            }
+        }
+        if (e == null) {
+            for (JLabel l : new JLabel[] { mapper, mirroring, sizes, battery, crc, sha1 })
+                l.setText("-");
+            return;
+        }
+        INesHeader h = e.getHeader();
+        mapper.setText(String.valueOf(h.getMapper()));
+        mirroring.setText(h.isVerticalMirroring() ? "Vertical" : "Horizontal");
+        sizes.setText(h.getPrgRomPages() * 16 + "K / " + h.getChrRomPages() * 8 + "K");
+        battery.setText(h.isBatteryBacked() ? "Sim" : "Não");
+        crc.setText(e.getCrc32Hex());
+        sha1.setText(e.getSha1().substring(0, 16) + "…");
+        sha1.setToolTipText(e.getSha1());
+    }
+
+    private void applyFilter() {
+        String sel = selector.getText().trim();
+        if (sel.isEmpty()) {
+            clearFilter();
+            return;
+        }
+        Set<String> matches = new HashSet<>();
+        try {
+            for (RomIndex.Entry e : index.select(sel))
+                matches.add(e.getPath().toString());
+        } catch (IllegalArgumentException ex) {
+            status.setText("Filtro inválido");
+            return;
+        }
+        status.setText(matches.size() + " ROM(s) no índice");
+        if (indexFilter == null)
+            previousFilter = chooser.getFileFilter();
+        else
+            chooser.removeChoosableFileFilter(indexFilter);
+        indexFilter = new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                return f.isDirectory() || matches.contains(f.toPath().toAbsolutePath().normalize().toString());
+            }
+
+            @Override
+            public String getDescription() {
+                return "Índice: " + sel;
+            }
+        };
+        chooser.addChoosableFileFilter(indexFilter);
+        chooser.setFileFilter(indexFilter);
+    }
+
+    private void clearFilter() {
+        status.setText(" ");
+        if (indexFilter == null)
+            return;
+        chooser.removeChoosableFileFilter(indexFilter);
+        indexFilter = null;
+        if (previousFilter != null)
+            chooser.setFileFilter(previousFilter);
+    }
+}
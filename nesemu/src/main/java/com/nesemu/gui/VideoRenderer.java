@@ -7,6 +7,10 @@ import java.awt.Graphics2D;
 import java.util.function.Consumer;
 import javax.swing.JPanel;
 
+import com.nesemu.ppu.PPU;
+import com.nesemu.video.CrtMask;
+import com.nesemu.video.FramePipeline;
+
 /**
  * Simple panel that draws a 256x240 framebuffer (int ARGB array).
  */
@@ -16,9 +20,21 @@ public class VideoRenderer extends JPanel {
     private final BufferedImage image;
     private final int[] imageData; // direct reference to underlying INT ARGB buffer
     private volatile int[] source; // reference to emulator ARGB buffer (PPU frameBuffer)
+    // PPU whose compact frame (when in compact mode) is resolved here instead of
+    // reading its ARGB buffer
+    private volatile PPU compactSource;
     private final int scale;
     private volatile Consumer<Graphics2D> overlay;
 
+    // Optional software pipeline: upscale (+CRT) into a pre-sized raster so
+    // presentation is a single unscaled drawImage
+    private FramePipeline pipeline;
+    private BufferedImage scaledImage;
+    private int[] scaledData;
+    private CrtMask crtMask;
+    // Palette lookup for compact frames when the software scaler is off
+    private FramePipeline lookupPipeline;
+
     /**
      * Create renderer with given scale factor (1 = native 256x240).
      * 
@@ -42,6 +58,17 @@ public class VideoRenderer extends JPanel {
         this.source = argb;
     }
 
+    /**
+     * PPU to present compact frames from: while it is in compact frame mode,
+     * blit() resolves its byte buffer through the frame LUT (fused with the
+     * software upscale when enabled) and the ARGB buffer is not used.
+     * 
+     * @param ppu null to always use the ARGB buffer
+     */
+    public void setCompactSource(PPU ppu) {
+        this.compactSource = ppu;
+    }
+
     /**
      * Copy latest emulator framebuffer into backing image and schedule Swing
      * repaint.
@@ -51,17 +78,73 @@ public class VideoRenderer extends JPanel {
         repaint();
     }
 
+    /**
+     * Enable the software scaling pipeline: each blit upscales by the integer
+     * scale factor (nearest neighbour) and optionally bakes the CRT mask into a
+     * (256*scale)x(240*scale) image, vectorized when jdk.incubator.vector is
+     * available.
+     *
+     * @param crt          apply CRT phosphor mask + scanlines
+     * @param crtIntensity 0..1
+     */
+    public void enableSoftwareScaling(boolean crt, float crtIntensity) {
+        int w = 256 * scale, h = 240 * scale;
+        this.pipeline = FramePipeline.create();
+        this.scaledImage = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        this.scaledImage.setAccelerationPriority(1.0f);
+        this.scaledData = ((DataBufferInt) scaledImage.getRaster().getDataBuffer()).getData();
+        this.crtMask = crt ? new CrtMask(w, crtIntensity) : null;
+    }
+
+    /**
+     * True when blit() renders through the software pipeline (getImage() is then
+     * already scaled to 256*scale x 240*scale).
+     *
+     * @return
+     */
+    public boolean isSoftwareScaled() {
+        return pipeline != null;
+    }
+
+    /**
+     * True when the software pipeline is active and vectorized.
+     *
+     * @return
+     */
+    public boolean isVectorized() {
+        return pipeline != null && pipeline.isVectorized();
+    }
+
     /** Copy latest emulator framebuffer into backing image (no repaint). */
     public void blit() {
+        PPU cs = compactSource;
+        if (cs != null && cs.isCompactFrameMode()) {
+            byte[] frame = cs.getCompactFrameBufferRef();
+            int[] lut = cs.getCompactFrameLut();
+            if (pipeline != null) {
+                pipeline.scale(frame, lut, scaledData, scale, crtMask);
+            } else {
+                if (lookupPipeline == null)
+                    lookupPipeline = FramePipeline.create();
+                lookupPipeline.lookup(frame, lut, imageData, 256 * 240);
+            }
+            return;
+        }
         int[] src = source;
         if (src != null) {
-            System.arraycopy(src, 0, imageData, 0, 256 * 240);
+            if (pipeline != null)
+                pipeline.scale(src, scaledData, scale, crtMask);
+            else
+                System.arraycopy(src, 0, imageData, 0, 256 * 240);
         }
     }
 
     /** Draw current image + overlay (scaled) into provided Graphics2D. */
     public void drawTo(Graphics2D g) {
-        g.drawImage(image, 0, 0, 256 * scale, 240 * scale, null);
+        if (pipeline != null)
+            g.drawImage(scaledImage, 0, 0, null);
+        else
+            g.drawImage(image, 0, 0, 256 * scale, 240 * scale, null);
         Consumer<Graphics2D> ov = overlay;
         if (ov != null) {
             Graphics2D g2 = (Graphics2D) g.create();
@@ -93,12 +176,13 @@ public class VideoRenderer extends JPanel {
     }
 
     /**
-     * Get the backing image (for direct drawing or saving).
+     * Get the backing image (for direct drawing or saving): native 256x240, or
+     * the upscaled image when software scaling is enabled.
      * 
      * @return
      */
     public BufferedImage getImage() {
-        return image;
+        return pipeline != null ? scaledImage : image;
     }
 
     /**
@@ -0,0 +1,179 @@
+package com.nesemu.headless;
+
+import com.nesemu.emulator.NesEmulator;
+import com.nesemu.io.Controller;
+import com.nesemu.rom.INesRom;
+import com.nesemu.util.Log;
+import static com.nesemu.util.Log.Cat.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Runs a headless scenario (power-on + input movie) for N frames, restoring
+ * the nearest earlier checkpoint instead of re-emulating the prefix and
+ * storing new checkpoints every {@code interval} frames on the way.
+ * <p>
+ * Checkpoint key = ROM hash + frame + hash of the movie prefix up to that
+ * frame, so workers replaying different input suffixes after a shared prefix
+ * reuse the same checkpoints. Keys do not track emulator code changes: clear
+ * the store after changing emulation behaviour.
+ */
+public class CheckpointRunner {
+
+    private final CheckpointStore store; // null = no checkpoints (movie only)
+    private final int interval;
+    private ByteBuffer buffer;
+    private ByteBuffer powerOn; // emulator state before any restore attempt
+
+    private int restoredFrame;
+    private int emulatedFrames;
+    private int storedCheckpoints;
+
+    /**
+     * @param store    checkpoint store (null = run from power-on, store nothing)
+     * @param interval frames between checkpoints (&gt; 0)
+     */
+    public CheckpointRunner(CheckpointStore store, int interval) {
+        if (interval <= 0)
+            throw new IllegalArgumentException("interval must be > 0: " + interval);
+        this.store = store;
+        this.interval = interval;
+    }
+
+    /**
+     * Content hash of a cartridge (mapper + PRG + CHR), 16 hex digits.
+     *
+     * @param rom
+     * @return
+     */
+    public static String romHash(INesRom rom) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update((byte) rom.getHeader().getMapper());
+            md.update(rom.getPrgRom());
+            byte[] chr = rom.getChrRom();
+            if (chr != null)
+                md.update(chr);
+            return HexFormat.of().formatHex(md.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param romHash
+     * @param frame      frames emulated since power-on
+     * @param prefixHash {@link InputMovie#prefixHash(int)} of those frames
+     * @return
+     */
+    public static String key(String romHash, int frame, long prefixHash) {
+        return romHash + "-" + frame + "-" + HexFormat.of().toHexDigits(prefixHash);
+    }
+
+    /**
+     * Bring {@code emu} (freshly reset) to the state after {@code frames} frames
+     * of {@code movie}. The final frame is always emulated so its image is in
+     * the framebuffer (the framebuffer is not part of the saved state).
+     *
+     * @param emu
+     * @param romHash        {@link #romHash(INesRom)}
+     * @param movie
+     * @param frames
+     * @param suppressRender skip pixel output for all frames but the last
+     */
+    public void run(NesEmulator emu, String romHash, InputMovie movie, int frames, boolean suppressRender) {
+        restoredFrame = 0;
+        emulatedFrames = 0;
+        storedCheckpoints = 0;
+        int size = emu.getStateSize();
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(size);
+            powerOn = ByteBuffer.allocate(size);
+        }
+        int start = (store != null) ? restore(emu, romHash, movie, frames) : 0;
+        restoredFrame = start;
+        var ppu = emu.getPpu();
+        boolean prevSuppressed = ppu.isRenderSuppressed();
+        try {
+            for (int f = start; f < frames; f++) {
+                applyInput(emu, movie, f);
+                ppu.setRenderSuppressed(suppressRender && f < frames - 1);
+                emu.stepFrame();
+                emulatedFrames++;
+                int done = f + 1;
+                if (store != null && done % interval == 0)
+                    save(emu, key(romHash, done, movie.prefixHash(done)));
+            }
+        } finally {
+            ppu.setRenderSuppressed(prevSuppressed);
+        }
+    }
+
+    // Nearest checkpoint strictly before 'frames'; returns the frame it restored
+    private int restore(NesEmulator emu, String romHash, InputMovie movie, int frames) {
+        boolean snapshotTaken = false;
+        for (int f = ((frames - 1) / interval) * interval; f > 0; f -= interval) {
+            String k = key(romHash, f, movie.prefixHash(f));
+            if (!store.contains(k) || !store.load(k, buffer))
+                continue;
+            if (!snapshotTaken) {
+                powerOn.clear();
+                emu.saveState(powerOn);
+                powerOn.flip();
+                snapshotTaken = true;
+            }
+            if (emu.loadState(buffer))
+                return f;
+            // May be partially applied (reset() keeps RAM/mapper/APU): put the
+            // whole power-on state back and try an older checkpoint
+            Log.warn(GENERAL, "Checkpoint %s incompatível; removido", k);
+            store.remove(k);
+            powerOn.rewind();
+            if (!emu.loadState(powerOn))
+                throw new IllegalStateException("estado de power-on não restaurável");
+        }
+        return 0;
+    }
+
+    private void save(NesEmulator emu, String key) {
+        if (store.contains(key))
+            return;
+        ByteBuffer buf = buffer;
+        buf.clear();
+        emu.saveState(buf);
+        buf.flip();
+        try {
+            store.store(key, buf);
+            storedCheckpoints++;
+        } catch (IOException e) {
+            Log.warn(GENERAL, "Falha ao gravar checkpoint %s: %s", key, e.getMessage());
+        }
+    }
+
+    private static void applyInput(NesEmulator emu, InputMovie movie, int frame) {
+        Controller p1 = emu.getController(0);
+        if (p1 != null)
+            p1.setLogicalButtons(movie.pad1(frame));
+        Controller p2 = emu.getController(1);
+        if (p2 != null)
+            p2.setLogicalButtons(movie.pad2(frame));
+    }
+
+    /** Frame the last run resumed from (0 = power-on). */
+    public int getRestoredFrame() {
+        return restoredFrame;
+    }
+
+    /** Frames actually emulated by the last run. */
+    public int getEmulatedFrames() {
+        return emulatedFrames;
+    }
+
+    /** Checkpoints written by the last run. */
+    public int getStoredCheckpoints() {
+        return storedCheckpoints;
+    }
+}
@@ -0,0 +1,236 @@
+package com.nesemu.headless;
+
+import com.nesemu.util.Log;
+import static com.nesemu.util.Log.Cat.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded on-disk store of save-state checkpoints with LRU eviction. One
+ * file per key ({@code <key>.state}); recency survives restarts through the
+ * file modification time, which is bumped on every hit. Thread-safe within a
+ * JVM; writes go through a unique temp file + atomic rename so concurrent
+ * processes (even writing the same key) never see partial checkpoints.
+ */
+public class CheckpointStore {
+
+    private static final String SUFFIX = ".state";
+    private static final long STALE_TMP_MS = 60L * 60 * 1000;
+
+    private final Path dir;
+    private final long maxBytes;
+    // key -> file size, in access order (eldest = least recently used)
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    private long hits, misses, evictions;
+
+    /**
+     * Open (or create) a store, indexing checkpoints already on disk.
+     *
+     * @param dir
+     * @param maxBytes size bound (oldest checkpoints evicted beyond it)
+     * @throws IOException
+     */
+    public CheckpointStore(Path dir, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.maxBytes = Math.max(0, maxBytes);
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> s = Files.list(dir)) {
+            s.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).forEach(files::add);
+        }
+        deleteStaleTempFiles();
+        List<DiskEntry> entries = new ArrayList<>(files.size());
+        for (Path p : files) {
+            try {
+                entries.add(new DiskEntry(p, Files.getLastModifiedTime(p), Files.size(p)));
+            } catch (IOException e) {
+                // removed concurrently
+            }
+        }
+        entries.sort(Comparator.comparing(e -> e.modified));
+        for (DiskEntry e : entries) {
+            String name = e.path.getFileName().toString();
+            index.put(name.substring(0, name.length() - SUFFIX.length()), e.size);
+            totalBytes += e.size;
+        }
+        evict();
+    }
+
+    /**
+     * @param key
+     * @return true if a checkpoint is indexed for key (does not touch recency)
+     */
+    public synchronized boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Read a checkpoint into {@code dst} (cleared first, flipped on return).
+     *
+     * @param key
+     * @param dst buffer large enough for the state
+     * @return false on miss (or if the file vanished / does not fit)
+     */
+    public synchronized boolean load(String key, ByteBuffer dst) {
+        Long size = index.get(key); // marks as most recently used
+        if (size == null || size > dst.capacity()) {
+            misses++;
+            return false;
+        }
+        Path file = fileOf(key);
+        dst.clear();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (dst.hasRemaining() && ch.read(dst) >= 0) {
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            drop(key);
+            misses++;
+            return false;
+        } catch (IOException e) {
+            Log.warn(GENERAL, "Checkpoint ilegível %s: %s", file, e.getMessage());
+            drop(key);
+            misses++;
+            return false;
+        }
+        dst.flip();
+        hits++;
+        return true;
+    }
+
+    /**
+     * Store the remaining bytes of {@code src} under key (replacing any previous
+     * checkpoint), then evict least recently used entries beyond the bound.
+     *
+     * @param key
+     * @param src
+     * @throws IOException
+     */
+    public synchronized void store(String key, ByteBuffer src) throws IOException {
+        Path file = fileOf(key);
+        // Unique temp file: other processes may be writing the same key
+        Path tmp = Files.createTempFile(dir, key + ".", ".tmp");
+        long size = src.remaining();
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (src.hasRemaining())
+                    ch.write(src);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            // Lost a rename race (Windows refuses to replace a file in use):
+            // a complete checkpoint for the same key is already in place
+            if (!Files.isRegularFile(file) || Files.size(file) != size)
+                throw e;
+        }
+        Long prev = index.put(key, size);
+        totalBytes += size - (prev != null ? prev : 0);
+        evict();
+    }
+
+    /**
+     * Delete a checkpoint (e.g. one that failed to load).
+     *
+     * @param key
+     */
+    public synchronized void remove(String key) {
+        drop(key);
+        try {
+            Files.deleteIfExists(fileOf(key));
+        } catch (IOException e) {
+            Log.warn(GENERAL, "Falha ao remover checkpoint %s: %s", key, e.getMessage());
+        }
+    }
+
+    // Temp files left by crashed writers (live writers finish within seconds)
+    private void deleteStaleTempFiles() throws IOException {
+        long cutoff = System.currentTimeMillis() - STALE_TMP_MS;
+        try (Stream<Path> s = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) s.filter(p -> p.getFileName().toString().endsWith(".tmp"))::iterator) {
+                try {
+                    if (Files.getLastModifiedTime(p).toMillis() < cutoff)
+                        Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    // removed concurrently
+                }
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> e = it.next();
+            try {
+                Files.deleteIfExists(fileOf(e.getKey()));
+            } catch (IOException ex) {
+                Log.warn(GENERAL, "Falha ao remover checkpoint %s: %s", e.getKey(), ex.getMessage());
+            }
+            totalBytes -= e.getValue();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private void drop(String key) {
+        Long size = index.remove(key);
+        if (size != null)
+            totalBytes -= size;
+    }
+
+    private static final class DiskEntry {
+        final Path path;
+        final FileTime modified;
+        final long size;
+
+        DiskEntry(Path path, FileTime modified, long size) {
+            this.path = path;
+            this.modified = modified;
+            this.size = size;
+        }
+    }
+
+    private Path fileOf(String key) {
+        return dir.resolve(key + SUFFIX);
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int getCount() {
+        return index.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+}
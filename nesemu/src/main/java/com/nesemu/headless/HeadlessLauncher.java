@@ -1,9 +1,15 @@
 package com.nesemu.headless;
 
+import com.nesemu.apu.APU.OutputMode;
 import com.nesemu.app.EmulatorContext;
 import com.nesemu.config.AppOptions;
+import com.nesemu.cpu.CPU;
+import com.nesemu.emulator.NesEmulator;
+import com.nesemu.ppu.PPU;
 import com.nesemu.util.Log;
+import com.nesemu.util.StartupClock;
 import static com.nesemu.util.Log.Cat.*;
+import java.io.IOException;
 import java.nio.file.Path;
 
 /**
@@ -22,12 +28,23 @@ public class HeadlessLauncher {
     }
 
     public void launch() {
+        NesEmulator emu = context.getEmulator();
         long start = System.nanoTime();
+        // Nothing consumes audio in headless runs: keep only CPU-visible APU state
+        emu.setAudioOutputMode(OutputMode.STATE_ONLY);
+        // Time-to-first-frame: first completed PPU frame, whichever mode runs it
+        PPU ppu = emu.getPpu();
+        ppu.setFrameCompleteCallback(() -> {
+            ppu.setFrameCompleteCallback(null);
+            StartupClock.firstFrame("headless");
+        });
         
         if (options.untilVblank) {
             runUntilVblank();
         } else if (options.traceInstrCount > 0) {
             runTraceInstructions();
+        } else if ((options.moviePath != null || options.checkpointDir != null) && context.getRom() != null) {
+            runCheckpointed();
         } else {
             runFrames();
         }
@@ -37,52 +54,53 @@ public class HeadlessLauncher {
     }
 
     private void runUntilVblank() {
+        NesEmulator emu = context.getEmulator();
+        PPU ppu = emu.getPpu();
+        CPU cpu = emu.getCpu();
         long executed = 0;
         long maxInstr = (options.traceInstrCount > 0) ? options.traceInstrCount : 1_000_000;
-        long startCpuCycles = context.emulator.getCpu().getTotalCycles();
+        long startCpuCycles = cpu.getTotalCycles();
         
         // Manually step CPU and PPU to detect VBlank edge precisely
-        while (!context.emulator.getPpu().isInVBlank() && executed < maxInstr) {
+        while (!ppu.isInVBlank() && executed < maxInstr) {
             stepInstruction();
             executed++;
         }
         
-        if (context.emulator.getPpu().isInVBlank()) {
+        if (ppu.isInVBlank()) {
             Log.info(PPU, "UNTIL-VBLANK atingido instr=%d cpuCycles~%d frame=%d scan=%d cyc=%d status=%02X",
-                    executed, (context.emulator.getCpu().getTotalCycles() - startCpuCycles),
-                    context.emulator.getPpu().getFrame(),
-                    context.emulator.getPpu().getScanline(), context.emulator.getPpu().getCycle(),
-                    context.emulator.getPpu().getStatusRegister());
+                    executed, (cpu.getTotalCycles() - startCpuCycles), ppu.getFrame(),
+                    ppu.getScanline(), ppu.getCycle(), ppu.getStatusRegister());
         } else {
             Log.warn(PPU, "UNTIL-VBLANK limite instr (%d) sem vblank scan=%d cyc=%d frame=%d",
-                    maxInstr, context.emulator.getPpu().getScanline(), context.emulator.getPpu().getCycle(),
-                    context.emulator.getPpu().getFrame());
+                    maxInstr, ppu.getScanline(), ppu.getCycle(), ppu.getFrame());
         }
         
         // Run remaining requested frames normally
         for (int i = 0; i < options.frames; i++) {
-            context.emulator.stepFrame();
+            emu.stepFrame();
         }
     }
 
     private void runTraceInstructions() {
+        NesEmulator emu = context.getEmulator();
+        CPU cpu = emu.getCpu();
         long executed = 0;
         while (executed < options.traceInstrCount) {
-            int pc = context.emulator.getCpu().getPC();
-            int opcode = context.emulator.getBus().read(pc);
+            int pc = cpu.getPC();
+            int opcode = emu.getBus().read(pc);
             Log.trace(CPU, "TRACE PC=%04X OP=%02X A=%02X X=%02X Y=%02X P=%02X SP=%02X CYC=%d",
-                    pc, opcode, context.emulator.getCpu().getA(), context.emulator.getCpu().getX(), 
-                    context.emulator.getCpu().getY(), context.emulator.getCpu().getStatusByte(), 
-                    context.emulator.getCpu().getSP(), context.emulator.getCpu().getTotalCycles());
+                    pc, opcode, cpu.getA(), cpu.getX(), cpu.getY(), cpu.getStatusByte(),
+                    cpu.getSP(), cpu.getTotalCycles());
             
             stepInstruction();
             executed++;
             
-            if (options.breakAtPc != null && context.emulator.getCpu().getPC() == (options.breakAtPc & 0xFFFF)) {
+            if (options.breakAtPc != null && cpu.getPC() == (options.breakAtPc & 0xFFFF)) {
                 Log.info(CPU, "BREAK PC=%04X após %d instruções", options.breakAtPc, executed);
                 break;
             }
-            if (options.breakReadAddr >= 0 && context.emulator.getBus().isWatchTriggered()) {
+            if (options.breakReadAddr >= 0 && emu.getBus().isWatchTriggered()) {
                 Log.info(BUS, "BREAK leitura %04X atingida count=%d após %d instr",
                         options.breakReadAddr, options.breakReadCount, executed);
                 break;
@@ -93,23 +111,63 @@ public class HeadlessLauncher {
         }
         // Run remaining requested frames normally
         for (int i = 0; i < options.frames; i++) {
-            context.emulator.stepFrame();
+            emu.stepFrame();
         }
     }
 
     private void runFrames() {
+        NesEmulator emu = context.getEmulator();
+        // Only the final frame is dumped: earlier frames run with pixel output
+        // suppressed (unless background sampling needs to observe them)
+        PPU ppu = emu.getPpu();
+        boolean suppressEarly = options.dbgBgSample <= 0;
         for (int i = 0; i < options.frames; i++) {
-            context.emulator.stepFrame();
+            ppu.setRenderSuppressed(suppressEarly && i < options.frames - 1);
+            emu.stepFrame();
         }
+        ppu.setRenderSuppressed(false);
+    }
+
+    // Movie input and/or checkpoint store: resume from the nearest checkpoint
+    private void runCheckpointed() {
+        InputMovie movie = InputMovie.empty();
+        CheckpointStore store = null;
+        try {
+            if (options.moviePath != null)
+                movie = InputMovie.load(Path.of(options.moviePath));
+            if (options.checkpointDir != null)
+                store = new CheckpointStore(Path.of(options.checkpointDir),
+                        Math.max(0, options.checkpointMaxMb) * 1024L * 1024L);
+        } catch (IOException | RuntimeException e) {
+            Log.error(GENERAL, "Movie/checkpoints indisponíveis (%s); executando sem", e.getMessage());
+            runFrames();
+            return;
+        }
+        if (options.checkpointInterval <= 0) {
+            Log.warn(GENERAL, "checkpoint-interval inválido (%d); usando 1000", options.checkpointInterval);
+            options.checkpointInterval = 1000;
+        }
+        CheckpointRunner runner = new CheckpointRunner(store, options.checkpointInterval);
+        runner.run(context.getEmulator(), CheckpointRunner.romHash(context.getRom()), movie, options.frames,
+                options.dbgBgSample <= 0);
+        if (runner.getEmulatedFrames() == 0)
+            StartupClock.firstFrame("headless"); // fully restored from a checkpoint
+        Log.info(GENERAL, "Checkpoints: retomado do frame %d, %d frames emulados, %d gravados%s",
+                runner.getRestoredFrame(), runner.getEmulatedFrames(), runner.getStoredCheckpoints(),
+                store != null ? String.format(" (store %d arquivos, %.1f MB)", store.getCount(),
+                        store.getTotalBytes() / (1024.0 * 1024.0)) : "");
     }
 
     private void stepInstruction() {
-        long before = context.emulator.getCpu().getTotalCycles();
-        context.emulator.getCpu().stepInstruction();
-        long after = context.emulator.getCpu().getTotalCycles();
+        NesEmulator emu = context.getEmulator();
+        CPU cpu = emu.getCpu();
+        PPU ppu = emu.getPpu();
+        long before = cpu.getTotalCycles();
+        cpu.stepInstruction();
+        long after = cpu.getTotalCycles();
         long cpuSpent = after - before;
         for (long c = 0; c < cpuSpent * 3; c++) {
-            context.emulator.getPpu().clock();
+            ppu.clock();
         }
     }
 
@@ -120,27 +178,28 @@ public class HeadlessLauncher {
     }
 
     private void dumpDebugInfo() {
+        PPU ppu = context.getEmulator().getPpu();
         if (options.pipeLogLimit > 0) {
             Log.info(PPU, "--- PIPELINE LOG ---");
-            Log.info(PPU, "%s", context.emulator.getPpu().consumePipelineLog());
+            Log.info(PPU, "%s", ppu.consumePipelineLog());
         }
         if (options.dbgBgSample > 0) {
-            context.emulator.getPpu().dumpFirstBackgroundSamples(Math.min(options.dbgBgSample, 50));
+            ppu.dumpFirstBackgroundSamples(Math.min(options.dbgBgSample, 50));
         }
         Log.info(PPU, "--- Tile index matrix (hex of first pixel per tile) ---");
-        context.emulator.getPpu().printTileIndexMatrix();
-        context.emulator.getPpu().printBackgroundIndexHistogram();
+        ppu.printTileIndexMatrix();
+        ppu.printBackgroundIndexHistogram();
         if (options.bgColStats) {
-            context.emulator.getPpu().printBackgroundColumnStats();
+            ppu.printBackgroundColumnStats();
         }
         Path out = Path.of("background.ppm");
-        context.emulator.getPpu().dumpBackgroundToPpm(out);
+        ppu.dumpBackgroundToPpm(out);
         Log.info(PPU, "PPM gerado: %s", out.toAbsolutePath());
         if (options.dumpNt) {
-            context.emulator.getPpu().printNameTableTileIds(0);
+            ppu.printNameTableTileIds(0);
         }
         if (options.dumpPattern != null) {
-            context.emulator.getPpu().dumpPatternTile(options.dumpPattern);
+            ppu.dumpPatternTile(options.dumpPattern);
         }
         if (options.dumpPatternsList != null) {
             for (String part : options.dumpPatternsList.split(",")) {
@@ -148,7 +207,7 @@ public class HeadlessLauncher {
                 if (part.isEmpty()) continue;
                 try {
                     int t = Integer.parseInt(part, 16);
-                    context.emulator.getPpu().dumpPatternTile(t);
+                    ppu.dumpPatternTile(t);
                 } catch (NumberFormatException e) {
                     Log.error(PPU, "Tile inválido em lista: %s", part);
                 }
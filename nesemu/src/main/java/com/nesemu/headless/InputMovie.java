@@ -0,0 +1,142 @@
+package com.nesemu.headless;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-frame controller input for headless runs: entry i holds the buttons
+ * applied before frame i (pad 1 in bits 0-7, pad 2 in bits 8-15; bit order =
+ * {@code ControllerButton.bitIndex()}). Frames past the end have no buttons
+ * pressed.
+ * <p>
+ * Text format, one line per frame ('#' comments):
+ *
+ * <pre>
+ * 08          # pad 1 = START
+ * 01 00 *30   # A held for 30 frames (pad 2 idle)
+ * </pre>
+ */
+public final class InputMovie {
+
+    // 64-bit FNV-1a
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int[] frames;
+    private final long[] prefix; // prefix[i] = hash of entries 0..i-1
+
+    private InputMovie(int[] frames) {
+        this.frames = frames;
+        this.prefix = new long[frames.length + 1];
+        long h = FNV_OFFSET;
+        prefix[0] = h;
+        for (int i = 0; i < frames.length; i++) {
+            h = mix(h, frames[i]);
+            prefix[i + 1] = h;
+        }
+    }
+
+    /**
+     * @param packed pad1 | pad2 &lt;&lt; 8 per frame
+     * @return
+     */
+    public static InputMovie of(int... packed) {
+        int[] f = packed.clone();
+        for (int i = 0; i < f.length; i++)
+            f[i] &= 0xFFFF;
+        return new InputMovie(f);
+    }
+
+    /** Movie with no input (every frame idle). */
+    public static InputMovie empty() {
+        return new InputMovie(new int[0]);
+    }
+
+    /**
+     * Parse a movie file (see class doc).
+     *
+     * @param path
+     * @return
+     * @throws IOException on unreadable file or malformed line
+     */
+    public static InputMovie load(Path path) throws IOException {
+        List<String> lines = Files.readAllLines(path);
+        int[] out = new int[Math.max(16, lines.size())];
+        int n = 0;
+        int lineNo = 0;
+        for (String raw : lines) {
+            lineNo++;
+            int hash = raw.indexOf('#');
+            String line = (hash >= 0 ? raw.substring(0, hash) : raw).trim();
+            if (line.isEmpty())
+                continue;
+            String[] t = line.split("\\s+");
+            try {
+                int repeat = 1;
+                int fields = t.length;
+                if (t[fields - 1].startsWith("*")) {
+                    repeat = Integer.parseInt(t[fields - 1].substring(1));
+                    fields--;
+                }
+                if (fields < 1 || fields > 2 || repeat < 0)
+                    throw new NumberFormatException(line);
+                int v = Integer.parseInt(t[0], 16) & 0xFF;
+                if (fields == 2)
+                    v |= (Integer.parseInt(t[1], 16) & 0xFF) << 8;
+                if (n + repeat > out.length)
+                    out = Arrays.copyOf(out, Math.max(out.length * 2, n + repeat));
+                Arrays.fill(out, n, n + repeat, v);
+                n += repeat;
+            } catch (NumberFormatException e) {
+                throw new IOException("Linha inválida no movie " + path + ":" + lineNo + ": " + raw, e);
+            }
+        }
+        return new InputMovie(Arrays.copyOf(out, n));
+    }
+
+    /** Number of recorded frames. */
+    public int length() {
+        return frames.length;
+    }
+
+    /**
+     * @param frame
+     * @return packed buttons before {@code frame} (0 past the end)
+     */
+    public int get(int frame) {
+        return (frame >= 0 && frame < frames.length) ? frames[frame] : 0;
+    }
+
+    public int pad1(int frame) {
+        return get(frame) & 0xFF;
+    }
+
+    public int pad2(int frame) {
+        return get(frame) >>> 8;
+    }
+
+    /**
+     * Hash of the input applied during the first {@code count} frames. Equal
+     * prefixes hash equally regardless of what follows (idle frames past the end
+     * included), so movies that share a prefix share its checkpoints.
+     *
+     * @param count
+     * @return
+     */
+    public long prefixHash(int count) {
+        if (count <= frames.length)
+            return prefix[Math.max(0, count)];
+        long h = prefix[frames.length];
+        for (int i = frames.length; i < count; i++)
+            h = mix(h, 0);
+        return h;
+    }
+
+    private static long mix(long h, int v) {
+        h = (h ^ (v & 0xFF)) * FNV_PRIME;
+        return (h ^ ((v >>> 8) & 0xFF)) * FNV_PRIME;
+    }
+}
@@ -3,47 +3,57 @@ package com.nesemu.input;
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.system.MemoryUtil.*;
 
-import java.util.EnumMap;
-import java.util.Map;
-
 import org.lwjgl.glfw.GLFWGamepadState;
 
 import com.nesemu.io.NesController;
 
 /**
- * Minimal GLFW-based gamepad poller using LWJGL 3.
+ * Minimal GLFW-based gamepad input using LWJGL 3.
  * - Creates a hidden GLFW window (required to init GLFW on some platforms).
- * - Polls the first present gamepad and maps common buttons/axes to NES buttons.
+ * - Polled on the emulation thread just before the first controller strobe of
+ * each frame (see {@link NesController#setStrobePoll(Runnable)}), so the game
+ * reads state at most one strobe old instead of one sleep interval old.
+ * - First present gamepad drives pad 1, second drives pad 2.
  * - Intended as an optional helper; caller controls lifecycle via start/stop.
  */
-public class GamepadPoller implements Runnable {
+public class GamepadPoller {
 
     // GLFW state
-    private final NesController controller;
-    private final Thread thread;
-    private volatile boolean running = false;
+    private final NesController[] controllers;
+    private boolean running = false;
     private long window = NULL;
     private boolean glfwInitialized = false;
 
-    // Simple mapping state
-    private final Map<ControllerButton, Boolean> lastState = new EnumMap<>(ControllerButton.class);
+    // Preallocated per pad (no allocation per poll) + last mask sent
+    private final GLFWGamepadState[] states;
+    private final int[] lastMask;
+    private long polls = 0;
 
-    // Helpers to convert axis value to button state    
+    // Helpers to convert axis value to button state
     private int axisPos(float v) { return v > 0.5f ? 1 : 0; }
     private int axisNeg(float v) { return v < -0.5f ? 1 : 0; }
 
     /**
-     * Create a new poller for given controller.
+     * Create a new poller for the two controllers.
+     * @param pad1
+     * @param pad2 may be null (single pad)
+     */
+    public GamepadPoller(NesController pad1, NesController pad2) {
+        this.controllers = (pad2 != null) ? new NesController[] { pad1, pad2 } : new NesController[] { pad1 };
+        this.states = new GLFWGamepadState[controllers.length];
+        this.lastMask = new int[controllers.length];
+    }
+
+    /**
+     * Create a new poller for pad 1 only.
      * @param controller
      */
     public GamepadPoller(NesController controller) {
-        this.controller = controller;
-        this.thread = new Thread(this, "NES-Gamepad");
-        this.thread.setDaemon(true);
+        this(controller, null);
     }
 
     /**
-     * Start polling thread (no-op if already running).
+     * Init GLFW and hook polling into pad 1's strobe (no-op if already running).
      */
     public synchronized void start() {
         if (running) return;
@@ -58,70 +68,99 @@ public class GamepadPoller implements Runnable {
         if (window == NULL) {
             System.err.println("Failed to create hidden GLFW window");
             if (glfwInitialized) glfwTerminate();
+            glfwInitialized = false;
             return;
         }
+        for (int i = 0; i < states.length; i++)
+            states[i] = GLFWGamepadState.create();
         running = true;
-        thread.start();
+        // Both pads are strobed by the same $4016 write: one hook serves both
+        controllers[0].setStrobePoll(this::poll);
     }
 
     /**
-     * Stop polling thread (no-op if not running).
+     * Unhook and release GLFW (no-op if not running).
      */
     public synchronized void stop() {
+        if (controllers[0] != null)
+            controllers[0].setStrobePoll(null);
         running = false;
-        try { thread.join(200); } catch (InterruptedException ignore) {}
-    if (window != NULL) {
+        for (int i = 0; i < controllers.length; i++)
+            release(i);
+        if (window != NULL) {
             glfwDestroyWindow(window);
             window = NULL;
         }
-    if (glfwInitialized) glfwTerminate();
-    glfwInitialized = false;
+        if (glfwInitialized) glfwTerminate();
+        glfwInitialized = false;
     }
 
-    @Override
-    public void run() {
-        while (running) {
+    /**
+     * Read the gamepads and push changed button masks to the controllers.
+     * Called on the emulation thread; synchronized with stop().
+     */
+    public synchronized void poll() {
+        if (!running) return;
+        polls++;
         // Let GLFW process events (required on some platforms)
         glfwPollEvents();
 
-        // Pick first present joystick/gamepad
-            int jid = -1;
-            for (int i = GLFW_JOYSTICK_1; i <= GLFW_JOYSTICK_LAST; i++) {
-                if (glfwJoystickIsGamepad(i)) { jid = i; break; }
-            }
-            if (jid != -1) {
-                GLFWGamepadState state = GLFWGamepadState.create();
-                if (glfwGetGamepadState(jid, state)) {
-                    // Map buttons
-            setButton(ControllerButton.A, state.buttons(GLFW_GAMEPAD_BUTTON_A));
-            setButton(ControllerButton.B, state.buttons(GLFW_GAMEPAD_BUTTON_X));
-                    setButton(ControllerButton.START, state.buttons(GLFW_GAMEPAD_BUTTON_START));
-                    setButton(ControllerButton.SELECT, state.buttons(GLFW_GAMEPAD_BUTTON_BACK));
-                    // D-pad (prefer dpad; fallback to left stick if needed)
-                    setButton(ControllerButton.UP,   state.buttons(GLFW_GAMEPAD_BUTTON_DPAD_UP)   |
-                                                     axisNeg(state.axes(GLFW_GAMEPAD_AXIS_LEFT_Y)));
-                    setButton(ControllerButton.DOWN, state.buttons(GLFW_GAMEPAD_BUTTON_DPAD_DOWN) |
-                                                     axisPos(state.axes(GLFW_GAMEPAD_AXIS_LEFT_Y)));
-                    setButton(ControllerButton.LEFT, state.buttons(GLFW_GAMEPAD_BUTTON_DPAD_LEFT) |
-                                                     axisNeg(state.axes(GLFW_GAMEPAD_AXIS_LEFT_X)));
-                    setButton(ControllerButton.RIGHT,state.buttons(GLFW_GAMEPAD_BUTTON_DPAD_RIGHT)|
-                                                     axisPos(state.axes(GLFW_GAMEPAD_AXIS_LEFT_X)));
-                }
-            }
-            try { Thread.sleep(8); } catch (InterruptedException ignore) {}
+        // Assign present gamepads to pads in joystick order
+        int pad = 0;
+        for (int jid = GLFW_JOYSTICK_1; jid <= GLFW_JOYSTICK_LAST && pad < controllers.length; jid++) {
+            if (!glfwJoystickIsGamepad(jid)) continue;
+            GLFWGamepadState state = states[pad];
+            if (glfwGetGamepadState(jid, state))
+                send(pad, maskOf(state));
+            pad++;
         }
+        // Gamepad unplugged: release its buttons
+        for (; pad < controllers.length; pad++)
+            release(pad);
+    }
+
+    /** Number of polls done (one per emulated frame that strobes). */
+    public long getPollCount() {
+        return polls;
+    }
+
+    private int maskOf(GLFWGamepadState state) {
+        int mask = 0;
+        mask |= bit(ControllerButton.A, state.buttons(GLFW_GAMEPAD_BUTTON_A));
+        mask |= bit(ControllerButton.B, state.buttons(GLFW_GAMEPAD_BUTTON_X));
+        mask |= bit(ControllerButton.START, state.buttons(GLFW_GAMEPAD_BUTTON_START));
+        mask |= bit(ControllerButton.SELECT, state.buttons(GLFW_GAMEPAD_BUTTON_BACK));
+        // D-pad (prefer dpad; fallback to left stick if needed)
+        mask |= bit(ControllerButton.UP,    state.buttons(GLFW_GAMEPAD_BUTTON_DPAD_UP)    |
+                                            axisNeg(state.axes(GLFW_GAMEPAD_AXIS_LEFT_Y)));
+        mask |= bit(ControllerButton.DOWN,  state.buttons(GLFW_GAMEPAD_BUTTON_DPAD_DOWN)  |
+                                            axisPos(state.axes(GLFW_GAMEPAD_AXIS_LEFT_Y)));
+        mask |= bit(ControllerButton.LEFT,  state.buttons(GLFW_GAMEPAD_BUTTON_DPAD_LEFT)  |
+                                            axisNeg(state.axes(GLFW_GAMEPAD_AXIS_LEFT_X)));
+        mask |= bit(ControllerButton.RIGHT, state.buttons(GLFW_GAMEPAD_BUTTON_DPAD_RIGHT) |
+                                            axisPos(state.axes(GLFW_GAMEPAD_AXIS_LEFT_X)));
+        return mask;
+    }
+
+    // The controller only sees changes (it timestamps press edges)
+    private void send(int pad, int mask) {
+        if (mask != lastMask[pad] && controllers[pad] != null) {
+            controllers[pad].setGamepadButtons(mask);
+            lastMask[pad] = mask;
+        }
+    }
+
+    private void release(int pad) {
+        send(pad, 0);
     }
 
     /**
-     * Convert axis value to "positive" button state (1 if > 0.5, else 0).
+     * Button bit when the GLFW value is non-zero.
      * @param btn
      * @param downInt
+     * @return
      */
-    private void setButton(ControllerButton btn, int downInt) {
-        boolean down = downInt != 0;
-        Boolean prev = lastState.put(btn, down);
-        if (prev == null || prev.booleanValue() != down) {
-            controller.setLogical(btn, down);
-        }
+    private static int bit(ControllerButton btn, int downInt) {
+        return downInt != 0 ? 1 << btn.bitIndex() : 0;
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.nesemu.io;
 
 import com.nesemu.input.ControllerButton;
+import java.nio.ByteBuffer;
 
 /**
  * Interface representing a controller for the NES emulator.
@@ -35,6 +36,16 @@ public interface Controller {
      */
     void setLogical(ControllerButton btn, boolean down);
 
+    /**
+     * Programmatic set of all eight logical buttons at once.
+     *
+     * @param mask bit i = {@link ControllerButton#bitIndex()}
+     */
+    default void setLogicalButtons(int mask) {
+        for (ControllerButton b : ControllerButton.values())
+            setLogical(b, ((mask >> b.bitIndex()) & 1) != 0);
+    }
+
     /**
      * Returns true if logical button currently active (live state, not latched).
      */
@@ -74,4 +85,33 @@ public interface Controller {
      */
     default void onFrameAdvance() {
     }
+
+    /**
+     * Write the console-visible serial port state (shift register, strobe,
+     * turbo phase) for save states. Live button input is not included: it
+     * belongs to the host / replay script. Default: stateless.
+     *
+     * @param buf
+     */
+    default void writeState(ByteBuffer buf) {
+    }
+
+    /**
+     * Exact number of bytes {@link #writeState(ByteBuffer)} produces.
+     *
+     * @return
+     */
+    default int stateSize() {
+        return 0;
+    }
+
+    /**
+     * Counterpart to {@link #writeState(ByteBuffer)}; must not read past
+     * {@code length}.
+     *
+     * @param buf
+     * @param length stored section size
+     */
+    default void readState(ByteBuffer buf, int length) {
+    }
 }
@@ -1,9 +1,12 @@
 package com.nesemu.io;
 
-import java.util.EnumMap;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 import com.nesemu.input.ControllerButton;
 import com.nesemu.input.ControllerConfig;
 
@@ -17,29 +20,61 @@ import com.nesemu.input.ControllerConfig;
  */
 public class NesController implements Controller {
 
-    // Configuration mapping buttons to key tokens
-    private final ControllerConfig config;
+    // Live state packed in one int so latching is a single volatile read:
+    // bits 0-7 buttons held by an input device (keys/gamepad), bits 8-9 A/B held
+    // through a turbo key, bits 16-23 logical override mask, bits 24-31 override
+    // values. Bit order within each byte is ControllerButton.bitIndex().
+    private static final int TURBO_SHIFT = 8;
+    private static final int TURBO_BITS = 0x3 << TURBO_SHIFT; // A/B only
+    private static final int OVERRIDE_SHIFT = 16;
+    private static final int VALUE_SHIFT = 24;
+    private final AtomicInteger state = new AtomicInteger();
+
+    // Key tokens resolved once from the config: token -> held bits | turbo bits << 8
+    private final Map<String, Integer> tokenBits = new HashMap<>();
+    // Input edge bookkeeping (guarded by this): tokens down and per-bit hold counts,
+    // so releasing one of two keys mapped to a button keeps it held
+    private final Set<String> tokensDown = new HashSet<>();
+    private final int[] holdCount = new int[TURBO_SHIFT + 2];
+    private int gamepadBits = 0;
 
-    // Live key token pressed state
-    private final Set<String> pressed = ConcurrentHashMap.newKeySet();
     private boolean strobe = false; // current strobe line (bit0 of last write)
     private int readBitIndex = 0; // 0..8 (#bits already returned in current snapshot)
     private int latchedValue = 0; // snapshot of buttons (A..Right bits 0..7)
 
-    // Direct logical button overrides (for programmatic tests)
-    private final Map<ControllerButton, Boolean> logicalState = new EnumMap<>(ControllerButton.class);
-
     // Turbo support
     private boolean turboFast = false; // false=15Hz (ON2/OFF2), true=30Hz (ON1/OFF1)
     private long frameCounter = 0; // increments each frame
 
+    // Input source polled once per frame on the first strobe (e.g. gamepads),
+    // so device state is as fresh as possible when the game reads it
+    private volatile Runnable strobePoll;
+    private boolean polledThisFrame = false;
+
+    // Input latency: press edge timestamp per button (System.nanoTime) and the
+    // delay until the game first latched it
+    private final AtomicLongArray pressNanos = new AtomicLongArray(8);
+    private volatile long lastLatencyNanos = -1;
+    private long maxLatencyNanos = 0;
+    private long latencySamples = 0;
+
     /**
-     * Constructor for NesController.
+     * Constructor for NesController. Key tokens are resolved to button bits
+     * here; later changes to {@code config} are not seen.
      * 
      * @param config
      */
     public NesController(ControllerConfig config) {
-        this.config = config;
+        if (config != null) {
+            for (ControllerButton b : ControllerButton.values()) {
+                int bit = 1 << b.bitIndex();
+                for (String tok : config.getTokens(b))
+                    tokenBits.merge(tok, bit, (x, y) -> x | y);
+                if (b == ControllerButton.A || b == ControllerButton.B)
+                    for (String tok : config.getTurboTokens(b))
+                        tokenBits.merge(tok, bit << TURBO_SHIFT, (x, y) -> x | y);
+            }
+        }
     }
 
     @Override
@@ -47,19 +82,79 @@ public class NesController implements Controller {
         if (token == null)
             return;
         token = token.toLowerCase();
-        if (down)
-            pressed.add(token);
-        else
-            pressed.remove(token);
-        if (strobe)
-            latch();
+        Integer bits = tokenBits.get(token);
+        if (bits == null)
+            return; // not mapped to this pad
+        synchronized (this) {
+            if (down ? !tokensDown.add(token) : !tokensDown.remove(token))
+                return; // key repeat / unmatched release
+            adjustHold(bits, down ? 1 : -1);
+            publishHeld();
+        }
+    }
+
+    /**
+     * Buttons held on a gamepad (bit i = {@link ControllerButton#bitIndex()}),
+     * combined with keyboard input. Called by the gamepad poller on change.
+     *
+     * @param mask
+     */
+    public synchronized void setGamepadButtons(int mask) {
+        mask &= 0xFF;
+        if (mask == gamepadBits)
+            return;
+        adjustHold(gamepadBits, -1);
+        adjustHold(mask, 1);
+        gamepadBits = mask;
+        publishHeld();
+    }
+
+    private void adjustHold(int bits, int delta) {
+        for (int i = 0; i < holdCount.length; i++)
+            if ((bits & (1 << i)) != 0)
+                holdCount[i] += delta;
+    }
+
+    private void publishHeld() {
+        int held = 0;
+        for (int i = 0; i < holdCount.length; i++)
+            if (holdCount[i] > 0)
+                held |= 1 << i;
+        final int h = held;
+        int prev = state.getAndUpdate(s -> (s & ~0xFFFF) | h);
+        int pressedNow = (h | (h >> TURBO_SHIFT)) & ~(prev | (prev >> TURBO_SHIFT)) & 0xFF;
+        if (pressedNow != 0) {
+            long now = System.nanoTime();
+            for (int i = 0; i < 8; i++)
+                if ((pressedNow & (1 << i)) != 0)
+                    pressNanos.set(i, now);
+        }
     }
 
     @Override
     public void setLogical(ControllerButton btn, boolean down) {
-        logicalState.put(btn, down);
-        if (strobe)
-            latch();
+        int bit = 1 << btn.bitIndex();
+        state.updateAndGet(s -> {
+            s |= bit << OVERRIDE_SHIFT;
+            return down ? s | (bit << VALUE_SHIFT) : s & ~(bit << VALUE_SHIFT);
+        });
+    }
+
+    /**
+     * Override all eight buttons at once (programmatic input, e.g. training
+     * code); keys and gamepad are ignored until {@link #clearLogical()}.
+     *
+     * @param mask bit i = {@link ControllerButton#bitIndex()}
+     */
+    @Override
+    public void setLogicalButtons(int mask) {
+        int m = mask & 0xFF;
+        state.updateAndGet(s -> (s & 0xFFFF) | (0xFF << OVERRIDE_SHIFT) | (m << VALUE_SHIFT));
+    }
+
+    /** Drop every logical override (back to key/gamepad state). */
+    public void clearLogical() {
+        state.updateAndGet(s -> s & 0xFFFF);
     }
 
     @Override
@@ -68,6 +163,11 @@ public class NesController implements Controller {
         if (newStrobe) {
             // Strobe high: keep re-latching continuously; reads should always return A bit.
             if (!strobe) {
+                Runnable poll = strobePoll;
+                if (poll != null && !polledThisFrame) {
+                    polledThisFrame = true;
+                    poll.run();
+                }
                 // rising edge resets index
                 readBitIndex = 0;
             }
@@ -103,7 +203,7 @@ public class NesController implements Controller {
 
     @Override
     public boolean isPressed(ControllerButton b) {
-        return isButtonActive(b);
+        return (getButtons() & (1 << b.bitIndex())) != 0;
     }
 
     @Override
@@ -140,48 +240,83 @@ public class NesController implements Controller {
     }
 
     /**
-     * Clear any logical override (back to token/key state).
+     * Resolve a packed state word into button bits (A..Right = bits 0..7).
+     * Overrides win; turbo keys replace A/B with the turbo cadence.
      */
-    private boolean isButtonActive(ControllerButton btn) {
-        // If logical override present, use it (overrides turbo too)
-        Boolean ov = logicalState.get(btn);
-        if (ov != null)
-            return ov.booleanValue();
-        // Turbo applies only to A/B when at least one turbo token is pressed
-        if ((btn == ControllerButton.A || btn == ControllerButton.B) && hasTurboTokenPressed(btn)) {
-            return computeTurboOn();
-        }
-        // Normal tokens
-        for (String token : config.getTokens(btn)) {
-            if (pressed.contains(token))
-                return true;
-        }
-        return false;
+    private int buttonsOf(int s) {
+        int v = s & 0xFF;
+        int turbo = (s & TURBO_BITS) >> TURBO_SHIFT;
+        if (turbo != 0)
+            v = computeTurboOn() ? (v | turbo) : (v & ~turbo);
+        int ov = (s >>> OVERRIDE_SHIFT) & 0xFF;
+        return (v & ~ov) | ((s >>> VALUE_SHIFT) & ov);
     }
 
     /**
      * Latch current button states into latchedValue.
      */
     private void latch() {
-        int v = 0;
-        for (ControllerButton b : ControllerButton.values()) {
-            if (isButtonActive(b))
-                v |= (1 << b.bitIndex());
-        }
+        int v = buttonsOf(state.get());
+        int fresh = v & ~latchedValue;
         latchedValue = v;
+        if (fresh != 0)
+            recordLatency(fresh);
+    }
+
+    // First latch of a pressed button: time since its input edge
+    private void recordLatency(int fresh) {
+        long now = 0;
+        for (int i = 0; i < 8; i++) {
+            if ((fresh & (1 << i)) == 0)
+                continue;
+            long t = pressNanos.getAndSet(i, 0);
+            if (t == 0)
+                continue; // programmatic/turbo re-press: no input edge
+            if (now == 0)
+                now = System.nanoTime();
+            long d = now - t;
+            lastLatencyNanos = d;
+            if (d > maxLatencyNanos)
+                maxLatencyNanos = d;
+            latencySamples++;
+        }
     }
 
     /**
-     * Check if any turbo token is currently pressed for the given button.
-     * @param btn
+     * Delay between the last button press edge (key/gamepad) and the game
+     * latching it through $4016, in nanoseconds; -1 before the first sample.
+     *
      * @return
      */
-    private boolean hasTurboTokenPressed(ControllerButton btn) {
-        for (String tok : config.getTurboTokens(btn)) {
-            if (pressed.contains(tok))
-                return true;
-        }
-        return false;
+    public long getLastInputLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    public long getMaxInputLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    public long getInputLatencySamples() {
+        return latencySamples;
+    }
+
+    /**
+     * Input source run on the emulation thread just before the first strobe of
+     * each frame (null = none).
+     *
+     * @param poll
+     */
+    public void setStrobePoll(Runnable poll) {
+        this.strobePoll = poll;
+    }
+
+    /**
+     * Live buttons (not latched), bit i = {@link ControllerButton#bitIndex()}.
+     *
+     * @return
+     */
+    public int getButtons() {
+        return buttonsOf(state.get());
     }
 
     /**
@@ -207,9 +342,36 @@ public class NesController implements Controller {
         this.turboFast = fast;
     }
 
+    // strobe, read index, latched bits, frame counter (turbo phase)
+    private static final int STATE_BYTES = 11;
+
+    @Override
+    public void writeState(ByteBuffer buf) {
+        buf.put((byte) (strobe ? 1 : 0));
+        buf.put((byte) readBitIndex);
+        buf.put((byte) latchedValue);
+        buf.putLong(frameCounter);
+    }
+
+    @Override
+    public int stateSize() {
+        return STATE_BYTES;
+    }
+
+    @Override
+    public void readState(ByteBuffer buf, int length) {
+        if (length < STATE_BYTES)
+            return;
+        strobe = buf.get() != 0;
+        readBitIndex = Math.min(buf.get() & 0xFF, 8);
+        latchedValue = buf.get() & 0xFF;
+        frameCounter = buf.getLong();
+    }
+
     @Override
     public void onFrameAdvance() {
         frameCounter++;
+        polledThisFrame = false;
     }
 
     /**
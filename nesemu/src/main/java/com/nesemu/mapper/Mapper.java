@@ -1,5 +1,7 @@
 package com.nesemu.mapper;
 
+import java.nio.ByteBuffer;
+
 /**
  * Interface for the NES memory mapper.
  * This interface defines methods for reading and writing to the CPU and PPU
@@ -17,7 +19,40 @@ public abstract class Mapper {
     byte[] chrRam;
     byte[] prgRam;
     byte[] exRam = new byte[1024];
-    
+
+    // Bank pointer tables: CPU $8000-$FFFF as 8 x 4KB slots and PPU $0000-$1FFF as
+    // 8 x 1KB slots, each an (array, base offset) pair. Mappers rebuild them only
+    // when a bank register changes, so reads need no division/modulo. Slots that
+    // fall outside the backing array point at an open-bus page.
+    static final int PRG_SLOT_SHIFT = 12;
+    static final int PRG_SLOT_SIZE = 1 << PRG_SLOT_SHIFT;
+    static final int CHR_SLOT_SHIFT = 10;
+    static final int CHR_SLOT_SIZE = 1 << CHR_SLOT_SHIFT;
+    private static final byte[] ZERO_PRG_PAGE = new byte[PRG_SLOT_SIZE];
+    private static final byte[] ZERO_CHR_PAGE = new byte[CHR_SLOT_SIZE];
+
+    final byte[][] prgSlots = new byte[8][];
+    final int[] prgSlotBase = new int[8];
+    final byte[][] chrSlots = new byte[8][];
+    final int[] chrSlotBase = new int[8];
+    final boolean[] chrSlotWritable = new boolean[8];
+    // Page served for unmapped PRG slots (read-only; MMC5 uses $FF)
+    byte[] prgOpenBusPage = ZERO_PRG_PAGE;
+
+    // Nametable page table: logical tables $2000/$2400/$2800/$2C00 -> 1KB page
+    // (CIRAM, or mapper storage such as MMC5 ExRAM/fill). Rebuilt only when
+    // mirroring changes.
+    byte[] ntCiram;
+    final byte[][] ntPages = new byte[4][];
+    final int[] ntPageBase = new int[4];
+    final boolean[] ntPageWritable = new boolean[4];
+
+    {
+        java.util.Arrays.fill(prgSlots, ZERO_PRG_PAGE);
+        java.util.Arrays.fill(chrSlots, ZERO_CHR_PAGE);
+        java.util.Arrays.fill(ntPages, ZERO_CHR_PAGE);
+    }
+
     // Callback to signal IRQ to the CPU
     protected Runnable irqCallback;
 
@@ -113,10 +148,16 @@ public abstract class Mapper {
      * counters, etc.).
      * Return a byte array containing ONLY mapper-specific data (do NOT include PRG
      * ROM).
-     * Default: no state (null) meaning mapper is stateless.
+     * Default: derived from {@link #writeState(ByteBuffer)}; null when the mapper
+     * is stateless.
      */
     public byte[] saveState() {
-        return null;
+        int size = stateSize();
+        if (size <= 0)
+            return null;
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        writeState(buf);
+        return buf.array();
     }
 
     /**
@@ -125,47 +166,100 @@ public abstract class Mapper {
      * Implementations must tolerate unknown / null data (ignore gracefully).
      */
     public void loadState(byte[] data) {
+        if (data != null)
+            readState(ByteBuffer.wrap(data), data.length);
     }
 
     /**
-     * Reads a byte from the logical nametable space ($2000-$2FFF) applying the
-     * mapper's mirroring rules. Mappers that provide their own nametable storage
-     * (e.g. MMC5 ExRAM) should override this method.
+     * Exact number of bytes {@link #writeState(ByteBuffer)} produces (0 =
+     * stateless). Used to size snapshot buffers up front.
+     */
+    public int stateSize() {
+        return 0;
+    }
+
+    /**
+     * Write mapper state into a caller-owned buffer without allocating (used by
+     * in-memory snapshots, e.g. run-ahead).
+     */
+    public void writeState(ByteBuffer buf) {
+    }
+
+    /**
+     * Read mapper state previously produced by {@link #writeState(ByteBuffer)}.
+     * {@code length} is the stored section size; implementations must not read
+     * past it and should ignore data they do not recognize.
+     */
+    public void readState(ByteBuffer buf, int length) {
+    }
+
+    /**
+     * Reads a byte from the logical nametable space ($2000-$2FFF) through the
+     * nametable page table. Mappers that need side effects on fetches (e.g. MMC5
+     * ExRAM attribute latch) override this and call super.
      */
     public int ppuReadNametable(int address, byte[] ciram) {
-        int nt = (address - 0x2000) & 0x0FFF;
-        int index = nt & 0x03FF;
-        int table = (nt >> 10) & 0x03;
-        MirrorType mt = getMirrorType();
-        int physical = switch (mt) {
-            case VERTICAL -> table & 0x01; // 0,1,0,1
-            case HORIZONTAL -> (table >> 1); // 0,0,1,1
-            case SINGLE0 -> 0;
-            case SINGLE1 -> 1;
-            default -> table & 0x01;
-        };
-        int offset = (physical * 0x0400) + index;
-        return ciram[offset & 0x07FF] & 0xFF;
+        if (ciram != ntCiram)
+            attachNametableRam(ciram);
+        int t = (address >> 10) & 0x03;
+        return ntPages[t][ntPageBase[t] + (address & 0x03FF)] & 0xFF;
     }
 
     /**
-     * Writes a byte to logical nametable space applying mirroring rules. Override
-     * to direct writes to mapper-specific storage.
+     * Writes a byte to logical nametable space through the nametable page table;
+     * ignored for read-only pages (e.g. MMC5 fill mode).
      */
     public void ppuWriteNametable(int address, int value, byte[] ciram) {
-        int nt = (address - 0x2000) & 0x0FFF;
-        int index = nt & 0x03FF;
-        int table = (nt >> 10) & 0x03;
+        if (ciram != ntCiram)
+            attachNametableRam(ciram);
+        int t = (address >> 10) & 0x03;
+        if (ntPageWritable[t])
+            ntPages[t][ntPageBase[t] + (address & 0x03FF)] = (byte) value;
+    }
+
+    /**
+     * Binds the console's 2KB CIRAM (owned by the PPU) and builds the nametable page
+     * table from the current mirroring.
+     *
+     * @param ciram
+     */
+    public void attachNametableRam(byte[] ciram) {
+        this.ntCiram = ciram;
+        updateNametablePages();
+    }
+
+    /**
+     * Rebuilds the 4-entry nametable page table. Mappers call this whenever their
+     * mirroring control changes; the default maps CIRAM pages from
+     * {@link #getMirrorType()}.
+     */
+    protected void updateNametablePages() {
+        if (ntCiram == null)
+            return;
         MirrorType mt = getMirrorType();
-        int physical = switch (mt) {
-            case VERTICAL -> table & 0x01;
-            case HORIZONTAL -> (table >> 1);
-            case SINGLE0 -> 0;
-            case SINGLE1 -> 1;
-            default -> table & 0x01;
-        };
-        int offset = (physical * 0x0400) + index;
-        ciram[offset & 0x07FF] = (byte) (value & 0xFF);
+        for (int t = 0; t < 4; t++) {
+            int physical = switch (mt) {
+                case VERTICAL -> t & 0x01; // 0,1,0,1
+                case HORIZONTAL -> (t >> 1); // 0,0,1,1
+                case SINGLE0 -> 0;
+                case SINGLE1 -> 1;
+            };
+            mapNametable(t, ntCiram, physical * 0x0400, true);
+        }
+    }
+
+    /**
+     * Points logical nametable {@code table} (0..3) at a 1KB page of {@code src}.
+     *
+     * @param table
+     * @param src
+     * @param base
+     * @param writable
+     */
+    final void mapNametable(int table, byte[] src, int base, boolean writable) {
+        ntPages[table] = src;
+        ntPageBase[table] = base;
+        ntPageWritable[table] = writable;
     }
 
     /**
@@ -209,4 +303,123 @@ public abstract class Mapper {
      */
     public void onScanline(int scanline) {
     }
-}
\ No newline at end of file
+
+    /**
+     * Points {@code count} consecutive 4KB PRG slots, starting at {@code slot}
+     * (0 = $8000), at {@code src} beginning at byte offset {@code base}. Slots not
+     * fully inside {@code src} read as open bus.
+     *
+     * @param slot
+     * @param count
+     * @param src
+     * @param base
+     */
+    final void mapPrg(int slot, int count, byte[] src, int base) {
+        for (int i = 0; i < count; i++) {
+            int off = base + (i << PRG_SLOT_SHIFT);
+            if (src != null && off >= 0 && off + PRG_SLOT_SIZE <= src.length) {
+                prgSlots[slot + i] = src;
+                prgSlotBase[slot + i] = off;
+            } else {
+                prgSlots[slot + i] = prgOpenBusPage;
+                prgSlotBase[slot + i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Points {@code count} consecutive 1KB CHR slots, starting at {@code slot}, at
+     * {@code src} beginning at byte offset {@code base}. Slots not fully inside
+     * {@code src} read as 0 and ignore writes.
+     *
+     * @param slot
+     * @param count
+     * @param src
+     * @param base
+     * @param writable true for CHR RAM mapped through {@link #writeChr(int, int)}
+     */
+    final void mapChr(int slot, int count, byte[] src, int base, boolean writable) {
+        for (int i = 0; i < count; i++) {
+            int off = base + (i << CHR_SLOT_SHIFT);
+            if (src != null && off >= 0 && off + CHR_SLOT_SIZE <= src.length) {
+                chrSlots[slot + i] = src;
+                chrSlotBase[slot + i] = off;
+                chrSlotWritable[slot + i] = writable;
+            } else {
+                chrSlots[slot + i] = ZERO_CHR_PAGE;
+                chrSlotBase[slot + i] = 0;
+                chrSlotWritable[slot + i] = false;
+            }
+        }
+    }
+
+    /**
+     * Copies the CPU view of $8000-$FFFF (current banks) into {@code dst}
+     * (32KB at {@code off}). No side effects; used by debug snapshots.
+     *
+     * @param dst
+     * @param off
+     */
+    public final void copyPrgWindow(byte[] dst, int off) {
+        for (int s = 0; s < 8; s++)
+            System.arraycopy(prgSlots[s], prgSlotBase[s], dst, off + (s << PRG_SLOT_SHIFT), PRG_SLOT_SIZE);
+    }
+
+    /**
+     * Copies the PPU view of $0000-$1FFF (current CHR banks) into {@code dst}
+     * (8KB at {@code off}). No side effects.
+     *
+     * @param dst
+     * @param off
+     */
+    public final void copyChrWindow(byte[] dst, int off) {
+        for (int s = 0; s < 8; s++)
+            System.arraycopy(chrSlots[s], chrSlotBase[s], dst, off + (s << CHR_SLOT_SHIFT), CHR_SLOT_SIZE);
+    }
+
+    /**
+     * Copies the four logical nametables ($2000-$2FFF, mirroring applied) into
+     * {@code dst} (4KB at {@code off}). No side effects.
+     *
+     * @param dst
+     * @param off
+     */
+    public final void copyNametables(byte[] dst, int off) {
+        for (int t = 0; t < 4; t++)
+            System.arraycopy(ntPages[t], ntPageBase[t], dst, off + (t << 10), 0x400);
+    }
+
+    /**
+     * PRG read through the slot table ($8000-$FFFF).
+     *
+     * @param address
+     * @return
+     */
+    final int readPrg(int address) {
+        int s = (address >> PRG_SLOT_SHIFT) & 0x07;
+        return prgSlots[s][prgSlotBase[s] + (address & (PRG_SLOT_SIZE - 1))] & 0xFF;
+    }
+
+    /**
+     * CHR read through the slot table ($0000-$1FFF).
+     *
+     * @param address
+     * @return
+     */
+    final int readChr(int address) {
+        int s = (address >> CHR_SLOT_SHIFT) & 0x07;
+        return chrSlots[s][chrSlotBase[s] + (address & (CHR_SLOT_SIZE - 1))] & 0xFF;
+    }
+
+    /**
+     * CHR write through the slot table; ignored for read-only (ROM) slots.
+     *
+     * @param address
+     * @param value
+     */
+    final void writeChr(int address, int value) {
+        int s = (address >> CHR_SLOT_SHIFT) & 0x07;
+        if (chrSlotWritable[s])
+            chrSlots[s][chrSlotBase[s] + (address & (CHR_SLOT_SIZE - 1))] = (byte) value;
+    }
+}
@@ -1,5 +1,6 @@
 package com.nesemu.mapper;
 
+import java.nio.ByteBuffer;
 import com.nesemu.rom.INesRom;
 import com.nesemu.util.Log;
 import static com.nesemu.util.Log.Cat.*;
@@ -36,6 +37,14 @@ public class Mapper0 extends Mapper {
         this.chrPageCount = rom.getHeader().getChrRomPages();
         this.chrRam = (chr.length == 0) ? new byte[0x2000] : null; // 8KB CHR RAM
         this.headerVertical = rom.getHeader().isVerticalMirroring();
+        // Fixed layout: 16KB mirrored twice or 32KB direct
+        int prgMask = (prgPageCount == 1) ? 0x3FFF : 0x7FFF;
+        for (int s = 0; s < 8; s++)
+            mapPrg(s, 1, prg, (s << PRG_SLOT_SHIFT) & prgMask);
+        if (chr.length > 0)
+            mapChr(0, 8, chr, 0, false);
+        else
+            mapChr(0, 8, chrRam, 0, true);
     }
 
     /**
@@ -53,17 +62,7 @@ public class Mapper0 extends Mapper {
         address &= 0xFFFF;
         if (address < 0x8000)
             return 0; // mapper only handles PRG region
-        int offset = address - 0x8000;
-        if (prgPageCount == 1) {
-            // 16KB mirrored twice
-            offset &= 0x3FFF;
-        } else {
-            // 32KB directly
-            offset &= 0x7FFF;
-        }
-        if (offset >= prg.length)
-            return 0; // safety
-        return prg[offset] & 0xFF;
+        return readPrg(address);
     }
 
     @Override
@@ -75,24 +74,12 @@ public class Mapper0 extends Mapper {
     public int ppuRead(int address) {
         address &= 0x3FFF; // PPU address space
         if (address < 0x2000) {
-            if (chr.length > 0) {
-                if (address < chr.length) {
-                    int val = chr[address] & 0xFF;
-                    if (chrLogEnabled && chrLogCount < chrLogLimit) {
-                        Log.debug(PPU, "[CHR RD] addr=%04X val=%02X", address, val);
-                        chrLogCount++;
-                    }
-                    return val;
-                }
-                return 0;
-            } else {
-                int val = chrRam[address & 0x1FFF] & 0xFF;
-                if (chrLogEnabled && chrLogCount < chrLogLimit) {
-                    Log.debug(PPU, "[CHR RD] addr=%04X val=%02X (RAM)", address, val);
-                    chrLogCount++;
-                }
-                return val;
+            int val = readChr(address);
+            if (chrLogEnabled && chrLogCount < chrLogLimit) {
+                Log.debug(PPU, "[CHR RD] addr=%04X val=%02X%s", address, val, chr.length == 0 ? " (RAM)" : "");
+                chrLogCount++;
             }
+            return val;
         }
         // Nametables / palette not handled here (Bus/PPU will manage). Return 0.
         return 0;
@@ -101,30 +88,28 @@ public class Mapper0 extends Mapper {
     @Override
     public void ppuWrite(int address, int value) {
         address &= 0x3FFF;
-        if (address < 0x2000 && chr.length == 0) {
-            chrRam[address & 0x1FFF] = (byte) (value & 0xFF); // CHR RAM writable
+        if (address < 0x2000) {
+            writeChr(address, value); // only CHR RAM slots are writable
         }
         // Otherwise ignore (CHR ROM read-only).
     }
 
     @Override
-    public byte[] saveState() {
+    public int stateSize() {
         // Only dynamic state is CHR RAM (if present)
-        if (chr.length == 0 && chrRam != null) {
-            byte[] out = new byte[chrRam.length];
-            System.arraycopy(chrRam, 0, out, 0, chrRam.length);
-            return out;
-        }
-        return null; // purely ROM / stateless
+        return (chr.length == 0 && chrRam != null) ? chrRam.length : 0;
     }
 
     @Override
-    public void loadState(byte[] data) {
-        if (data == null)
-            return;
-        if (chr.length == 0 && chrRam != null && data.length == chrRam.length) {
-            System.arraycopy(data, 0, chrRam, 0, chrRam.length);
-        }
+    public void writeState(ByteBuffer buf) {
+        if (chr.length == 0 && chrRam != null)
+            buf.put(chrRam);
+    }
+
+    @Override
+    public void readState(ByteBuffer buf, int length) {
+        if (chr.length == 0 && chrRam != null && length == chrRam.length)
+            buf.get(chrRam);
     }
 
     @Override
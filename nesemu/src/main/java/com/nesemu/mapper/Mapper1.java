@@ -1,5 +1,6 @@
 package com.nesemu.mapper;
 
+import java.nio.ByteBuffer;
 import com.nesemu.rom.INesRom;
 import com.nesemu.util.Log;
 import static com.nesemu.util.Log.Cat.*;
@@ -58,6 +59,33 @@ public class Mapper1 extends Mapper {
         // Allocate PRG RAM unconditionally for now (some non-battery MMC1 carts also
         // have WRAM). Could gate on header if desired.
         this.prgRam = new byte[0x2000];
+        updateBankSlots();
+    }
+
+    /**
+     * Rebuild PRG/CHR slot tables from the control and bank registers.
+     */
+    private void updateBankSlots() {
+        int mode = (regControl >> 2) & 0x03; // PRG mode
+        if (mode <= 1) { // 32KB switch (ignore low bit of regPrgBank), wraps around ROM size
+            int base = ((regPrgBank & 0x0E) >> 1) * 0x8000;
+            for (int s = 0; s < 8; s++)
+                mapPrg(s, 1, prg, (base + (s << PRG_SLOT_SHIFT)) % Math.max(1, prg.length));
+        } else if (mode == 2) { // fix first at $8000, switch at $C000
+            mapPrg(0, 4, prg, 0);
+            mapPrg(4, 4, prg, (regPrgBank & 0x0F) * 0x4000);
+        } else { // mode == 3: switch at $8000, fix last at $C000
+            mapPrg(0, 4, prg, (regPrgBank & 0x0F) * 0x4000);
+            mapPrg(4, 4, prg, (prg16kBanks - 1) * 0x4000);
+        }
+        if (chrRam != null) {
+            mapChr(0, 8, chrRam, 0, true); // CHR RAM is not banked here
+        } else if (((regControl >> 4) & 0x01) == 0) { // 8KB ignore lowest bit of bank0
+            mapChr(0, 8, chr, ((regChrBank0 & 0x1E) >> 1) * 0x2000, false);
+        } else { // two 4KB banks
+            mapChr(0, 4, chr, (regChrBank0 & 0x1F) * 0x1000, false);
+            mapChr(4, 4, chr, (regChrBank1 & 0x1F) * 0x1000, false);
+        }
     }
 
     @Override
@@ -72,43 +100,7 @@ public class Mapper1 extends Mapper {
         }
         if (address < 0x8000)
             return 0; // other lower regions handled by Bus (internal RAM / IO)
-        int mode = (regControl >> 2) & 0x03; // PRG mode
-        if (mode <= 1) { // 32KB switch (ignore low bit of regPrgBank)
-            int bank32 = (regPrgBank & 0x0E) >> 1; // 32KB bank index
-            int base = bank32 * 0x8000;
-            int off = (address - 0x8000) & 0x7FFF;
-            int idx = (base + off) % prg.length;
-            return prg[idx] & 0xFF;
-        } else if (mode == 2) { // fix first at $8000, switch at $C000
-            if (address < 0xC000) { // first 16KB bank (0)
-                int idx = (address - 0x8000) & 0x3FFF;
-                if (idx < prg.length)
-                    return prg[idx] & 0xFF;
-                return 0;
-            } else { // switchable upper
-                int bank = regPrgBank & 0x0F;
-                int base = bank * 0x4000;
-                int idx = base + ((address - 0xC000) & 0x3FFF);
-                if (idx < prg.length)
-                    return prg[idx] & 0xFF;
-                return 0;
-            }
-        } else { // mode == 3: switch at $8000, fix last at $C000
-            if (address < 0xC000) { // switchable lower
-                int bank = regPrgBank & 0x0F;
-                int base = bank * 0x4000;
-                int idx = base + ((address - 0x8000) & 0x3FFF);
-                if (idx < prg.length)
-                    return prg[idx] & 0xFF;
-                return 0;
-            } else { // fixed last
-                int base = (prg16kBanks - 1) * 0x4000;
-                int idx = base + ((address - 0xC000) & 0x3FFF);
-                if (idx < prg.length)
-                    return prg[idx] & 0xFF;
-                return 0;
-            }
-        }
+        return readPrg(address);
     }
 
     @Override
@@ -127,6 +119,7 @@ public class Mapper1 extends Mapper {
         if ((value & 0x80) != 0) { // reset shift
             shift = 0x10;
             regControl |= 0x0C; // set PRG mode bits to 11 (fix last bank)
+            updateBankSlots();
             log("[M1 RESET] ctrl=%02X", regControl & 0xFF);
             return;
         }
@@ -141,6 +134,7 @@ public class Mapper1 extends Mapper {
             switch (region) {
                 case 0: // Control
                     regControl = data;
+                    updateNametablePages();
                     log("[M1 CTRL]=%02X", data);
                     break;
                 case 1: // CHR bank 0
@@ -157,50 +151,23 @@ public class Mapper1 extends Mapper {
                     break;
             }
             shift = 0x10; // reset latch
+            updateBankSlots();
         }
     }
 
     @Override
     public int ppuRead(int address) {
         address &= 0x3FFF;
-        if (address < 0x2000) {
-            if (chrRam != null) {
-                return chrRam[address & 0x1FFF] & 0xFF;
-            }
-            int chrMode = (regControl >> 4) & 0x01; // 0=8KB,1=4KB
-            if (chrMode == 0) { // 8KB ignore lowest bit of bank0/1
-                int bank8 = (regChrBank0 & 0x1E) >> 1; // 8KB index
-                int base = bank8 * 0x2000;
-                int idx = base + (address & 0x1FFF);
-                if (idx < chr.length)
-                    return chr[idx] & 0xFF;
-                return 0;
-            } else { // two 4KB banks
-                if (address < 0x1000) {
-                    int bank = regChrBank0 & 0x1F;
-                    int base = bank * 0x1000;
-                    int idx = base + (address & 0x0FFF);
-                    if (idx < chr.length)
-                        return chr[idx] & 0xFF;
-                } else {
-                    int bank = regChrBank1 & 0x1F;
-                    int base = bank * 0x1000;
-                    int idx = base + (address & 0x0FFF);
-                    if (idx < chr.length)
-                        return chr[idx] & 0xFF;
-                }
-                return 0;
-            }
-        }
+        if (address < 0x2000)
+            return readChr(address);
         return 0;
     }
 
     @Override
     public void ppuWrite(int address, int value) {
         address &= 0x3FFF;
-        if (address < 0x2000 && chrRam != null) {
-            chrRam[address & 0x1FFF] = (byte) (value & 0xFF);
-        }
+        if (address < 0x2000)
+            writeChr(address, value);
     }
 
     @Override
@@ -221,54 +188,51 @@ public class Mapper1 extends Mapper {
     }
 
     @Override
-    public byte[] saveState() {
+    public int stateSize() {
+        return 8 + (prgRam != null ? prgRam.length : 0) + (chrRam != null ? chrRam.length : 0);
+    }
+
+    @Override
+    public void writeState(ByteBuffer buf) {
         // Serialize: control, chr0, chr1, prg, shift, verticalFromHeader flag,
-        // registers + prgRam + chrRam(if any)
-        int prgRamLen = prgRam != null ? prgRam.length : 0;
-        int chrRamLen = chrRam != null ? chrRam.length : 0;
-        int headerLen = 8; // 8 bytes of register/meta
-        byte[] out = new byte[headerLen + prgRamLen + chrRamLen];
-        int p = 0;
-        out[p++] = (byte) (regControl & 0xFF);
-        out[p++] = (byte) (regChrBank0 & 0xFF);
-        out[p++] = (byte) (regChrBank1 & 0xFF);
-        out[p++] = (byte) (regPrgBank & 0xFF);
-        out[p++] = (byte) (shift & 0xFF);
-        out[p++] = (byte) (verticalFromHeader ? 1 : 0);
-        out[p++] = (byte) (prgRamLen & 0xFF);
-        out[p++] = (byte) (chrRamLen & 0xFF);
-        if (prgRamLen > 0) {
-            System.arraycopy(prgRam, 0, out, p, prgRamLen);
-            p += prgRamLen;
-        }
-        if (chrRamLen > 0) {
-            System.arraycopy(chrRam, 0, out, p, chrRamLen);
-            p += chrRamLen;
-        }
-        return out;
+        // RAM size hints (in KB), then prgRam + chrRam (if any)
+        buf.put((byte) regControl);
+        buf.put((byte) regChrBank0);
+        buf.put((byte) regChrBank1);
+        buf.put((byte) regPrgBank);
+        buf.put((byte) shift);
+        buf.put((byte) (verticalFromHeader ? 1 : 0));
+        buf.put((byte) (prgRam != null ? prgRam.length >> 10 : 0));
+        buf.put((byte) (chrRam != null ? chrRam.length >> 10 : 0));
+        if (prgRam != null)
+            buf.put(prgRam);
+        if (chrRam != null)
+            buf.put(chrRam);
     }
 
     @Override
-    public void loadState(byte[] data) {
-        if (data == null || data.length < 8)
+    public void readState(ByteBuffer buf, int length) {
+        if (length < 8)
             return;
-        int p = 0;
-        regControl = data[p++] & 0x1F;
-        regChrBank0 = data[p++] & 0x1F;
-        regChrBank1 = data[p++] & 0x1F;
-        regPrgBank = data[p++] & 0x1F;
-        shift = data[p++] & 0xFF;
-        verticalFromHeader = (data[p++] & 1) != 0;
-        int prgRamLen = data[p++] & 0xFF;
-        int chrRamLen = data[p++] & 0xFF;
-        if (prgRam != null && prgRamLen == prgRam.length && p + prgRamLen <= data.length) {
-            System.arraycopy(data, p, prgRam, 0, prgRamLen);
-            p += prgRamLen;
+        regControl = buf.get() & 0x1F;
+        regChrBank0 = buf.get() & 0x1F;
+        regChrBank1 = buf.get() & 0x1F;
+        regPrgBank = buf.get() & 0x1F;
+        shift = buf.get() & 0xFF;
+        verticalFromHeader = (buf.get() & 1) != 0;
+        buf.get(); // size hints (older states stored len & 0xFF, i.e. 0 for 8KB)
+        buf.get();
+        // RAM blocks are sized by this mapper instance, not by the header bytes
+        int remaining = length - 8;
+        if (prgRam != null && remaining >= prgRam.length) {
+            buf.get(prgRam);
+            remaining -= prgRam.length;
         }
-        if (chrRam != null && chrRamLen == chrRam.length && p + chrRamLen <= data.length) {
-            System.arraycopy(data, p, chrRam, 0, chrRamLen);
-            p += chrRamLen;
+        if (chrRam != null && remaining >= chrRam.length) {
+            buf.get(chrRam);
         }
+        updateBankSlots();
+        updateNametablePages();
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.nesemu.mapper;
 
+import java.nio.ByteBuffer;
 import com.nesemu.rom.INesRom;
 import com.nesemu.util.Log;
 import static com.nesemu.util.Log.Cat.*;
@@ -47,6 +48,19 @@ public class Mapper2 extends Mapper {
         this.bankSelect = 0;
         this.verticalMirroring = rom.getHeader().isVerticalMirroring();
         this.chrRam = (chr.length == 0) ? new byte[0x2000] : null; // 8KB CHR RAM
+        if (chr.length > 0)
+            mapChr(0, 8, chr, 0, false);
+        else
+            mapChr(0, 8, chrRam, 0, true);
+        updatePrgSlots();
+    }
+
+    /**
+     * Rebuild PRG slots: switchable 16KB at $8000, fixed last 16KB at $C000.
+     */
+    private void updatePrgSlots() {
+        mapPrg(0, 4, prg, bankSelect * 0x4000);
+        mapPrg(4, 4, prg, (prgPageCount - 1) * 0x4000);
     }
 
     @Override
@@ -54,21 +68,7 @@ public class Mapper2 extends Mapper {
         address &= 0xFFFF;
         if (address < 0x8000)
             return 0;
-        int offset = address - 0x8000;
-        if (offset < 0x4000) { // switchable
-            int bank = bankSelect; // 16KB bank index
-            int base = bank * 0x4000;
-            int idx = base + (offset & 0x3FFF);
-            if (idx >= 0 && idx < prg.length)
-                return prg[idx] & 0xFF;
-            return 0;
-        } else { // fixed last bank
-            int base = (prgPageCount - 1) * 0x4000;
-            int idx = base + (offset & 0x3FFF);
-            if (idx >= 0 && idx < prg.length)
-                return prg[idx] & 0xFF;
-            return 0;
-        }
+        return readPrg(address);
     }
 
     @Override
@@ -93,6 +93,8 @@ public class Mapper2 extends Mapper {
             int prev = bankSelect;
             int selectable = prgPageCount - 1; // last is fixed
             bankSelect = selectable == 0 ? 0 : (raw % selectable);
+            if (prev != bankSelect)
+                updatePrgSlots();
             if (bankLogEnabled && bankLogCount < bankLogLimit && prev != bankSelect) {
                 Log.debug(GENERAL, "[M2 PRG BANK] write=%02X new=%d", value & 0xFF, bankSelect);
                 bankLogCount++;
@@ -103,24 +105,16 @@ public class Mapper2 extends Mapper {
     @Override
     public int ppuRead(int address) {
         address &= 0x3FFF;
-        if (address < 0x2000) {
-            if (chr.length > 0) {
-                if (address < chr.length)
-                    return chr[address] & 0xFF;
-                return 0;
-            } else {
-                return chrRam[address & 0x1FFF] & 0xFF;
-            }
-        }
+        if (address < 0x2000)
+            return readChr(address);
         return 0;
     }
 
     @Override
     public void ppuWrite(int address, int value) {
         address &= 0x3FFF;
-        if (address < 0x2000 && chrRam != null) {
-            chrRam[address & 0x1FFF] = (byte) (value & 0xFF);
-        }
+        if (address < 0x2000)
+            writeChr(address, value);
     }
 
     @Override
@@ -128,6 +122,29 @@ public class Mapper2 extends Mapper {
         return verticalMirroring ? MirrorType.VERTICAL : MirrorType.HORIZONTAL;
     }
 
+    @Override
+    public int stateSize() {
+        // Layout: [0]=bankSelect, [1..]=chrRam (if any)
+        return 1 + ((chrRam != null) ? chrRam.length : 0);
+    }
+
+    @Override
+    public void writeState(ByteBuffer buf) {
+        buf.put((byte) bankSelect);
+        if (chrRam != null)
+            buf.put(chrRam);
+    }
+
+    @Override
+    public void readState(ByteBuffer buf, int length) {
+        if (length < 1)
+            return;
+        bankSelect = (buf.get() & 0xFF) % Math.max(1, prgPageCount);
+        updatePrgSlots();
+        if (chrRam != null && length >= 1 + chrRam.length)
+            buf.get(chrRam);
+    }
+
     /**
      * Enables logging of PRG bank changes to debug log.
      * @param limit
@@ -1,5 +1,6 @@
 package com.nesemu.mapper;
 
+import java.nio.ByteBuffer;
 import com.nesemu.rom.INesRom;
 import com.nesemu.util.Log;
 import static com.nesemu.util.Log.Cat.*;
@@ -43,6 +44,10 @@ public class Mapper3 extends Mapper {
         this.chrPageCount = Math.max(1, rom.getHeader().getChrRomPages());
         this.chrBank = 0;
         this.verticalMirroring = rom.getHeader().isVerticalMirroring();
+        int prgMask = (prgPageCount == 1) ? 0x3FFF : 0x7FFF;
+        for (int s = 0; s < 8; s++)
+            mapPrg(s, 1, prg, (s << PRG_SLOT_SHIFT) & prgMask);
+        mapChr(0, 8, chr, 0, false);
     }
 
     @Override
@@ -50,15 +55,7 @@ public class Mapper3 extends Mapper {
         address &= 0xFFFF;
         if (address < 0x8000)
             return 0;
-        int offset = address - 0x8000;
-        if (prgPageCount == 1) {
-            offset &= 0x3FFF; // mirror 16KB twice
-        } else {
-            offset &= 0x7FFF; // 32KB
-        }
-        if (offset >= prg.length)
-            return 0;
-        return prg[offset] & 0xFF;
+        return readPrg(address);
     }
 
     @Override
@@ -80,6 +77,8 @@ public class Mapper3 extends Mapper {
             chrBank = raw;
             if (chrPageCount > 0)
                 chrBank %= chrPageCount;
+            if (prev != chrBank)
+                mapChr(0, 8, chr, chrBank * 0x2000, false);
             if (bankLogEnabled && bankLogCount < bankLogLimit && prev != chrBank) {
                 Log.debug(GENERAL, "[M3 CHR BANK] writeVal=%02X resolved=%02X newBank=%d", value & 0xFF, raw & 0xFF,
                         chrBank);
@@ -91,13 +90,8 @@ public class Mapper3 extends Mapper {
     @Override
     public int ppuRead(int address) {
         address &= 0x3FFF;
-        if (address < 0x2000) {
-            int bankOffset = chrBank * 0x2000;
-            int idx = bankOffset + (address & 0x1FFF);
-            if (idx < chr.length)
-                return chr[idx] & 0xFF;
-            return 0;
-        }
+        if (address < 0x2000)
+            return readChr(address);
         return 0;
     }
 
@@ -111,6 +105,24 @@ public class Mapper3 extends Mapper {
         return verticalMirroring ? MirrorType.VERTICAL : MirrorType.HORIZONTAL;
     }
 
+    @Override
+    public int stateSize() {
+        return 1; // selected CHR bank (CHR is ROM)
+    }
+
+    @Override
+    public void writeState(ByteBuffer buf) {
+        buf.put((byte) chrBank);
+    }
+
+    @Override
+    public void readState(ByteBuffer buf, int length) {
+        if (length < 1)
+            return;
+        chrBank = (buf.get() & 0xFF) % Math.max(1, chrPageCount);
+        mapChr(0, 8, chr, chrBank * 0x2000, false);
+    }
+
     /**
      * Enables logging of CHR bank changes to debug log.
      * @param limit
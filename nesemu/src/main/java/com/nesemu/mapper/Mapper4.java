@@ -1,5 +1,6 @@
 package com.nesemu.mapper;
 
+import java.nio.ByteBuffer;
 import com.nesemu.rom.INesRom;
 import com.nesemu.util.Log;
 import static com.nesemu.util.Log.Cat.GENERAL;
@@ -58,6 +59,8 @@ public class Mapper4 extends Mapper {
         // Power-on: common initialize – last bank fixed in one slot depending on mode
         bankRegs[6] = 0; // R6 (PRG) default
         bankRegs[7] = Math.max(0, prg8kBanks - 1); // last bank
+        updatePrgSlots();
+        updateChrSlots();
     }
 
     @Override
@@ -67,12 +70,29 @@ public class Mapper4 extends Mapper {
             return prgRam[address - 0x6000] & 0xFF;
         }
         if (address < 0x8000) return 0;
-        int region = (address - 0x8000) / 0x2000; // 0..3 each 8KB
-        int bank = mapPrgBank(region);
-        int base = (bank % Math.max(prg8kBanks,1)) * 0x2000;
-        int idx = base + ((address - 0x8000) & 0x1FFF);
-        if (idx >= 0 && idx < prg.length) return prg[idx] & 0xFF;
-        return 0;
+        return readPrg(address);
+    }
+
+    /**
+     * Rebuild the four 8KB PRG windows from R6/R7 and the PRG mode bit.
+     */
+    private void updatePrgSlots() {
+        int banks = Math.max(prg8kBanks, 1);
+        for (int region = 0; region < 4; region++)
+            mapPrg(region * 2, 2, prg, (mapPrgBank(region) % banks) * 0x2000);
+    }
+
+    /**
+     * Rebuild the eight 1KB CHR windows (see {@link #chrBankIndex(int)}); banks
+     * wrap around the CHR size.
+     */
+    private void updateChrSlots() {
+        byte[] src = (chrRam != null) ? chrRam : chr;
+        int chrLen = src.length;
+        for (int s = 0; s < 8; s++) {
+            int linear = chrLen == 0 ? 0 : (chrBankIndex(s << CHR_SLOT_SHIFT) % chrLen);
+            mapChr(s, 1, src, linear, false);
+        }
     }
 
     private int mapPrgBank(int region) {
@@ -128,12 +148,15 @@ public class Mapper4 extends Mapper {
                     int target = bankSelect & 0x07; // 0..7
                     bankRegs[target] = value & 0xFF;
                 }
+                updatePrgSlots();
+                updateChrSlots();
                 trace("[M4 BANK SEL=%02X PRGm=%b CHRm=%b R=%d val=%02X]", bankSelect & 0xFF, prgMode, chrMode, bankSelect & 7, value & 0xFF);
                 break;
             case 0xA: // $A000/$A001
                 if (isEven) { // mirroring
                     forceMirroring = true;
                     mirrorHorizontal = (value & 1) == 1; // 0 = vertical per hardware
+                    updateNametablePages();
                 } else {
                     // PRG RAM protect/enable bits (bit7 enable, bit6 write protect) – store only
                     // Could enforce later
@@ -160,7 +183,7 @@ public class Mapper4 extends Mapper {
     public int ppuRead(int address) {
         address &= 0x3FFF;
         if (address < 0x2000) {
-            return readChrMapped(address) & 0xFF;
+            return readChr(address);
         }
         return 0;
     }
@@ -188,6 +211,47 @@ public class Mapper4 extends Mapper {
         return prgRam; // allow persistence layer to save/load
     }
 
+    @Override
+    public int stateSize() {
+        // Registers (12 bytes) + CHR RAM; PRG RAM is persisted via getPrgRam()
+        return 12 + ((chrRam != null) ? chrRam.length : 0);
+    }
+
+    @Override
+    public void writeState(ByteBuffer buf) {
+        buf.put((byte) bankSelect);
+        for (int r : bankRegs)
+            buf.put((byte) r);
+        buf.put((byte) ((prgMode ? 1 : 0) | (chrMode ? 2 : 0) | (forceMirroring ? 4 : 0)
+                | (mirrorHorizontal ? 8 : 0) | (irqReloadPending ? 16 : 0) | (irqEnabled ? 32 : 0)));
+        buf.put((byte) irqLatch);
+        buf.put((byte) irqCounter);
+        if (chrRam != null)
+            buf.put(chrRam);
+    }
+
+    @Override
+    public void readState(ByteBuffer buf, int length) {
+        if (length < 12) return;
+        bankSelect = buf.get() & 0xFF;
+        for (int i = 0; i < bankRegs.length; i++)
+            bankRegs[i] = buf.get() & 0xFF;
+        int flags = buf.get();
+        prgMode = (flags & 1) != 0;
+        chrMode = (flags & 2) != 0;
+        forceMirroring = (flags & 4) != 0;
+        mirrorHorizontal = (flags & 8) != 0;
+        irqReloadPending = (flags & 16) != 0;
+        irqEnabled = (flags & 32) != 0;
+        irqLatch = buf.get() & 0xFF;
+        irqCounter = buf.get() & 0xFF;
+        if (chrRam != null && length >= 12 + chrRam.length)
+            buf.get(chrRam);
+        updatePrgSlots();
+        updateChrSlots();
+        updateNametablePages();
+    }
+
     /**
      * Called by PPU on scanline rendering (approx cycle 260).
      * Clocks the IRQ counter.
@@ -206,11 +270,12 @@ public class Mapper4 extends Mapper {
     }
 
     /**
-     * Reads a byte from CHR space with current banking applied.
+     * Linear CHR offset (before wrap-around) for a PPU address with current banking
+     * applied.
      * @param address
      * @return
      */
-    private int readChrMapped(int address) {
+    private int chrBankIndex(int address) {
         int bankIndex;
         int offset;
         // CHR layout depends on chrMode.
@@ -263,10 +328,7 @@ public class Mapper4 extends Mapper {
                 }
             }
         }
-        int chrLen = (chrRam != null) ? chrRam.length : chr.length;
-        if (chrLen == 0) return 0;
-        int linear = (bankIndex + offset) % chrLen;
-        return (chrRam != null ? chrRam[linear] : chr[linear]) & 0xFF;
+        return bankIndex + offset;
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.nesemu.mapper;
 
+import java.nio.ByteBuffer;
 import com.nesemu.rom.INesRom;
 import com.nesemu.util.Log;
 import static com.nesemu.util.Log.Cat.GENERAL;
@@ -13,7 +14,7 @@ import static com.nesemu.util.Log.Cat.GENERAL;
  * - Split screen (basic $5200-$5202 support)
  *
  * Unsupported (placeholders):
- * - Extended attribute mode / ExRAM as nametable / fill mode
+ * - Fill mode attribute bytes ($5107); fill quadrants read $5106 everywhere
  * - Split screen advanced features (PRG bank per scanline, fine grained)
  * - IRQ / scanline counter ($5203/$5204)
  * - Multiplier ($5205/$5206)
@@ -92,6 +93,16 @@ public class Mapper5 extends Mapper {
     // ExRAM latch for Mode 1 (Extended Attribute)
     private int lastExRamByte = 0;
 
+    // Fill-mode nametable page (every byte = $5106)
+    private final byte[] fillPage = new byte[1024];
+
+    // Background CHR slot table ($5128-$512B view); the base-class CHR slots hold
+    // the sprite view ($5120-$5127)
+    private final byte[][] bgChrSlots = new byte[8][];
+    private final int[] bgChrSlotBase = new int[8];
+    // CHR wrap mask for power-of-2 sizes (-1 = use modulo)
+    private final int chrWrapMask;
+
     /**
      * Creates a Mapper 5 (MMC5) instance from the given iNES ROM.
      * @param rom
@@ -110,6 +121,12 @@ public class Mapper5 extends Mapper {
         for (int i = 0; i < regChrBanks.length; i++) {
             regChrBanks[i] = i & 0xFF;
         }
+        this.chrWrapMask = (chrLen > 0 && (chrLen & (chrLen - 1)) == 0) ? chrLen - 1 : -1;
+        // Unmapped PRG reads return $FF
+        this.prgOpenBusPage = new byte[PRG_SLOT_SIZE];
+        java.util.Arrays.fill(prgOpenBusPage, (byte) 0xFF);
+        updatePrgSlots();
+        updateChrSlots();
     }
 
     @Override
@@ -171,7 +188,7 @@ public class Mapper5 extends Mapper {
         }
         if (address < 0x8000)
             return 0; // open bus area we ignore (APU etc handled elsewhere)
-        return prgReadMapped(address);
+        return readPrg(address);
     }
 
     @Override
@@ -197,6 +214,14 @@ public class Mapper5 extends Mapper {
                 case 0x5106 -> regFillTile = value & 0xFF;
                 case 0x5107 -> regFillAttr = value & 0x03;
             }
+            switch (address) {
+                case 0x5100 -> updatePrgSlots();
+                case 0x5101 -> updateChrSlots();
+                case 0x5105 -> updateNametablePages();
+                case 0x5106 -> java.util.Arrays.fill(fillPage, (byte) regFillTile);
+                default -> {
+                }
+            }
             trace("[M5 CFG %04X]=%02X", address, value);
             return;
         }
@@ -208,6 +233,7 @@ public class Mapper5 extends Mapper {
                 case 0x5116 -> regPrgBankC000 = value & 0xFF;
                 case 0x5117 -> regPrgBankE000 = value & 0xFF;
             }
+            updatePrgSlots();
             trace("[M5 PRG %04X]=%02X mode=%d", address, value, regPrgMode);
             return;
         }
@@ -215,12 +241,14 @@ public class Mapper5 extends Mapper {
             int idx = address - 0x5120;
             if (idx >= 0 && idx < regChrBanks.length) {
                 regChrBanks[idx] = value & 0xFF; // upper bits appended separately when using >256KB CHR
+                updateChrSlots();
                 trace("[M5 CHR%02d]=%02X", idx, value);
             }
             return;
         }
         if (address == 0x5130) {
             regChrUpper = value & 0x03; // 2 bits
+            updateChrSlots();
             trace("[M5 CHRUP]=%02X", value);
             return;
         }
@@ -268,8 +296,7 @@ public class Mapper5 extends Mapper {
         if (address < 0x2000) { // CHR
             return chrRead(address) & 0xFF;
         }
-        // Nametables handled in PPU using getMirrorType(); advanced mapping ($5105) not
-        // implemented
+        // Nametables go through ppuReadNametable (page table built from $5105)
         return 0;
     }
 
@@ -306,6 +333,77 @@ public class Mapper5 extends Mapper {
         return result;
     }
 
+    private static final int STATE_REG_BYTES = 34;
+
+    @Override
+    public int stateSize() {
+        // Registers + ExRAM + PRG RAM (not exposed via getPrgRam) + CHR RAM
+        return STATE_REG_BYTES + exRam.length + prgRam.length + ((chrRam != null) ? chrRam.length : 0);
+    }
+
+    @Override
+    public void writeState(ByteBuffer buf) {
+        buf.put((byte) regPrgMode).put((byte) regChrMode);
+        buf.put((byte) regPrgRamProt1).put((byte) regPrgRamProt2);
+        buf.put((byte) regExRamMode).put((byte) regNtMapping);
+        buf.put((byte) regFillTile).put((byte) regFillAttr);
+        buf.put((byte) regSplitY).put((byte) regSplitCtrl).put((byte) regSplitBank);
+        buf.put((byte) regPrgBank6000).put((byte) regPrgBank8000).put((byte) regPrgBankA000);
+        buf.put((byte) regPrgBankC000).put((byte) regPrgBankE000);
+        for (int b : regChrBanks)
+            buf.put((byte) b);
+        buf.put((byte) regChrUpper);
+        buf.put((byte) multA).put((byte) multB);
+        buf.put((byte) irqTarget);
+        buf.put((byte) ((irqEnabled ? 1 : 0) | (irqPending ? 2 : 0) | (inFrame ? 4 : 0)));
+        buf.put((byte) lastExRamByte);
+        buf.put(exRam);
+        buf.put(prgRam);
+        if (chrRam != null)
+            buf.put(chrRam);
+    }
+
+    @Override
+    public void readState(ByteBuffer buf, int length) {
+        if (length < stateSize())
+            return;
+        regPrgMode = buf.get() & 0x03;
+        regChrMode = buf.get() & 0x03;
+        regPrgRamProt1 = buf.get() & 0x03;
+        regPrgRamProt2 = buf.get() & 0x03;
+        regExRamMode = buf.get() & 0x03;
+        regNtMapping = buf.get() & 0xFF;
+        regFillTile = buf.get() & 0xFF;
+        regFillAttr = buf.get() & 0x03;
+        regSplitY = buf.get() & 0xFF;
+        regSplitCtrl = buf.get() & 0xFF;
+        regSplitBank = buf.get() & 0xFF;
+        regPrgBank6000 = buf.get() & 0x7F;
+        regPrgBank8000 = buf.get() & 0xFF;
+        regPrgBankA000 = buf.get() & 0xFF;
+        regPrgBankC000 = buf.get() & 0xFF;
+        regPrgBankE000 = buf.get() & 0xFF;
+        for (int i = 0; i < regChrBanks.length; i++)
+            regChrBanks[i] = buf.get() & 0xFF;
+        regChrUpper = buf.get() & 0x03;
+        multA = buf.get() & 0xFF;
+        multB = buf.get() & 0xFF;
+        irqTarget = buf.get() & 0xFF;
+        int flags = buf.get();
+        irqEnabled = (flags & 1) != 0;
+        irqPending = (flags & 2) != 0;
+        inFrame = (flags & 4) != 0;
+        lastExRamByte = buf.get() & 0xFF;
+        buf.get(exRam);
+        buf.get(prgRam);
+        if (chrRam != null)
+            buf.get(chrRam);
+        java.util.Arrays.fill(fillPage, (byte) regFillTile);
+        updatePrgSlots();
+        updateChrSlots();
+        updateNametablePages();
+    }
+
     /**
      * Enables logging of PRG and CHR bank changes to debug log.
      * @param limit
@@ -336,34 +434,8 @@ public class Mapper5 extends Mapper {
 
     @Override
     public int ppuReadNametable(int address, byte[] ciram) {
-        int val = 0;
-
-        // Decode MMC5 Nametable Mapping ($5105)
-        // Format: DD CC BB AA (2 bits per quadrant)
-        // 00=CIRAM0, 01=CIRAM1, 10=ExRAM, 11=FillMode
-
-        // Get the logical nametable index (0..3 for $2000, $2400, $2800, $2C00)
-        int ntIndex = (address >> 10) & 0x03;
-
-        // Extract the 2-bit mode for THIS specific quadrant
-        int mode = (regNtMapping >> (ntIndex * 2)) & 0x03;
-
-        switch (mode) {
-            case 0: // CIRAM 0 (lower bank)
-                val = ciram[address & 0x03FF] & 0xFF;
-                break;
-            case 1: // CIRAM 1 (upper bank)
-                val = ciram[0x0400 + (address & 0x03FF)] & 0xFF;
-                break;
-            case 2: // ExRAM (as Nametable) - actual implementation
-                // ExRAM is 1KB, indexed by the tile offset within any nametable quadrant
-                val = exRam[address & 0x03FF] & 0xFF;
-                break;
-            case 3: // Fill Mode - entire nametable is the same tile
-                // Return regFillTile for all positions in this quadrant
-                val = regFillTile & 0xFF;
-                break;
-        }
+        // Quadrant routing ($5105) is resolved in the nametable page table
+        int val = super.ppuReadNametable(address, ciram);
 
         // In ExRAM Mode 1, we latch the ExRAM value corresponding to this tile for attributes.
         // ExRAM is 1KB, indexed by the nametable offset (0-3FF).
@@ -381,6 +453,8 @@ public class Mapper5 extends Mapper {
         }
 
         if (logNametable && logNametableCount < logNametableLimit) {
+            int ntIndex = (address >> 10) & 0x03;
+            int mode = (regNtMapping >> (ntIndex * 2)) & 0x03;
             Log.debug(GENERAL, "[M5 NT] addr=%04X ntIdx=%d mode=%d val=%02X regNtMapping=%02X",
                 address, ntIndex, mode, val, regNtMapping);
             logNametableCount++;
@@ -389,6 +463,25 @@ public class Mapper5 extends Mapper {
         return val;
     }
 
+    /**
+     * Decode MMC5 Nametable Mapping ($5105) into the page table.
+     * Format: DD CC BB AA (2 bits per quadrant)
+     * 00=CIRAM0, 01=CIRAM1, 10=ExRAM, 11=FillMode
+     */
+    @Override
+    protected void updateNametablePages() {
+        if (ntCiram == null)
+            return;
+        for (int t = 0; t < 4; t++) {
+            switch ((regNtMapping >> (t * 2)) & 0x03) {
+                case 0 -> mapNametable(t, ntCiram, 0, true); // CIRAM 0 (lower bank)
+                case 1 -> mapNametable(t, ntCiram, 0x0400, true); // CIRAM 1 (upper bank)
+                case 2 -> mapNametable(t, exRam, 0, true); // ExRAM as nametable
+                default -> mapNametable(t, fillPage, 0, false); // Fill mode: every entry reads $5106
+            }
+        }
+    }
+
     @Override
     public int adjustAttribute(int coarseX, int coarseY, int attributeAddress, int currentValue) {
         if (regExRamMode == 1) {
@@ -414,175 +507,109 @@ public class Mapper5 extends Mapper {
      * @return
      */
     private int chrRead(int address) {
-        int mode = regChrMode & 0x03;
-        boolean sprite = (getChrReadMode() == ChrReadMode.SPRITE);
-
+        if (getChrReadMode() == ChrReadMode.SPRITE)
+            return readChr(address);
         // ExRAM Mode 1: Background tiles use ExRAM for banking (overrides standard BG banking)
-        if (!sprite && regExRamMode == 1) {
+        if (regExRamMode == 1) {
             // ExRAM byte bits 0-5 select 4KB bank.
             int bank4k = lastExRamByte & 0x3F;
             // Upper 2 bits from $5130 (bits 0-1 become bits 6-7 of 4KB index)
             int finalBank4k = ((regChrUpper & 0x03) << 6) | bank4k;
             return readChrLinear(finalBank4k * 0x1000 + (address & 0x0FFF));
         }
+        int s = (address >> CHR_SLOT_SHIFT) & 0x07;
+        return bgChrSlots[s][bgChrSlotBase[s] + (address & (CHR_SLOT_SIZE - 1))] & 0xFF;
+    }
 
-        int bankVal = 0;
-        int offset = 0;
-        int mask = 0xFF; // Mask to align 1KB index to mode size
-
-        if (sprite) {
+    /**
+     * Rebuild the sprite (base-class) and background CHR slot tables from
+     * $5101/$5120-$512B/$5130. MMC5 bank registers are always in 1KB units; the
+     * mask aligns them to the mode's block size.
+     */
+    private void updateChrSlots() {
+        int mode = regChrMode & 0x03;
+        byte[] src = (chrRam != null) ? chrRam : chr;
+        for (int s = 0; s < 8; s++) {
             // --- Sprites ($5120-$5127) ---
+            int bankVal, mask, sub;
             switch (mode) {
-                case 0 -> { // 8KB: Uses $5127 (last reg)
-                    bankVal = regChrBanks[7];
-                    mask = 0xF8; // Ignore low 3 bits (align to 8KB)
-                    offset = address & 0x1FFF;
-                }
-                case 1 -> { // 4KB: Uses $5123, $5127
-                    int idx = (address < 0x1000) ? 3 : 7;
-                    bankVal = regChrBanks[idx];
-                    mask = 0xFC; // Ignore low 2 bits (align to 4KB)
-                    offset = address & 0x0FFF;
-                }
-                case 2 -> { // 2KB: Uses $5121, $5123, $5125, $5127
-                    int sub = (address >> 11) & 0x03; // 0..3
-                    bankVal = regChrBanks[sub * 2 + 1];
-                    mask = 0xFE; // Ignore low 1 bit (align to 2KB)
-                    offset = address & 0x07FF;
-                }
-                case 3 -> { // 1KB: $5120..$5127
-                    int sub = (address >> 10) & 0x07; // 0..7
-                    bankVal = regChrBanks[sub];
-                    mask = 0xFF;
-                    offset = address & 0x03FF;
-                }
+                case 0 -> { bankVal = regChrBanks[7]; mask = 0xF8; sub = s; } // 8KB: $5127
+                case 1 -> { bankVal = regChrBanks[s < 4 ? 3 : 7]; mask = 0xFC; sub = s & 3; } // 4KB: $5123, $5127
+                case 2 -> { bankVal = regChrBanks[(s >> 1) * 2 + 1]; mask = 0xFE; sub = s & 1; } // 2KB: odd regs
+                default -> { bankVal = regChrBanks[s]; mask = 0xFF; sub = 0; } // 1KB: $5120..$5127
             }
-        } else {
+            mapChr(s, 1, src, wrapChr(chrBankLinear(bankVal, mask, sub)), false);
             // --- Background ($5128-$512B) ---
             switch (mode) {
-                case 0 -> { // 8KB: Uses $512B
-                    bankVal = regChrBanks[11];
-                    mask = 0xF8;
-                    offset = address & 0x1FFF;
-                }
-                case 1 -> { // 4KB: Uses $5129 (0x0000-0x0FFF) and $512B (0x1000-0x1FFF)
-                    // Two separate 4KB banks for background in Mode 1
-                    int idx = (address < 0x1000) ? 9 : 11;
-                    bankVal = regChrBanks[idx];
-                    mask = 0xFC; // Ignore low 2 bits (align to 4KB)
-                    offset = address & 0x0FFF;
-                }
-                case 2 -> { // 2KB: Uses $5129, $512B
-                    int sub = (address >> 11) & 0x03;
-                    bankVal = regChrBanks[8 + sub]; // 8,9,10,11? No, usually 9, 11.
-                    // Simplified: just use the register corresponding to the slot.
-                    mask = 0xFE;
-                    offset = address & 0x07FF;
-                }
-                case 3 -> { // 1KB: $5128..$512B
-                    int sub = (address >> 10) & 0x03; // 0..3 (maps to 0000,0400,0800,0C00 relative to table)
-                    bankVal = regChrBanks[8 + sub];
-                    mask = 0xFF;
-                    offset = address & 0x03FF;
-                }
+                case 0 -> { bankVal = regChrBanks[11]; mask = 0xF8; sub = s; } // 8KB: $512B
+                case 1 -> { bankVal = regChrBanks[s < 4 ? 9 : 11]; mask = 0xFC; sub = s & 3; } // 4KB: $5129, $512B
+                case 2 -> { bankVal = regChrBanks[8 + (s >> 1)]; mask = 0xFE; sub = s & 1; } // 2KB (simplified)
+                default -> { bankVal = regChrBanks[8 + (s & 3)]; mask = 0xFF; sub = 0; } // 1KB: $5128..$512B
             }
+            // CHR is never empty here (CHR RAM is allocated when there is no ROM), so
+            // the wrapped 1KB-aligned base is always in range
+            bgChrSlots[s] = src;
+            bgChrSlotBase[s] = wrapChr(chrBankLinear(bankVal, mask, sub));
         }
+    }
 
-        // Combine with upper bits from $5130 (which apply to the bank index)
-        // AND apply the mask to align the bank index to the block size
+    /**
+     * Linear CHR address of 1KB sub-block {@code sub} inside the bank selected by
+     * {@code bankVal} (upper bits from $5130 applied).
+     */
+    private int chrBankLinear(int bankVal, int mask, int sub) {
         int finalBank = ((regChrUpper & 0x03) << 8) | (bankVal & mask);
+        return finalBank * 0x0400 + sub * 0x0400;
+    }
 
-        // Convert 1KB bank index to linear address (MMC5 registers are always 1KB units)
-        return readChrLinear(finalBank * 0x0400 + offset);
+    /**
+     * Wraps a linear CHR address into the CHR size.
+     * @param linear
+     * @return
+     */
+    private int wrapChr(int linear) {
+        int chrLen = (chrRam != null) ? chrRam.length : chr.length;
+        if (chrLen == 0) return 0;
+        return chrWrapMask >= 0 ? (linear & chrWrapMask) : (linear % chrLen);
     }
 
     /**
-     * Reads a byte from CHR space using a linear address, applying modulo for out-of-bounds.
+     * Reads a byte from CHR space using a linear address, applying wrap-around for
+     * out-of-bounds (used by ExRAM mode 1, whose bank changes per tile).
      * @param linear
      * @return
      */
     private int readChrLinear(int linear) {
         int chrLen = (chrRam != null) ? chrRam.length : chr.length;
         if (chrLen == 0) return 0;
-        // Optimization: Use bitwise AND for power-of-2 sizes (standard for ROMs)
-        // Modulo (%) is very slow in hot paths (PPU fetch).
-        if ((chrLen & (chrLen - 1)) == 0) {
-            linear &= (chrLen - 1);
-        } else {
-            linear %= chrLen;
-        }
-        return (chrRam != null ? chrRam[linear] : chr[linear]) & 0xFF;
+        return (chrRam != null ? chrRam[wrapChr(linear)] : chr[wrapChr(linear)]) & 0xFF;
     }
 
     /**
-     * Reads a byte from PRG space with current banking applied.
-     * @param address
-     * @return
+     * Rebuild PRG slots from $5100/$5114-$5117. Bank bases wrap around the ROM size;
+     * windows running past the end read as $FF.
      */
-    private int prgReadMapped(int address) {
-        int off = address & 0xFFFF;
-        // bankSize concept not needed after refactor (mapping handled per mode)
-        int value = 0xFF;
-        int prgIndex;
+    private void updatePrgSlots() {
+        int len = Math.max(prg.length, 1);
         switch (regPrgMode & 3) {
-            case 0 -> { // 32KB mapped by regPrgBankE000 (bits 6..2 used)
-                int bank32 = (regPrgBankE000 & 0x7C) >> 2; // ignore low 2 bits
-                int base = (bank32 * 0x8000) % Math.max(prg.length, 1);
-                prgIndex = base + (off - 0x8000);
-                if (prgIndex >= 0 && prgIndex < prg.length)
-                    value = prg[prgIndex] & 0xFF;
-            }
-            case 1 -> { // $8000-$BFFF 16KB via regPrgBank8000; $C000-$FFFF 16KB via regPrgBankE000
-                if (off < 0xC000) {
-                    // FIX: Mode 1 uses $5115 (Reg B) for the first 16KB bank, not $5114
-                    int bank16 = (regPrgBankA000 & 0x7E) >> 1; 
-                    int base = (bank16 * 0x4000) % Math.max(prg.length, 1);
-                    prgIndex = base + (off - 0x8000);
-                } else {
-                    int bank16 = (regPrgBankE000 & 0x7E) >> 1;
-                    int base = (bank16 * 0x4000) % Math.max(prg.length, 1);
-                    prgIndex = base + (off - 0xC000);
-                }
-                if (prgIndex >= 0 && prgIndex < prg.length)
-                    value = prg[prgIndex] & 0xFF;
+            case 0 -> // 32KB mapped by regPrgBankE000 (bits 6..2 used)
+                mapPrg(0, 8, prg, ((regPrgBankE000 & 0x7C) >> 2) * 0x8000 % len);
+            case 1 -> { // $8000-$BFFF 16KB via $5115 (Reg B); $C000-$FFFF 16KB via regPrgBankE000
+                mapPrg(0, 4, prg, ((regPrgBankA000 & 0x7E) >> 1) * 0x4000 % len);
+                mapPrg(4, 4, prg, ((regPrgBankE000 & 0x7E) >> 1) * 0x4000 % len);
             }
             case 2 -> { // Mode 2: 16KB ($8000) + 8KB ($C000) + 8KB ($E000)
-                if (off < 0xC000) {
-                    // $8000-$BFFF: 16KB via $5115 (Reg B)
-                    int bank16 = (regPrgBankA000 & 0x7E) >> 1;
-                    int base = (bank16 * 0x4000) % Math.max(prg.length, 1);
-                    prgIndex = base + (off - 0x8000);
-                } else if (off < 0xE000) {
-                    // $C000-$DFFF: 8KB via $5116 (Reg C)
-                    int bank8 = regPrgBankC000 & 0x7F;
-                    int base = (bank8 * 0x2000) % Math.max(prg.length, 1);
-                    prgIndex = base + (off - 0xC000);
-                } else {
-                    // $E000-$FFFF: 8KB via $5117 (Reg E)
-                    int bank8 = regPrgBankE000 & 0x7F;
-                    int base = (bank8 * 0x2000) % Math.max(prg.length, 1);
-                    prgIndex = base + (off - 0xE000);
-                }
-                if (prgIndex >= 0 && prgIndex < prg.length)
-                    value = prg[prgIndex] & 0xFF;
+                mapPrg(0, 4, prg, ((regPrgBankA000 & 0x7E) >> 1) * 0x4000 % len);
+                mapPrg(4, 2, prg, (regPrgBankC000 & 0x7F) * 0x2000 % len);
+                mapPrg(6, 2, prg, (regPrgBankE000 & 0x7F) * 0x2000 % len);
             }
             default -> { // mode 3: four 8KB windows 8000,A000,C000,E000 each
-                int region = (off - 0x8000) / 0x2000; // 0..3
-                int bankReg = switch (region) {
-                    case 0 -> regPrgBank8000;
-                    case 1 -> regPrgBankA000;
-                    case 2 -> regPrgBankC000;
-                    case 3 -> regPrgBankE000; // fixed last usually
-                    default -> regPrgBankE000;
-                };
-                int bank8 = bankReg & 0x7F; // 7 bits
-                int base = (bank8 * 0x2000) % Math.max(prg.length, 1);
-                prgIndex = base + ((off - 0x8000) & 0x1FFF);
-                if (prgIndex >= 0 && prgIndex < prg.length)
-                    value = prg[prgIndex] & 0xFF;
+                mapPrg(0, 2, prg, (regPrgBank8000 & 0x7F) * 0x2000 % len);
+                mapPrg(2, 2, prg, (regPrgBankA000 & 0x7F) * 0x2000 % len);
+                mapPrg(4, 2, prg, (regPrgBankC000 & 0x7F) * 0x2000 % len);
+                mapPrg(6, 2, prg, (regPrgBankE000 & 0x7F) * 0x2000 % len);
             }
         }
-        return value & 0xFF;
     }
 
     /**
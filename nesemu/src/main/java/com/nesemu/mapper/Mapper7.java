@@ -1,5 +1,6 @@
 package com.nesemu.mapper;
 
+import java.nio.ByteBuffer;
 import com.nesemu.rom.INesRom;
 import com.nesemu.util.Log;
 import static com.nesemu.util.Log.Cat.GENERAL;
@@ -14,18 +15,30 @@ public class Mapper7 extends Mapper {
         this.chr = rom.getChrRom();
         // AxROM uses CHR RAM usually (8KB) if no CHR ROM present.
         this.chrRam = (chr.length == 0) ? new byte[0x2000] : null;
+        if (chrRam != null) {
+            mapChr(0, 8, chrRam, 0, true);
+        } else {
+            for (int s = 0; s < 8; s++)
+                mapChr(s, 1, chr, (s << CHR_SLOT_SHIFT) % chr.length, false);
+        }
+        updatePrgSlots();
+    }
+
+    /**
+     * Rebuild the 32KB PRG window (bank wraps around the ROM size).
+     */
+    private void updatePrgSlots() {
+        for (int s = 0; s < 8; s++)
+            mapPrg(s, 1, prg, (prgBank * 0x8000 + (s << PRG_SLOT_SHIFT)) % Math.max(1, prg.length));
     }
 
     @Override
     public int cpuRead(int address) {
         address &= 0xFFFF;
         if (address < 0x8000) return 0;
-        
+
         // 32KB bank at $8000
-        int offset = address - 0x8000;
-        int bankBase = prgBank * 0x8000;
-        int idx = (bankBase + offset) % prg.length;
-        return prg[idx] & 0xFF;
+        return readPrg(address);
     }
 
     @Override
@@ -44,28 +57,23 @@ public class Mapper7 extends Mapper {
         value &= 0xFF;
         prgBank = value & 0x07;
         mirroring = (value & 0x10) >> 4;
+        updatePrgSlots();
+        updateNametablePages();
     }
 
     @Override
     public int ppuRead(int address) {
         address &= 0x3FFF;
-        if (address < 0x2000) {
-            if (chrRam != null) {
-                return chrRam[address] & 0xFF;
-            }
-            if (chr.length > 0) {
-                return chr[address % chr.length] & 0xFF;
-            }
-        }
+        if (address < 0x2000)
+            return readChr(address);
         return 0;
     }
 
     @Override
     public void ppuWrite(int address, int value) {
         address &= 0x3FFF;
-        if (address < 0x2000 && chrRam != null) {
-            chrRam[address] = (byte) value;
-        }
+        if (address < 0x2000)
+            writeChr(address, value);
     }
 
     @Override
@@ -74,30 +82,32 @@ public class Mapper7 extends Mapper {
     }
 
     @Override
-    public byte[] saveState() {
-        // Serialize prgBank (int), mirroring (int), chrRam (byte[])
+    public int stateSize() {
         // Layout: [0]=prgBank, [1]=mirroring, [2..]=chrRam
-        int chrLen = (chrRam != null) ? chrRam.length : 0;
-        byte[] data = new byte[2 + chrLen];
-        data[0] = (byte) (prgBank & 0xFF);
-        data[1] = (byte) (mirroring & 0xFF);
-        if (chrLen > 0) {
-            System.arraycopy(chrRam, 0, data, 2, chrLen);
-        }
-        return data;
+        return 2 + ((chrRam != null) ? chrRam.length : 0);
+    }
+
+    @Override
+    public void writeState(ByteBuffer buf) {
+        buf.put((byte) prgBank);
+        buf.put((byte) mirroring);
+        if (chrRam != null)
+            buf.put(chrRam);
     }
 
     @Override
-    public void loadState(byte[] data) {
-        if (data == null || data.length < 2) return;
-        prgBank = data[0] & 0x07;
-        mirroring = data[1] & 0x01;
+    public void readState(ByteBuffer buf, int length) {
+        if (length < 2) return;
+        prgBank = buf.get() & 0x07;
+        mirroring = buf.get() & 0x01;
+        updatePrgSlots();
+        updateNametablePages();
         int chrLen = (chrRam != null) ? chrRam.length : 0;
         if (chrLen > 0) {
-            if (data.length >= 2 + chrLen) {
-                System.arraycopy(data, 2, chrRam, 0, chrLen);
+            if (length >= 2 + chrLen) {
+                buf.get(chrRam);
             } else {
-                Log.warn(GENERAL, "Mapper7 loadState: Save data too short for CHR RAM (len=%d, need=%d)", data.length, 2 + chrLen);
+                Log.warn(GENERAL, "Mapper7 loadState: Save data too short for CHR RAM (len=%d, need=%d)", length, 2 + chrLen);
             }
         }
     }
@@ -1,5 +1,6 @@
 package com.nesemu.mapper;
 
+import java.nio.ByteBuffer;
 import com.nesemu.rom.INesRom;
 
 /**
@@ -37,34 +38,44 @@ public class Mapper9 extends Mapper {
         this.chrRam = (chr.length == 0) ? new byte[0x2000] : null;
         
         // Initial state: usually latches start in FD mode (false)
-        // Fixed banks are set logically in cpuRead
+        updatePrgSlots();
+        updateChrSlots();
     }
 
-    @Override
-    public int cpuRead(int address) {
-        address &= 0xFFFF;
-        if (address < 0x8000) return 0;
+    /**
+     * Rebuild PRG slots: switchable 8KB at $8000, last three 8KB banks fixed.
+     */
+    private void updatePrgSlots() {
+        mapPrg(0, 2, prg, prgBankSelect * 0x2000);
+        int fixed = Math.max(0, prg8kBanks - 3);
+        for (int slot = 0; slot < 3; slot++)
+            mapPrg(2 + slot * 2, 2, prg, (fixed + slot) * 0x2000);
+    }
 
-        int bankIndex;
-        int offset = address & 0x1FFF;
+    /**
+     * Rebuild CHR slots from the latch-selected 4KB banks. Called on register
+     * writes and whenever a latch flips.
+     */
+    private void updateChrSlots() {
+        mapChr4k(0, latch0 ? chrBank0FE : chrBank0FD);
+        mapChr4k(4, latch1 ? chrBank1FE : chrBank1FD);
+    }
 
-        if (address < 0xA000) {
-            // $8000-$9FFF: Switchable 8KB bank
-            bankIndex = prgBankSelect;
+    private void mapChr4k(int slot, int bank4k) {
+        int flatAddr = bank4k * 0x1000;
+        if (chrRam != null) {
+            for (int i = 0; i < 4; i++)
+                mapChr(slot + i, 1, chrRam, (flatAddr + (i << CHR_SLOT_SHIFT)) & (chrRam.length - 1), true);
         } else {
-            // $A000-$FFFF: Fixed to last three 8KB banks
-            // $A000-$BFFF: Second to last - 2
-            // $C000-$DFFF: Second to last - 1
-            // $E000-$FFFF: Last
-            int slot = (address - 0xA000) / 0x2000; // 0, 1, 2
-            bankIndex = Math.max(0, prg8kBanks - 3) + slot;
+            mapChr(slot, 4, chr, flatAddr, false);
         }
+    }
 
-        int flatAddr = (bankIndex * 0x2000) + offset;
-        if (flatAddr < prg.length) {
-            return prg[flatAddr] & 0xFF;
-        }
-        return 0;
+    @Override
+    public int cpuRead(int address) {
+        address &= 0xFFFF;
+        if (address < 0x8000) return 0;
+        return readPrg(address);
     }
 
     @Override
@@ -84,36 +95,26 @@ public class Mapper9 extends Mapper {
             case 0xE -> horizontalMirroring = (value & 1) != 0; // $E000-$EFFF: Mirroring
             case 0xF -> prgBankSelect = value & 0x0F; // $F000-$FFFF: PRG Bank ($8000)
         }
+        if (range == 0xF)
+            updatePrgSlots();
+        else if (range == 0xE)
+            updateNametablePages();
+        else
+            updateChrSlots();
     }
 
     @Override
     public int ppuRead(int address) {
         address &= 0x3FFF;
         int result = 0;
+        boolean prevLatch0 = latch0, prevLatch1 = latch1;
 
-        // 1. Determine which 4KB bank to use based on address and current latch state
-        int bank4k = 0;
-        if (address < 0x1000) {
-            // Pattern table 0 ($0000-$0FFF) controlled by Latch 0
-            bank4k = latch0 ? chrBank0FE : chrBank0FD;
-        } else if (address < 0x2000) {
-            // Pattern table 1 ($1000-$1FFF) controlled by Latch 1
-            bank4k = latch1 ? chrBank1FE : chrBank1FD;
-        }
-
-        // 2. Read the data
+        // 1. Read through the latch-selected 4KB banks
         if (address < 0x2000) {
-            int offset = address & 0x0FFF;
-            int flatAddr = (bank4k * 0x1000) + offset;
-            
-            if (chrRam != null) {
-                result = chrRam[flatAddr & (chrRam.length - 1)] & 0xFF;
-            } else if (flatAddr < chr.length) {
-                result = chr[flatAddr] & 0xFF;
-            }
+            result = readChr(address);
         }
 
-        // 3. Update Latches (The "Magic" of MMC2)
+        // 2. Update Latches (The "Magic" of MMC2)
         // The hardware monitors the PPU address bus. When specific "trigger" tiles are read,
         // the latch flips state for the *next* read.
         
@@ -131,7 +132,8 @@ public class Mapper9 extends Mapper {
         } else if (address >= 0x1FE8 && address <= 0x1FEF) {
             latch1 = true;  // Switch to FE bank
         }
-
+        if (latch0 != prevLatch0 || latch1 != prevLatch1)
+            updateChrSlots();
         return result;
     }
 
@@ -140,14 +142,8 @@ public class Mapper9 extends Mapper {
         address &= 0x3FFF;
         // MMC2 usually uses CHR ROM, but if RAM is present (unlikely), allow writes.
         // Note: PPU writes do NOT typically trigger the latches.
-        if (address < 0x2000 && chrRam != null) {
-             int bank4k = 0;
-             if (address < 0x1000) bank4k = latch0 ? chrBank0FE : chrBank0FD;
-             else bank4k = latch1 ? chrBank1FE : chrBank1FD;
-             
-             int offset = address & 0x0FFF;
-             int flatAddr = (bank4k * 0x1000) + offset;
-             chrRam[flatAddr & (chrRam.length - 1)] = (byte)value;
+        if (address < 0x2000) {
+            writeChr(address, value);
         }
     }
 
@@ -159,39 +155,43 @@ public class Mapper9 extends Mapper {
     // --- Save State Support ---
 
     @Override
-    public byte[] saveState() {
-        int chrLen = (chrRam != null) ? chrRam.length : 0;
+    public int stateSize() {
         // 8 bytes header + CHR RAM
-        byte[] data = new byte[8 + chrLen];
-        data[0] = (byte) prgBankSelect;
-        data[1] = (byte) chrBank0FD;
-        data[2] = (byte) chrBank0FE;
-        data[3] = (byte) chrBank1FD;
-        data[4] = (byte) chrBank1FE;
-        data[5] = (byte) (latch0 ? 1 : 0);
-        data[6] = (byte) (latch1 ? 1 : 0);
-        data[7] = (byte) (horizontalMirroring ? 1 : 0);
-        if (chrLen > 0) {
-            System.arraycopy(chrRam, 0, data, 8, chrLen);
-        }
-        return data;
+        return 8 + ((chrRam != null) ? chrRam.length : 0);
     }
 
     @Override
-    public void loadState(byte[] data) {
-        if (data == null || data.length < 8) return;
-        prgBankSelect = data[0] & 0xFF;
-        chrBank0FD = data[1] & 0xFF;
-        chrBank0FE = data[2] & 0xFF;
-        chrBank1FD = data[3] & 0xFF;
-        chrBank1FE = data[4] & 0xFF;
-        latch0 = data[5] != 0;
-        latch1 = data[6] != 0;
-        horizontalMirroring = data[7] != 0;
-        
+    public void writeState(ByteBuffer buf) {
+        buf.put((byte) prgBankSelect);
+        buf.put((byte) chrBank0FD);
+        buf.put((byte) chrBank0FE);
+        buf.put((byte) chrBank1FD);
+        buf.put((byte) chrBank1FE);
+        buf.put((byte) (latch0 ? 1 : 0));
+        buf.put((byte) (latch1 ? 1 : 0));
+        buf.put((byte) (horizontalMirroring ? 1 : 0));
+        if (chrRam != null)
+            buf.put(chrRam);
+    }
+
+    @Override
+    public void readState(ByteBuffer buf, int length) {
+        if (length < 8) return;
+        prgBankSelect = buf.get() & 0xFF;
+        chrBank0FD = buf.get() & 0xFF;
+        chrBank0FE = buf.get() & 0xFF;
+        chrBank1FD = buf.get() & 0xFF;
+        chrBank1FE = buf.get() & 0xFF;
+        latch0 = buf.get() != 0;
+        latch1 = buf.get() != 0;
+        horizontalMirroring = buf.get() != 0;
+
         int chrLen = (chrRam != null) ? chrRam.length : 0;
-        if (chrLen > 0 && data.length >= 8 + chrLen) {
-            System.arraycopy(data, 8, chrRam, 0, chrLen);
+        if (chrLen > 0 && length >= 8 + chrLen) {
+            buf.get(chrRam);
         }
+        updatePrgSlots();
+        updateChrSlots();
+        updateNametablePages();
     }
 }
@@ -14,8 +14,8 @@ import com.nesemu.memory.interfaces.NesMemory;
  */
 public class Memory implements NesMemory {
 
-    // 2KB internal RAM (0x0000–0x07FF)
-    private final int[] ram = new int[0x0800];
+    // 2KB internal RAM (0x0000–0x07FF); bytes so snapshots are one bulk copy
+    private final byte[] ram = new byte[0x0800];
 
     // PRG-ROM (cartridge)
     private int[] prgRom = new int[0x8000]; // 32KB (0x8000–0xFFFF)
@@ -45,7 +45,7 @@ public class Memory implements NesMemory {
         address &= 0xFFFF;
         if (address < 0x2000) {
             // 2KB RAM mirrored up to 0x1FFF
-            return ram[address & 0x07FF];
+            return ram[address & 0x07FF] & 0xFF;
         } else if (address < 0x4000) {
             // PPU registers, mirrored every 8 bytes (stub returns 0)
             return 0;
@@ -71,7 +71,7 @@ public class Memory implements NesMemory {
         value &= 0xFF;
         if (address < 0x2000) {
             // 2KB RAM mirrored
-            ram[address & 0x07FF] = value;
+            ram[address & 0x07FF] = (byte) value;
         } else if (address < 0x4000) {
             // PPU registers (stub)
             // ppu.writeRegister(0x2000 + (address & 0x7), value);
@@ -95,8 +95,7 @@ public class Memory implements NesMemory {
 
     @Override
     public void clearRAM() {
-        for (int i = 0; i < ram.length; i++)
-            ram[i] = 0;
+        java.util.Arrays.fill(ram, (byte) 0);
     }
 
     @Override
@@ -118,7 +117,17 @@ public class Memory implements NesMemory {
 
     @Override
     public void writeInternalRam(int address, int value) {
-        ram[address & 0x07FF] = value & 0xFF;
+        ram[address & 0x07FF] = (byte) value;
+    }
+
+    /** Copy internal RAM (0x800 bytes) into a snapshot buffer. */
+    public void saveInternalRam(java.nio.ByteBuffer buf) {
+        buf.put(ram);
+    }
+
+    /** Restore internal RAM (0x800 bytes) from a snapshot buffer. */
+    public void loadInternalRam(java.nio.ByteBuffer buf) {
+        buf.get(ram);
     }
 
     @Override
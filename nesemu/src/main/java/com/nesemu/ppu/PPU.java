@@ -34,6 +34,33 @@ public class PPU implements NesPPU {
     // Object Attribute Memory (64 sprites * 4 bytes)
     private final byte[] oam = new byte[256];
 
+    // Per-dot action table: one 341-entry bitmask row per scanline type, so clock()
+    // does a single lookup and dispatches only the actions that apply to this dot.
+    private static final int LINE_VISIBLE = 0;
+    private static final int LINE_PRE_RENDER = 1;
+    private static final int LINE_POST_RENDER = 2;
+    private static final int LINE_VBLANK_START = 3; // scanline 241 (VBlank/NMI edge)
+    private static final int LINE_VBLANK = 4;
+    private static final int LINE_TYPES = 5;
+    private static final int DOT_CLEAR_FLAGS = 1; // pre-render dot 1
+    private static final int DOT_SET_VBLANK = 1 << 1; // scanline 241 dot 1
+    private static final int DOT_ODD_SKIP = 1 << 2; // pre-render dot 339 (odd frames)
+    private static final int DOT_FORCE_SPR0 = 1 << 3; // diagnostic forced sprite-0 hit
+    private static final int DOT_SPRITE_EVAL = 1 << 4; // dot 257: prepare next line's sprites
+    // Actions below run only while rendering is enabled
+    private static final int DOT_BG_FETCH = 1 << 5;
+    private static final int DOT_PIXEL = 1 << 6;
+    private static final int DOT_SHIFT = 1 << 7;
+    private static final int DOT_INC_Y = 1 << 8;
+    private static final int DOT_COPY_X = 1 << 9;
+    private static final int DOT_MAPPER_SCANLINE = 1 << 10;
+    private static final int DOT_COPY_Y = 1 << 11;
+    private static final int DOT_RELOAD = 1 << 12;
+    private static final int DOT_RENDER_MASK = DOT_BG_FETCH | DOT_PIXEL | DOT_SHIFT | DOT_INC_Y | DOT_COPY_X
+            | DOT_MAPPER_SCANLINE | DOT_COPY_Y | DOT_RELOAD;
+    private static final int[][] DOT_ACTIONS = buildDotActions();
+    private static final byte[] LINE_TYPE = buildLineTypes();
+
     // Sprite evaluation buffer: hardware draws max 8, but in extended (unlimited)
     // mode we allow drawing up to 64 for debugging/visualization. Buffer sized for
     // 64.
@@ -45,6 +72,14 @@ public class PPU implements NesPPU {
     // Debug/feature flag: allow disabling the hardware 8-sprite-per-scanline limit
     private boolean unlimitedSprites = false;
 
+    // Render suppression (frame-skip): timing-visible behaviour (sprite-0 hit,
+    // overflow, mapper hooks, VBlank/NMI) keeps running, but palette lookups and
+    // frame/index buffer writes are skipped. Set between frames.
+    private boolean renderSuppressed = false;
+    // Background pixel of the current dot while suppressed or in compact mode
+    // (feeds sprite-0 hit / priority instead of bgBaseIndexBuffer)
+    private int bgStoreLatch = 0;
+
     // Cached sprite vertical ranges (top/bottom) to avoid recomputing each scanline
     private final int[] spriteTop = new int[64];
     private final int[] spriteBottom = new int[64];
@@ -67,6 +102,17 @@ public class PPU implements NesPPU {
     private final int[] activePatternHigh = new int[EXTENDED_SPRITE_DRAW_LIMIT];
     private final int[] activeSpriteX = new int[EXTENDED_SPRITE_DRAW_LIMIT];
     private final int[] activeSpriteAttr = new int[EXTENDED_SPRITE_DRAW_LIMIT];
+    // OAM attr/X latched for the prepared list (copied to active on publish)
+    private final int[] preparedSpriteAttr = new int[EXTENDED_SPRITE_DRAW_LIMIT];
+    private final int[] preparedSpriteX = new int[EXTENDED_SPRITE_DRAW_LIMIT];
+    // Sprite line buffers: the winning sprite pixel for each X, composited once at
+    // cycle 257 for the next line and swapped in on publish. 0 = transparent;
+    // otherwise low nibble = sprite palette offset ((attr&3)*4 + pattern), plus
+    // SPR_LINE_BEHIND / SPR_LINE_ZERO flags.
+    private static final int SPR_LINE_BEHIND = 0x20;
+    private static final int SPR_LINE_ZERO = 0x40;
+    private byte[] preparedSpriteLine = new byte[256];
+    private byte[] activeSpriteLine = new byte[256];
     private int preparedLine = -2; // which scanline the prepared list corresponds to
                                    // $2005 PPUSCROLL (x,y latch)
                                    // $2006 PPUADDR (VRAM address latch)
@@ -111,14 +157,51 @@ public class PPU implements NesPPU {
 
     // Optional test hook: a callback invoked whenever an NMI would be signalled
     private Runnable nmiCallback;
+    // Optional hook invoked after each frame completes (frame counter advanced)
+    private Runnable frameCompleteCallback;
 
     // Frame buffer storing final 32-bit ARGB color and parallel index buffer
     private final int[] frameBuffer = new int[256 * 240]; // ARGB color
     private final int[] frameIndexBuffer = new int[256 * 240]; // composite (background then sprites)
     private final int[] bgBaseIndexBuffer = new int[256 * 240]; // original background only (pre-sprite)
 
+    // Compact frame mode: a single byte per pixel replaces the three int buffers.
+    // Bits 0-5 = NES colour (0..63), bits 6-7 = PPUMASK emphasis/grayscale slot
+    // (compactMaskSlots); COMPACT_BLANK marks left-column blanked pixels (ARGB 0)
+    // and COMPACT_CROP the post-frame crop colour. A finished frame keeps its slot
+    // table (compactFrameSlots) and is only converted into frameBuffer when the
+    // ARGB buffer is requested; presenters can resolve it via getCompactFrameLut().
+    private static final int COMPACT_SLOTS = 3;
+    private static final int COMPACT_BLANK = COMPACT_SLOTS << 6;
+    private static final int COMPACT_CROP = COMPACT_BLANK + 1;
+    private boolean compactFrame = false;
+    private final byte[] compactBuffer = new byte[256 * 240];
+    private final int[] compactMaskSlots = new int[COMPACT_SLOTS];
+    private int compactMaskSlotCount = 1;
+    private int compactSlotBits = 0; // current slot << 6
+    private boolean compactDirty = false; // pixels written in the frame in progress
+    private final int[] compactFrameSlots = new int[COMPACT_SLOTS]; // last finished frame
+    private int compactFrameSlotCount = 1;
+    private int compactCropArgb = 0;
+    private boolean compactLutValid = false;
+    private boolean compactPending = false; // frameBuffer behind the last finished frame
+    private final int[] compactLut = new int[256];
+
+    // Frame content hash (opt-in, setFrameHashEnabled): each visible line written
+    // this frame is hashed when it ends; the line hashes are folded at frame end and
+    // frameContentVersion only advances when the completed frame differs.
+    private boolean frameHashEnabled = false;
+    private final int[] lineHash = new int[240];
+    private boolean lineWritten = false;
+    private long frameHash = 0;
+    private volatile long frameContentVersion = 0;
+
     // Palette subsystem
     private final Palette palette = new Palette();
+    // Live palette RAM index -> ARGB (current emphasis/grayscale), see Palette
+    private final int[] paletteArgb = palette.resolvedTable();
+    // Live palette RAM index -> NES colour (0..63), used by compact mode
+    private final int[] paletteColor = palette.resolvedColorTable();
 
     // --- Background rendering simplified ---
     // Pattern tables + nametables (2x1KB) temporary internal storage
@@ -156,6 +239,8 @@ public class PPU implements NesPPU {
     @Override
     public void attachMapper(Mapper mapper) {
         this.mapper = mapper;
+        if (mapper != null)
+            mapper.attachNametableRam(nameTables);
     }
 
     @Override
@@ -163,9 +248,20 @@ public class PPU implements NesPPU {
         this.nmiCallback = cb;
     }
 
+    /**
+     * Register a callback fired on the emulation thread each time a frame
+     * completes, however the PPU is clocked (frame step or single instruction).
+     *
+     * @param cb null to remove
+     */
+    public void setFrameCompleteCallback(Runnable cb) {
+        this.frameCompleteCallback = cb;
+    }
+
     @Override
     public void reset() {
         regCTRL = regMASK = 0;
+        palette.setMask(regMASK);
         regSTATUS = 0;
         oamAddr = 0;
         addrLatchHigh = true;
@@ -186,6 +282,8 @@ public class PPU implements NesPPU {
         patternLowShift = patternHighShift = 0;
         attributeLowShift = attributeHighShift = 0;
         ntLatch = atLatch = patternLowLatch = patternHighLatch = 0;
+        spriteCountThisLine = 0;
+        java.util.Arrays.fill(activeSpriteLine, (byte) 0);
         // no per-scanline pre-shift flag to reset
         // firstTileReady / scanlinePixelCounter removed
         for (int i = 0; i < frameBuffer.length; i++) {
@@ -193,20 +291,28 @@ public class PPU implements NesPPU {
             frameIndexBuffer[i] = 0;
             bgBaseIndexBuffer[i] = 0;
         }
+        java.util.Arrays.fill(compactBuffer, (byte) 0x0F); // black
+        compactDirty = false;
+        compactPending = false;
+        resetCompactMaskSlots();
+        lineWritten = false;
+        if (frameHashEnabled)
+            rehashFrame();
     }
 
     @Override
     public void clock() {
         // Advance one PPU cycle (3x CPU speed in real hardware, handled externally).
         cycle++;
+        int actions = (cycle <= 340) ? DOT_ACTIONS[LINE_TYPE[scanline + 1]][cycle] : 0;
         // At start of pre-render scanline (-1), cycle 1: clear VBlank & sprite flags
         // per NES spec
-        if (scanline == -1 && cycle == 1) {
+        if ((actions & DOT_CLEAR_FLAGS) != 0) {
             regSTATUS &= 0x1F; // clear VBlank(7), sprite0 hit(6), overflow(5)
             nmiFiredThisVblank = false;
         }
         // Entering VBlank: scanline 241 cycle 1
-        if (scanline == 241 && cycle == 1) {
+        if ((actions & DOT_SET_VBLANK) != 0) {
             regSTATUS |= 0x80; // set VBlank
             if ((regCTRL & PpuRegs.CTRL_NMI_ENABLE) != 0 && !nmiFiredThisVblank) {
                 fireNmi();
@@ -224,6 +330,11 @@ public class PPU implements NesPPU {
             fireNmi();
         }
         if (cycle > 340) {
+            if (lineWritten) {
+                lineWritten = false;
+                if (frameHashEnabled && !renderSuppressed)
+                    hashLine(scanline);
+            }
             cycle = 0;
             scanline++;
             // new scanline (nothing to reset for left-shift pipeline)
@@ -231,6 +342,7 @@ public class PPU implements NesPPU {
                 publishPreparedSpritesForCurrentLine();
             } else if (scanline == 240) { // post-render
                 spriteCountThisLine = 0;
+                java.util.Arrays.fill(activeSpriteLine, (byte) 0);
             }
             if (scanline > 260) {
                 scanline = -1; // wrap to pre-render
@@ -249,9 +361,17 @@ public class PPU implements NesPPU {
                     Log.debug(PPU, String.format("[PPU PRE] frame=%d -> next frame=%d clrVBlank", frame, frame + 1));
                 }
                 // --- End added ---
+                if (frameHashEnabled)
+                    updateFrameHash();
+                // Compact mode: keep the finished frame's slots; ARGB is resolved on demand
+                if (compactDirty)
+                    finishCompactFrame();
+                resetCompactMaskSlots();
                 // entering pre-render of next frame: reset prefetch state
                 frame++;
                 statusReadCountFrame = 0; // reset per-frame counter at frame increment
+                if (frameCompleteCallback != null)
+                    frameCompleteCallback.run();
                 if (debugNmiLog && debugNmiLogCount < debugNmiLogLimit) {
                     Log.debug(PPU, String.format("[PPU FRAME END] frame=%d", frame - 1));
                 }
@@ -264,12 +384,15 @@ public class PPU implements NesPPU {
                     Log.debug(PPU, sb.toString());
                 }
             }
+            return; // dot 0 has no actions
         }
+        if (actions == 0)
+            return;
 
         // Odd frame cycle skip (short frame): skip cycle 340 on pre-render line (-1)
         // when rendering enabled and frame is odd. We implement by skipping directly
         // from cycle 339 to new scanline 0 (dropping the would-be 340).
-        if (isPreRender() && cycle == 339 && renderingEnabled() && (frame & 1) == 1) {
+        if ((actions & DOT_ODD_SKIP) != 0 && renderingEnabled() && (frame & 1) == 1) {
             cycle = 0; // start next scanline
             scanline = 0; // move to first visible scanline
             // For completeness: clear VBlank very early on short-frame path too
@@ -280,7 +403,7 @@ public class PPU implements NesPPU {
         }
 
         // Debug: force sprite0 hit early each frame for diagnostic purposes
-        if (forceSprite0Hit && isVisibleScanline() && scanline == 0 && cycle == 8) {
+        if ((actions & DOT_FORCE_SPR0) != 0 && forceSprite0Hit && scanline == 0) {
             regSTATUS |= PpuRegs.STATUS_SPR0_HIT;
             sprite0HitSetFrame = frame;
             sprite0HitSetScanline = scanline;
@@ -288,7 +411,7 @@ public class PPU implements NesPPU {
         }
 
         // Sprite evaluation pipeline: prepare NEXT visible scanline at cycle 257
-        if ((isVisibleScanline() || isPreRender()) && cycle == 257) {
+        if ((actions & DOT_SPRITE_EVAL) != 0) {
             int target = isPreRender() ? 0 : (scanline + 1);
             if (target >= 0 && target <= 239) {
                 evaluateSpritesForLine(target);
@@ -297,63 +420,107 @@ public class PPU implements NesPPU {
                 preparedSpriteCount = 0;
                 preparedLine = target;
             }
+            compositeSpriteLine(preparedSpriteLine, preparedSpriteCount, preparedSpriteIndices,
+                    preparedPatternLow, preparedPatternHigh, preparedSpriteAttr, preparedSpriteX);
         }
 
         // (No priming hack) – rely on pipeline latency.
 
-        // (Removed duplicated vblank / pre-render handling block to prevent double
-        // NMIs)
-
         // --- Rendering address logic (loopy v/t/x) ---
-        // Only active when background or sprite rendering enabled (MASK bits 3 or 4)
-        if (renderingEnabled()) {
-            // Visible or pre-render scanlines only
-            if (isVisibleScanline() || isPreRender()) {
-                // Background pipeline per-cycle operations (simplified subset)
-                // Shift at start of each visible cycle before sampling pixel
-                // Fetch pipeline for this cycle
-                backgroundPipeline();
-                // Produce pixel using current shift register state (before shifting)
-                if (isVisibleScanline() && cycle >= 1 && cycle <= 256) {
-                    produceBackgroundPixel();
-                    // After background pixel, overlay sprite pixel (simple priority rules)
-                    if ((regMASK & 0x10) != 0) { // sprites enabled
-                        overlaySpritePixel();
-                    }
-                }
-                // Shift after sampling (hardware shifts once per pixel after use)
-                // Enable shifting for visible cycles (1-256) AND prefetch cycles (321-336)
-                // on both visible and pre-render scanlines to prime registers correctly.
-                if ((isVisibleScanline() || isPreRender()) && ((cycle >= 1 && cycle <= 256) || (cycle >= 321 && cycle <= 336))) {
-                    shiftBackgroundRegisters();
-                }
-                // At cycle 256 increment Y (vertical position)
-                if (cycle == 256) {
-                    incrementY();
-                }
-                // At cycle 257 copy horizontal bits from t to v
-                if (cycle == 257) {
-                    copyHorizontalBits();
-                }
-                // Signal scanline to mapper (for MMC3 IRQ) at cycle 260
-                if (cycle == 260 && mapper != null) {
-                    mapper.onScanline(scanline);
-                }
-                // During pre-render line cycles 280-304 copy vertical bits from t to v
-                if (isPreRender() && cycle >= 280 && cycle <= 304) {
-                    copyVerticalBits();
-                }
+        // Only active when background or sprite rendering enabled (MASK bits 3 or 4),
+        // on visible or pre-render scanlines (rows without DOT_RENDER_MASK bits)
+        if ((actions & DOT_RENDER_MASK) == 0 || !renderingEnabled())
+            return;
+        // Background pipeline per-cycle operations (simplified subset)
+        // Fetch pipeline for this cycle (1-256, 321-336)
+        if ((actions & DOT_BG_FETCH) != 0)
+            backgroundPipeline();
+        // Produce pixel using current shift register state (before shifting)
+        if ((actions & DOT_PIXEL) != 0) {
+            lineWritten = true;
+            produceBackgroundPixel();
+            // After background pixel, overlay sprite pixel (simple priority rules)
+            if ((regMASK & 0x10) != 0) { // sprites enabled
+                overlaySpritePixel();
+            }
+        }
+        // Shift after sampling (hardware shifts once per pixel after use)
+        // Enable shifting for visible cycles (1-256) AND prefetch cycles (321-336)
+        // on both visible and pre-render scanlines to prime registers correctly.
+        if ((actions & DOT_SHIFT) != 0)
+            shiftBackgroundRegisters();
+        // At cycle 256 increment Y (vertical position)
+        if ((actions & DOT_INC_Y) != 0)
+            incrementY();
+        // At cycle 257 copy horizontal bits from t to v
+        if ((actions & DOT_COPY_X) != 0)
+            copyHorizontalBits();
+        // Signal scanline to mapper (for MMC3 IRQ) at cycle 260
+        if ((actions & DOT_MAPPER_SCANLINE) != 0 && mapper != null)
+            mapper.onScanline(scanline);
+        // During pre-render line cycles 280-304 copy vertical bits from t to v
+        if ((actions & DOT_COPY_Y) != 0)
+            copyVerticalBits();
+        // Phase 0: Reload shift registers (moved to end of cycle to preserve data during shift)
+        // This fixes pipeline hazard where reload overwrote low byte before shift moved it to high.
+        if ((actions & DOT_RELOAD) != 0)
+            tileReloadAndAdvanceX();
+    }
 
-                // Phase 0: Reload shift registers (moved to end of cycle to preserve data during shift)
-                // This fixes pipeline hazard where reload overwrote low byte before shift moved it to high.
-                if ((cycle & 7) == 0) {
-                    boolean fetchRegion = (cycle >= 1 && cycle <= 256) || (cycle >= 321 && cycle <= 336);
-                    if (fetchRegion) {
-                        tileReloadAndAdvanceX();
-                    }
+    /**
+     * Builds the per-dot action rows (index = cycle 0..340) for each scanline type.
+     *
+     * @return
+     */
+    private static int[][] buildDotActions() {
+        int[][] t = new int[LINE_TYPES][341];
+        for (int type : new int[] { LINE_VISIBLE, LINE_PRE_RENDER }) {
+            int[] row = t[type];
+            for (int c = 1; c <= 340; c++) {
+                boolean fetchRegion = (c <= 256) || (c >= 321 && c <= 336);
+                if (fetchRegion) {
+                    row[c] |= DOT_BG_FETCH | DOT_SHIFT;
+                    if ((c & 7) == 0)
+                        row[c] |= DOT_RELOAD;
                 }
+                if (type == LINE_VISIBLE && c <= 256)
+                    row[c] |= DOT_PIXEL;
+                if (type == LINE_PRE_RENDER && c >= 280 && c <= 304)
+                    row[c] |= DOT_COPY_Y;
             }
+            row[256] |= DOT_INC_Y;
+            row[257] |= DOT_SPRITE_EVAL | DOT_COPY_X;
+            row[260] |= DOT_MAPPER_SCANLINE;
         }
+        t[LINE_VISIBLE][8] |= DOT_FORCE_SPR0;
+        t[LINE_PRE_RENDER][1] |= DOT_CLEAR_FLAGS;
+        t[LINE_PRE_RENDER][339] |= DOT_ODD_SKIP;
+        t[LINE_VBLANK_START][1] |= DOT_SET_VBLANK;
+        return t;
+    }
+
+    /**
+     * Scanline type per scanline (index = scanline + 1, i.e. -1..260).
+     *
+     * @return
+     */
+    private static byte[] buildLineTypes() {
+        byte[] t = new byte[262];
+        for (int sl = -1; sl <= 260; sl++) {
+            int type;
+            if (sl == -1)
+                type = LINE_PRE_RENDER;
+            else if (sl < 240)
+                type = LINE_VISIBLE;
+            else if (sl == 240)
+                type = LINE_POST_RENDER;
+            else if (sl == 241)
+                type = LINE_VBLANK_START;
+            else
+                type = LINE_VBLANK;
+            t[sl + 1] = (byte) type;
+        }
+        return t;
     }
 
     @Override
@@ -437,6 +604,9 @@ public class PPU implements NesPPU {
                             scanline, cycle,
                             (regMASK & 0x08) != 0 ? 1 : 0, (regMASK & 0x10) != 0 ? 1 : 0, regMASK & 0xFF);
                 }
+                palette.setMask(regMASK);
+                if (compactFrame)
+                    selectCompactMaskSlot();
                 logEarlyWrite(reg, value);
                 break; // removed mid-scanline priming hack
             case 2: // STATUS is read-only
@@ -655,11 +825,15 @@ public class PPU implements NesPPU {
 
     @Override
     public int[] getFrameBufferRef() { // returns ARGB buffer
+        if (compactPending)
+            convertCompactFrame();
         return frameBuffer;
     }
 
     @Override
     public int[] getFrameBuffer() {
+        if (compactPending)
+            convertCompactFrame();
         return frameBuffer;
     }
 
@@ -777,7 +951,6 @@ public class PPU implements NesPPU {
         if (logicalIndex < 0 || logicalIndex > 3)
             logicalIndex = 0;
         verboseLog("--- NameTable %d tile IDs ---\n", logicalIndex);
-        MirrorType mt = (mapper != null) ? mapper.getMirrorType() : MirrorType.VERTICAL;
         for (int row = 0; row < 30; row++) {
             StringBuilder sb = new StringBuilder();
             for (int col = 0; col < 32; col++) {
@@ -786,15 +959,7 @@ public class PPU implements NesPPU {
                 int nt = (logicalAddr - 0x2000) & 0x0FFF;
                 int index = nt & 0x03FF; // posição dentro da tabela lógica
                 int table = (nt >> 10) & 0x03; // tabela lógica 0..3
-                int physical;
-                switch (mt) {
-                    case VERTICAL -> physical = table & 0x01;
-                    case HORIZONTAL -> physical = (table >> 1);
-                    case SINGLE0 -> physical = 0;
-                    case SINGLE1 -> physical = 1;
-                    default -> physical = table & 0x01;
-                }
-                int value = nameTables[(physical * 0x0400) + index] & 0xFF;
+                int value = nameTables[(physicalNameTable(table) * 0x0400) + index] & 0xFF;
                 sb.append(String.format("%02X", value));
                 if (col != 31)
                     sb.append(' ');
@@ -803,6 +968,23 @@ public class PPU implements NesPPU {
         }
     }
 
+    /**
+     * CIRAM page (0/1) a logical nametable maps to under the mapper's standard
+     * mirroring (diagnostics only; fetches go through the mapper page table).
+     *
+     * @param table
+     * @return
+     */
+    private int physicalNameTable(int table) {
+        MirrorType mt = (mapper != null) ? mapper.getMirrorType() : MirrorType.VERTICAL;
+        return switch (mt) {
+            case VERTICAL -> table & 0x01;
+            case HORIZONTAL -> (table >> 1);
+            case SINGLE0 -> 0;
+            case SINGLE1 -> 1;
+        };
+    }
+
     @Override
     public void dumpPatternTile(int tile) {
         tile &= 0xFF;
@@ -995,6 +1177,167 @@ public class PPU implements NesPPU {
         verboseLog("[PPU] NMI debug log enabled (limit=%d)\n", debugNmiLogLimit);
     }
 
+    /**
+     * Per-frame render suppression (frame-skip). While enabled the PPU keeps all
+     * timing-visible behaviour (sprite-0 hit, sprite overflow, mapper scanline
+     * hooks, VBlank/NMI) but skips palette lookups and writes to the frame,
+     * index and background buffers. Toggle between frames (e.g. around
+     * {@code stepFrame()}); buffers keep the last rendered frame.
+     * 
+     * @param suppressed
+     */
+    public void setRenderSuppressed(boolean suppressed) {
+        this.renderSuppressed = suppressed;
+    }
+
+    public boolean isRenderSuppressed() {
+        return renderSuppressed;
+    }
+
+    /**
+     * Compact frame mode: pixels are written to a single byte-per-pixel buffer
+     * (NES colour + emphasis/grayscale slot) instead of the ARGB, index and
+     * background buffers, and sprite-0/priority use the current dot's background
+     * pixel. frameBuffer is filled by one LUT pass only when it is requested
+     * (getFrameBuffer/getFrameBufferRef) after a rendered frame, so frames that
+     * are never displayed skip the conversion. Index-based debug accessors
+     * (getPixel, getBackgroundIndex, BG column stats, BG sample log) are not
+     * maintained while enabled. Lossy: up to 3 distinct PPUMASK
+     * emphasis/grayscale values per frame are kept exactly; pixels drawn after
+     * further changes use the third value.
+     *
+     * @param enable
+     */
+    public void setCompactFrameMode(boolean enable) {
+        if (!enable) {
+            if (compactDirty)
+                finishCompactFrame();
+            if (compactPending)
+                convertCompactFrame();
+        }
+        this.compactFrame = enable;
+        compactDirty = false;
+        resetCompactMaskSlots();
+    }
+
+    public boolean isCompactFrameMode() {
+        return compactFrame;
+    }
+
+    /**
+     * Compact frame (valid in compact mode): one byte per pixel, bits 0..5 =
+     * NES colour, bits 6..7 = PPUMASK slot; 0xC0 marks a blanked left-column
+     * pixel and 0xC1 a cropped one. Live buffer, complete after each rendered
+     * frame.
+     *
+     * @return
+     */
+    public byte[] getCompactFrameBufferRef() {
+        return compactBuffer;
+    }
+
+    /**
+     * ARGB for each byte of the compact frame (256 entries) using the slots of
+     * the last finished frame: ARGB = lut[compact[i] & 0xFF].
+     *
+     * @return shared table, valid until the next frame ends
+     */
+    public int[] getCompactFrameLut() {
+        if (!compactLutValid) {
+            int[] lut = compactLut;
+            for (int slot = 0; slot < COMPACT_SLOTS; slot++) {
+                int mask = compactFrameSlots[slot < compactFrameSlotCount ? slot : 0];
+                for (int c = 0; c < 64; c++)
+                    lut[(slot << 6) | c] = palette.getArgb(c, mask);
+            }
+            java.util.Arrays.fill(lut, COMPACT_BLANK, lut.length, 0);
+            lut[COMPACT_CROP] = compactCropArgb;
+            compactLutValid = true;
+        }
+        return compactLut;
+    }
+
+    /**
+     * Enable the per-frame content hash used to skip presenting unchanged
+     * frames. Costs one pass over each written visible line (256 pixels) at
+     * the end of that line; off by default.
+     *
+     * @param enable
+     */
+    public void setFrameHashEnabled(boolean enable) {
+        if (enable && !frameHashEnabled) {
+            frameHashEnabled = true;
+            rehashFrame();
+        } else if (!enable) {
+            frameHashEnabled = false;
+        }
+    }
+
+    public boolean isFrameHashEnabled() {
+        return frameHashEnabled;
+    }
+
+    /**
+     * Hash of the last completed frame's pixels (valid while the frame hash is
+     * enabled).
+     *
+     * @return
+     */
+    public long getFrameHash() {
+        return frameHash;
+    }
+
+    /**
+     * Content version: advances only when a completed frame differs from the
+     * previous one. Without the frame hash enabled it follows the frame counter
+     * (every frame counts as changed).
+     *
+     * @return
+     */
+    public long getFrameContentVersion() {
+        return frameHashEnabled ? frameContentVersion : frame;
+    }
+
+    private void hashLine(int line) {
+        int base = line * 256;
+        int h = 1;
+        if (compactFrame) {
+            byte[] src = compactBuffer;
+            for (int i = 0; i < 256; i++)
+                h = 31 * h + src[base + i];
+        } else {
+            int[] src = frameBuffer;
+            for (int i = 0; i < 256; i++)
+                h = 31 * h + src[base + i];
+        }
+        lineHash[line] = h;
+    }
+
+    /** Fold line hashes (+ state applied after the frame) into frameHash. */
+    private void updateFrameHash() {
+        long h = compactFrame ? 1 : 0;
+        for (int i = 0; i < lineHash.length; i++)
+            h = h * 0x9E3779B97F4A7C15L + lineHash[i];
+        if (compactFrame) {
+            // Bytes reference mask slots: resolved colours depend on them too
+            for (int i = 0; i < compactMaskSlotCount; i++)
+                h = h * 0x9E3779B97F4A7C15L + compactMaskSlots[i];
+        }
+        if (leftColumnMode == LeftColumnMode.CROP)
+            h = h * 0x9E3779B97F4A7C15L + paletteArgb[0]; // post-frame crop colour
+        if (h != frameHash) {
+            frameHash = h;
+            frameContentVersion++;
+        }
+    }
+
+    private void rehashFrame() {
+        for (int line = 0; line < 240; line++)
+            hashLine(line);
+        updateFrameHash();
+        frameContentVersion++; // buffers may have been replaced wholesale
+    }
+
     @Override
     public void setUnlimitedSprites(boolean enable) {
         this.unlimitedSprites = enable;
@@ -1042,6 +1385,18 @@ public class PPU implements NesPPU {
         return palette.copyRaw();
     }
 
+    /**
+     * Copies OAM (256) and palette RAM (32) into caller buffers without
+     * allocating (debug snapshots).
+     *
+     * @param oamDst     256 bytes
+     * @param paletteDst 32 bytes
+     */
+    public void copyDebugMemory(byte[] oamDst, byte[] paletteDst) {
+        System.arraycopy(oam, 0, oamDst, 0, oam.length);
+        palette.copyRaw(paletteDst, 0);
+    }
+
     /** Load OAM from snapshot (length must be 256). */
     public void loadOam(byte[] data) {
         if (data != null && data.length == oam.length) {
@@ -1063,6 +1418,119 @@ public class PPU implements NesPPU {
             palette.loadRaw(data);
     }
 
+    /** Bulk-write OAM into a snapshot buffer (256 bytes). */
+    public void writeOam(java.nio.ByteBuffer buf) {
+        buf.put(oam);
+    }
+
+    /** Bulk-read OAM from a snapshot buffer (ignored unless length is 256). */
+    public void readOam(java.nio.ByteBuffer buf, int len) {
+        if (len == oam.length) {
+            buf.get(oam);
+            spriteRangesDirty = true;
+        }
+    }
+
+    /** Bulk-write nametable memory into a snapshot buffer (0x800 bytes). */
+    public void writeNameTables(java.nio.ByteBuffer buf) {
+        buf.put(nameTables);
+    }
+
+    /** Bulk-read nametables from a snapshot buffer (ignored unless 0x800). */
+    public void readNameTables(java.nio.ByteBuffer buf, int len) {
+        if (len == nameTables.length)
+            buf.get(nameTables);
+    }
+
+    /** Write palette raw bytes (32) into a snapshot buffer. */
+    public void writePalette(java.nio.ByteBuffer buf) {
+        palette.writeRaw(buf);
+    }
+
+    /** Read palette raw bytes from a snapshot buffer. */
+    public void readPalette(java.nio.ByteBuffer buf, int len) {
+        palette.readRaw(buf, len);
+    }
+
+    /**
+     * Serialize the transient rendering pipeline (shift registers, fetch latches,
+     * prepared/active sprite lists, NMI latch). With this section a snapshot taken
+     * at any dot restores exactly, so {@link #normalizeTimingAfterLoad()} is not
+     * needed.
+     *
+     * @param buf
+     */
+    public void writePipelineState(java.nio.ByteBuffer buf) {
+        buf.putInt(patternLowShift).putInt(patternHighShift);
+        buf.putInt(attributeLowShift).putInt(attributeHighShift);
+        buf.putInt(ntLatch).putInt(atLatch).putInt(patternLowLatch).putInt(patternHighLatch);
+        buf.put((byte) (nmiFiredThisVblank ? 1 : 0));
+        buf.putInt(preparedLine);
+        buf.putInt(preparedSpriteCount);
+        buf.putInt(spriteCountThisLine);
+        buf.put(secondaryOam);
+        for (int i = 0; i < EXTENDED_SPRITE_DRAW_LIMIT; i++) {
+            buf.putShort((short) preparedSpriteIndices[i]);
+            buf.put((byte) preparedPatternLow[i]).put((byte) preparedPatternHigh[i]);
+            buf.putShort((short) spriteIndices[i]);
+            buf.put((byte) activePatternLow[i]).put((byte) activePatternHigh[i]);
+            buf.put((byte) activeSpriteX[i]).put((byte) activeSpriteAttr[i]);
+        }
+    }
+
+    /**
+     * Exact number of bytes {@link #writePipelineState(java.nio.ByteBuffer)}
+     * produces.
+     *
+     * @return
+     */
+    public int pipelineStateSize() {
+        // shifters + latches, NMI latch, 3 sprite counters, secondary OAM, sprite lists
+        return 8 * 4 + 1 + 3 * 4 + secondaryOam.length + EXTENDED_SPRITE_DRAW_LIMIT * 10;
+    }
+
+    /**
+     * Counterpart to {@link #writePipelineState(java.nio.ByteBuffer)}. Call after
+     * {@link #forceCoreState}.
+     *
+     * @param buf
+     */
+    public void readPipelineState(java.nio.ByteBuffer buf) {
+        patternLowShift = buf.getInt();
+        patternHighShift = buf.getInt();
+        attributeLowShift = buf.getInt();
+        attributeHighShift = buf.getInt();
+        ntLatch = buf.getInt();
+        atLatch = buf.getInt();
+        patternLowLatch = buf.getInt();
+        patternHighLatch = buf.getInt();
+        nmiFiredThisVblank = buf.get() != 0;
+        preparedLine = buf.getInt();
+        preparedSpriteCount = buf.getInt();
+        spriteCountThisLine = buf.getInt();
+        buf.get(secondaryOam);
+        for (int i = 0; i < EXTENDED_SPRITE_DRAW_LIMIT; i++) {
+            preparedSpriteIndices[i] = buf.getShort();
+            preparedPatternLow[i] = buf.get() & 0xFF;
+            preparedPatternHigh[i] = buf.get() & 0xFF;
+            spriteIndices[i] = buf.getShort();
+            activePatternLow[i] = buf.get() & 0xFF;
+            activePatternHigh[i] = buf.get() & 0xFF;
+            activeSpriteX[i] = buf.get() & 0xFF;
+            activeSpriteAttr[i] = buf.get() & 0xFF;
+        }
+        // Line buffers are derived data: rebuild them from the restored sprite lists
+        for (int i = 0; i < preparedSpriteCount; i++) {
+            int base = (preparedSpriteIndices[i] & 0x3F) * 4;
+            preparedSpriteAttr[i] = oam[base + 2] & 0xFF;
+            preparedSpriteX[i] = oam[base + 3] & 0xFF;
+        }
+        compositeSpriteLine(preparedSpriteLine, preparedSpriteCount, preparedSpriteIndices,
+                preparedPatternLow, preparedPatternHigh, preparedSpriteAttr, preparedSpriteX);
+        compositeSpriteLine(activeSpriteLine, spriteCountThisLine, spriteIndices,
+                activePatternLow, activePatternHigh, activeSpriteAttr, activeSpriteX);
+    }
+
     /** Expose CTRL register for save-state */
     public int getCtrl() {
         return regCTRL & 0xFF;
@@ -1072,6 +1540,8 @@ public class PPU implements NesPPU {
     public void forceCoreState(int mask, int status, int ctrl, int scan, int cyc, int vram, int tAddr, int fineXVal,
             int frameVal) {
         this.regMASK = mask & 0xFF;
+        palette.setMask(regMASK);
+        resetCompactMaskSlots();
         this.regSTATUS = status & 0xFF;
         this.regCTRL = ctrl & 0xFF;
         // Clamp incoming scanline/cycle to valid ranges to avoid negative/overflow
@@ -1092,6 +1562,7 @@ public class PPU implements NesPPU {
         this.vramAddress = vram & 0x7FFF;
         this.tempAddress = tAddr & 0x7FFF;
         this.fineX = fineXVal & 0x07;
+        this.fineXTap = 15 - this.fineX;
         this.frame = frameVal & 0xFFFFFFFFL;
         this.nmiFiredThisVblank = false; // reset latch to allow NMI logic to resync
         // Invalidate cached sprite prep so evaluation restarts clean next scanline
@@ -1200,7 +1671,7 @@ public class PPU implements NesPPU {
     /**
      * Internal PPU memory write abstraction.
      * Writes to CHR go through mapper (CHR RAM) or local patternTables fallback.
-     * Nametable writes honor current mirroring via mapper.getMirrorType().
+     * Nametable writes go through the mapper's nametable page table.
      * Palette writes are forwarded to Palette helper; attribute & nametable runtime
      * logs may be emitted for diagnostics.
      */
@@ -1217,16 +1688,11 @@ public class PPU implements NesPPU {
             int nt = (addr - 0x2000) & 0x0FFF;
             int index = nt & 0x03FF;
             int table = (nt >> 10) & 0x03; // logical
-            int physical;
-            MirrorType mt = (mapper != null) ? mapper.getMirrorType() : MirrorType.VERTICAL;
-            switch (mt) {
-                case VERTICAL -> physical = table & 0x01;
-                case HORIZONTAL -> physical = (table >> 1);
-                case SINGLE0 -> physical = 0;
-                case SINGLE1 -> physical = 1;
-                default -> physical = table & 0x01;
+            if (mapper != null) {
+                mapper.ppuWriteNametable(addr, value, nameTables); // mapper page table
+            } else {
+                nameTables[((table & 0x01) * 0x0400) + index] = (byte) value; // default vertical
             }
-            nameTables[(physical * 0x0400) + index] = (byte) value;
             // Attribute table logging ($23C0-$23FF etc.) after mirroring mapping
             // Reconstruct base logical address for determining attribute section
             int logicalBase = 0x2000 | nt; // before mirroring
@@ -1239,14 +1705,14 @@ public class PPU implements NesPPU {
                 if (pass && nametableLogCount < nametableLogLimit) {
                     verboseLog(
                             "[PPU NT WR] addr=%04X val=%02X frame=%d scan=%d cyc=%d table=%d phys=%d index=%03X%n",
-                            logicalBase, value & 0xFF, frame, scanline, cycle, table, physical, index);
+                            logicalBase, value & 0xFF, frame, scanline, cycle, table, physicalNameTable(table), index);
                     nametableLogCount++;
                 }
             }
             if (isAttr && (LOG_ATTR || attrRuntimeLog)) {
                 if (!attrRuntimeLog || attrLogCount < attrLogLimit) {
                     verboseLog("[PPU ATTR WR] addr=%04X val=%02X frame=%d scan=%d cyc=%d table=%d phys=%d%n",
-                            logicalBase, value & 0xFF, frame, scanline, cycle, table, physical);
+                            logicalBase, value & 0xFF, frame, scanline, cycle, table, physicalNameTable(table));
                     attrLogCount++;
                 }
             }
@@ -1368,6 +1834,50 @@ public class PPU implements NesPPU {
             addrHi = addrLo + 8;
             preparedPatternLow[i] = ppuMemoryRead(addrLo);
             preparedPatternHigh[i] = ppuMemoryRead(addrHi);
+            preparedSpriteAttr[i] = attr;
+            preparedSpriteX[i] = oam[base + 3] & 0xFF;
+        }
+    }
+
+    /**
+     * Resolve sprite priority for a whole line: for each X keep the first opaque
+     * pixel in OAM order (the same winner the per-dot scan used to pick).
+     *
+     * @param dst
+     * @param count
+     * @param indices
+     * @param low
+     * @param high
+     * @param attrs
+     * @param xs
+     */
+    private void compositeSpriteLine(byte[] dst, int count, int[] indices, int[] low, int[] high,
+            int[] attrs, int[] xs) {
+        java.util.Arrays.fill(dst, (byte) 0);
+        int maxDraw = unlimitedSprites ? EXTENDED_SPRITE_DRAW_LIMIT : HW_SPRITE_LIMIT;
+        int drawCount = Math.min(count, maxDraw);
+        for (int si = 0; si < drawCount; si++) {
+            int attr = attrs[si];
+            int x = xs[si];
+            int lo = low[si];
+            int hi = high[si];
+            if ((lo | hi) == 0)
+                continue;
+            int flags = (attr & 0x03) << 2;
+            if ((attr & 0x20) != 0)
+                flags |= SPR_LINE_BEHIND;
+            if (indices[si] == 0)
+                flags |= SPR_LINE_ZERO;
+            boolean flipH = (attr & 0x40) != 0;
+            int end = Math.min(8, 256 - x);
+            for (int col = 0; col < end; col++) {
+                if (dst[x + col] != 0)
+                    continue; // lower OAM index already won this pixel
+                int bit = flipH ? col : (7 - col);
+                int pattern = (((hi >> bit) & 1) << 1) | ((lo >> bit) & 1);
+                if (pattern != 0)
+                    dst[x + col] = (byte) (flags | pattern);
+            }
         }
     }
 
@@ -1380,17 +1890,20 @@ public class PPU implements NesPPU {
         if (preparedLine != scanline) {
             evaluateSpritesForLine(scanline); // fallback
             fetchSpritePatterns(scanline);
+            compositeSpriteLine(preparedSpriteLine, preparedSpriteCount, preparedSpriteIndices,
+                    preparedPatternLow, preparedPatternHigh, preparedSpriteAttr, preparedSpriteX);
         }
         spriteCountThisLine = preparedSpriteCount;
         for (int i = 0; i < spriteCountThisLine; i++) {
-            int idx = preparedSpriteIndices[i];
-            spriteIndices[i] = idx;
+            spriteIndices[i] = preparedSpriteIndices[i];
             activePatternLow[i] = preparedPatternLow[i];
             activePatternHigh[i] = preparedPatternHigh[i];
-            int base = idx * 4;
-            activeSpriteAttr[i] = oam[base + 2] & 0xFF;
-            activeSpriteX[i] = oam[base + 3] & 0xFF;
+            activeSpriteAttr[i] = preparedSpriteAttr[i];
+            activeSpriteX[i] = preparedSpriteX[i];
         }
+        byte[] t = activeSpriteLine;
+        activeSpriteLine = preparedSpriteLine;
+        preparedSpriteLine = t;
     }
 
     /**
@@ -1414,76 +1927,67 @@ public class PPU implements NesPPU {
         }
         if (xPixel < 8 && (regMASK & PpuRegs.MASK_SPR_LEFT) == 0)
             return;
-        int bgOriginal = bgBaseIndexBuffer[sl * 256 + xPixel] & 0x0F;
-        int maxDraw = unlimitedSprites ? EXTENDED_SPRITE_DRAW_LIMIT : HW_SPRITE_LIMIT;
-        int drawCount = Math.min(spriteCountThisLine, Math.min(maxDraw, spriteIndices.length));
-        for (int si = 0; si < drawCount; si++) {
-            int spriteIndex = spriteIndices[si];
-            int attr = activeSpriteAttr[si];
-            int x = activeSpriteX[si];
-            if (xPixel < x || xPixel >= x + 8)
-                continue;
-
-            boolean flipH = (attr & 0x40) != 0;
-            int colInSprite = xPixel - x;
-            int bit = flipH ? colInSprite : (7 - colInSprite);
-            int p0 = (activePatternLow[si] >> bit) & 1;
-            int p1 = (activePatternHigh[si] >> bit) & 1;
-            int pattern = (p1 << 1) | p0;
-            if (pattern == 0)
-                continue;
-            int paletteGroup = attr & 0x03;
-            int paletteIndex = palette.read(0x3F10 + paletteGroup * 4 + pattern);
-            boolean bgTransparent = bgOriginal == 0;
-            boolean spritePriorityFront = (attr & 0x20) == 0;
+        // Suppressed frame: once sprite-0 hit is latched nothing else is observable
+        if (renderSuppressed && (regSTATUS & PpuRegs.STATUS_SPR0_HIT) != 0)
+            return;
+        int px = activeSpriteLine[xPixel];
+        if (px == 0)
+            return;
+        int bgOriginal = (renderSuppressed || compactFrame) ? bgStoreLatch
+                : (bgBaseIndexBuffer[sl * 256 + xPixel] & 0x0F);
+        boolean bgTransparent = bgOriginal == 0;
+        boolean spritePriorityFront = (px & SPR_LINE_BEHIND) == 0;
+
+        // Sprite 0 Hit Logic
+        if ((px & SPR_LINE_ZERO) != 0) {
+            boolean hit = (bgOriginal != 0);
+            // Relaxed Sprite 0: If we are in the visible region and have a sprite pixel,
             
-            // Sprite 0 Hit Logic
-            if (spriteIndex == 0 && pattern != 0) {
-                boolean hit = (bgOriginal != 0);
-                // Relaxed Sprite 0: If we are in the visible region and have a sprite pixel,
-                
-                // Heuristic: Double Dragon check (Safety Net)
-                // Double Dragon expects a hit at the bottom split (Y ~196). If rendering is slightly off, force it.
-                // We restrict this to sl > 180 so it NEVER affects Punch-Out (which needs hits at the top).
-                if (!hit && sl > 180 && xPixel > 230 && (regMASK & PpuRegs.MASK_BG_ENABLE) != 0) {
-                    hit = true;
-                }
+            // Heuristic: Double Dragon check (Safety Net)
+            // Double Dragon expects a hit at the bottom split (Y ~196). If rendering is slightly off, force it.
+            // We restrict this to sl > 180 so it NEVER affects Punch-Out (which needs hits at the top).
+            if (!hit && sl > 180 && xPixel > 230 && (regMASK & PpuRegs.MASK_BG_ENABLE) != 0) {
+                hit = true;
+            }
 
-                // allow hit even if BG is technically transparent (0) but opaque in palette logic?
-                // No, hardware requires non-zero BG pattern.
-                // However, ensure we don't accidentally suppress it due to left-column blanking logic if the game expects it.
-                if (xPixel < 8 && (regMASK & PpuRegs.MASK_BG_LEFT) == 0) {
-                    // If BG is hidden in left column, hardware does NOT trigger hit.
-                    // But if we are forcing left column blanking via 'always' mode, we might miss it.
-                    // For now, respect hardware flag.
-                }
+            // allow hit even if BG is technically transparent (0) but opaque in palette logic?
+            // No, hardware requires non-zero BG pattern.
+            // However, ensure we don't accidentally suppress it due to left-column blanking logic if the game expects it.
+            if (xPixel < 8 && (regMASK & PpuRegs.MASK_BG_LEFT) == 0) {
+                // If BG is hidden in left column, hardware does NOT trigger hit.
+                // But if we are forcing left column blanking via 'always' mode, we might miss it.
+                // For now, respect hardware flag.
+            }
 
-                if (hit) {
-                boolean allow = true;
-                // Removed x=255 check to be more permissive for Double Dragon.
-                // Hardware quirk says no hit at 255, but timing jitter might shift it there.
-                if (xPixel < 8) {
-                    if ((regMASK & PpuRegs.MASK_BG_LEFT) == 0 || (regMASK & PpuRegs.MASK_SPR_LEFT) == 0)
-                        allow = false;
-                }
-                if (allow) {
-                    if ((regSTATUS & PpuRegs.STATUS_SPR0_HIT) == 0) { // first time this frame
-                        sprite0HitSetFrame = frame;
-                        sprite0HitSetScanline = sl;
-                        sprite0HitSetCycle = cycle;
-                    }
-                    if ((regSTATUS & PpuRegs.STATUS_SPR0_HIT) == 0 && verboseLogging) {
-                         verboseLog("[PPU SPR0 HIT] frame=%d scan=%d cyc=%d x=%d\n", frame, sl, cycle, xPixel);
-                    }
-                    regSTATUS |= PpuRegs.STATUS_SPR0_HIT;
+            if (hit) {
+            boolean allow = true;
+            // Removed x=255 check to be more permissive for Double Dragon.
+            // Hardware quirk says no hit at 255, but timing jitter might shift it there.
+            if (xPixel < 8) {
+                if ((regMASK & PpuRegs.MASK_BG_LEFT) == 0 || (regMASK & PpuRegs.MASK_SPR_LEFT) == 0)
+                    allow = false;
+            }
+            if (allow) {
+                if ((regSTATUS & PpuRegs.STATUS_SPR0_HIT) == 0) { // first time this frame
+                    sprite0HitSetFrame = frame;
+                    sprite0HitSetScanline = sl;
+                    sprite0HitSetCycle = cycle;
                 }
+                if ((regSTATUS & PpuRegs.STATUS_SPR0_HIT) == 0 && verboseLogging) {
+                     verboseLog("[PPU SPR0 HIT] frame=%d scan=%d cyc=%d x=%d\n", frame, sl, cycle, xPixel);
                 }
+                regSTATUS |= PpuRegs.STATUS_SPR0_HIT;
+            }
             }
-            if (spritePriorityFront || bgTransparent) {
-                frameIndexBuffer[sl * 256 + xPixel] = paletteIndex & 0x0F;
-                frameBuffer[sl * 256 + xPixel] = palette.getArgb(paletteIndex, regMASK);
+        }
+        if (!renderSuppressed && (spritePriorityFront || bgTransparent)) {
+            if (compactFrame) {
+                compactBuffer[sl * 256 + xPixel] = (byte) (compactSlotBits | paletteColor[0x10 | (px & 0x0F)]);
+                return;
             }
-            break;
+            int paletteIndex = palette.read(0x3F10 + (px & 0x0F));
+            frameIndexBuffer[sl * 256 + xPixel] = paletteIndex & 0x0F;
+            frameBuffer[sl * 256 + xPixel] = paletteArgb[0x10 | (px & 0x0F)];
         }
     }
 
@@ -1651,11 +2155,8 @@ public class PPU implements NesPPU {
      * visible pixel has two tiles primed. Logged optionally for diagnostics.
      */
     private void backgroundPipeline() {
-        // Only execute during visible cycles 1-256 or prefetch cycles 321-336 on
-        // visible/pre-render lines
-        boolean fetchRegion = (cycle >= 1 && cycle <= 256) || (cycle >= 321 && cycle <= 336);
-        if (!fetchRegion)
-            return;
+        // Only dispatched during visible cycles 1-256 or prefetch cycles 321-336 on
+        // visible/pre-render lines (DOT_BG_FETCH)
         int phase = cycle & 0x7; // 8-cycle tile fetch phase (1,3,5,7 fetch; 0 reload)
         if (pipelineLogEnabled && pipelineLogCount < pipelineLogLimit && isVisibleScanline() && cycle <= 256) {
             // Log skeleton before action (phase + v + coarseX/Y)
@@ -1737,6 +2238,73 @@ public class PPU implements NesPPU {
         }
     }
 
+    /**
+     * Compact-mode background pixel: latch the palette index for sprite-0 /
+     * priority and store NES colour + mask slot as one byte.
+     *
+     * @param x
+     * @param bgEnabled
+     */
+    private void produceCompactBackgroundPixel(int x, boolean bgEnabled) {
+        int pos = scanline * 256 + x;
+        compactDirty = true;
+        if (!bgEnabled) {
+            bgStoreLatch = 0;
+            compactBuffer[pos] = (byte) (compactSlotBits | paletteColor[0]);
+            return;
+        }
+        int tap = fineXTap;
+        int pattern = (((patternHighShift >> tap) & 1) << 1) | ((patternLowShift >> tap) & 1);
+        int attr = (((attributeHighShift >> tap) & 1) << 1) | ((attributeLowShift >> tap) & 1);
+        int store = (pattern == 0) ? 0 : ((attr << 2) | pattern);
+        bgStoreLatch = store;
+        boolean blankLeft = switch (leftColumnMode) {
+            case HARDWARE -> ((regMASK & PpuRegs.MASK_BG_LEFT) == 0) && x < 8;
+            case ALWAYS -> x < 8;
+            case CROP -> false; // defer to post-frame crop
+        };
+        compactBuffer[pos] = blankLeft ? (byte) COMPACT_BLANK : (byte) (compactSlotBits | paletteColor[store]);
+    }
+
+    /** Point compactSlotBits at the slot for the current PPUMASK emphasis/grayscale. */
+    private void selectCompactMaskSlot() {
+        int bits = regMASK & 0xE1;
+        for (int i = 0; i < compactMaskSlotCount; i++) {
+            if (compactMaskSlots[i] == bits) {
+                compactSlotBits = i << 6;
+                return;
+            }
+        }
+        int slot = (compactMaskSlotCount < COMPACT_SLOTS) ? compactMaskSlotCount++ : COMPACT_SLOTS - 1;
+        compactMaskSlots[slot] = bits;
+        compactSlotBits = slot << 6;
+    }
+
+    private void resetCompactMaskSlots() {
+        compactMaskSlots[0] = regMASK & 0xE1;
+        compactMaskSlotCount = 1;
+        compactSlotBits = 0;
+    }
+
+    /** Frame end in compact mode: keep this frame's slots for a later conversion. */
+    private void finishCompactFrame() {
+        System.arraycopy(compactMaskSlots, 0, compactFrameSlots, 0, COMPACT_SLOTS);
+        compactFrameSlotCount = compactMaskSlotCount;
+        compactLutValid = false;
+        compactPending = true;
+        compactDirty = false;
+    }
+
+    /** Resolve compactBuffer to ARGB in frameBuffer (one table lookup per pixel). */
+    private void convertCompactFrame() {
+        int[] lut = getCompactFrameLut();
+        byte[] src = compactBuffer;
+        int[] dst = frameBuffer;
+        for (int i = 0; i < src.length; i++)
+            dst[i] = lut[src[i] & 0xFF];
+        compactPending = false;
+    }
+
     /**
      * Generate one background pixel (before sprite overlay) using current shift
      * register state. Supports optional synthetic test patterns.
@@ -1769,18 +2337,34 @@ public class PPU implements NesPPU {
                 default:
                     break;
             }
+            if (compactFrame) {
+                compactBuffer[scanline * 256 + x] = (byte) (compactSlotBits | paletteColor[paletteIndex]);
+                compactDirty = true;
+                return;
+            }
             frameIndexBuffer[scanline * 256 + x] = paletteIndex;
             int colorIndex = palette.read(0x3F00 + paletteIndex);
             frameBuffer[scanline * 256 + x] = palette.getArgb(colorIndex, regMASK & ~0x01); // remove grayscale bit
             return;
         }
 
+        if (renderSuppressed) {
+            // Only the opaque/transparent state matters (sprite-0 hit); no buffers
+            bgStoreLatch = bgEnabled ? (((patternHighShift >> fineXTap) & 1) << 1)
+                    | ((patternLowShift >> fineXTap) & 1) : 0;
+            return;
+        }
+
+        if (compactFrame) {
+            produceCompactBackgroundPixel(x, bgEnabled);
+            return;
+        }
+
         if (!bgEnabled) {
             // FIX: Clear buffers when BG is disabled.
             // This ensures bgOriginal is 0, preventing false Sprite 0 hits,
             // and draws the universal background color instead of stale pixels.
-            int colorIndex = palette.read(0x3F00);
-            frameBuffer[scanline * 256 + x] = palette.getArgb(colorIndex, regMASK);
+            frameBuffer[scanline * 256 + x] = paletteArgb[0];
             frameIndexBuffer[scanline * 256 + x] = 0;
             bgBaseIndexBuffer[scanline * 256 + x] = 0;
             return;
@@ -1822,8 +2406,7 @@ public class PPU implements NesPPU {
         }
 
         frameIndexBuffer[pos] = store; // initial background value (may be replaced by sprite)
-        int colorIndex = palette.read(0x3F00 + ((pattern == 0) ? 0 : paletteIndex));
-        frameBuffer[scanline * 256 + x] = palette.getArgb(colorIndex, regMASK);
+        frameBuffer[pos] = paletteArgb[store];
         if ((debugBgSample || debugBgSampleAll) && debugBgSampleCount < debugBgSampleLimit) {
             verboseLog(
                     "[BG-SAMPLE] frame=%d scan=%d cyc=%d x=%d fineX=%d tap=%d patLoSh=%04X patHiSh=%04X attrLoSh=%04X attrHiSh=%04X nt=%02X at=%02X bits={%d%d attr=%d} palIdx=%X store=%X\n",
@@ -1890,8 +2473,8 @@ public class PPU implements NesPPU {
 
     // ------------------- Helpers -------------------
 
-    // Global verbose logging toggle (covers internal debug/instrumentation prints)
-    private static volatile boolean verboseLogging = true;
+    // Verbose logging toggle (covers internal debug/instrumentation prints)
+    private volatile boolean verboseLogging = true;
 
     // Synthetic test patterns
     private static final int TEST_NONE = 0;
@@ -1951,16 +2534,16 @@ public class PPU implements NesPPU {
      * @param fmt
      * @param args
      */
-    private static void verboseLog(String fmt, Object... args) {
+    private void verboseLog(String fmt, Object... args) {
         if (verboseLogging)
             Log.debug(PPU, fmt, args);
     }
 
-    public static void setVerboseLogging(boolean enable) {
+    public void setVerboseLogging(boolean enable) {
         verboseLogging = enable;
     }
 
-    public static boolean isVerboseLogging() {
+    public boolean isVerboseLogging() {
         return verboseLogging;
     }
 
@@ -1975,13 +2558,22 @@ public class PPU implements NesPPU {
     }
 
     public void applyPostFrameCroppingIfNeeded() {
-        if (leftColumnMode == LeftColumnMode.CROP) {
-            for (int y = 0; y < 240; y++) {
-                int base = y * 256;
-                for (int x = 0; x < 8; x++) {
-                    frameIndexBuffer[base + x] = 0;
-                    frameBuffer[base + x] = palette.getArgb(palette.read(0x3F00), regMASK);
-                }
+        if (leftColumnMode != LeftColumnMode.CROP || renderSuppressed)
+            return;
+        if (compactFrame) {
+            // Crop colour goes through the frame LUT (COMPACT_CROP entry)
+            for (int y = 0; y < 240; y++)
+                java.util.Arrays.fill(compactBuffer, y * 256, y * 256 + 8, (byte) COMPACT_CROP);
+            compactCropArgb = paletteArgb[0];
+            compactLutValid = false;
+            compactPending = true;
+            return;
+        }
+        for (int y = 0; y < 240; y++) {
+            int base = y * 256;
+            for (int x = 0; x < 8; x++) {
+                frameIndexBuffer[base + x] = 0;
+                frameBuffer[base + x] = paletteArgb[0];
             }
         }
     }
@@ -23,6 +23,18 @@ public class Palette {
     // indices.
     private final int[] paletteRam = new int[32];
 
+    // Live ARGB for each palette RAM index (0..31, mirrors resolved) under the
+    // current PPUMASK emphasis/grayscale bits. Refreshed only on palette RAM
+    // writes or when those mask bits change, so the pixel loop is one lookup.
+    private final int[] resolved = new int[32];
+    // Same indexing, raw 6-bit colour (== read(0x3F00 + i)) for index-only output
+    private final int[] resolvedColor = new int[32];
+    private int resolvedMask; // PPUMASK bits 7..5 + 0 the table was built for
+
+    {
+        resolveAll();
+    }
+
     // Pre-calculated ARGB cache: 8 emphasis modes * 64 colors = 512 entries
     private static final int[] PALETTE_CACHE = new int[512];
 
@@ -74,6 +86,8 @@ public class Palette {
             int base = index - 16;
             paletteRam[base] = paletteRam[index];
         }
+        resolveEntry(index);
+        resolveEntry(index ^ 0x10);
     }
 
     /**
@@ -130,6 +144,51 @@ public class Palette {
         return rgb;
     }
 
+    /**
+     * Update the PPUMASK bits used by the resolved table (emphasis 7..5 and
+     * grayscale 0); the 32 entries are rebuilt only when those bits change.
+     *
+     * @param mask
+     */
+    public void setMask(int mask) {
+        int bits = mask & 0xE1;
+        if (bits != resolvedMask) {
+            resolvedMask = bits;
+            resolveAll();
+        }
+    }
+
+    /**
+     * Live resolved ARGB table indexed by palette RAM index (0..31): entry i is
+     * {@code getArgb(read(0x3F00 + i), mask)}. Callers must not modify it.
+     *
+     * @return
+     */
+    int[] resolvedTable() {
+        return resolved;
+    }
+
+    /**
+     * Live colour table indexed by palette RAM index (0..31): entry i is
+     * {@code read(0x3F00 + i)}. Callers must not modify it.
+     *
+     * @return
+     */
+    int[] resolvedColorTable() {
+        return resolvedColor;
+    }
+
+    private void resolveEntry(int index) {
+        int color = paletteRam[decodeAddress(index)] & 0x3F;
+        resolvedColor[index] = color;
+        resolved[index] = getArgb(color, resolvedMask);
+    }
+
+    private void resolveAll() {
+        for (int i = 0; i < resolved.length; i++)
+            resolveEntry(i);
+    }
+
     /**
      * Get universal background color (palette RAM index 0).
      * 
@@ -157,21 +216,40 @@ public class Palette {
      */
     void debugWriteRaw(int index, int value) {
         paletteRam[index & 0x1F] = value & 0x3F;
+        resolveEntry(index & 0x1F);
+        resolveEntry((index & 0x1F) ^ 0x10);
     }
 
     // --- Save-state helpers ---
     byte[] copyRaw() {
         byte[] out = new byte[paletteRam.length];
-        for (int i = 0; i < paletteRam.length; i++)
-            out[i] = (byte) (paletteRam[i] & 0x3F);
+        copyRaw(out, 0);
         return out;
     }
 
+    void copyRaw(byte[] dst, int off) {
+        for (int i = 0; i < paletteRam.length; i++)
+            dst[off + i] = (byte) (paletteRam[i] & 0x3F);
+    }
+
     void loadRaw(byte[] data) {
         if (data == null)
             return;
         int len = Math.min(data.length, paletteRam.length);
         for (int i = 0; i < len; i++)
             paletteRam[i] = data[i] & 0x3F;
+        resolveAll();
+    }
+
+    void writeRaw(java.nio.ByteBuffer buf) {
+        for (int i = 0; i < paletteRam.length; i++)
+            buf.put((byte) (paletteRam[i] & 0x3F));
+    }
+
+    void readRaw(java.nio.ByteBuffer buf, int len) {
+        int n = Math.min(len, paletteRam.length);
+        for (int i = 0; i < n; i++)
+            paletteRam[i] = buf.get() & 0x3F;
+        resolveAll();
     }
 }
\ No newline at end of file
@@ -0,0 +1,551 @@
+package com.nesemu.rom;
+
+import com.nesemu.util.Log;
+import static com.nesemu.util.Log.Cat.*;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Index of a ROM library: CRC32 / SHA-1 of PRG+CHR (trainer and header
+ * excluded, so a .nes and its .zip hash alike) plus the 16 header bytes of
+ * every ROM under a directory. Scans hash files in parallel and skip files
+ * whose size and mtime match the cached entry. The index persists to a compact
+ * binary file.
+ * <p>
+ * Cartridge-sized files are read into a reused per-thread buffer; only files
+ * above {@link #MMAP_THRESHOLD} are memory-mapped. A mapping is released only
+ * by the GC and, on Windows, keeps its file locked until then, so mapping a
+ * whole library would block renaming/deleting ROMs.
+ * <p>
+ * Scans and saves must not run concurrently (use one scanning thread); queries
+ * are safe from any thread at any time and see the entries of the last
+ * completed scan (each scan publishes a new map).
+ */
+public class RomIndex {
+
+    private static final int MAGIC = 0x52325249; // 'R2RI'
+    private static final int VERSION = 1;
+    private static final int SHA1_BYTES = 20;
+
+    /** .nes files larger than this are memory-mapped instead of read. */
+    public static final long MMAP_THRESHOLD = 8L << 20;
+
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER = new ThreadLocal<>();
+
+    private final Path indexFile; // null = memory only
+    // By absolute path; each scan publishes a new map (never mutated afterwards)
+    private volatile TreeMap<String, Entry> entries = new TreeMap<>();
+    private volatile boolean dirty;
+
+    private int lastHashed, lastReused, lastRemoved, lastFailed;
+
+    /**
+     * Index entry (immutable).
+     */
+    public static final class Entry {
+        private final Path path;
+        private final long size;
+        private final long modified; // mtime, ms
+        private final int crc32;
+        private final byte[] sha1;
+        private final INesHeader header;
+
+        Entry(Path path, long size, long modified, int crc32, byte[] sha1, INesHeader header) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.crc32 = crc32;
+            this.sha1 = sha1;
+            this.header = header;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        /** File size in bytes (invalidation key). */
+        public long getSize() {
+            return size;
+        }
+
+        /** File modification time in ms (invalidation key). */
+        public long getModified() {
+            return modified;
+        }
+
+        /** CRC32 of PRG+CHR. */
+        public int getCrc32() {
+            return crc32;
+        }
+
+        /** CRC32 of PRG+CHR as 8 hex digits. */
+        public String getCrc32Hex() {
+            return HexFormat.of().toHexDigits(crc32);
+        }
+
+        /** SHA-1 of PRG+CHR as 40 hex digits. */
+        public String getSha1() {
+            return HexFormat.of().formatHex(sha1);
+        }
+
+        /** Parsed iNES header (mapper, mirroring, sizes, battery...). */
+        public INesHeader getHeader() {
+            return header;
+        }
+
+        /**
+         * Load the full ROM.
+         *
+         * @return
+         * @throws IOException
+         */
+        public INesRom load() throws IOException {
+            return RomLoader.load(path);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s crc=%s sha1=%s mapper=%d PRG=%dK CHR=%dK %s%s", path, getCrc32Hex(),
+                    getSha1(), header.getMapper(), header.getPrgRomPages() * 16, header.getChrRomPages() * 8,
+                    header.isVerticalMirroring() ? "V" : "H", header.isBatteryBacked() ? " battery" : "");
+        }
+    }
+
+    private RomIndex(Path indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /** Empty index that is never persisted. */
+    public static RomIndex inMemory() {
+        return new RomIndex(null);
+    }
+
+    /**
+     * Open an index file (empty index if missing; unreadable or outdated files
+     * are discarded and rebuilt on the next scan).
+     *
+     * @param indexFile
+     * @return
+     */
+    public static RomIndex open(Path indexFile) {
+        RomIndex idx = new RomIndex(indexFile);
+        if (!Files.isRegularFile(indexFile))
+            return idx;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("formato desconhecido");
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                int crc = in.readInt();
+                byte[] sha1 = new byte[SHA1_BYTES];
+                in.readFully(sha1);
+                byte[] header = new byte[INesHeader.HEADER_SIZE];
+                in.readFully(header);
+                idx.entries.put(path,
+                        new Entry(Path.of(path), size, modified, crc, sha1, INesHeader.parse(header)));
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.warn(ROM, "Índice de ROMs descartado (%s): %s", indexFile, e);
+            idx.entries = new TreeMap<>();
+            idx.dirty = true;
+        }
+        return idx;
+    }
+
+    /**
+     * Bring the entries under {@code dir} (recursively; .nes and .zip) up to
+     * date: new or changed files (size/mtime) are hashed in parallel, entries
+     * of vanished files are dropped. Entries of other directories are kept.
+     *
+     * @param dir
+     * @param threads worker threads (&lt;= 0 = available processors)
+     * @throws IOException if the directory cannot be listed
+     */
+    public void scan(Path dir, int threads) throws IOException {
+        scan(dir, threads, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #scan(Path, int)}, limited to {@code maxDepth} directory
+     * levels (1 = only the files directly in {@code dir}).
+     *
+     * @param dir
+     * @param threads
+     * @param maxDepth
+     * @throws IOException
+     */
+    public void scan(Path dir, int threads, int maxDepth) throws IOException {
+        Path root = dir.toAbsolutePath().normalize();
+        List<Path> files;
+        try (Stream<Path> s = Files.walk(root, maxDepth)) {
+            files = s.filter(RomIndex::isRomFile).toList();
+        }
+        lastHashed = lastReused = lastRemoved = lastFailed = 0;
+        TreeMap<String, Entry> entries = new TreeMap<>(this.entries);
+        try {
+            scanInto(entries, root, files, threads, maxDepth);
+        } finally {
+            this.entries = entries;
+        }
+    }
+
+    private void scanInto(TreeMap<String, Entry> entries, Path root, List<Path> files, int threads,
+            int maxDepth) throws IOException {
+
+        List<Path> stale = new ArrayList<>();
+        Set<String> present = new HashSet<>(files.size() * 2);
+        for (Path p : files) {
+            String key = p.toString();
+            present.add(key);
+            Entry e = entries.get(key);
+            if (e != null && e.size == sizeOf(p) && e.modified == mtimeOf(p))
+                lastReused++;
+            else
+                stale.add(p);
+        }
+        String prefix = root.toString().endsWith(root.getFileSystem().getSeparator()) ? root.toString()
+                : root + root.getFileSystem().getSeparator();
+        var it = entries.subMap(prefix, prefix + Character.MAX_VALUE).keySet().iterator();
+        while (it.hasNext()) {
+            String key = it.next();
+            boolean visited = maxDepth == Integer.MAX_VALUE
+                    || root.relativize(Path.of(key)).getNameCount() <= maxDepth;
+            if (visited && !present.contains(key)) {
+                it.remove();
+                lastRemoved++;
+                dirty = true;
+            }
+        }
+        if (stale.isEmpty())
+            return;
+
+        int n = Math.min(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), stale.size());
+        ExecutorService pool = Executors.newFixedThreadPool(n, r -> {
+            Thread t = new Thread(r, "rom-index");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Entry>> futures = new ArrayList<>(stale.size());
+            for (Path p : stale)
+                futures.add(pool.submit(() -> read(p)));
+            for (int i = 0; i < stale.size(); i++) {
+                String key = stale.get(i).toString();
+                try {
+                    entries.put(key, futures.get(i).get());
+                    lastHashed++;
+                } catch (ExecutionException ex) {
+                    Throwable c = ex.getCause();
+                    if (!(c instanceof NoSuchFileException))
+                        Log.warn(ROM, "ROM ignorada no índice %s: %s", key, c.getMessage());
+                    if (entries.remove(key) != null)
+                        lastRemoved++;
+                    lastFailed++;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("scan interrompido", ex);
+                }
+                dirty = true;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Hash and parse a single ROM file (.nes read directly, memory-mapped above
+     * {@link #MMAP_THRESHOLD}; .zip via {@link RomLoader}).
+     *
+     * @param file
+     * @return
+     * @throws IOException on unreadable / malformed ROM
+     */
+    public static Entry read(Path file) throws IOException {
+        Path p = file.toAbsolutePath().normalize();
+        long size = Files.size(p);
+        long modified = mtimeOf(p);
+        CRC32 crc = new CRC32();
+        MessageDigest sha1 = sha1();
+        INesHeader header;
+        if (p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".zip")) {
+            INesRom rom = RomLoader.load(p);
+            header = rom.getHeader();
+            byte[] prg = rom.getPrgRom();
+            byte[] chr = rom.getChrRom();
+            crc.update(prg);
+            crc.update(chr);
+            sha1.update(prg);
+            sha1.update(chr);
+        } else {
+            try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+                if (size < INesHeader.HEADER_SIZE)
+                    throw new IOException("File shorter than 16 bytes");
+                ByteBuffer image = (size > MMAP_THRESHOLD) ? ch.map(FileChannel.MapMode.READ_ONLY, 0, size)
+                        : readFully(ch, (int) size);
+                if (image.limit() < INesHeader.HEADER_SIZE)
+                    throw new IOException("File shorter than 16 bytes"); // shrank while reading
+                byte[] raw = new byte[INesHeader.HEADER_SIZE];
+                image.get(0, raw);
+                header = INesHeader.parse(raw);
+                long start = INesHeader.HEADER_SIZE + (header.hasTrainer() ? 512 : 0);
+                long end = start + header.getPrgRomPages() * 16384L + header.getChrRomPages() * 8192L;
+                if (end > image.limit())
+                    throw new IOException("Incomplete PRG/CHR-ROM");
+                ByteBuffer data = image.slice((int) start, (int) (end - start));
+                crc.update(data.duplicate());
+                sha1.update(data);
+            }
+        }
+        return new Entry(p, size, modified, (int) crc.getValue(), sha1.digest(), header);
+    }
+
+    // Whole file into this thread's reusable buffer
+    private static ByteBuffer readFully(FileChannel ch, int size) throws IOException {
+        ByteBuffer buf = READ_BUFFER.get();
+        if (buf == null || buf.capacity() < size) {
+            buf = ByteBuffer.allocate(Math.max(size, 1 << 20));
+            READ_BUFFER.set(buf);
+        }
+        buf.clear().limit(size);
+        while (buf.hasRemaining() && ch.read(buf) >= 0) {
+        }
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Write the index file if anything changed. Each write goes to its own temp
+     * file + atomic rename, so concurrent processes never corrupt the index
+     * (last writer wins).
+     *
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        if (indexFile == null || !dirty)
+            return;
+        Path parent = indexFile.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent != null ? parent : Path.of("."), indexFile.getFileName() + ".",
+                ".tmp");
+        boolean written = false;
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                TreeMap<String, Entry> snapshot = entries;
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> me : snapshot.entrySet()) {
+                    Entry e = me.getValue();
+                    out.writeUTF(me.getKey());
+                    out.writeLong(e.size);
+                    out.writeLong(e.modified);
+                    out.writeInt(e.crc32);
+                    out.write(e.sha1);
+                    out.write(e.header.getRaw(), 0, INesHeader.HEADER_SIZE);
+                }
+            }
+            written = true;
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Lost a rename race (Windows refuses to replace a file in use): the
+            // other writer's index stays; this scan is redone next time
+            if (!written || !Files.isRegularFile(indexFile))
+                throw e;
+            Log.debug(ROM, "Índice de ROMs gravado por outro processo: %s", e.getMessage());
+            return;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        dirty = false;
+    }
+
+    /**
+     * Cached entry of a file (possibly stale: compare size / mtime).
+     *
+     * @param file
+     * @return null if not indexed
+     */
+    public Entry get(Path file) {
+        return entries.get(file.toAbsolutePath().normalize().toString());
+    }
+
+    /** All entries, by path. */
+    public List<Entry> entries() {
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * @param sha1Hex full SHA-1 or a prefix (case-insensitive)
+     * @return
+     */
+    public List<Entry> findBySha1(String sha1Hex) {
+        String h = sha1Hex.trim().toLowerCase(Locale.ROOT);
+        return find(e -> e.getSha1().startsWith(h));
+    }
+
+    public List<Entry> findByCrc32(int crc32) {
+        return find(e -> e.crc32 == crc32);
+    }
+
+    public List<Entry> findByMapper(int mapper) {
+        return find(e -> e.header.getMapper() == mapper);
+    }
+
+    /**
+     * Entries matching a selector: {@code sha1:HEX}, {@code crc:HEX} or
+     * {@code mapper:N}.
+     *
+     * @param selector
+     * @return
+     * @throws IllegalArgumentException on malformed selector
+     */
+    public List<Entry> select(String selector) {
+        int colon = selector.indexOf(':');
+        if (colon < 0)
+            throw new IllegalArgumentException("Seletor inválido: " + selector);
+        String kind = selector.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+        String val = selector.substring(colon + 1).trim();
+        return switch (kind) {
+            case "sha1" -> findBySha1(val);
+            case "crc", "crc32" -> findByCrc32(Integer.parseUnsignedInt(val, 16));
+            case "mapper" -> findByMapper(Integer.parseInt(val));
+            default -> throw new IllegalArgumentException("Seletor inválido: " + selector);
+        };
+    }
+
+    private List<Entry> find(Predicate<Entry> filter) {
+        List<Entry> out = new ArrayList<>();
+        for (Entry e : entries.values())
+            if (filter.test(e))
+                out.add(e);
+        return out;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Files hashed by the last scan (new or changed). */
+    public int getLastHashed() {
+        return lastHashed;
+    }
+
+    /** Files served from the cached entry by the last scan. */
+    public int getLastReused() {
+        return lastReused;
+    }
+
+    /** Entries dropped by the last scan (file gone or no longer a valid ROM). */
+    public int getLastRemoved() {
+        return lastRemoved;
+    }
+
+    /** Files the last scan could not index. */
+    public int getLastFailed() {
+        return lastFailed;
+    }
+
+    private static boolean isRomFile(Path p) {
+        String n = p.getFileName().toString().toLowerCase(Locale.ROOT);
+        return (n.endsWith(".nes") || n.endsWith(".zip")) && Files.isRegularFile(p);
+    }
+
+    private static long sizeOf(Path p) {
+        try {
+            return Files.size(p);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static long mtimeOf(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * CLI: {@code RomIndex <dir> [--index=FILE] [--threads=N] [--select=sha1:X|crc:X|mapper:N]}.
+     * Scans, saves the index and lists the (selected) entries.
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        Path dir = null;
+        Path file = null;
+        int threads = 0;
+        String selector = null;
+        for (String a : args) {
+            if (a.startsWith("--index="))
+                file = Path.of(a.substring(8));
+            else if (a.startsWith("--threads="))
+                threads = Integer.parseInt(a.substring(10));
+            else if (a.startsWith("--select="))
+                selector = a.substring(9);
+            else
+                dir = Path.of(a);
+        }
+        if (dir == null) {
+            System.err.println(
+                    "Uso: RomIndex <dir> [--index=FILE] [--threads=N] [--select=sha1:X|crc:X|mapper:N]");
+            System.exit(2);
+        }
+        RomIndex idx = open(file != null ? file : defaultIndexFile());
+        long t0 = System.nanoTime();
+        idx.scan(dir, threads);
+        idx.save();
+        Log.info(ROM, "Índice: %d ROMs (%d hash, %d cache, %d removidas, %d falhas) em %d ms", idx.size(),
+                idx.getLastHashed(), idx.getLastReused(), idx.getLastRemoved(), idx.getLastFailed(),
+                (System.nanoTime() - t0) / 1_000_000);
+        for (Entry e : selector != null ? idx.select(selector) : idx.entries())
+            System.out.println(e);
+    }
+
+    /** {@code ~/.R2NES/romindex.bin} (next to the user config). */
+    public static Path defaultIndexFile() {
+        return Path.of(System.getProperty("user.home", ".")).resolve(".R2NES").resolve("romindex.bin");
+    }
+}
@@ -3,13 +3,19 @@ package com.nesemu.util;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Locale;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
- * Simple logging utility with global level and category filtering.
+ * Simple logging utility with level and category filtering.
  * Usage: Log.info(Log.Cat.CPU, "Message %d", 123);
+ * Messages go to the {@link Logger} bound to the current thread (see
+ * {@link #bind(Logger)}; emulator instances bind their own while they run) or,
+ * when none is bound, to the process-wide default logger configured by the
+ * static setters.
  */
 public final class Log {
 
@@ -33,61 +39,181 @@ public final class Log {
         CPU, PPU, APU, BUS, DMA, CONTROLLER, ROM, TEST, GENERAL
     }
 
-    // Global configuration
-    private static volatile Level globalLevel = Level.INFO;
-    private static final EnumSet<Cat> enabledCats = EnumSet.allOf(Cat.class);
-    private static final AtomicBoolean timestamps = new AtomicBoolean(false);
     private static final DateTimeFormatter TS_FMT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
 
     /**
-     * Set global logging level. Messages below this level are ignored.
+     * Logger instance: level, enabled categories, timestamps and output sink.
+     * Thread-safe; the category set is replaced as a whole (copy on write).
+     */
+    public static final class Logger {
+        private final String name; // optional prefix (instance name)
+        private final Consumer<String> sink;
+        private volatile Level level = Level.INFO;
+        private volatile Set<Cat> enabledCats = Collections.unmodifiableSet(EnumSet.allOf(Cat.class));
+        private volatile boolean timestamps = false;
+
+        /**
+         * Logger printing to System.out.
+         *
+         * @param name prefix added to each line (null = none)
+         */
+        public Logger(String name) {
+            this(name, line -> System.out.println(line));
+        }
+
+        /**
+         * @param name prefix added to each line (null = none)
+         * @param sink receives each formatted line
+         */
+        public Logger(String name, Consumer<String> sink) {
+            this.name = name;
+            this.sink = (sink != null) ? sink : line -> {
+            };
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setLevel(Level lvl) {
+            if (lvl != null)
+                level = lvl;
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public synchronized void enableCategory(Cat c, boolean enable) {
+            EnumSet<Cat> next = enabledCats.isEmpty() ? EnumSet.noneOf(Cat.class) : EnumSet.copyOf(enabledCats);
+            if (enable)
+                next.add(c);
+            else
+                next.remove(c);
+            enabledCats = Collections.unmodifiableSet(next);
+        }
+
+        public synchronized void setCategories(Collection<Cat> cats) {
+            EnumSet<Cat> next = EnumSet.noneOf(Cat.class);
+            if (cats != null)
+                next.addAll(cats);
+            enabledCats = Collections.unmodifiableSet(next);
+        }
+
+        public void setTimestamps(boolean on) {
+            timestamps = on;
+        }
+
+        public boolean isEnabled(Level lvl, Cat cat) {
+            return lvl.ordinal() >= level.ordinal() && enabledCats.contains(cat);
+        }
+
+        void log(Level lvl, Cat cat, String fmt, Object... args) {
+            if (!isEnabled(lvl, cat))
+                return;
+            StringBuilder sb = new StringBuilder();
+            if (timestamps)
+                sb.append(LocalDateTime.now().format(TS_FMT)).append(' ');
+            if (name != null)
+                sb.append('[').append(name).append(']');
+            sb.append('[').append(lvl.name()).append(']').append('[').append(cat.name()).append("] ");
+            sb.append(String.format(Locale.ROOT, fmt, args));
+            sink.accept(sb.toString());
+        }
+    }
+
+    // Default logger (threads with no bound instance logger)
+    private static final Logger DEFAULT = new Logger(null);
+    private static final ThreadLocal<Logger> BOUND = new ThreadLocal<>();
+    // Set once by the first bind(). Plain field: only a thread that called
+    // bind() itself can have a binding, and it always sees its own write
+    private static boolean anyBound;
+
+    /**
+     * Process-wide default logger.
+     *
+     * @return
+     */
+    public static Logger getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Route this thread's messages to a logger until {@link #restore(Logger)}.
+     *
+     * @param logger
+     * @return previously bound logger (null = default), to pass to restore
+     */
+    public static Logger bind(Logger logger) {
+        if (logger != null)
+            anyBound = true;
+        Logger prev = BOUND.get();
+        BOUND.set(logger);
+        return prev;
+    }
+
+    /**
+     * Restore the binding returned by {@link #bind(Logger)}.
+     *
+     * @param prev
+     */
+    public static void restore(Logger prev) {
+        if (prev == null)
+            BOUND.remove();
+        else
+            BOUND.set(prev);
+    }
+
+    private static Logger current() {
+        if (!anyBound)
+            return DEFAULT; // no instance logger yet: skip the ThreadLocal
+        Logger l = BOUND.get();
+        return (l != null) ? l : DEFAULT;
+    }
+
+    /**
+     * Set default logging level. Messages below this level are ignored.
      * 
      * @param lvl
      */
     public static void setLevel(Level lvl) {
-        if (lvl != null)
-            globalLevel = lvl;
+        DEFAULT.setLevel(lvl);
     }
 
     /**
-     * Enable or disable a logging category.
+     * Enable or disable a logging category (default logger).
      * 
      * @param c
      * @param enable
      */
     public static void enableCategory(Cat c, boolean enable) {
-        if (enable)
-            enabledCats.add(c);
-        else
-            enabledCats.remove(c);
+        DEFAULT.enableCategory(c, enable);
     }
 
     /**
-     * Enable or disable timestamps in log output.
+     * Enable or disable timestamps in log output (default logger).
      * 
      * @param on
      */
     public static void setTimestamps(boolean on) {
-        timestamps.set(on);
+        DEFAULT.setTimestamps(on);
     }
 
-    /** Replace enabled category set (thread-unsafe coarse reconfiguration). */
+    /** Replace enabled category set of the default logger. */
     public static void setCategories(Collection<Cat> cats) {
-        enabledCats.clear();
-        if (cats != null && !cats.isEmpty()) {
-            enabledCats.addAll(cats);
-        }
+        DEFAULT.setCategories(cats);
     }
 
     /**
-     * True if messages at this level and category are enabled.
+     * True if messages at this level and category are enabled for the current
+     * thread's logger.
      * 
      * @param lvl
      * @param cat
      * @return
      */
     public static boolean isEnabled(Level lvl, Cat cat) {
-        return lvl.ordinal() >= globalLevel.ordinal() && enabledCats.contains(cat);
+        return current().isEnabled(lvl, cat);
     }
 
     /**
@@ -99,14 +225,7 @@ public final class Log {
      * @param args
      */
     private static void log(Level lvl, Cat cat, String fmt, Object... args) {
-        if (!isEnabled(lvl, cat))
-            return;
-        StringBuilder sb = new StringBuilder();
-        if (timestamps.get())
-            sb.append(LocalDateTime.now().format(TS_FMT)).append(' ');
-        sb.append('[').append(lvl.name()).append(']').append('[').append(cat.name()).append("] ");
-        sb.append(String.format(Locale.ROOT, fmt, args));
-        System.out.println(sb.toString());
+        current().log(lvl, cat, fmt, args);
     }
 
     /**
@@ -0,0 +1,58 @@
+package com.nesemu.util;
+
+import static com.nesemu.util.Log.Cat.GENERAL;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Startup metric: time from JVM start to the first emulated frame
+ * ("time-to-first-frame"), logged once per process. The JVM start time is
+ * only queried after the frame (java.management is not loaded before it);
+ * without it the first use of this class is the origin.
+ */
+public final class StartupClock {
+
+    private static final long ORIGIN_NANOS = System.nanoTime();
+    private static volatile long firstFrameMillis = -1;
+
+    private StartupClock() {
+    }
+
+    /**
+     * @return milliseconds since the JVM started
+     */
+    public static long sinceStartMillis() {
+        long now = System.currentTimeMillis();
+        long originMillis = (System.nanoTime() - ORIGIN_NANOS) / 1_000_000L;
+        try {
+            long start = ManagementFactory.getRuntimeMXBean().getStartTime();
+            if (start > 0 && start <= now)
+                return Math.max(originMillis, now - start);
+        } catch (RuntimeException | LinkageError ignore) {
+        }
+        return originMillis;
+    }
+
+    /**
+     * Mark the first frame as done (only the first call per process counts).
+     *
+     * @param mode label for the log line (gui, headless...)
+     */
+    public static void firstFrame(String mode) {
+        if (firstFrameMillis >= 0)
+            return;
+        synchronized (StartupClock.class) {
+            if (firstFrameMillis >= 0)
+                return;
+            firstFrameMillis = sinceStartMillis();
+        }
+        Log.info(GENERAL, "Time-to-first-frame (%s): %d ms", mode, firstFrameMillis);
+    }
+
+    /**
+     * @return time-to-first-frame in ms, or -1 before the first frame
+     */
+    public static long getFirstFrameMillis() {
+        return firstFrameMillis;
+    }
+}
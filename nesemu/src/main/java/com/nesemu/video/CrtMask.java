@@ -0,0 +1,46 @@
+package com.nesemu.video;
+
+/**
+ * Precomputed CRT effect for one output width: a 3-column RGB phosphor mask
+ * (each column tinted towards R, G or B) plus darkened odd output rows
+ * (scanlines). Stored as fixed-point per-column weights so the pass is
+ * {@code c' = (c * mul + add) >> 8} per channel.
+ */
+public final class CrtMask {
+
+    final int width;
+    // [phase 0 = phosphor row | 1 = scanline row][channel R,G,B][column]
+    final int[][][] mul;
+    final int[][][] add;
+
+    /**
+     * Build the mask for an output row width.
+     *
+     * @param width     output width in pixels
+     * @param intensity 0..1 (same meaning as INI crt-alpha)
+     */
+    public CrtMask(int width, float intensity) {
+        this.width = width;
+        float i = Math.max(0f, Math.min(1f, intensity));
+        // Same base alphas as the Java2D texture overlay (40 tint, 100 scanline)
+        float tint = Math.min(255, Math.round(40 * i)) / 255f;
+        float scan = Math.min(255, Math.round(100 * i)) / 255f;
+        mul = new int[2][3][width];
+        add = new int[2][3][width];
+        for (int phase = 0; phase < 2; phase++) {
+            float dim = (phase == 1) ? (1f - scan) : 1f;
+            for (int ch = 0; ch < 3; ch++) {
+                for (int x = 0; x < width; x++) {
+                    // Blend towards the column's phosphor colour, then darken scanlines
+                    float tintAdd = (x % 3 == ch) ? 255f * tint : 0f;
+                    mul[phase][ch][x] = Math.round(256f * (1f - tint) * dim);
+                    add[phase][ch][x] = Math.round(256f * tintAdd * dim);
+                }
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+}
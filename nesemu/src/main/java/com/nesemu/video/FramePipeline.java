@@ -0,0 +1,188 @@
+package com.nesemu.video;
+
+/**
+ * Software frame pipeline: palette index -> ARGB lookup (the PPU compact
+ * frame, resolved at present time) and integer nearest-neighbour upscaling
+ * (one output raster of 256k x 240k) with an optional CRT pass
+ * ({@link CrtMask}). This class is the scalar fallback;
+ * {@link #create()} returns the jdk.incubator.vector implementation when it
+ * was built (mvn -Pvector, sources in src/vector/java), the module is present
+ * at runtime (java --add-modules jdk.incubator.vector) and it is not disabled
+ * with -Dr2nes.vector=false. Only presentation code creates pipelines, so
+ * headless runs never load the incubator module.
+ * Instances keep scratch state: use one per thread/owner.
+ */
+public class FramePipeline {
+
+    public static final int WIDTH = 256;
+    public static final int HEIGHT = 240;
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_IMPL = "com.nesemu.video.VectorFramePipeline";
+
+    // x -> source column maps per scale factor (index = k)
+    private final int[][] columnMaps = new int[9][];
+    // Resolved ARGB frame for scale(byte[], int[], ...)
+    private int[] argbScratch;
+
+    protected FramePipeline() {
+    }
+
+    /**
+     * Create the best available pipeline (vectorized when possible).
+     *
+     * @return
+     */
+    public static FramePipeline create() {
+        if (!Boolean.parseBoolean(System.getProperty("r2nes.vector", "true"))
+                || ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty())
+            return new FramePipeline();
+        try {
+            // Loaded reflectively so the scalar path never links against the
+            // incubator module (absent from builds without -Pvector)
+            return (FramePipeline) Class.forName(VECTOR_IMPL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new FramePipeline();
+        }
+    }
+
+    /**
+     * Scalar-only pipeline (reference implementation / tests).
+     *
+     * @return
+     */
+    public static FramePipeline scalar() {
+        return new FramePipeline();
+    }
+
+    public boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * dst[i] = lut[src[i] & 0xFF] for i in [0, len).
+     *
+     * @param src
+     * @param lut 256 entries
+     * @param dst
+     * @param len
+     */
+    public void lookup(byte[] src, int[] lut, int[] dst, int len) {
+        for (int i = 0; i < len; i++)
+            dst[i] = lut[src[i] & 0xFF];
+    }
+
+    /**
+     * Resolve a 256x240 indexed frame (e.g. the PPU compact frame) through lut
+     * with {@link #lookup} and upscale it like {@link #scale(int[], int[], int, CrtMask)}.
+     *
+     * @param src 256x240 bytes
+     * @param lut 256 entries
+     * @param dst
+     * @param k   1..8
+     * @param crt optional, built for width 256k
+     */
+    public void scale(byte[] src, int[] lut, int[] dst, int k, CrtMask crt) {
+        if (argbScratch == null)
+            argbScratch = new int[WIDTH * HEIGHT];
+        lookup(src, lut, argbScratch, WIDTH * HEIGHT);
+        scale(argbScratch, dst, k, crt);
+    }
+
+    /**
+     * Upscale a 256x240 ARGB frame by integer factor k (nearest neighbour) into
+     * dst (256k x 240k, row-major), applying the CRT mask when non-null.
+     *
+     * @param src
+     * @param dst
+     * @param k   1..8
+     * @param crt optional, built for width 256k
+     */
+    public void scale(int[] src, int[] dst, int k, CrtMask crt) {
+        if (k < 1 || k > 8)
+            throw new IllegalArgumentException("scale must be 1..8: " + k);
+        int outW = WIDTH * k;
+        if (dst.length < outW * HEIGHT * k)
+            throw new IllegalArgumentException("destination too small for scale " + k);
+        if (crt != null && crt.width != outW)
+            throw new IllegalArgumentException("CRT mask width " + crt.width + " != " + outW);
+        int[] xmap = columnMap(k);
+        for (int y = 0; y < HEIGHT; y++) {
+            int dstRow = y * k * outW;
+            expandRow(src, y * WIDTH, dst, dstRow, xmap, outW);
+            for (int r = 1; r < k; r++)
+                System.arraycopy(dst, dstRow, dst, dstRow + r * outW, outW);
+            if (crt != null) {
+                for (int r = 0; r < k; r++) {
+                    int outY = y * k + r;
+                    applyCrtRow(dst, dstRow + r * outW, crt, outY & 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * One output row: dst[dstOff + x] = src[srcOff + xmap[x]].
+     *
+     * @param src
+     * @param srcOff
+     * @param dst
+     * @param dstOff
+     * @param xmap
+     * @param outW
+     */
+    protected void expandRow(int[] src, int srcOff, int[] dst, int dstOff, int[] xmap, int outW) {
+        for (int x = 0; x < outW; x++)
+            dst[dstOff + x] = src[srcOff + xmap[x]];
+    }
+
+    /**
+     * Apply per-column CRT weights to one output row in place.
+     *
+     * @param row
+     * @param off
+     * @param crt
+     * @param phase 0 = phosphor row, 1 = scanline row
+     */
+    protected void applyCrtRow(int[] row, int off, CrtMask crt, int phase) {
+        applyCrtRowTail(row, off, crt, phase, 0);
+    }
+
+    /**
+     * Scalar CRT weights for columns [from, width) of one output row.
+     *
+     * @param row
+     * @param off
+     * @param crt
+     * @param phase
+     * @param from
+     */
+    protected final void applyCrtRowTail(int[] row, int off, CrtMask crt, int phase, int from) {
+        int[] mr = crt.mul[phase][0], mg = crt.mul[phase][1], mb = crt.mul[phase][2];
+        int[] ar = crt.add[phase][0], ag = crt.add[phase][1], ab = crt.add[phase][2];
+        for (int x = from; x < crt.width; x++) {
+            int v = row[off + x];
+            int r = (((v >>> 16) & 0xFF) * mr[x] + ar[x]) >>> 8;
+            int g = (((v >>> 8) & 0xFF) * mg[x] + ag[x]) >>> 8;
+            int b = ((v & 0xFF) * mb[x] + ab[x]) >>> 8;
+            row[off + x] = 0xFF000000 | (r << 16) | (g << 8) | b;
+        }
+    }
+
+    /**
+     * Output column -> source column map for scale k.
+     *
+     * @param k
+     * @return
+     */
+    protected final int[] columnMap(int k) {
+        int[] map = columnMaps[k];
+        if (map == null) {
+            map = new int[WIDTH * k];
+            for (int x = 0; x < map.length; x++)
+                map[x] = x / k;
+            columnMaps[k] = map;
+        }
+        return map;
+    }
+}
@@ -0,0 +1,37 @@
+package com.nesemu.apu;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Output filter chain behavior (NES analog response vs. bypass).
+ */
+public class ApuFilterChainTest {
+
+    @Test
+    public void off_mode_passes_samples_through() {
+        AudioFilterChain chain = new AudioFilterChain(AudioFilterChain.Mode.OFF, 44100);
+        float[] buf = { 0.1f, 0.5f, 0.9f };
+        chain.process(buf, 0, buf.length);
+        assertArrayEquals(new float[] { 0.1f, 0.5f, 0.9f }, buf);
+        assertEquals(0f, chain.outputBias());
+    }
+
+    @Test
+    public void nes_mode_removes_dc_offset() {
+        AudioFilterChain chain = new AudioFilterChain(AudioFilterChain.Mode.NES, 44100);
+        float[] buf = new float[4410];
+        java.util.Arrays.fill(buf, 0.6f);
+        chain.process(buf, 0, buf.length);
+        // 100 ms of constant input: high-pass stages settle to ~0
+        assertTrue(Math.abs(buf[buf.length - 1]) < 0.01f, "DC should decay, got " + buf[buf.length - 1]);
+        assertEquals(0.5f, chain.outputBias());
+    }
+
+    @Test
+    public void parse_mode_accepts_ini_values() {
+        assertEquals(AudioFilterChain.Mode.NES, AudioFilterChain.parseMode("NES"));
+        assertEquals(AudioFilterChain.Mode.OFF, AudioFilterChain.parseMode(" off "));
+        assertNull(AudioFilterChain.parseMode("bogus"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.nesemu.apu;
+
+import java.util.Arrays;
+
+/**
+ * Repeatable APU throughput harness (not a unit test): clocks an APU with
+ * pulse 1/2, triangle and noise active and reports output samples per second
+ * for FULL synthesis, plus the mixer + filter share (FULL minus STATE_ONLY
+ * time for the same number of samples). Samples are drained every frame.
+ * <p>
+ * Uso: java -cp target/classes:target/test-classes com.nesemu.apu.ApuMixerBench
+ * [cycles] [runs] [warmup]
+ */
+public final class ApuMixerBench {
+
+    private static final int FRAME_CYCLES = 29830;
+
+    private ApuMixerBench() {
+    }
+
+    private static void program(APU apu) {
+        apu.writeRegister(0x4015, 0x0F); // pulse1/2, triangle, noise
+        apu.writeRegister(0x4000, 0xBF); // pulse1 duty 2, constant volume 15
+        apu.writeRegister(0x4002, 0x80);
+        apu.writeRegister(0x4003, 0x01);
+        apu.writeRegister(0x4004, 0x7F); // pulse2 duty 1, constant volume 15
+        apu.writeRegister(0x4006, 0x40);
+        apu.writeRegister(0x4007, 0x02);
+        apu.writeRegister(0x4008, 0xFF); // triangle: linear counter held
+        apu.writeRegister(0x400A, 0x40);
+        apu.writeRegister(0x400B, 0x00);
+        apu.writeRegister(0x400C, 0x3F); // noise constant volume 15
+        apu.writeRegister(0x400E, 0x04);
+        apu.writeRegister(0x400F, 0x00);
+        apu.writeRegister(0x4017, 0x40); // 4-step, IRQ inhibited
+    }
+
+    // One run: nanoseconds for `cycles` CPU cycles; samples[0] += produced
+    private static long run(APU.OutputMode mode, long cycles, long[] samples) {
+        APU apu = new APU();
+        apu.reset();
+        apu.setOutputMode(mode);
+        program(apu);
+        long produced = 0;
+        float sink = 0;
+        long t0 = System.nanoTime();
+        for (long c = 0; c < cycles; c++) {
+            apu.clockCpuCycle();
+            if (c % FRAME_CYCLES == 0) {
+                for (int n = apu.getPendingSampleCount(); n > 0; n--, produced++)
+                    sink += apu.readSample();
+            }
+        }
+        for (int n = apu.getPendingSampleCount(); n > 0; n--, produced++)
+            sink += apu.readSample();
+        long t = System.nanoTime() - t0;
+        samples[0] += produced;
+        if (sink == Float.MIN_VALUE)
+            System.out.print(""); // keep the drain loop alive
+        return t;
+    }
+
+    private static long median(long[] v) {
+        long[] s = v.clone();
+        Arrays.sort(s);
+        return s[s.length / 2];
+    }
+
+    public static void main(String[] args) {
+        long cycles = args.length > 0 ? Long.parseLong(args[0]) : 20_000_000L;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 9;
+        int warmup = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        long[] scratch = new long[1];
+        for (int i = 0; i < warmup; i++) {
+            run(APU.OutputMode.FULL, cycles, scratch);
+            run(APU.OutputMode.STATE_ONLY, cycles, scratch);
+        }
+        long[] full = new long[runs], state = new long[runs];
+        long[] samples = new long[1];
+        for (int i = 0; i < runs; i++) {
+            full[i] = run(APU.OutputMode.FULL, cycles, samples);
+            state[i] = run(APU.OutputMode.STATE_ONLY, cycles, scratch);
+        }
+        double perRun = samples[0] / (double) runs;
+        long f = median(full), s = median(state);
+        System.out.printf("%s, %d CPU cycles x %d runs (%d warmup), %.0f samples/run%n",
+                System.getProperty("java.vm.name") + " " + System.getProperty("java.version"), cycles, runs,
+                warmup, perRun);
+        System.out.printf("FULL        median %.1f ms  %.2f Msamples/s%n", f / 1e6, perRun / (f / 1e3));
+        System.out.printf("STATE_ONLY  median %.1f ms%n", s / 1e6);
+        System.out.printf("mixer+filt  %.1f ms  %.2f Msamples/s%n", (f - s) / 1e6, perRun / ((f - s) / 1e3));
+    }
+}
@@ -0,0 +1,80 @@
+package com.nesemu.apu;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * STATE_ONLY output mode must keep CPU-visible state identical to FULL while
+ * producing no samples.
+ */
+public class ApuOutputModeTest {
+
+    private static void program(APU apu) {
+        apu.writeRegister(0x4015, 0x0F); // pulse1/2, triangle, noise
+        apu.writeRegister(0x4000, 0b0000_0101); // pulse1 envelope decay period 5
+        apu.writeRegister(0x4002, 0x80);
+        apu.writeRegister(0x4003, (3 << 3) | 0x01); // length idx 3
+        apu.writeRegister(0x4008, 0x20);
+        apu.writeRegister(0x400A, 0x40);
+        apu.writeRegister(0x400B, (5 << 3));
+        apu.writeRegister(0x400C, 0x03);
+        apu.writeRegister(0x400E, 0x04);
+        apu.writeRegister(0x400F, (7 << 3));
+        apu.writeRegister(0x4017, 0x00); // 4-step, IRQ enabled
+    }
+
+    @Test
+    public void stateOnly_matches_full_visible_state_without_samples() {
+        APU full = new APU();
+        full.reset();
+        APU fast = new APU();
+        fast.reset();
+        fast.setOutputMode(APU.OutputMode.STATE_ONLY);
+        program(full);
+        program(fast);
+        for (int i = 0; i < 29830 * 3; i++) {
+            full.clockCpuCycle();
+            fast.clockCpuCycle();
+        }
+        assertTrue(full.getPendingSampleCount() > 0, "FULL produces samples");
+        assertEquals(0, fast.getPendingSampleCount(), "STATE_ONLY produces no samples");
+        assertEquals(full.getPulse1Length(), fast.getPulse1Length());
+        assertEquals(full.getPulse1EnvelopeVolume(), fast.getPulse1EnvelopeVolume());
+        assertEquals(full.getTriangleStep(), fast.getTriangleStep());
+        assertEquals(full.getNoiseLfsrBit0(), fast.getNoiseLfsrBit0());
+        assertEquals(full.isFrameIrq(), fast.isFrameIrq());
+        assertEquals(full.readStatus(), fast.readStatus());
+    }
+
+    @Test
+    public void switching_back_to_full_resumes_sampling() {
+        APU apu = new APU();
+        apu.reset();
+        apu.setOutputMode(APU.OutputMode.STATE_ONLY);
+        for (int i = 0; i < 10000; i++)
+            apu.clockCpuCycle();
+        assertEquals(0, apu.getPendingSampleCount());
+        apu.setOutputMode(APU.OutputMode.FULL);
+        assertEquals(APU.OutputMode.FULL, apu.getOutputMode());
+        for (int i = 0; i < 10000; i++)
+            apu.clockCpuCycle();
+        assertTrue(apu.getPendingSampleCount() > 0);
+    }
+
+    @Test
+    public void requested_mode_waits_for_the_emulation_thread() throws Exception {
+        APU apu = new APU();
+        apu.reset();
+        Thread gui = new Thread(() -> apu.requestOutputMode(APU.OutputMode.STATE_ONLY));
+        gui.start();
+        gui.join();
+        assertEquals(APU.OutputMode.FULL, apu.getOutputMode(), "not applied mid-frame");
+        apu.applyRequestedOutputMode();
+        assertEquals(APU.OutputMode.STATE_ONLY, apu.getOutputMode());
+        apu.applyRequestedOutputMode(); // consumed: no-op
+        assertEquals(APU.OutputMode.STATE_ONLY, apu.getOutputMode());
+        for (int i = 0; i < 10000; i++)
+            apu.clockCpuCycle();
+        assertEquals(0, apu.getPendingSampleCount());
+    }
+}
@@ -0,0 +1,123 @@
+package com.nesemu.conformance;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nesemu.rom.INesHeader;
+import com.nesemu.rom.INesRom;
+
+/**
+ * Conformance harness: blargg $6000 protocol, frame hashes, nestest log
+ * comparison, parallel runs keeping catalogue order, and the JUnit XML report.
+ */
+public class ConformanceHarnessTest {
+
+    // MMC1 (PRG RAM at $6000): sign, report status and text, then spin
+    private INesRom blarggRom(int status, String text, boolean sign) {
+        byte[] header = new byte[16];
+        header[0] = 'N';
+        header[1] = 'E';
+        header[2] = 'S';
+        header[3] = 0x1A;
+        header[4] = 1; // PRG 16KB
+        header[5] = 1; // CHR 8KB
+        header[6] = 0x10; // mapper 1
+        INesHeader h = INesHeader.parse(header);
+        byte[] prg = new byte[0x4000];
+        int pc = 0;
+        pc = sta(prg, pc, 0x80, 0x6000); // running
+        if (sign) {
+            pc = sta(prg, pc, 0xDE, 0x6001);
+            pc = sta(prg, pc, 0xB0, 0x6002);
+            pc = sta(prg, pc, 0x61, 0x6003);
+        }
+        for (int i = 0; i < text.length(); i++)
+            pc = sta(prg, pc, text.charAt(i), 0x6004 + i);
+        pc = sta(prg, pc, 0, 0x6004 + text.length());
+        pc = sta(prg, pc, status, 0x6000);
+        int loop = 0x8000 + pc;
+        prg[pc++] = 0x4C; // JMP loop
+        prg[pc++] = (byte) loop;
+        prg[pc] = (byte) (loop >> 8);
+        prg[0x3FFC] = 0x00; // RESET
+        prg[0x3FFD] = (byte) 0x80;
+        return new INesRom(h, prg, new byte[0x2000], null);
+    }
+
+    // LDA #v / STA addr
+    private static int sta(byte[] prg, int pc, int v, int addr) {
+        prg[pc++] = (byte) 0xA9;
+        prg[pc++] = (byte) v;
+        prg[pc++] = (byte) 0x8D;
+        prg[pc++] = (byte) addr;
+        prg[pc++] = (byte) (addr >> 8);
+        return pc;
+    }
+
+    @Test
+    public void blarggProtocolPassFailAndTimeout() {
+        List<ConformanceResult> results = new ConformanceHarness(3).run(List.of(
+                ConformanceCase.blargg("pass", blarggRom(0, "Passed", true), 60),
+                ConformanceCase.blargg("fail", blarggRom(3, "Error 3", true), 60),
+                ConformanceCase.blargg("unsigned", blarggRom(0, "", false), 10)));
+        assertEquals(3, results.size());
+        assertEquals("pass", results.get(0).getCase().getName(), "catalogue order kept");
+        assertEquals(ConformanceResult.Status.PASS, results.get(0).getStatus());
+        assertEquals("Passed", results.get(0).getMessage());
+        assertEquals(ConformanceResult.Status.FAIL, results.get(1).getStatus());
+        assertEquals("code 03: Error 3", results.get(1).getMessage());
+        assertEquals(ConformanceResult.Status.FAIL, results.get(2).getStatus());
+        assertTrue(results.get(2).getMessage().startsWith("timeout after 10 frames"));
+    }
+
+    @Test
+    public void frameHashIsDeterministicAndChecked() {
+        INesRom rom = blarggRom(0, "x", true);
+        ConformanceResult first = ConformanceHarness.runCase(ConformanceCase.frameHash("h", rom, 5, null));
+        assertEquals(ConformanceResult.Status.SKIPPED, first.getStatus(), "no expected value: record only");
+        String hash = first.getMessage().substring("hash=".length(), first.getMessage().indexOf(' '));
+        assertEquals(ConformanceResult.Status.PASS,
+                ConformanceHarness.runCase(ConformanceCase.frameHash("h", rom, 5, hash)).getStatus());
+        assertEquals(ConformanceResult.Status.FAIL,
+                ConformanceHarness.runCase(ConformanceCase.frameHash("h", rom, 5, "1234")).getStatus());
+    }
+
+    @Test
+    public void nestestMatchesReferenceLog(@TempDir Path tmp) throws Exception {
+        Path rom = Path.of("nestest/nestest.nes"), log = Path.of("nestest/nestest.log");
+        if (!Files.exists(rom) || !Files.exists(log))
+            return; // reference files not available
+        ConformanceResult r = ConformanceHarness.runCase(ConformanceCase.nestest(rom, log));
+        assertEquals(ConformanceResult.Status.PASS, r.getStatus(), r.getMessage() + "\n" + r.getDetail());
+
+        // Corrupt one line of the reference: divergence reported with context
+        List<String> lines = Files.readAllLines(log);
+        lines.set(99, lines.get(99).replace("CYC:", "CYC:9"));
+        Path bad = Files.write(tmp.resolve("nestest.log"), lines);
+        ConformanceResult f = ConformanceHarness.runCase(ConformanceCase.nestest(rom, bad));
+        assertEquals(ConformanceResult.Status.FAIL, f.getStatus());
+        assertTrue(f.getMessage().startsWith("diverged at line 100"), f.getMessage());
+        assertTrue(f.getDetail().contains(lines.get(98)), "previous reference line in context");
+    }
+
+    @Test
+    public void junitXmlReportCountsAndEscapes() {
+        List<ConformanceResult> results = new ConformanceHarness(2).run(List.of(
+                ConformanceCase.blargg("ok", blarggRom(0, "Passed", true), 60),
+                ConformanceCase.blargg("a<b>&\"c\"", blarggRom(2, "x < y", true), 60),
+                ConformanceCase.frameHash("rec", blarggRom(0, "", true), 2, null)));
+        String xml = JUnitXmlReport.toXml("conformance", results, 1.5);
+        assertTrue(xml.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"));
+        assertTrue(xml.contains("tests=\"3\" failures=\"1\" errors=\"0\" skipped=\"1\" time=\"1.500\""), xml);
+        assertTrue(xml.contains("name=\"a&lt;b&gt;&amp;&quot;c&quot;\""), xml);
+        assertTrue(xml.contains("<failure message=\"code 02: x &lt; y\">"), xml);
+        assertTrue(xml.contains("classname=\"conformance.frame_hash\""), xml);
+        assertEquals("ab", JUnitXmlReport.escape("a\u0001b"), "control characters dropped");
+    }
+}
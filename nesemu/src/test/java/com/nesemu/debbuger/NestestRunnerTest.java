@@ -0,0 +1,98 @@
+package com.nesemu.debbuger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nesemu.bus.Bus;
+import com.nesemu.cpu.CPU;
+import com.nesemu.mapper.Mapper0;
+import com.nesemu.ppu.PPU;
+import com.nesemu.rom.INesRom;
+import com.nesemu.rom.RomLoader;
+
+/**
+ * Streaming nestest comparison: full reference log, trace line layout and
+ * first-divergence report.
+ */
+public class NestestRunnerTest {
+
+    private static final Path ROM = Path.of("nestest/nestest.nes");
+    private static final Path LOG = Path.of("nestest/nestest.log");
+
+    @Test
+    public void matchesReferenceLog() throws Exception {
+        if (!Files.exists(ROM) || !Files.exists(LOG))
+            return; // reference files not available
+        NestestRunner.Result r = NestestRunner.run(ROM, LOG, null);
+        assertTrue(r.isPassed(), r.toString());
+        assertEquals(Files.readAllLines(LOG).stream().filter(l -> !l.isBlank()).count(), r.getLines());
+    }
+
+    @Test
+    public void traceUsesReferenceLayout() throws Exception {
+        if (!Files.exists(ROM) || !Files.exists(LOG))
+            return;
+        List<String> ref = Files.readAllLines(LOG);
+        StringWriter trace = new StringWriter();
+        NestestRunner.Result r = NestestRunner.run(ROM, LOG, trace);
+        assertTrue(r.isPassed(), r.toString());
+        String[] lines = trace.toString().split("\n");
+        assertEquals(ref.get(0), lines[0]);
+        assertEquals(ref.get(2), lines[2], "zero page store shows old value");
+        for (int i = 0; i < 50; i++) {
+            assertEquals(ref.get(i).substring(0, 16), lines[i].substring(0, 16), "PC and bytes, line " + (i + 1));
+            assertEquals(ref.get(i).substring(48), lines[i].substring(48), "registers/PPU/CYC, line " + (i + 1));
+        }
+    }
+
+    @Test
+    public void stopsAtFirstDivergenceWithContext(@TempDir Path dir) throws Exception {
+        if (!Files.exists(ROM) || !Files.exists(LOG))
+            return;
+        List<String> ref = Files.readAllLines(LOG);
+        ref.set(41, ref.get(41).replace(" X:", " X:F"));
+        StringBuilder text = new StringBuilder();
+        for (String l : ref)
+            text.append(l).append('\n');
+        Path tmp = Files.writeString(dir.resolve("nestest.log"), text);
+        NestestRunner.Result r = NestestRunner.run(ROM, tmp, null);
+        assertFalse(r.isPassed());
+        assertEquals(42, r.getLines());
+        assertEquals("diverged at line 42 (registers)", r.getMessage());
+        String[] detail = r.getDetail().split("\n");
+        assertEquals(NestestRunner.DEFAULT_CONTEXT_LINES + 2, detail.length);
+        assertEquals("  " + ref.get(37), detail[0]);
+        assertEquals("> " + ref.get(41), detail[4]);
+        assertTrue(detail[5].startsWith("< " + ref.get(41).substring(0, 4)));
+    }
+
+    @Test
+    public void truncatedLogStopsAtResultCodes() throws Exception {
+        if (!Files.exists(ROM) || !Files.exists(LOG))
+            return;
+        // First 10 lines only (blank lines in between): codes still zero
+        StringBuilder text = new StringBuilder();
+        List<String> ref = Files.readAllLines(LOG);
+        for (int i = 0; i < 10; i++)
+            text.append(ref.get(i)).append("\r\n\n");
+        INesRom rom = RomLoader.load(ROM);
+        Bus bus = new Bus();
+        bus.attachPPU(new PPU());
+        bus.attachMapper(new Mapper0(rom), rom);
+        CPU cpu = new CPU(bus);
+        NestestRunner.Result r = NestestRunner.compare(cpu, bus,
+                new BufferedReader(new StringReader(text.toString())), 2, null);
+        assertTrue(r.isPassed(), r.toString());
+        assertEquals(10, r.getLines(), "blank lines ignored");
+        assertEquals(0xC736, cpu.getPC(), "stopped after the 10th instruction");
+    }
+}
@@ -0,0 +1,100 @@
+package com.nesemu.emulator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.nesemu.rom.INesRom;
+import com.nesemu.testutil.TestRoms;
+
+/**
+ * Debug snapshot channel: contents match the machine at frame end, a held
+ * snapshot is never refilled, and publishing does not change emulation.
+ */
+public class DebugSnapshotTest {
+
+    private INesRom programRom() {
+        // NMI at $8040: count frames in $11, RTI
+        int[] nmi = { 0xE6, 0x11, 0x40 };
+        return TestRoms.renderLoop(nmi);
+    }
+
+    private NesEmulator create() {
+        NesEmulator emu = NesEmulator.create(EmulatorConfig.builder(programRom()).autoSave(false).build());
+        emu.reset();
+        return emu;
+    }
+
+    @Test
+    public void snapshotMatchesMachineAtFrameEnd() {
+        NesEmulator emu = create();
+        emu.runFrames(2);
+        assertNull(emu.acquireDebugSnapshot(), "off by default");
+        emu.setDebugSnapshotsEnabled(true);
+        emu.runFrames(3);
+        try (DebugSnapshot snap = emu.acquireDebugSnapshot()) {
+            assertNotNull(snap);
+            assertEquals(emu.getPpu().getFrame(), snap.getFrame());
+            assertEquals(emu.getCpu().getPC() & 0xFFFF, snap.getPc());
+            for (int i = 0; i < DebugSnapshot.RAM_SIZE; i++)
+                assertEquals(emu.getBus().getMemory().readInternalRam(i), snap.cpuRead(i), "ram " + i);
+            assertEquals(snap.cpuRead(0x0011), snap.cpuRead(0x1811), "RAM mirror");
+            assertEquals(0xA9, snap.cpuRead(0x8000));
+            assertEquals(0xA9, snap.cpuRead(0xC000), "NROM-128 mirror");
+            assertEquals(0x80, snap.cpuRead(0xFFFD));
+            assertEquals(-1, snap.cpuRead(0x2002), "registers are not captured");
+            assertEquals(0x16, snap.ppuRead(0x3F01));
+            assertEquals(0x27, snap.ppuRead(0x3F02));
+            for (int i = 0; i < 0x2000; i++)
+                assertEquals(emu.getPpu().debugRead(i), snap.ppuRead(i), "chr " + i);
+            byte[] oam = emu.getPpu().getOamCopy();
+            for (int i = 0; i < 256; i++)
+                assertEquals(oam[i] & 0xFF, snap.oamRead(i));
+        }
+    }
+
+    @Test
+    public void heldSnapshotIsNotRefilled() {
+        NesEmulator emu = create();
+        emu.setDebugSnapshotsEnabled(true);
+        emu.runFrames(1);
+        DebugSnapshot held = emu.acquireDebugSnapshot();
+        long frame = held.getFrame();
+        int nmiCount = held.cpuRead(0x11);
+        emu.runFrames(5);
+        assertEquals(frame, held.getFrame());
+        assertEquals(nmiCount, held.cpuRead(0x11));
+        // Double buffer: with one buffer held the other stays front (last complete frame)
+        try (DebugSnapshot latest = emu.acquireDebugSnapshot()) {
+            assertNotSame(held, latest);
+            assertEquals(frame + 1, latest.getFrame());
+        }
+        assertEquals(4, emu.getDebugSnapshotsSkipped(), "frames dropped while the back buffer was held");
+        held.close();
+        emu.runFrames(1);
+        try (DebugSnapshot latest = emu.acquireDebugSnapshot()) {
+            assertEquals(emu.getPpu().getFrame(), latest.getFrame());
+        }
+        emu.setDebugSnapshotsEnabled(false);
+        assertNull(emu.acquireDebugSnapshot());
+    }
+
+    @Test
+    public void publishingDoesNotChangeEmulation() {
+        NesEmulator plain = create(), observed = create();
+        observed.setDebugSnapshotsEnabled(true);
+        plain.runFrames(20);
+        for (int i = 0; i < 20; i++) {
+            observed.runFrames(1);
+            try (DebugSnapshot snap = observed.acquireDebugSnapshot()) {
+                for (int a = 0; a < 0x10000; a += 0x101)
+                    snap.cpuRead(a);
+            }
+        }
+        assertArrayEquals(plain.getPpu().getFrameBuffer(), observed.getPpu().getFrameBuffer());
+        for (int i = 0; i < DebugSnapshot.RAM_SIZE; i++)
+            assertEquals(plain.getBus().getMemory().readInternalRam(i),
+                    observed.getBus().getMemory().readInternalRam(i));
+        assertEquals(plain.getCpu().getPC(), observed.getCpu().getPC());
+    }
+}
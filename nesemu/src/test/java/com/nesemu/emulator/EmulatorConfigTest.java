@@ -0,0 +1,101 @@
+package com.nesemu.emulator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.nesemu.apu.APU;
+import com.nesemu.input.ControllerButton;
+import com.nesemu.rom.INesRom;
+import com.nesemu.testutil.TestRoms;
+import com.nesemu.util.Log;
+
+/**
+ * Embedding API: instances built from an {@link EmulatorConfig} share no
+ * mutable state, so several can run concurrently with the same results as a
+ * lone instance, each logging only to its own logger.
+ */
+public class EmulatorConfigTest {
+
+    private INesRom programRom() {
+        // NMI at $8040: OAM DMA from page 2, scroll by frame count, RTI
+        int[] nmi = { 0xA9, 0x02, 0x8D, 0x14, 0x40, 0xE6, 0x11, 0xA5, 0x11, 0x8D, 0x05, 0x20, 0x8D, 0x05,
+                0x20, 0x40 };
+        return TestRoms.renderLoop(nmi);
+    }
+
+    private NesEmulator create(EmulatorConfig cfg) {
+        NesEmulator emu = NesEmulator.create(cfg);
+        emu.reset();
+        return emu;
+    }
+
+    @Test
+    public void builderDefaultsAndCopies() {
+        EmulatorConfig cfg = EmulatorConfig.builder(programRom()).name("a").build();
+        assertEquals(NesEmulator.TimingMode.SIMPLE, cfg.getTimingMode());
+        assertEquals(APU.OutputMode.FULL, cfg.getAudioOutputMode());
+        assertEquals(Log.Level.INFO, cfg.getLogLevel());
+        EmulatorConfig derived = cfg.toBuilder().timingMode(NesEmulator.TimingMode.INTERLEAVED).build();
+        assertEquals(NesEmulator.TimingMode.INTERLEAVED, derived.getTimingMode());
+        assertEquals(NesEmulator.TimingMode.SIMPLE, cfg.getTimingMode(), "original config unchanged");
+        assertThrows(UnsupportedOperationException.class, () -> cfg.getLogCategories().clear());
+
+        NesEmulator a = create(cfg), b = create(cfg);
+        assertNotSame(a.getController(0), b.getController(0));
+        a.getController(0).setLogical(ControllerButton.A, true);
+        assertFalse(b.getController(0).isPressed(ControllerButton.A), "controllers are per instance");
+        assertNotSame(a.getLogger(), b.getLogger());
+    }
+
+    @Test
+    public void concurrentInstancesMatchLoneInstance() throws Exception {
+        INesRom rom = programRom();
+        EmulatorConfig base = EmulatorConfig.builder(rom).audioOutputMode(APU.OutputMode.STATE_ONLY).build();
+        NesEmulator ref = create(base);
+        ref.runFrames(30);
+        int[] expected = ref.getPpu().getFrameBuffer().clone();
+
+        int n = 8;
+        List<List<String>> logs = new ArrayList<>();
+        List<NesEmulator> emus = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            List<String> lines = Collections.synchronizedList(new ArrayList<>());
+            logs.add(lines);
+            // Even instances: bus diagnostics at DEBUG; odd ones silent
+            emus.add(create(base.toBuilder().name("emu" + i).verbose(i % 2 == 0)
+                    .logLevel(i % 2 == 0 ? Log.Level.DEBUG : Log.Level.ERROR)
+                    .logSink(lines::add).build()));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (NesEmulator emu : emus)
+                results.add(pool.submit(() -> {
+                    emu.runFrames(30);
+                    return emu.getPpu().getFrameBuffer().clone();
+                }));
+            for (Future<int[]> f : results)
+                assertArrayEquals(expected, f.get());
+        } finally {
+            pool.shutdownNow();
+        }
+        for (int i = 0; i < n; i++) {
+            List<String> lines = logs.get(i);
+            if (i % 2 == 0) {
+                assertFalse(lines.isEmpty(), "verbose instance logs its OAM DMA");
+                for (String line : lines)
+                    assertTrue(line.startsWith("[emu" + i + "]"), line);
+            } else {
+                assertTrue(lines.isEmpty(), "silent instance: " + lines);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.nesemu.emulator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.nesemu.apu.APU;
+import com.nesemu.input.ControllerConfig;
+import com.nesemu.io.NesController;
+import com.nesemu.rom.INesRom;
+import com.nesemu.testutil.TestRoms;
+
+/**
+ * In-memory save states must resume on the exact same cycle, and run-ahead must
+ * leave the real timeline untouched while presenting the frame N ahead.
+ */
+public class EmulatorSaveStateTest {
+
+    private INesRom programRom() {
+        int[] code = {
+                0xA9, 0x3F, 0x8D, 0x06, 0x20, // LDA #$3F / STA $2006
+                0xA9, 0x00, 0x8D, 0x06, 0x20, // LDA #$00 / STA $2006
+                0xA9, 0x0F, 0x8D, 0x07, 0x20, // palette 0..3 = 0F 16 27 30
+                0xA9, 0x16, 0x8D, 0x07, 0x20,
+                0xA9, 0x27, 0x8D, 0x07, 0x20,
+                0xA9, 0x30, 0x8D, 0x07, 0x20,
+                0xA9, 0x0F, 0x8D, 0x15, 0x40, // APU: enable pulse/tri/noise
+                0xA9, 0xBF, 0x8D, 0x00, 0x40, // pulse1 duty/volume
+                0xA9, 0xF8, 0x8D, 0x03, 0x40, // pulse1 length reload
+                0xA9, 0x1E, 0x8D, 0x01, 0x20, // LDA #$1E / STA $2001 (render on)
+                0xA9, 0x80, 0x8D, 0x00, 0x20, // LDA #$80 / STA $2000 (NMI on)
+                0xE6, 0x10, // loop: INC $10
+                0x4C, 0x37, 0x80 // JMP loop
+        };
+        // NMI at $8040: INC $11, scroll by frame count, RTI
+        int[] nmi = { 0xE6, 0x11, 0xA5, 0x11, 0x8D, 0x05, 0x20, 0x8D, 0x05, 0x20, 0x40 };
+        return TestRoms.nrom(code, nmi);
+    }
+
+    // NMI reads pad 1 and feeds the buttons into pulse 1 period and scroll
+    private INesRom inputRom() {
+        int[] reset = {
+                0xA9, 0x01, 0x8D, 0x15, 0x40, // pulse1 on
+                0xA9, 0xBF, 0x8D, 0x00, 0x40, // duty/constant volume
+                0xA9, 0x3F, 0x8D, 0x06, 0x20, // palette 0..1 = 0F 16
+                0xA9, 0x00, 0x8D, 0x06, 0x20,
+                0xA9, 0x0F, 0x8D, 0x07, 0x20,
+                0xA9, 0x16, 0x8D, 0x07, 0x20,
+                0xA9, 0x1E, 0x8D, 0x01, 0x20, // render on
+                0xA9, 0x80, 0x8D, 0x00, 0x20, // NMI on
+                0xE6, 0x10, // loop: INC $10
+                0x4C, 0x28, 0x80 // JMP loop
+        };
+        int[] nmi = {
+                0xA9, 0x01, 0x8D, 0x16, 0x40, // strobe
+                0xA9, 0x00, 0x8D, 0x16, 0x40,
+                0xA2, 0x08, // LDX #8
+                0xAD, 0x16, 0x40, // read: LDA $4016
+                0x4A, 0x26, 0x12, // LSR A / ROL $12
+                0xCA, 0xD0, 0xF7, // DEX / BNE read
+                0xA5, 0x12, 0x8D, 0x02, 0x40, // period low = buttons
+                0x8D, 0x05, 0x20, 0x8D, 0x05, 0x20, // scroll = buttons
+                0xA9, 0x08, 0x8D, 0x03, 0x40, // restart length
+                0x40 // RTI
+        };
+        return TestRoms.nrom(reset, nmi);
+    }
+
+    private NesEmulator newEmu() {
+        NesEmulator emu = new NesEmulator(programRom());
+        emu.setAutoSaveEnabled(false);
+        emu.reset();
+        return emu;
+    }
+
+    private NesEmulator newInputEmu() {
+        NesEmulator emu = new NesEmulator(inputRom());
+        emu.setAutoSaveEnabled(false);
+        emu.getBus().attachControllers(new NesController(new ControllerConfig()),
+                new NesController(new ControllerConfig()));
+        emu.reset();
+        return emu;
+    }
+
+    private int[] ram(NesEmulator emu) {
+        int[] r = new int[0x800];
+        for (int i = 0; i < r.length; i++)
+            r[i] = emu.getBus().getMemory().readInternalRam(i);
+        return r;
+    }
+
+    @Test
+    public void inMemorySnapshotResumesOnSameCycle() {
+        NesEmulator emu = newEmu();
+        emu.runFrames(10);
+        emu.runCycles(1234); // mid-frame, possibly mid-instruction
+        ByteBuffer buf = ByteBuffer.allocate(emu.getStateSize());
+        int written = emu.saveState(buf);
+        assertTrue(written > 0 && written <= emu.getStateSize());
+        emu.runFrames(5);
+        int[] ramA = ram(emu);
+        long cyclesA = emu.getCpu().getTotalCycles();
+        int[] fbA = emu.getPpu().getFrameBuffer().clone();
+        int statusA = emu.getApu().readStatus();
+
+        NesEmulator other = newEmu();
+        buf.flip();
+        assertTrue(other.loadState(buf));
+        assertEquals(written, buf.position());
+        other.runFrames(5);
+        assertArrayEquals(ramA, ram(other));
+        assertEquals(cyclesA, other.getCpu().getTotalCycles());
+        assertArrayEquals(fbA, other.getPpu().getFrameBuffer());
+        assertEquals(statusA, other.getApu().readStatus());
+    }
+
+    @Test
+    public void chunkedStateSkipsUnknownChunksAndApuIsOptional() {
+        NesEmulator emu = newEmu();
+        emu.runFrames(8);
+        emu.runCycles(777);
+        ByteBuffer full = ByteBuffer.allocate(emu.getStateSize());
+        int written = emu.saveState(full);
+        ByteBuffer noApu = ByteBuffer.allocate(emu.getStateSize());
+        int writtenNoApu = emu.saveState(noApu, false);
+        assertTrue(writtenNoApu < written, "APU chunk omitted");
+        emu.runFrames(3);
+        int[] ramA = ram(emu);
+        long cyclesA = emu.getCpu().getTotalCycles();
+
+        // Insert a chunk from a "newer" component before END: must be skipped
+        ByteBuffer ext = ByteBuffer.allocate(written + 16);
+        ext.put(full.array(), 0, written - 8);
+        ext.putInt(0x58545241).putInt(5).put(new byte[] { 1, 2, 3, 4, 5 }); // 'XTRA'
+        ext.putInt(NesEmulator.CHUNK_END).putInt(0);
+        ext.flip();
+        NesEmulator other = newEmu();
+        assertTrue(other.loadState(ext));
+        assertFalse(ext.hasRemaining());
+        other.runFrames(3);
+        assertArrayEquals(ramA, ram(other));
+        assertEquals(cyclesA, other.getCpu().getTotalCycles());
+
+        // Without APU chunk the CPU timeline still resumes exactly
+        NesEmulator silent = newEmu();
+        noApu.flip();
+        assertTrue(silent.loadState(noApu));
+        silent.runFrames(3);
+        assertEquals(cyclesA, silent.getCpu().getTotalCycles());
+
+        // Truncated (no END chunk) is rejected
+        ByteBuffer cut = ByteBuffer.wrap(full.array(), 0, written - 8);
+        assertFalse(newEmu().loadState(cut));
+
+        // A RAM chunk that is not exactly 2KB is rejected, not partially read
+        int ramAt = -1;
+        for (int i = 0; i + 8 <= written && ramAt < 0; i++)
+            if (full.getInt(i) == NesEmulator.CHUNK_RAM && full.getInt(i + 4) == 0x800)
+                ramAt = i;
+        assertTrue(ramAt > 0);
+        ByteBuffer padded = ByteBuffer.allocate(written + 16);
+        padded.put(full.array(), 0, ramAt + 4).putInt(0x810);
+        padded.put(full.array(), ramAt + 8, 0x800).put(new byte[16]);
+        padded.put(full.array(), ramAt + 8 + 0x800, written - ramAt - 8 - 0x800);
+        padded.flip();
+        assertFalse(newEmu().loadState(padded));
+    }
+
+    // Offset of the chunk header with the given tag (-1 if absent)
+    private static int chunkAt(ByteBuffer state, int written, int tag) {
+        for (int i = 8; i + 8 <= written; i += 8 + state.getInt(i + 4))
+            if (state.getInt(i) == tag)
+                return i;
+        return -1;
+    }
+
+    @Test
+    public void shortFixedChunksAreRejectedBeforeApplying() {
+        NesEmulator emu = newEmu();
+        emu.runFrames(6);
+        emu.runCycles(321);
+        ByteBuffer full = ByteBuffer.allocate(emu.getStateSize());
+        int written = emu.saveState(full);
+        // Sizes come from the components: only unstaged mixer samples are slack
+        assertTrue(emu.getStateSize() - written <= 64 * 4, "state size is a tight bound");
+
+        NesEmulator target = newEmu();
+        target.runFrames(2);
+        int[] ramBefore = ram(target);
+        long cyclesBefore = target.getCpu().getTotalCycles();
+        int scanlineBefore = target.getPpu().getScanline();
+        for (int tag : new int[] { NesEmulator.CHUNK_CPU, NesEmulator.CHUNK_PPU, NesEmulator.CHUNK_OAM,
+                NesEmulator.CHUNK_PALETTE, NesEmulator.CHUNK_PPU_PIPELINE, NesEmulator.CHUNK_APU }) {
+            int at = chunkAt(full, written, tag);
+            assertTrue(at > 0, "chunk " + Integer.toHexString(tag));
+            int len = full.getInt(at + 4);
+            // Same stream with this chunk's payload one byte short
+            ByteBuffer cut = ByteBuffer.allocate(written);
+            cut.put(full.array(), 0, at + 4).putInt(len - 1);
+            cut.put(full.array(), at + 8, len - 1);
+            cut.put(full.array(), at + 8 + len, written - at - 8 - len);
+            cut.flip();
+            assertFalse(target.loadState(cut), "short chunk " + Integer.toHexString(tag));
+        }
+        assertArrayEquals(ramBefore, ram(target));
+        assertEquals(cyclesBefore, target.getCpu().getTotalCycles());
+        assertEquals(scanlineBefore, target.getPpu().getScanline());
+    }
+
+    // Scripted input: changes every few frames
+    private static int buttonsAt(long frame) {
+        return (int) ((frame * 0x9E3779B1L) >>> 13) & 0xFF & ((frame & 4) == 0 ? 0xC3 : 0xFF);
+    }
+
+    // Runs frames with scripted input, hashing framebuffers and samples. The
+    // framebuffer is output, not state: the first (already drawn) frame is skipped
+    private static long replay(NesEmulator emu, int frames) {
+        APU apu = (APU) emu.getApu();
+        long h = 17;
+        for (int f = 0; f < frames; f++) {
+            emu.getController(0).setLogicalButtons(buttonsAt(emu.getFrame()));
+            emu.stepFrame();
+            if (f > 0)
+                h = h * 31 + Arrays.hashCode(emu.getPpu().getFrameBuffer());
+            for (int n = apu.getPendingSampleCount(); n > 0; n--)
+                h = h * 31 + Float.floatToIntBits(apu.readSample());
+        }
+        return h;
+    }
+
+    @Test
+    public void reloadedStateReplaysIdenticalVideoAndAudio() {
+        NesEmulator emu = newInputEmu();
+        replay(emu, 30);
+        emu.runCycles(27_560); // vblank: inside the NMI pad read loop
+        int bitsLeft = 8 - emu.getController(0).getReadBitIndexDebug();
+        assertTrue(bitsLeft > 0 && bitsLeft < 8, "snapshot taken mid report");
+        APU apu = (APU) emu.getApu();
+        while (apu.getPendingSampleCount() > 0)
+            apu.readSample();
+        ByteBuffer buf = ByteBuffer.allocate(emu.getStateSize());
+        emu.saveState(buf);
+        long first = replay(emu, 40);
+
+        buf.flip();
+        assertTrue(emu.loadState(buf));
+        while (apu.getPendingSampleCount() > 0)
+            apu.readSample();
+        assertEquals(first, replay(emu, 40), "same emulator after reload");
+
+        // Split run: a fresh worker resumes from the snapshot
+        NesEmulator worker = newInputEmu();
+        buf.rewind();
+        assertTrue(worker.loadState(buf));
+        assertEquals(first, replay(worker, 40), "fresh emulator after reload");
+    }
+
+    @Test
+    public void runAheadKeepsRealTimelineAndPresentsFutureFrame() {
+        NesEmulator ahead = newEmu();
+        NesEmulator plain = newEmu();
+        NesEmulator future = newEmu();
+        for (int i = 0; i < 20; i++) {
+            ahead.stepFrameRunAhead(2);
+            plain.stepFrame();
+        }
+        future.runFrames(22);
+        assertEquals(plain.getFrame(), ahead.getFrame());
+        assertArrayEquals(ram(plain), ram(ahead));
+        assertEquals(plain.getCpu().getTotalCycles(), ahead.getCpu().getTotalCycles());
+        assertTrue(Arrays.equals(future.getPpu().getFrameBuffer(), ahead.getPpu().getFrameBuffer()),
+                "imagem apresentada deve ser a do frame +2");
+        assertTrue(ahead.getRunAheadOverheadMs() > 0);
+    }
+}
@@ -0,0 +1,123 @@
+package com.nesemu.env;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.nesemu.emulator.EmulatorConfig;
+import com.nesemu.rom.INesRom;
+import com.nesemu.testutil.TestRoms;
+
+/**
+ * Step API: controller bitmask + action repeat, observations/RAM written into
+ * caller buffers, deterministic reset, and the parallel vector environment
+ * matching environments stepped one by one.
+ */
+public class NesEnvTest {
+
+    private static final int BTN_A = 1; // bit 0
+
+    // NMI counts frames with A held in $12 and scrolls by frame count
+    private INesRom inputRom() {
+        int[] code = {
+                0xA9, 0x3F, 0x8D, 0x06, 0x20, // LDA #$3F / STA $2006
+                0xA9, 0x00, 0x8D, 0x06, 0x20, // LDA #$00 / STA $2006
+                0xA9, 0x0F, 0x8D, 0x07, 0x20, // palette 0..3 = 0F 16 27 30
+                0xA9, 0x16, 0x8D, 0x07, 0x20,
+                0xA9, 0x27, 0x8D, 0x07, 0x20,
+                0xA9, 0x30, 0x8D, 0x07, 0x20,
+                0xA9, 0x1E, 0x8D, 0x01, 0x20, // LDA #$1E / STA $2001 (render on)
+                0xA9, 0x80, 0x8D, 0x00, 0x20, // LDA #$80 / STA $2000 (NMI on)
+                0x4C, 0x28, 0x80 // loop: JMP loop
+        };
+        int[] nmi = {
+                0xA9, 0x01, 0x8D, 0x16, 0x40, // strobe controller
+                0xA9, 0x00, 0x8D, 0x16, 0x40,
+                0xAD, 0x16, 0x40, 0x29, 0x01, // LDA $4016 / AND #1 (A)
+                0x18, 0x65, 0x12, 0x85, 0x12, // CLC / ADC $12 / STA $12
+                0xE6, 0x11, 0xA5, 0x11, // INC $11 / LDA $11
+                0x8D, 0x05, 0x20, 0x8D, 0x05, 0x20, // scroll
+                0x40 // RTI
+        };
+        return TestRoms.nrom(code, nmi);
+    }
+
+    private EmulatorConfig config() {
+        return EmulatorConfig.builder(inputRom()).build();
+    }
+
+    @Test
+    public void buttonsReachTheGameAndRepeatStepsFrames() {
+        NesEnv env = new NesEnv(config(), NesEnv.ObservationMode.NONE, 1);
+        byte[] ram = new byte[NesEnv.RAM_SIZE];
+        env.reset(null, ram);
+        assertEquals(0, ram[0x12]);
+        long f0 = env.getEmulator().getFrame();
+        long f1 = env.step(BTN_A, 10, null, ram);
+        assertEquals(f0 + 10, f1);
+        assertEquals(10, ram[0x12], "A held for 10 frames");
+        env.step(0, 5, null, ram);
+        assertEquals(10, ram[0x12], "released");
+    }
+
+    @Test
+    public void resetIsDeterministic() {
+        NesEnv env = new NesEnv(config(), NesEnv.ObservationMode.GRAYSCALE, 2);
+        assertEquals(128 * 120, env.getObservationSize());
+        byte[] obsA = new byte[env.getObservationSize()], obsB = new byte[obsA.length];
+        byte[] ramA = new byte[NesEnv.RAM_SIZE], ramB = new byte[NesEnv.RAM_SIZE];
+        env.reset(obsA, ramA);
+        env.step(BTN_A, 4, obsA, ramA);
+        env.step(0, 3, obsA, ramA);
+        env.reset(obsB, ramB);
+        env.step(BTN_A, 4, obsB, ramB);
+        env.step(0, 3, obsB, ramB);
+        assertArrayEquals(obsA, obsB);
+        assertArrayEquals(ramA, ramB);
+        boolean varied = false;
+        for (byte b : obsA)
+            varied |= b != obsA[0];
+        assertTrue(varied, "rendered observation expected");
+    }
+
+    @Test
+    public void colorIndexObservationUsesNesColours() {
+        NesEnv env = new NesEnv(config(), NesEnv.ObservationMode.COLOR_INDEX, 4);
+        byte[] obs = new byte[env.getObservationSize()];
+        env.reset(obs, null);
+        env.step(0, 3, obs, null);
+        for (byte b : obs) {
+            int c = b & 0xFF;
+            // Background palette, or 0x00 from zeroed OAM sprites (unset sprite palette)
+            assertTrue(c == 0x0F || c == 0x16 || c == 0x27 || c == 0x30 || c == 0x00,
+                    "colour " + Integer.toHexString(c));
+        }
+    }
+
+    @Test
+    public void vectorEnvMatchesSequentialEnvs() {
+        int n = 6;
+        int[] buttons = new int[n];
+        for (int i = 0; i < n; i++)
+            buttons[i] = (i % 2 == 0) ? BTN_A : 0;
+        try (NesVectorEnv vec = new NesVectorEnv(config(), n, NesEnv.ObservationMode.GRAYSCALE, 4)) {
+            int obsSize = vec.getObservationSize();
+            byte[] obs = new byte[n * obsSize];
+            byte[] ram = new byte[n * NesEnv.RAM_SIZE];
+            vec.reset(obs, ram);
+            for (int s = 0; s < 5; s++)
+                vec.step(buttons, 2, obs, ram);
+            for (int i = 0; i < n; i++) {
+                NesEnv single = new NesEnv(config(), NesEnv.ObservationMode.GRAYSCALE, 4);
+                byte[] o = new byte[obsSize], r = new byte[NesEnv.RAM_SIZE];
+                single.reset(o, r);
+                for (int s = 0; s < 5; s++)
+                    single.step(buttons[i], 2, o, r);
+                assertArrayEquals(o, java.util.Arrays.copyOfRange(obs, i * obsSize, (i + 1) * obsSize), "obs " + i);
+                assertArrayEquals(r, java.util.Arrays.copyOfRange(ram, i * NesEnv.RAM_SIZE,
+                        (i + 1) * NesEnv.RAM_SIZE), "ram " + i);
+                assertEquals((i % 2 == 0) ? 10 : 0, r[0x12]);
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.nesemu.headless;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nesemu.emulator.NesEmulator;
+import com.nesemu.input.ControllerConfig;
+import com.nesemu.io.NesController;
+import com.nesemu.rom.INesRom;
+import com.nesemu.testutil.TestRoms;
+
+/**
+ * Checkpointed headless runs must end in the same state as a run from
+ * power-on, reuse checkpoints across movies sharing a prefix, and keep the
+ * on-disk store within its size bound (LRU).
+ */
+public class CheckpointRunnerTest {
+
+    @TempDir
+    Path dir;
+
+    // NMI: read pad 1 into $12 and add it to $13 (state depends on every input)
+    private static INesRom inputRom() {
+        int[] reset = {
+                0xA9, 0x1E, 0x8D, 0x01, 0x20, // render on
+                0xA9, 0x80, 0x8D, 0x00, 0x20, // NMI on
+                0xE6, 0x10, // loop: INC $10
+                0x4C, 0x0A, 0x80 // JMP loop
+        };
+        int[] nmi = {
+                0xA9, 0x01, 0x8D, 0x16, 0x40, // strobe
+                0xA9, 0x00, 0x8D, 0x16, 0x40,
+                0xA2, 0x08, // LDX #8
+                0xAD, 0x16, 0x40, // read: LDA $4016
+                0x4A, 0x26, 0x12, // LSR A / ROL $12
+                0xCA, 0xD0, 0xF7, // DEX / BNE read
+                0xA5, 0x12, 0x18, 0x65, 0x13, 0x85, 0x13, // $13 += $12
+                0x8D, 0x05, 0x20, 0x8D, 0x05, 0x20, // scroll
+                0x40 // RTI
+        };
+        return TestRoms.nrom(reset, nmi);
+    }
+
+    private static NesEmulator newEmu(INesRom rom) {
+        NesEmulator emu = new NesEmulator(rom);
+        emu.setAutoSaveEnabled(false);
+        emu.getBus().attachControllers(new NesController(new ControllerConfig()),
+                new NesController(new ControllerConfig()));
+        emu.reset();
+        return emu;
+    }
+
+    private static InputMovie movie(int length, int salt) {
+        int[] f = new int[length];
+        for (int i = 0; i < length; i++)
+            f[i] = (i < 100) ? (i * 7) & 0xFF : ((i * 13 + salt) & 0xFF);
+        return InputMovie.of(f);
+    }
+
+    private static long fingerprint(NesEmulator emu) {
+        long h = emu.getCpu().getTotalCycles();
+        for (int i = 0; i < 0x800; i++)
+            h = h * 31 + emu.getBus().getMemory().readInternalRam(i);
+        int[] fb = emu.getPpu().getFrameBuffer();
+        for (int px : fb)
+            h = h * 31 + px;
+        return h;
+    }
+
+    @Test
+    public void resumesFromNearestCheckpointWithSameResult() throws Exception {
+        INesRom rom = inputRom();
+        String hash = CheckpointRunner.romHash(rom);
+        InputMovie m = movie(150, 0);
+
+        NesEmulator plain = newEmu(rom);
+        new CheckpointRunner(null, 40).run(plain, hash, m, 130, true);
+
+        CheckpointStore store = new CheckpointStore(dir, 64L << 20);
+        CheckpointRunner runner = new CheckpointRunner(store, 40);
+        NesEmulator first = newEmu(rom);
+        runner.run(first, hash, m, 130, true);
+        assertEquals(0, runner.getRestoredFrame());
+        assertEquals(130, runner.getEmulatedFrames());
+        assertEquals(3, runner.getStoredCheckpoints(), "frames 40, 80, 120");
+        assertEquals(fingerprint(plain), fingerprint(first));
+
+        NesEmulator second = newEmu(rom);
+        runner.run(second, hash, m, 130, true);
+        assertEquals(120, runner.getRestoredFrame());
+        assertEquals(10, runner.getEmulatedFrames());
+        assertEquals(fingerprint(plain), fingerprint(second));
+
+        // Exactly on a checkpoint: the last frame is still emulated (image)
+        NesEmulator third = newEmu(rom);
+        runner.run(third, hash, m, 80, true);
+        assertEquals(40, runner.getRestoredFrame());
+        NesEmulator plain80 = newEmu(rom);
+        new CheckpointRunner(null, 40).run(plain80, hash, m, 80, true);
+        assertEquals(fingerprint(plain80), fingerprint(third));
+    }
+
+    @Test
+    public void corruptCheckpointsFallBackToAColdRun() throws Exception {
+        INesRom rom = inputRom();
+        String hash = CheckpointRunner.romHash(rom);
+        InputMovie m = movie(100, 0);
+        new CheckpointRunner(new CheckpointStore(dir, 64L << 20), 40).run(newEmu(rom), hash, m, 90, true);
+        NesEmulator plain = newEmu(rom);
+        new CheckpointRunner(null, 40).run(plain, hash, m, 90, true);
+
+        // Frame 80: truncated (rejected before anything is applied)
+        Path f80 = dir.resolve(CheckpointRunner.key(hash, 80, m.prefixHash(80)) + ".state");
+        byte[] full = Files.readAllBytes(f80);
+        Files.write(f80, Arrays.copyOf(full, full.length / 2));
+        // Frame 40: palette chunk relabelled as APU, which fails only after
+        // CPU, RAM and PPU were overwritten
+        Path f40 = dir.resolve(CheckpointRunner.key(hash, 40, m.prefixHash(40)) + ".state");
+        byte[] c = Files.readAllBytes(f40);
+        retag(c, 0x50414C20 /* 'PAL ' */, 0x41505520 /* 'APU ' */);
+        Files.write(f40, c);
+
+        CheckpointStore store = new CheckpointStore(dir, 64L << 20);
+        CheckpointRunner runner = new CheckpointRunner(store, 40);
+        NesEmulator emu = newEmu(rom);
+        runner.run(emu, hash, m, 90, true);
+        assertEquals(0, runner.getRestoredFrame());
+        assertEquals(90, runner.getEmulatedFrames());
+        assertEquals(fingerprint(plain), fingerprint(emu));
+        assertEquals(2, runner.getStoredCheckpoints(), "corrupt checkpoints replaced");
+
+        NesEmulator again = newEmu(rom);
+        runner.run(again, hash, m, 90, true);
+        assertEquals(80, runner.getRestoredFrame());
+        assertEquals(fingerprint(plain), fingerprint(again));
+    }
+
+    private static void retag(byte[] state, int from, int to) {
+        ByteBuffer b = ByteBuffer.wrap(state);
+        b.position(8); // magic + version
+        while (b.remaining() >= 8) {
+            int pos = b.position();
+            int tag = b.getInt();
+            int len = b.getInt();
+            if (tag == from) {
+                b.putInt(pos, to);
+                return;
+            }
+            b.position(b.position() + len);
+        }
+        fail("chunk not found");
+    }
+
+    @Test
+    public void movieSuffixesShareThePrefixCheckpoints() throws Exception {
+        INesRom rom = inputRom();
+        String hash = CheckpointRunner.romHash(rom);
+        CheckpointStore store = new CheckpointStore(dir, 64L << 20);
+        CheckpointRunner runner = new CheckpointRunner(store, 50);
+        runner.run(newEmu(rom), hash, movie(200, 1), 200, true);
+
+        // Same first 100 frames, different afterwards: resumes at 100, not 150
+        InputMovie other = movie(200, 2);
+        NesEmulator emu = newEmu(rom);
+        runner.run(emu, hash, other, 180, true);
+        assertEquals(100, runner.getRestoredFrame());
+        NesEmulator plain = newEmu(rom);
+        new CheckpointRunner(null, 50).run(plain, hash, other, 180, true);
+        assertEquals(fingerprint(plain), fingerprint(emu));
+
+        // A different ROM never matches
+        assertNotEquals(hash, CheckpointRunner.romHash(newRomVariant()));
+    }
+
+    private static INesRom newRomVariant() {
+        INesRom rom = inputRom();
+        byte[] prg = rom.getPrgRom();
+        prg[0x100] = 1;
+        return new INesRom(rom.getHeader(), prg, rom.getChrRom(), null);
+    }
+
+    @Test
+    public void storeEvictsLeastRecentlyUsedAndReopens() throws Exception {
+        CheckpointStore store = new CheckpointStore(dir, 3000);
+        ByteBuffer buf = ByteBuffer.allocate(1000);
+        for (String k : new String[] { "a", "b", "c" }) {
+            buf.clear().position(1000).flip();
+            store.store(k, buf);
+        }
+        assertEquals(3, store.getCount());
+        assertTrue(store.load("a", ByteBuffer.allocate(1000)), "a becomes most recent");
+        buf.clear().position(1000).flip();
+        store.store("d", buf);
+        assertFalse(store.contains("b"), "least recently used evicted");
+        assertTrue(store.contains("a") && store.contains("c") && store.contains("d"));
+        assertEquals(3000, store.getTotalBytes());
+        assertFalse(Files.exists(dir.resolve("b.state")));
+
+        CheckpointStore reopened = new CheckpointStore(dir, 2000);
+        assertEquals(2, reopened.getCount(), "bound applied on open");
+        assertFalse(reopened.load("missing", ByteBuffer.allocate(1000)));
+    }
+
+    @Test
+    public void concurrentWritersOfTheSameKeyNeverLeavePartialFiles() throws Exception {
+        int size = 256 * 1024;
+        Thread[] writers = new Thread[4];
+        Exception[] failure = new Exception[1];
+        for (int w = 0; w < writers.length; w++) {
+            byte fill = (byte) (w + 1);
+            CheckpointStore s = new CheckpointStore(dir, 64L << 20); // one "process" each
+            writers[w] = new Thread(() -> {
+                byte[] data = new byte[size];
+                Arrays.fill(data, fill);
+                try {
+                    for (int i = 0; i < 20; i++)
+                        s.store("shared", ByteBuffer.wrap(data));
+                } catch (Exception e) {
+                    failure[0] = e;
+                }
+            });
+        }
+        for (Thread t : writers)
+            t.start();
+        for (Thread t : writers)
+            t.join();
+        assertNull(failure[0]);
+        byte[] stored = Files.readAllBytes(dir.resolve("shared.state"));
+        assertEquals(size, stored.length);
+        for (byte b : stored)
+            assertEquals(stored[0], b, "bytes of a single writer");
+        try (Stream<Path> s = Files.list(dir)) {
+            assertEquals(1, s.count(), "no temp files left");
+        }
+    }
+
+    @Test
+    public void movieParsesRepeatsAndHashesPrefixes() throws Exception {
+        Path file = dir.resolve("m.txt");
+        Files.writeString(file, "# start\n08\n01 02 *3\n\n00 *2 # idle\n");
+        InputMovie m = InputMovie.load(file);
+        assertEquals(6, m.length());
+        assertEquals(0x08, m.pad1(0));
+        assertEquals(0x01, m.pad1(3));
+        assertEquals(0x02, m.pad2(3));
+        assertEquals(0, m.get(100), "past the end: idle");
+        assertEquals(m.prefixHash(4), InputMovie.of(8, 0x201, 0x201, 0x201, 0x55).prefixHash(4));
+        assertNotEquals(m.prefixHash(5), InputMovie.of(8, 0x201, 0x201, 0x201, 0x55).prefixHash(5));
+        assertEquals(m.prefixHash(20), InputMovie.of(8, 0x201, 0x201, 0x201).prefixHash(20),
+                "trailing idle frames equal past-the-end frames");
+        Files.writeString(file, "zz\n");
+        assertThrows(java.io.IOException.class, () -> InputMovie.load(file));
+    }
+}
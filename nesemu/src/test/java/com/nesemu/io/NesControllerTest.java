@@ -0,0 +1,175 @@
+package com.nesemu.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import com.nesemu.input.ControllerButton;
+import com.nesemu.input.ControllerConfig;
+
+/**
+ * Packed controller state: key tokens resolved to button bits, several
+ * sources per button, logical overrides and turbo cadence, all read back
+ * through the $4016 strobe/shift protocol.
+ */
+public class NesControllerTest {
+
+    private static ControllerConfig config() {
+        ControllerConfig cfg = new ControllerConfig();
+        cfg.add(ControllerButton.A, "z");
+        cfg.add(ControllerButton.A, "space");
+        cfg.add(ControllerButton.START, "enter");
+        cfg.add(ControllerButton.RIGHT, "right");
+        cfg.addTurbo(ControllerButton.A, "x");
+        return cfg;
+    }
+
+    // Strobe and shift out the 8 button bits (A first)
+    private static int readPad(NesController pad) {
+        pad.write(1);
+        pad.write(0);
+        int v = 0;
+        for (int i = 0; i < 8; i++)
+            v |= pad.read() << i;
+        return v;
+    }
+
+    @Test
+    public void keyTokensLatchAsButtonBits() {
+        NesController pad = new NesController(config());
+        pad.setKeyTokenState("Enter", true);
+        pad.setKeyTokenState("right", true);
+        pad.setKeyTokenState("q", true); // unmapped
+        assertEquals(0x88, readPad(pad));
+        assertEquals(1, pad.read(), "bits after the 8th read as 1");
+        pad.setKeyTokenState("right", false);
+        assertEquals(0x08, readPad(pad));
+        assertEquals("Start", pad.pressedButtonsString());
+    }
+
+    @Test
+    public void buttonStaysHeldWhileAnySourceHoldsIt() {
+        NesController pad = new NesController(config());
+        pad.setKeyTokenState("z", true);
+        pad.setKeyTokenState("space", true);
+        pad.setKeyTokenState("z", false);
+        assertTrue(pad.isPressed(ControllerButton.A), "space still down");
+        pad.setKeyTokenState("z", false); // repeated release is ignored
+        assertTrue(pad.isPressed(ControllerButton.A));
+        pad.setGamepadButtons(1 << ControllerButton.A.bitIndex());
+        pad.setKeyTokenState("space", false);
+        assertTrue(pad.isPressed(ControllerButton.A), "gamepad still holds A");
+        pad.setGamepadButtons(0);
+        assertFalse(pad.isPressed(ControllerButton.A));
+    }
+
+    @Test
+    public void logicalOverridesWinOverKeys() {
+        NesController pad = new NesController(config());
+        pad.setKeyTokenState("enter", true);
+        pad.setLogical(ControllerButton.START, false);
+        pad.setLogical(ControllerButton.B, true);
+        assertEquals(0x02, readPad(pad));
+        pad.setLogicalButtons(0x81);
+        assertEquals(0x81, pad.getButtons());
+        pad.clearLogical();
+        assertEquals(0x08, pad.getButtons(), "back to key state");
+    }
+
+    @Test
+    public void turboFollowsFrameCadence() {
+        NesController pad = new NesController(config());
+        pad.setKeyTokenState("x", true);
+        StringBuilder slow = new StringBuilder();
+        for (int f = 0; f < 8; f++) {
+            slow.append(readPad(pad) & 1);
+            pad.onFrameAdvance();
+        }
+        assertEquals("11001100", slow.toString());
+        pad.setTurboFast(true);
+        StringBuilder fast = new StringBuilder();
+        for (int f = 0; f < 4; f++) {
+            fast.append(readPad(pad) & 1);
+            pad.onFrameAdvance();
+        }
+        assertEquals("1010", fast.toString());
+        pad.setKeyTokenState("z", true);
+        pad.onFrameAdvance();
+        assertEquals(0, readPad(pad) & 1, "turbo key replaces the held A");
+    }
+
+    @Test
+    public void strobePollRunsOncePerFrameBeforeLatch() {
+        NesController pad = new NesController(config());
+        int[] polls = { 0 };
+        pad.setStrobePoll(() -> {
+            polls[0]++;
+            pad.setGamepadButtons(1 << ControllerButton.START.bitIndex());
+        });
+        assertEquals(0x08, readPad(pad), "state polled just before the latch");
+        readPad(pad);
+        assertEquals(1, polls[0], "second strobe in the same frame does not poll");
+        pad.onFrameAdvance();
+        readPad(pad);
+        assertEquals(2, polls[0]);
+        pad.setStrobePoll(null);
+        pad.onFrameAdvance();
+        readPad(pad);
+        assertEquals(2, polls[0]);
+    }
+
+    @Test
+    public void pressToLatchLatencyIsMeasured() throws Exception {
+        NesController pad = new NesController(config());
+        assertEquals(-1, pad.getLastInputLatencyNanos());
+        pad.setKeyTokenState("z", true);
+        Thread.sleep(5);
+        readPad(pad);
+        long first = pad.getLastInputLatencyNanos();
+        assertTrue(first >= 5_000_000L, "latency " + first);
+        readPad(pad); // still held: no new sample
+        assertEquals(1, pad.getInputLatencySamples());
+        pad.setKeyTokenState("z", false);
+        readPad(pad);
+        pad.setGamepadButtons(1 << ControllerButton.A.bitIndex());
+        readPad(pad);
+        assertEquals(2, pad.getInputLatencySamples());
+        assertTrue(pad.getMaxInputLatencyNanos() >= first);
+    }
+
+    @Test
+    public void shiftRegisterAndTurboPhaseSurviveStateRoundTrip() {
+        NesController pad = new NesController(config());
+        pad.setKeyTokenState("x", true); // turbo A
+        pad.setKeyTokenState("enter", true);
+        pad.onFrameAdvance();
+        pad.write(1);
+        pad.write(0);
+        int first = pad.read() | pad.read() << 1 | pad.read() << 2; // mid-report
+        ByteBuffer buf = ByteBuffer.allocate(32);
+        pad.writeState(buf);
+        int len = buf.position();
+        int rest = 0;
+        for (int i = 3; i < 9; i++)
+            rest |= pad.read() << i;
+
+        NesController other = new NesController(config());
+        other.setKeyTokenState("x", true);
+        other.setKeyTokenState("enter", true);
+        buf.flip();
+        other.readState(buf, len);
+        assertEquals(len, buf.position());
+        int restOther = 0;
+        for (int i = 3; i < 9; i++)
+            restOther |= other.read() << i;
+        assertEquals(rest, restOther, "remaining bits of the latched report");
+        assertEquals(0x08, (first | rest) & 0x08, "START latched");
+        for (int f = 0; f < 4; f++) {
+            pad.onFrameAdvance();
+            other.onFrameAdvance();
+            assertEquals(readPad(pad), readPad(other), "turbo phase, frame " + f);
+        }
+    }
+}
@@ -83,4 +83,18 @@ public class Mapper1BasicTest {
         int v1 = m.ppuRead(0x1FFF);
         assertNotEquals(v0, v1); // pattern should vary across region
     }
+
+    @Test
+    public void saveStateRestoresRegistersAndPrgRam() {
+        Mapper1 m = newMapper1(4, 2);
+        writeSerial(m, 0xE000, 0x02);
+        m.cpuWrite(0x6000, 0x5A);
+        m.cpuWrite(0x7FFF, 0xA5);
+        byte[] state = m.saveState();
+        Mapper1 r = newMapper1(4, 2);
+        r.loadState(state);
+        assertEquals(2, r.getPrgBank() & 0x1F);
+        assertEquals(0x5A, r.cpuRead(0x6000));
+        assertEquals(0xA5, r.cpuRead(0x7FFF));
+    }
 }
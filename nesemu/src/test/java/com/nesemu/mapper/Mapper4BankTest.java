@@ -0,0 +1,80 @@
+package com.nesemu.mapper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.nesemu.rom.INesHeader;
+import com.nesemu.rom.INesRom;
+
+/**
+ * MMC3 (Mapper4) PRG/CHR banking through the precomputed slot tables:
+ * - PRG mode bit swaps R6 and the second-last bank between $8000/$C000.
+ * - CHR mode bit swaps the 2KB and 1KB halves; bank numbers wrap around CHR size.
+ * - Banking survives a save-state round trip.
+ */
+public class Mapper4BankTest {
+
+    private Mapper4 newMapper4(int prgPages, int chrPages) {
+        byte[] hdr = new byte[16];
+        hdr[0] = 'N';
+        hdr[1] = 'E';
+        hdr[2] = 'S';
+        hdr[3] = 0x1A;
+        hdr[4] = (byte) prgPages; // 16KB units
+        hdr[5] = (byte) chrPages; // 8KB units
+        hdr[6] = 0x40; // mapper 4 (low nibble)
+        var h = INesHeader.parse(hdr);
+        // Each 8KB PRG bank filled with its index
+        byte[] prg = new byte[prgPages * 0x4000];
+        for (int i = 0; i < prg.length; i++)
+            prg[i] = (byte) (i / 0x2000);
+        // Each 1KB CHR bank filled with its index
+        byte[] chr = new byte[chrPages * 0x2000];
+        for (int i = 0; i < chr.length; i++)
+            chr[i] = (byte) (i / 0x400);
+        return new Mapper4(new INesRom(h, prg, chr, null));
+    }
+
+    @Test
+    public void prgModeSwapsSwitchableAndFixedWindows() {
+        Mapper4 m = newMapper4(8, 1); // 16 x 8KB
+        m.cpuWrite(0x8000, 6); // select R6
+        m.cpuWrite(0x8001, 3);
+        m.cpuWrite(0x8000, 7); // select R7
+        m.cpuWrite(0x8001, 5);
+        assertEquals(3, m.cpuRead(0x8000));
+        assertEquals(5, m.cpuRead(0xA123));
+        assertEquals(14, m.cpuRead(0xC000)); // second last fixed
+        assertEquals(15, m.cpuRead(0xFFFC)); // last fixed
+        m.cpuWrite(0x8000, 0x40 | 7); // PRG mode 1
+        assertEquals(14, m.cpuRead(0x8000));
+        assertEquals(3, m.cpuRead(0xDFFF));
+        // Bank numbers wrap around the PRG size
+        m.cpuWrite(0x8000, 0x40 | 6);
+        m.cpuWrite(0x8001, 16 + 2);
+        assertEquals(2, m.cpuRead(0xC000));
+    }
+
+    @Test
+    public void chrModeSwapsHalvesAndRestoresFromState() {
+        Mapper4 m = newMapper4(2, 2); // 16 x 1KB CHR
+        m.cpuWrite(0x8000, 0); // R0 (2KB, low bit ignored)
+        m.cpuWrite(0x8001, 5);
+        m.cpuWrite(0x8000, 2); // R2 (1KB)
+        m.cpuWrite(0x8001, 9);
+        m.cpuWrite(0x8000, 5); // R5 (1KB), wraps 16 -> 0
+        m.cpuWrite(0x8001, 16 + 7);
+        assertEquals(4, m.ppuRead(0x0000));
+        assertEquals(5, m.ppuRead(0x07FF));
+        assertEquals(9, m.ppuRead(0x1000));
+        assertEquals(7, m.ppuRead(0x1FFF));
+        byte[] state = m.saveState();
+        m.cpuWrite(0x8000, 0x80); // CHR mode 1: 1KB banks move to $0000
+        assertEquals(9, m.ppuRead(0x0000));
+        assertEquals(4, m.ppuRead(0x1000));
+        m.loadState(state);
+        assertEquals(4, m.ppuRead(0x0000));
+        assertEquals(9, m.ppuRead(0x1000));
+    }
+}
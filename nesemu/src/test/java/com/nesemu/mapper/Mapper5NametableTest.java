@@ -0,0 +1,89 @@
+package com.nesemu.mapper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.nesemu.ppu.PPU;
+import com.nesemu.rom.INesHeader;
+import com.nesemu.rom.INesRom;
+
+/**
+ * MMC5 nametable mapping ($5105) through the mapper page table, exercised via
+ * PPUADDR/PPUDATA so reads and writes take the same path as the PPU:
+ * - CIRAM quadrants follow the 2-bit selector per logical table.
+ * - ExRAM quadrants read/write the CPU-visible ExRAM ($5C00).
+ * - Fill quadrants read $5106 everywhere and ignore writes.
+ */
+public class Mapper5NametableTest {
+
+    private Mapper5 mapper;
+    private PPU ppu;
+
+    private void setUp() {
+        byte[] hdr = new byte[16];
+        hdr[0] = 'N';
+        hdr[1] = 'E';
+        hdr[2] = 'S';
+        hdr[3] = 0x1A;
+        hdr[4] = 2; // 32KB PRG
+        hdr[5] = 1; // 8KB CHR
+        hdr[6] = 0x50; // mapper 5 (low nibble)
+        INesHeader h = INesHeader.parse(hdr);
+        mapper = new Mapper5(new INesRom(h, new byte[0x8000], new byte[0x2000], null));
+        ppu = new PPU();
+        ppu.reset();
+        ppu.attachMapper(mapper);
+    }
+
+    private void write(int addr, int value) {
+        ppu.writeRegister(6, (addr >> 8) & 0x3F);
+        ppu.writeRegister(6, addr & 0xFF);
+        ppu.writeRegister(7, value);
+    }
+
+    private int read(int addr) {
+        // read via PPUADDR/PPUDATA sequence with buffering consideration
+        ppu.writeRegister(6, (addr >> 8) & 0x3F);
+        ppu.writeRegister(6, addr & 0xFF);
+        ppu.readRegister(7); // prime buffer
+        ppu.writeRegister(6, (addr >> 8) & 0x3F);
+        ppu.writeRegister(6, addr & 0xFF);
+        return ppu.readRegister(7) & 0xFF;
+    }
+
+    @Test
+    public void ciramQuadrantsFollow5105() {
+        setUp();
+        mapper.cpuWrite(0x5105, 0x44); // vertical: 0,1,0,1
+        write(0x2005, 0x11);
+        write(0x2405, 0x22);
+        assertEquals(0x11, read(0x2805));
+        assertEquals(0x22, read(0x2C05));
+        mapper.cpuWrite(0x5105, 0x50); // horizontal: 0,0,1,1
+        assertEquals(0x11, read(0x2405));
+        assertEquals(0x22, read(0x2805));
+    }
+
+    @Test
+    public void exRamAndFillQuadrants() {
+        setUp();
+        mapper.cpuWrite(0x5105, 0xE4); // 0=CIRAM0, 1=CIRAM1, 2=ExRAM, 3=fill
+        mapper.cpuWrite(0x5C10, 0x5A);
+        assertEquals(0x5A, read(0x2810));
+        write(0x2811, 0xA5);
+        assertEquals(0xA5, mapper.cpuRead(0x5C11));
+        mapper.cpuWrite(0x5106, 0x37);
+        assertEquals(0x37, read(0x2C00));
+        assertEquals(0x37, read(0x2FFF));
+        write(0x2C00, 0x99); // fill page is read-only
+        assertEquals(0x37, read(0x2C00));
+        // Page table is rebuilt from restored registers
+        byte[] state = mapper.saveState();
+        mapper.cpuWrite(0x5105, 0x00);
+        assertEquals(0, read(0x2C00));
+        mapper.loadState(state);
+        assertEquals(0x37, read(0x2C00));
+        assertEquals(0x5A, read(0x2810));
+    }
+}
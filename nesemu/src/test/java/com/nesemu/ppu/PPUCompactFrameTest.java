@@ -0,0 +1,102 @@
+package com.nesemu.ppu;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compact frame mode: one byte per pixel converted to ARGB on demand must
+ * produce the same frame and sprite-0 hit timing as the full buffers, including
+ * emphasis changes in the middle of a frame.
+ */
+public class PPUCompactFrameTest {
+
+    private PPU setupScene() {
+        PPU ppu = new PPU();
+        ppu.reset();
+        ppu.writeRegister(1, 0x1E);
+        int tileIndex = 1;
+        for (int i = 0; i < 32 * 30; i += 3)
+            ppu.pokeNameTable(i, tileIndex);
+        ppu.pokeNameTable(0x3C0 + 9, 0xE4); // mixed attribute palettes
+        for (int row = 0; row < 8; row++) {
+            ppu.pokePattern(tileIndex * 16 + row, 0xF0 | row);
+            ppu.pokePattern(tileIndex * 16 + row + 8, 0x3C);
+            ppu.pokePattern(row, 0x00);
+            ppu.pokePattern(row + 8, 0xFF);
+        }
+        for (int i = 0; i < 32; i++)
+            ppu.pokePalette(0x3F00 + i, (i * 7 + 1) & 0x3F);
+        ppu.writeRegister(3, 0);
+        ppu.writeRegister(4, 16); // Y
+        ppu.writeRegister(4, 0); // tile 0
+        ppu.writeRegister(4, 0); // attr
+        ppu.writeRegister(4, 16); // X
+        return ppu;
+    }
+
+    @Test
+    public void compactFrameMatchesFullBuffers() {
+        PPU full = setupScene();
+        PPU compact = setupScene();
+        compact.setCompactFrameMode(true);
+        int[] stale = compact.getFrameBufferRef().clone();
+        int hitFull = -1, hitCompact = -1;
+        // Run exactly one frame; the compact frame is only converted when read
+        for (int i = 0; full.getFrame() == 0; i++) {
+            // Emphasis + grayscale on mid-frame, then back off
+            if (i == 341 * 100 + 50 || i == 341 * 180) {
+                int mask = (i == 341 * 180) ? 0x1E : 0x1E | 0xA1;
+                full.writeRegister(1, mask);
+                compact.writeRegister(1, mask);
+            }
+            full.clock();
+            compact.clock();
+            if (hitFull < 0 && (full.getStatusRegister() & 0x40) != 0)
+                hitFull = i;
+            if (hitCompact < 0 && (compact.getStatusRegister() & 0x40) != 0)
+                hitCompact = i;
+        }
+        assertEquals(1, compact.getFrame());
+        assertTrue(hitFull >= 0, "sprite 0 hit expected");
+        assertEquals(hitFull, hitCompact, "sprite 0 hit at the same dot");
+        // Presenter path: compact bytes through the frame LUT, ARGB untouched
+        byte[] bytes = compact.getCompactFrameBufferRef();
+        int[] lut = compact.getCompactFrameLut();
+        int[] resolved = new int[bytes.length];
+        for (int i = 0; i < bytes.length; i++)
+            resolved[i] = lut[bytes[i] & 0xFF];
+        assertArrayEquals(full.getFrameBuffer(), resolved);
+        assertArrayEquals(full.getFrameBuffer(), compact.getFrameBuffer());
+        assertFalse(java.util.Arrays.equals(stale, compact.getFrameBuffer()));
+    }
+
+    @Test
+    public void conversionWaitsForTheArgbBuffer() {
+        PPU compact = setupScene();
+        compact.setCompactFrameMode(true);
+        int[] argb = compact.getFrameBufferRef(); // live buffer
+        int[] before = argb.clone();
+        while (compact.getFrame() == 0)
+            compact.clock();
+        assertArrayEquals(before, argb, "no ARGB pass at frame end");
+        compact.getFrameBuffer();
+        assertFalse(java.util.Arrays.equals(before, argb), "converted when read");
+    }
+
+    @Test
+    public void croppedColumnsResolveThroughTheLut() {
+        PPU full = setupScene();
+        PPU compact = setupScene();
+        full.setLeftColumnMode(PPU.LeftColumnMode.CROP);
+        compact.setLeftColumnMode(PPU.LeftColumnMode.CROP);
+        compact.setCompactFrameMode(true);
+        while (full.getFrame() == 0) {
+            full.clock();
+            compact.clock();
+        }
+        full.applyPostFrameCroppingIfNeeded();
+        compact.applyPostFrameCroppingIfNeeded();
+        assertArrayEquals(full.getFrameBuffer(), compact.getFrameBuffer());
+    }
+}
@@ -0,0 +1,76 @@
+package com.nesemu.ppu;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Frame content hash: the content version must stay put while consecutive
+ * frames are identical and advance when a palette or nametable change alters
+ * the picture (full and compact frame modes).
+ */
+public class PPUFrameHashTest {
+
+    private PPU setupScene(boolean compact) {
+        PPU ppu = new PPU();
+        ppu.reset();
+        ppu.setCompactFrameMode(compact);
+        ppu.writeRegister(1, 0x0A); // background on, left column shown
+        for (int i = 0; i < 32 * 30; i += 5)
+            ppu.pokeNameTable(i, 1);
+        for (int row = 0; row < 8; row++) {
+            ppu.pokePattern(16 + row, 0xAA);
+            ppu.pokePattern(16 + row + 8, 0x0F);
+        }
+        for (int i = 0; i < 32; i++)
+            ppu.pokePalette(0x3F00 + i, (i * 5 + 2) & 0x3F);
+        ppu.setFrameHashEnabled(true);
+        return ppu;
+    }
+
+    private void runFrame(PPU ppu) {
+        long f = ppu.getFrame();
+        while (ppu.getFrame() == f)
+            ppu.clock();
+    }
+
+    private void checkVersion(boolean compact) {
+        PPU ppu = setupScene(compact);
+        runFrame(ppu);
+        runFrame(ppu); // first frames settle (initial buffer contents)
+        long v = ppu.getFrameContentVersion();
+        runFrame(ppu);
+        runFrame(ppu);
+        assertEquals(v, ppu.getFrameContentVersion(), "static scene keeps its version");
+
+        ppu.pokePalette(0x3F01, 0x16);
+        runFrame(ppu);
+        long afterPalette = ppu.getFrameContentVersion();
+        assertTrue(afterPalette > v, "palette change bumps the version");
+        runFrame(ppu);
+        assertEquals(afterPalette, ppu.getFrameContentVersion());
+
+        ppu.pokeNameTable(33, 1);
+        runFrame(ppu);
+        assertTrue(ppu.getFrameContentVersion() > afterPalette, "nametable change bumps the version");
+    }
+
+    @Test
+    public void versionTracksContentInFullMode() {
+        checkVersion(false);
+    }
+
+    @Test
+    public void versionTracksContentInCompactMode() {
+        checkVersion(true);
+    }
+
+    @Test
+    public void disabledHashFollowsFrameCounter() {
+        PPU ppu = setupScene(false);
+        ppu.setFrameHashEnabled(false);
+        runFrame(ppu);
+        runFrame(ppu);
+        assertEquals(ppu.getFrame(), ppu.getFrameContentVersion());
+    }
+}
@@ -90,4 +90,22 @@ public class PPUPaletteTest {
         // gray differs
         assertNotEquals(grayOnly, grayWithREmph, "Grayscale should reflect prior emphasis application");
     }
+
+    @Test
+    public void testResolvedTableTracksWritesMirrorsAndMask() {
+        Palette pal = new Palette();
+        int[] table = pal.resolvedTable();
+        pal.write(0x3F05, 0x16);
+        assertEquals(pal.getArgb(0x16, 0x00), table[5]);
+        // $3F10 mirrors $3F00: both resolved entries follow either write
+        pal.write(0x3F10, 0x21);
+        assertEquals(pal.getArgb(0x21, 0x00), table[0]);
+        assertEquals(pal.getArgb(0x21, 0x00), table[0x10]);
+        // Emphasis/grayscale change rebuilds the table; other mask bits do not matter
+        pal.setMask(0x20 | 0x01 | 0x18);
+        assertEquals(pal.getArgb(0x16, 0x21), table[5]);
+        assertEquals(pal.getArgb(0x21, 0x21), table[0]);
+        pal.setMask(0x00);
+        assertEquals(pal.getArgb(0x16, 0x00), table[5]);
+    }
 }
@@ -0,0 +1,78 @@
+package com.nesemu.ppu;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Render-suppressed (frame-skip) mode: sprite-0 hit and VBlank/NMI timing must
+ * match normal rendering while the frame buffers stay untouched.
+ */
+public class PPURenderSuppressedTest {
+
+    private PPU setupSpriteZeroScene() {
+        PPU ppu = new PPU();
+        ppu.reset();
+        ppu.writeRegister(1, 0x1E);
+        int tileIndex = 1;
+        ppu.pokeNameTable(2 + 2 * 32, tileIndex);
+        for (int row = 0; row < 8; row++) {
+            ppu.pokePattern(tileIndex * 16 + row, 0xFF);
+            ppu.pokePattern(tileIndex * 16 + row + 8, 0x00);
+            ppu.pokePattern(row, 0x00);
+            ppu.pokePattern(row + 8, 0xFF);
+        }
+        ppu.writeRegister(3, 0);
+        ppu.writeRegister(4, 16); // Y
+        ppu.writeRegister(4, 0); // tile 0
+        ppu.writeRegister(4, 0); // attr
+        ppu.writeRegister(4, 16); // X
+        ppu.writeRegister(0, 0x80); // NMI enable
+        return ppu;
+    }
+
+    @Test
+    public void suppressed_frame_keeps_sprite0_hit_and_nmi_timing() {
+        PPU normal = setupSpriteZeroScene();
+        PPU skipped = setupSpriteZeroScene();
+        skipped.setRenderSuppressed(true);
+        int[] nmiNormal = new int[1];
+        int[] nmiSkipped = new int[1];
+        normal.setNmiCallback(() -> nmiNormal[0]++);
+        skipped.setNmiCallback(() -> nmiSkipped[0]++);
+        int hitNormal = -1, hitSkipped = -1;
+        for (int i = 0; i < 341 * 262 * 2; i++) {
+            normal.clock();
+            skipped.clock();
+            if (hitNormal < 0 && (normal.getStatusRegister() & 0x40) != 0)
+                hitNormal = i;
+            if (hitSkipped < 0 && (skipped.getStatusRegister() & 0x40) != 0)
+                hitSkipped = i;
+            assertEquals(normal.getScanline(), skipped.getScanline());
+            assertEquals(normal.getCycle(), skipped.getCycle());
+        }
+        assertTrue(hitNormal >= 0, "sprite 0 hit expected");
+        assertEquals(hitNormal, hitSkipped, "sprite 0 hit at the same dot");
+        assertEquals(nmiNormal[0], nmiSkipped[0]);
+        assertTrue(nmiSkipped[0] > 0);
+    }
+
+    @Test
+    public void suppressed_frame_leaves_buffers_untouched() {
+        PPU ppu = setupSpriteZeroScene();
+        ppu.setRenderSuppressed(true);
+        int[] before = ppu.getFrameBuffer().clone();
+        long f = ppu.getFrame();
+        while (ppu.getFrame() == f)
+            ppu.clock();
+        f = ppu.getFrame();
+        while (ppu.getFrame() == f)
+            ppu.clock();
+        assertArrayEquals(before, ppu.getFrameBuffer());
+        ppu.setRenderSuppressed(false);
+        f = ppu.getFrame();
+        while (ppu.getFrame() == f)
+            ppu.clock();
+        assertFalse(java.util.Arrays.equals(before, ppu.getFrameBuffer()), "normal frame renders again");
+    }
+}
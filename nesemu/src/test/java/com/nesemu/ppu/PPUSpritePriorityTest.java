@@ -100,4 +100,44 @@ public class PPUSpritePriorityTest {
         assertEquals(0, rawBg, "Background should be transparent");
         assertTrue(composite != 0, "Behind sprite should draw over transparent background");
     }
+
+    @Test
+    public void testLowerIndexBehindSpriteMasksHigherFrontSprite() {
+        Bus bus = new Bus();
+        PPU p = newPpu(bus);
+        CPU cpu = new CPU(bus);
+        bus.attachCPU(cpu);
+        p.reset();
+        p.writeRegister(1, 0x18);
+        p.writeRegister(0, 0x08); // sprites em $1000, BG em $0000
+        // Opaque background (tiles 0/1 row0)
+        p.pokePattern(0x0000, 0xFF);
+        p.pokePattern(0x0010, 0xFF);
+        // Sprite tiles 0/1 row0 opaque
+        p.pokePattern(0x1000, 0xFF);
+        p.pokePattern(0x1010, 0xFF);
+        p.pokePalette(0x3F15, 0x2A); // sprite palette 1, pattern 1
+        p.writeRegister(3, 0);
+        // Sprite 0: behind BG, same pixels as sprite 1
+        p.writeRegister(4, 0);
+        p.writeRegister(4, 0);
+        p.writeRegister(4, 0x20);
+        p.writeRegister(4, 8);
+        // Sprite 1: in front, palette 1
+        p.writeRegister(4, 0);
+        p.writeRegister(4, 1);
+        p.writeRegister(4, 0x01);
+        p.writeRegister(4, 8);
+        while (p.getScanline() < 0)
+            p.clock();
+        while (p.getCycle() < 18)
+            p.clock(); // pixel 8
+        int x = 8;
+        int rawBg = p.getRawBackgroundIndex(x, 0) & 0x0F;
+        int composite = p.getBackgroundIndex(x, 0) & 0x0F;
+        assertTrue(rawBg != 0, "Background should be opaque");
+        // Hardware quirk: the first opaque sprite in OAM order wins the pixel, even when
+        // it is behind the background, hiding the later front sprite.
+        assertEquals(rawBg, composite, "Front sprite must stay hidden behind sprite 0");
+    }
 }
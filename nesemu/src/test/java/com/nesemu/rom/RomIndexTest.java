@@ -0,0 +1,152 @@
+package com.nesemu.rom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ROM index: hashes of PRG+CHR and cached header fields, parallel scan,
+ * persistence and invalidation by size/mtime.
+ */
+public class RomIndexTest {
+
+    @TempDir
+    Path dir;
+
+    // iNES image: flags6 carries mapper low nibble, battery, trainer and mirroring
+    private static byte[] image(int mapper, int prgPages, int chrPages, boolean battery, boolean trainer,
+            int seed) {
+        int size = 16 + (trainer ? 512 : 0) + prgPages * 16384 + chrPages * 8192;
+        byte[] b = new byte[size];
+        b[0] = 'N';
+        b[1] = 'E';
+        b[2] = 'S';
+        b[3] = 0x1A;
+        b[4] = (byte) prgPages;
+        b[5] = (byte) chrPages;
+        b[6] = (byte) (((mapper & 0x0F) << 4) | (trainer ? 0x04 : 0) | (battery ? 0x02 : 0) | 0x01);
+        b[7] = (byte) (mapper & 0xF0);
+        for (int i = 16; i < size; i++)
+            b[i] = (byte) (i * 31 + seed);
+        return b;
+    }
+
+    private static String sha1Hex(byte[] b, int from) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-1");
+        md.update(b, from, b.length - from);
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static int crc(byte[] b, int from) {
+        CRC32 c = new CRC32();
+        c.update(b, from, b.length - from);
+        return (int) c.getValue();
+    }
+
+    @Test
+    public void scanHashesPrgChrAndCachesHeader() throws Exception {
+        byte[] a = image(4, 2, 1, true, false, 1);
+        byte[] t = image(1, 1, 0, false, true, 2);
+        Files.write(dir.resolve("a.nes"), a);
+        Files.createDirectories(dir.resolve("sub"));
+        Files.write(dir.resolve("sub/t.nes"), t);
+        try (ZipOutputStream z = new ZipOutputStream(Files.newOutputStream(dir.resolve("a.zip")))) {
+            z.putNextEntry(new ZipEntry("a.nes"));
+            z.write(a);
+            z.closeEntry();
+        }
+        Files.write(dir.resolve("junk.nes"), new byte[] { 1, 2, 3 });
+        Files.writeString(dir.resolve("notes.txt"), "ignored");
+
+        RomIndex idx = RomIndex.inMemory();
+        idx.scan(dir, 3);
+        assertEquals(3, idx.size());
+        assertEquals(3, idx.getLastHashed());
+        assertEquals(1, idx.getLastFailed(), "junk.nes is not a ROM");
+
+        List<RomIndex.Entry> mmc3 = idx.findByMapper(4);
+        assertEquals(2, mmc3.size(), ".nes and .zip of the same ROM");
+        assertEquals(mmc3.get(0).getSha1(), mmc3.get(1).getSha1());
+        assertEquals(sha1Hex(a, 16), mmc3.get(0).getSha1());
+        assertEquals(crc(a, 16), mmc3.get(0).getCrc32());
+        INesHeader h = mmc3.get(0).getHeader();
+        assertTrue(h.isBatteryBacked());
+        assertTrue(h.isVerticalMirroring());
+        assertEquals(2, h.getPrgRomPages());
+
+        // Trainer is not part of the hash
+        RomIndex.Entry te = idx.findByMapper(1).get(0);
+        assertEquals(sha1Hex(t, 16 + 512), te.getSha1());
+        assertEquals(List.of(te), idx.select("sha1:" + te.getSha1().substring(0, 8).toUpperCase()));
+        assertEquals(List.of(te), idx.select("crc:" + te.getCrc32Hex()));
+        assertThrows(IllegalArgumentException.class, () -> idx.select("name:x"));
+    }
+
+    @Test
+    public void largeFilesAreMappedAndHashAlike() throws Exception {
+        byte[] rom = image(5, 255, 255, false, false, 7);
+        byte[] big = Arrays.copyOf(rom, (int) RomIndex.MMAP_THRESHOLD + 1); // trailing padding
+        Files.write(dir.resolve("big.nes"), big);
+        Files.write(dir.resolve("small.nes"), rom);
+        RomIndex.Entry mapped = RomIndex.read(dir.resolve("big.nes"));
+        RomIndex.Entry read = RomIndex.read(dir.resolve("small.nes"));
+        assertEquals(sha1Hex(rom, 16), mapped.getSha1());
+        assertEquals(read.getSha1(), mapped.getSha1());
+        assertEquals(read.getCrc32(), mapped.getCrc32());
+    }
+
+    @Test
+    public void reopenedIndexReusesUnchangedAndInvalidatesChanged() throws Exception {
+        Path a = dir.resolve("a.nes");
+        Path b = dir.resolve("b.nes");
+        Files.write(a, image(0, 1, 1, false, false, 3));
+        Files.write(b, image(2, 2, 0, false, false, 4));
+        Path file = dir.resolve("idx/romindex.bin");
+        RomIndex first = RomIndex.open(file);
+        first.scan(dir, 0);
+        first.save();
+        assertTrue(Files.isRegularFile(file));
+
+        RomIndex second = RomIndex.open(file);
+        assertEquals(2, second.size());
+        second.scan(dir, 0);
+        assertEquals(0, second.getLastHashed());
+        assertEquals(2, second.getLastReused());
+        assertEquals(first.entries().get(1).getSha1(), second.entries().get(1).getSha1());
+        assertEquals(2, second.entries().get(1).getHeader().getMapper());
+
+        // Same size, new content and mtime -> re-hashed; deleted file -> dropped
+        byte[] changed = image(0, 1, 1, false, false, 9);
+        Files.write(a, changed);
+        Files.setLastModifiedTime(a, FileTime.fromMillis(Files.getLastModifiedTime(a).toMillis() + 5000));
+        Files.delete(b);
+        second.scan(dir, 0);
+        assertEquals(1, second.getLastHashed());
+        assertEquals(1, second.getLastRemoved());
+        assertEquals(sha1Hex(changed, 16), second.entries().get(0).getSha1());
+        second.save();
+        assertEquals(1, RomIndex.open(file).size());
+
+        // Corrupt index: discarded, rebuilt on the next scan
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(new byte[] { 0, 1, 2 });
+        }
+        RomIndex rebuilt = RomIndex.open(file);
+        assertEquals(0, rebuilt.size());
+        rebuilt.scan(dir, 0);
+        assertEquals(1, rebuilt.getLastHashed());
+    }
+}
@@ -0,0 +1,70 @@
+package com.nesemu.testutil;
+
+import com.nesemu.rom.INesHeader;
+import com.nesemu.rom.INesRom;
+
+/**
+ * Synthetic NROM images for emulator-level tests: 16KB PRG with the reset
+ * code at $8000 and the NMI handler at $8040, 8KB of patterned CHR.
+ */
+public final class TestRoms {
+
+    private TestRoms() {
+    }
+
+    /**
+     * NROM image with the given reset program and NMI handler (IRQ vector also
+     * points at the handler).
+     *
+     * @param reset code at $8000
+     * @param nmi   code at $8040
+     * @return
+     */
+    public static INesRom nrom(int[] reset, int[] nmi) {
+        byte[] header = new byte[16];
+        header[0] = 'N';
+        header[1] = 'E';
+        header[2] = 'S';
+        header[3] = 0x1A;
+        header[4] = 1; // PRG 16KB
+        header[5] = 1; // CHR 8KB
+        INesHeader h = INesHeader.parse(header);
+        byte[] prg = new byte[0x4000];
+        for (int i = 0; i < reset.length; i++)
+            prg[i] = (byte) reset[i];
+        for (int i = 0; i < nmi.length; i++)
+            prg[0x40 + i] = (byte) nmi[i];
+        prg[0x3FFA] = 0x40; // NMI
+        prg[0x3FFB] = (byte) 0x80;
+        prg[0x3FFC] = 0x00; // RESET
+        prg[0x3FFD] = (byte) 0x80;
+        prg[0x3FFE] = 0x40; // IRQ
+        prg[0x3FFF] = (byte) 0x80;
+        byte[] chr = new byte[0x2000];
+        for (int i = 0; i < chr.length; i++)
+            chr[i] = (byte) (i * 37 + (i >> 4));
+        return new INesRom(h, prg, chr, null);
+    }
+
+    /**
+     * Palette 0..2 = 0F 16 27, rendering and NMI on, then a main loop
+     * incrementing $10, with the given NMI handler.
+     *
+     * @param nmi code at $8040
+     * @return
+     */
+    public static INesRom renderLoop(int[] nmi) {
+        int[] reset = {
+                0xA9, 0x3F, 0x8D, 0x06, 0x20, // LDA #$3F / STA $2006
+                0xA9, 0x00, 0x8D, 0x06, 0x20, // LDA #$00 / STA $2006
+                0xA9, 0x0F, 0x8D, 0x07, 0x20, // palette 0..2 = 0F 16 27
+                0xA9, 0x16, 0x8D, 0x07, 0x20,
+                0xA9, 0x27, 0x8D, 0x07, 0x20,
+                0xA9, 0x1E, 0x8D, 0x01, 0x20, // LDA #$1E / STA $2001 (render on)
+                0xA9, 0x80, 0x8D, 0x00, 0x20, // LDA #$80 / STA $2000 (NMI on)
+                0xE6, 0x10, // loop: INC $10
+                0x4C, 0x23, 0x80 // JMP loop
+        };
+        return nrom(reset, nmi);
+    }
+}
@@ -0,0 +1,90 @@
+package com.nesemu.video;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Software frame pipeline: nearest-neighbour upscale / CRT math on the scalar
+ * path, and (when jdk.incubator.vector is available) bit-identical output from
+ * the vectorized implementation.
+ */
+public class FramePipelineTest {
+
+    private static int[] randomFrame(long seed) {
+        Random r = new Random(seed);
+        int[] f = new int[FramePipeline.WIDTH * FramePipeline.HEIGHT];
+        for (int i = 0; i < f.length; i++)
+            f[i] = 0xFF000000 | r.nextInt(0x1000000);
+        return f;
+    }
+
+    @Test
+    public void nearestNeighbourUpscaleReplicatesPixels() {
+        int[] src = randomFrame(1);
+        int k = 3;
+        int outW = FramePipeline.WIDTH * k;
+        int[] dst = new int[outW * FramePipeline.HEIGHT * k];
+        FramePipeline.scalar().scale(src, dst, k, null);
+        for (int y : new int[] { 0, 1, 2, 100, 719 })
+            for (int x : new int[] { 0, 1, 2, 3, 500, 767 })
+                assertEquals(src[(y / k) * 256 + x / k], dst[y * outW + x], "x=" + x + " y=" + y);
+    }
+
+    @Test
+    public void indexedFrameIsResolvedThenUpscaled() {
+        byte[] idx = new byte[256 * 240];
+        new Random(5).nextBytes(idx);
+        int[] lut = randomFrame(6);
+        int k = 2, outW = 512;
+        int[] dst = new int[outW * 480];
+        FramePipeline.scalar().scale(idx, lut, dst, k, null);
+        for (int y : new int[] { 0, 3, 479 })
+            for (int x : new int[] { 0, 1, 2, 511 })
+                assertEquals(lut[idx[(y / k) * 256 + x / k] & 0xFF], dst[y * outW + x], "x=" + x + " y=" + y);
+    }
+
+    @Test
+    public void crtTintsColumnsAndDarkensScanlines() {
+        int[] src = new int[256 * 240];
+        java.util.Arrays.fill(src, 0xFF808080);
+        int k = 2, outW = 512;
+        int[] dst = new int[outW * 480];
+        FramePipeline.scalar().scale(src, dst, k, new CrtMask(outW, 1.0f));
+        int red = dst[0], green = dst[1], scan = dst[outW];
+        assertTrue(((red >> 16) & 0xFF) > (red & 0xFF), "column 0 tinted red");
+        assertTrue(((green >> 8) & 0xFF) > ((green >> 16) & 0xFF), "column 1 tinted green");
+        assertTrue((scan & 0xFF) < (dst[0] & 0xFF) && ((scan >> 16) & 0xFF) < ((red >> 16) & 0xFF),
+                "odd row darker");
+        // Intensity 0 leaves the frame untouched
+        FramePipeline.scalar().scale(src, dst, k, new CrtMask(outW, 0f));
+        assertEquals(0xFF808080, dst[outW + 3]);
+    }
+
+    @Test
+    public void vectorPipelineMatchesScalar() {
+        FramePipeline vec = FramePipeline.create();
+        if (!vec.isVectorized())
+            return; // module not present at runtime: scalar fallback already covered
+        FramePipeline ref = FramePipeline.scalar();
+        int[] src = randomFrame(7);
+        for (int k = 1; k <= 4; k++) {
+            int outW = 256 * k;
+            CrtMask crt = (k >= 2) ? new CrtMask(outW, 0.6f) : null;
+            int[] a = new int[outW * 240 * k];
+            int[] b = new int[a.length];
+            ref.scale(src, a, k, crt);
+            vec.scale(src, b, k, crt);
+            assertArrayEquals(a, b, "scale " + k);
+        }
+        byte[] idx = new byte[256 * 240 + 5]; // odd length exercises the tail
+        new Random(3).nextBytes(idx);
+        int[] lut = randomFrame(9);
+        int[] a = new int[idx.length], b = new int[idx.length];
+        ref.lookup(idx, lut, a, idx.length);
+        vec.lookup(idx, lut, b, idx.length);
+        assertArrayEquals(a, b);
+    }
+}
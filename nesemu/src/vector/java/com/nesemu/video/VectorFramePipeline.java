@@ -0,0 +1,94 @@
+package com.nesemu.video;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link FramePipeline} using jdk.incubator.vector: gathers for the palette
+ * lookup and column expansion, lane-wise fixed-point math for the CRT pass.
+ * Only built with the "vector" Maven profile and only instantiated
+ * (reflectively) by {@link FramePipeline#create()} when the module is present.
+ */
+final class VectorFramePipeline extends FramePipeline {
+
+    private static final VectorSpecies<Integer> INT = IntVector.SPECIES_PREFERRED;
+    // Lookup: 8 palette indices per step (64-bit bytes, the smallest shape on
+    // every platform) widened into int vectors of at most 256 bits, i.e. one
+    // part on AVX2/AVX-512 and two 128-bit parts on SSE/NEON
+    private static final VectorSpecies<Byte> BYTE = ByteVector.SPECIES_64;
+    private static final VectorSpecies<Integer> LOOKUP_INT = INT.vectorBitSize() >= 256 ? IntVector.SPECIES_256
+            : IntVector.SPECIES_128;
+    private static final int LOOKUP_PARTS = BYTE.length() / LOOKUP_INT.length();
+
+    // Widened indices for the gather (lookup source is byte[])
+    private int[] indexScratch = new int[0];
+
+    VectorFramePipeline() {
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    public void lookup(byte[] src, int[] lut, int[] dst, int len) {
+        if (indexScratch.length < len)
+            indexScratch = new int[len];
+        int[] idx = indexScratch;
+        int step = LOOKUP_INT.length();
+        int bound = BYTE.loopBound(len);
+        int i = 0;
+        for (; i < bound; i += BYTE.length()) {
+            ByteVector bytes = ByteVector.fromArray(BYTE, src, i);
+            for (int part = 0, at = i; part < LOOKUP_PARTS; part++, at += step) {
+                bytes.convertShape(VectorOperators.ZERO_EXTEND_B2I, LOOKUP_INT, part)
+                        .reinterpretAsInts()
+                        .intoArray(idx, at);
+                IntVector.fromArray(LOOKUP_INT, lut, 0, idx, at).intoArray(dst, at);
+            }
+        }
+        for (; i < len; i++)
+            dst[i] = lut[src[i] & 0xFF];
+    }
+
+    @Override
+    protected void expandRow(int[] src, int srcOff, int[] dst, int dstOff, int[] xmap, int outW) {
+        int bound = INT.loopBound(outW);
+        int x = 0;
+        for (; x < bound; x += INT.length())
+            IntVector.fromArray(INT, src, srcOff, xmap, x).intoArray(dst, dstOff + x);
+        for (; x < outW; x++)
+            dst[dstOff + x] = src[srcOff + xmap[x]];
+    }
+
+    @Override
+    protected void applyCrtRow(int[] row, int off, CrtMask crt, int phase) {
+        int[] mr = crt.mul[phase][0], mg = crt.mul[phase][1], mb = crt.mul[phase][2];
+        int[] ar = crt.add[phase][0], ag = crt.add[phase][1], ab = crt.add[phase][2];
+        int w = crt.width;
+        int bound = INT.loopBound(w);
+        int x = 0;
+        for (; x < bound; x += INT.length()) {
+            IntVector v = IntVector.fromArray(INT, row, off + x);
+            IntVector r = v.lanewise(VectorOperators.LSHR, 16).and(0xFF)
+                    .mul(IntVector.fromArray(INT, mr, x)).add(IntVector.fromArray(INT, ar, x))
+                    .lanewise(VectorOperators.LSHR, 8);
+            IntVector g = v.lanewise(VectorOperators.LSHR, 8).and(0xFF)
+                    .mul(IntVector.fromArray(INT, mg, x)).add(IntVector.fromArray(INT, ag, x))
+                    .lanewise(VectorOperators.LSHR, 8);
+            IntVector b = v.and(0xFF)
+                    .mul(IntVector.fromArray(INT, mb, x)).add(IntVector.fromArray(INT, ab, x))
+                    .lanewise(VectorOperators.LSHR, 8);
+            r.lanewise(VectorOperators.LSHL, 16)
+                    .or(g.lanewise(VectorOperators.LSHL, 8))
+                    .or(b)
+                    .or(0xFF000000)
+                    .intoArray(row, off + x);
+        }
+        if (x < w)
+            super.applyCrtRowTail(row, off, crt, phase, x);
+    }
+}